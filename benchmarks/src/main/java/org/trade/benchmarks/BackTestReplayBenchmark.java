@@ -0,0 +1,108 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trade.core.persistent.dao.Contract;
+import org.trade.core.persistent.dao.Tradingday;
+import org.trade.core.persistent.dao.series.indicator.CandleSeries;
+import org.trade.core.persistent.dao.series.indicator.StrategyData;
+import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
+import org.trade.core.valuetype.BarSize;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end back test replay of the candles generated by
+ * StrategyData.doDummyData() into a StrategyData that has every indicator. This
+ * is the per candle work the DBBroker does on the back test thread, without the
+ * database load of the candles or the hand-off to the strategy rules.
+ * <p>
+ * candleBarSize 5 replays one day of five-second candles rolled up to
+ * five-minute bars, 300 replays twenty days of five-minute candles.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BackTestReplayBenchmark {
+
+    @Param({"5", "300"})
+    public int candleBarSize;
+
+    private CandleSeries source;
+    private StrategyData strategyData;
+    private int rollupInterval;
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkData.loadConfig();
+        Contract contract = BenchmarkData.createContract();
+        Tradingday tradingday = BenchmarkData.createTradingday();
+        int noDays = candleBarSize < BarSize.FIVE_MIN ? 1 : 20;
+        source = BenchmarkData.createCandleSeries(contract, tradingday, candleBarSize, noDays);
+        strategyData = BenchmarkData.createStrategyData(contract, tradingday, BenchmarkData.createIndicators());
+        rollupInterval = BarSize.FIVE_MIN / candleBarSize;
+    }
+
+    @Benchmark
+    public boolean replayCandle() throws Exception {
+
+        if (index == source.getItemCount()) {
+            strategyData.clearBaseCandleDataset();
+            index = 0;
+        }
+        return BenchmarkData.replayCandle(strategyData, (CandleItem) source.getDataItem(index++), rollupInterval);
+    }
+}
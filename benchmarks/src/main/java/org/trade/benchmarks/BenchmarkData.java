@@ -0,0 +1,301 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.benchmarks;
+
+import org.trade.core.persistent.PersistentModelException;
+import org.trade.core.persistent.dao.Contract;
+import org.trade.core.persistent.dao.Strategy;
+import org.trade.core.persistent.dao.Tradingday;
+import org.trade.core.persistent.dao.series.indicator.AverageTrueRangeSeries;
+import org.trade.core.persistent.dao.series.indicator.BollingerBandsSeries;
+import org.trade.core.persistent.dao.series.indicator.CandleDataset;
+import org.trade.core.persistent.dao.series.indicator.CandleSeries;
+import org.trade.core.persistent.dao.series.indicator.CommodityChannelIndexSeries;
+import org.trade.core.persistent.dao.series.indicator.HeikinAshiSeries;
+import org.trade.core.persistent.dao.series.indicator.IndicatorSeries;
+import org.trade.core.persistent.dao.series.indicator.MACDSeries;
+import org.trade.core.persistent.dao.series.indicator.MoneyFlowIndexSeries;
+import org.trade.core.persistent.dao.series.indicator.MovingAverageSeries;
+import org.trade.core.persistent.dao.series.indicator.PivotSeries;
+import org.trade.core.persistent.dao.series.indicator.RelativeStrengthIndexSeries;
+import org.trade.core.persistent.dao.series.indicator.StochasticOscillatorSeries;
+import org.trade.core.persistent.dao.series.indicator.StrategyData;
+import org.trade.core.persistent.dao.series.indicator.VolumeSeries;
+import org.trade.core.persistent.dao.series.indicator.VostroSeries;
+import org.trade.core.persistent.dao.series.indicator.VwapSeries;
+import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
+import org.trade.core.properties.TradeAppLoadConfig;
+import org.trade.core.util.time.TradingCalendar;
+import org.trade.core.valuetype.BarSize;
+import org.trade.core.valuetype.CalculationType;
+import org.trade.core.valuetype.Currency;
+import org.trade.core.valuetype.Exchange;
+import org.trade.core.valuetype.SECType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic data shared by the benchmarks. Nothing here touches the database,
+ * the candles are generated by StrategyData.doDummyData() and the indicators
+ * are created with the default parameters from default-data.sql.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public final class BenchmarkData {
+
+    public static final String SYMBOL = "TEST";
+    public static final int FIVE_SECONDS = 5;
+
+    /**
+     * The indicator series types benchmarked, one per IndicatorSeries.
+     */
+    public static final String[] INDICATOR_TYPES = {IndicatorSeries.AverageTrueRangeSeries,
+            IndicatorSeries.BollingerBandsSeries, IndicatorSeries.CandleSeries,
+            IndicatorSeries.CommodityChannelIndexSeries, IndicatorSeries.HeikinAshiSeries, IndicatorSeries.MACDSeries,
+            IndicatorSeries.MoneyFlowIndexSeries, IndicatorSeries.MovingAverageSeries, IndicatorSeries.PivotSeries,
+            IndicatorSeries.RelativeStrengthIndexSeries, IndicatorSeries.StochasticOscillatorSeries,
+            IndicatorSeries.VolumeSeries, IndicatorSeries.VostroSeries, IndicatorSeries.VwapSeries};
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Method loadConfig. The benchmarks use the same config.properties as the
+     * tests i.e. -Dtrade.config=file:../config.properties
+     */
+    public static void loadConfig() throws IOException {
+        TradeAppLoadConfig.loadAppProperties();
+    }
+
+    /**
+     * Method createContract.
+     *
+     * @return Contract
+     */
+    public static Contract createContract() {
+        return new Contract(SECType.STOCK, SYMBOL, Exchange.SMART, Currency.USD, null, null);
+    }
+
+    /**
+     * Method createTradingday.
+     *
+     * @return Tradingday the last full trading day.
+     */
+    public static Tradingday createTradingday() {
+        return Tradingday.newInstance(
+                TradingCalendar.getPrevTradingDay(TradingCalendar.getDateTimeNowMarketTimeZone()));
+    }
+
+    /**
+     * Method createCandleSeries. Creates a series of dummy candles.
+     *
+     * @param contract   Contract
+     * @param tradingday Tradingday
+     * @param barSize    int
+     * @param noDays     int
+     * @return CandleSeries
+     */
+    public static CandleSeries createCandleSeries(Contract contract, Tradingday tradingday, int barSize, int noDays)
+            throws PersistentModelException {
+
+        CandleSeries series = new CandleSeries(contract.getSymbol(), contract, barSize, tradingday.getOpen(),
+                tradingday.getClose());
+        StrategyData.doDummyData(series, tradingday, noDays, barSize, true, 0);
+        return series;
+    }
+
+    /**
+     * Method createStrategyData. Creates the StrategyData that trades the
+     * five-minute bar with the given indicators.
+     *
+     * @param contract   Contract
+     * @param tradingday Tradingday
+     * @param indicators List<IndicatorSeries>
+     * @return StrategyData
+     */
+    public static StrategyData createStrategyData(Contract contract, Tradingday tradingday,
+                                                  List<IndicatorSeries> indicators) throws PersistentModelException {
+
+        Strategy strategy = new Strategy("Benchmark");
+        strategy.setIndicatorSeries(indicators);
+        CandleDataset candleDataset = new CandleDataset();
+        candleDataset.addSeries(new CandleSeries(contract.getSymbol(), contract, BarSize.FIVE_MIN,
+                tradingday.getOpen(), tradingday.getClose()));
+        return new StrategyData(strategy, candleDataset);
+    }
+
+    /**
+     * Method createIndicators.
+     *
+     * @return List<IndicatorSeries> one of each of the indicators.
+     */
+    public static List<IndicatorSeries> createIndicators() {
+
+        List<IndicatorSeries> indicators = new ArrayList<>();
+        for (String type : INDICATOR_TYPES) {
+            if (!IndicatorSeries.CandleSeries.equals(type)) {
+                indicators.add(createIndicator(type));
+            }
+        }
+        return indicators;
+    }
+
+    /**
+     * Method createIndicator.
+     *
+     * @param type String the IndicatorSeries type.
+     * @return IndicatorSeries
+     */
+    public static IndicatorSeries createIndicator(String type) {
+
+        IndicatorSeries series;
+        if (IndicatorSeries.AverageTrueRangeSeries.equals(type)) {
+            AverageTrueRangeSeries atr = new AverageTrueRangeSeries();
+            atr.setLength(14);
+            atr.setRollingCandle(false);
+            series = atr;
+        } else if (IndicatorSeries.BollingerBandsSeries.equals(type)) {
+            BollingerBandsSeries bollingerBands = new BollingerBandsSeries();
+            bollingerBands.setLength(20);
+            bollingerBands.setNumberOfSTD(new BigDecimal("2.0"));
+            bollingerBands.setIsUpper(true);
+            series = bollingerBands;
+        } else if (IndicatorSeries.CandleSeries.equals(type)) {
+            CandleSeries candleSeries = new CandleSeries();
+            candleSeries.setBarSize(BarSize.FIVE_MIN);
+            series = candleSeries;
+        } else if (IndicatorSeries.CommodityChannelIndexSeries.equals(type)) {
+            CommodityChannelIndexSeries cci = new CommodityChannelIndexSeries();
+            cci.setLength(20);
+            cci.setRollingCandle(false);
+            series = cci;
+        } else if (IndicatorSeries.HeikinAshiSeries.equals(type)) {
+            series = new HeikinAshiSeries();
+        } else if (IndicatorSeries.MACDSeries.equals(type)) {
+            MACDSeries macd = new MACDSeries();
+            macd.setFastLength(12);
+            macd.setSlowLength(26);
+            macd.setSignalSmoothing(9);
+            macd.setSimpleMAType(true);
+            series = macd;
+        } else if (IndicatorSeries.MoneyFlowIndexSeries.equals(type)) {
+            MoneyFlowIndexSeries mfi = new MoneyFlowIndexSeries();
+            mfi.setLength(14);
+            mfi.setRollingCandle(false);
+            series = mfi;
+        } else if (IndicatorSeries.MovingAverageSeries.equals(type)) {
+            series = createMovingAverage(CalculationType.LINEAR);
+        } else if (IndicatorSeries.PivotSeries.equals(type)) {
+            PivotSeries pivot = new PivotSeries();
+            pivot.setBars(5);
+            pivot.setSide(false);
+            pivot.setQuadratic(true);
+            series = pivot;
+        } else if (IndicatorSeries.RelativeStrengthIndexSeries.equals(type)) {
+            RelativeStrengthIndexSeries rsi = new RelativeStrengthIndexSeries();
+            rsi.setLength(14);
+            rsi.setRollingCandle(false);
+            series = rsi;
+        } else if (IndicatorSeries.StochasticOscillatorSeries.equals(type)) {
+            StochasticOscillatorSeries stochastic = new StochasticOscillatorSeries();
+            stochastic.setLength(14);
+            stochastic.setKSmoothing(1);
+            stochastic.setPercentD(3);
+            stochastic.setInverse(false);
+            series = stochastic;
+        } else if (IndicatorSeries.VolumeSeries.equals(type)) {
+            VolumeSeries volume = new VolumeSeries();
+            volume.setBarWidthInMilliseconds(BarSize.FIVE_MIN * 1000L);
+            series = volume;
+        } else if (IndicatorSeries.VostroSeries.equals(type)) {
+            VostroSeries vostro = new VostroSeries();
+            vostro.setLength(100);
+            vostro.setMAType(CalculationType.WEIGHTED);
+            vostro.setVostroPeriod(5);
+            vostro.setVostroRange(new BigDecimal("8.0"));
+            vostro.setPriceSource(5);
+            series = vostro;
+        } else if (IndicatorSeries.VwapSeries.equals(type)) {
+            series = new VwapSeries();
+        } else {
+            throw new IllegalArgumentException("Unknown indicator series type: " + type);
+        }
+        series.setName(type);
+        return series;
+    }
+
+    /**
+     * Method createMovingAverage.
+     *
+     * @param MAType String the CalculationType.
+     * @return MovingAverageSeries
+     */
+    public static MovingAverageSeries createMovingAverage(String MAType) {
+
+        MovingAverageSeries movingAverage = new MovingAverageSeries();
+        movingAverage.setLength(20);
+        movingAverage.setMAType(MAType);
+        movingAverage.setPriceSource(1);
+        movingAverage.setName(IndicatorSeries.MovingAverageSeries);
+        return movingAverage;
+    }
+
+    /**
+     * Method replayCandle. Adds the candle to the StrategyData in the same way
+     * as the DBBroker does for back testing.
+     *
+     * @param strategyData   StrategyData
+     * @param candleItem     CandleItem
+     * @param rollupInterval int
+     * @return boolean true if this was a new bar.
+     */
+    public static boolean replayCandle(StrategyData strategyData, CandleItem candleItem, int rollupInterval)
+            throws PersistentModelException {
+
+        Contract contract = strategyData.getBaseCandleSeries().getContract();
+        BigDecimal price = BigDecimal.valueOf(candleItem.getClose());
+        contract.setLastAskPrice(price);
+        contract.setLastBidPrice(price);
+        contract.setLastPrice(price);
+        return strategyData.buildCandle(candleItem.getPeriod().getStart(), candleItem.getOpen(), candleItem.getHigh(),
+                candleItem.getLow(), candleItem.getClose(), candleItem.getVolume(), candleItem.getVwap(),
+                candleItem.getCount(), rollupInterval, candleItem.getLastUpdateDate());
+    }
+}
@@ -0,0 +1,81 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Main class for benchmarks.jar. Runs the JMH benchmarks that match the
+ * command line, the gc profiler is always added so every result reports
+ * gc.alloc.rate.norm i.e. bytes/bar as well as ns/bar.
+ * <p>
+ * java -Dtrade.config=file:../config.properties -jar target/benchmarks.jar
+ * [JMH options] [benchmark regexp]
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class BenchmarkRunner {
+
+    private final static String TRADE_CONFIG = "trade.config";
+    private final static String BENCHMARK_SEED = "trade.benchmark.seed";
+
+    /**
+     * Method main.
+     *
+     * @param args String[] the JMH command line options.
+     */
+    public static void main(String[] args) throws Exception {
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class);
+        /*
+         * The benchmarks run in forked JVMs so pass on the config file and
+         * the flag that lets TradingdayLoadBenchmark seed the database.
+         */
+        for (String property : new String[]{TRADE_CONFIG, BENCHMARK_SEED}) {
+            String value = System.getProperty(property);
+            if (null != value) {
+                options.jvmArgsAppend("-D" + property + "=" + value);
+            }
+        }
+        new Runner(options.build()).run();
+    }
+}
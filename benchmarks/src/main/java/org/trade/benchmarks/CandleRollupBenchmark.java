@@ -0,0 +1,99 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trade.core.persistent.dao.Contract;
+import org.trade.core.persistent.dao.Tradingday;
+import org.trade.core.persistent.dao.series.indicator.CandleSeries;
+import org.trade.core.persistent.dao.series.indicator.StrategyData;
+import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
+import org.trade.core.valuetype.BarSize;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rolls five-second bars up into five-minute bars via StrategyData.buildCandle()
+ * with no indicators. Each operation is one five-second bar so the results are
+ * ns/bar and, with the gc profiler, bytes/bar.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CandleRollupBenchmark {
+
+    private CandleSeries source;
+    private StrategyData strategyData;
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkData.loadConfig();
+        Contract contract = BenchmarkData.createContract();
+        Tradingday tradingday = BenchmarkData.createTradingday();
+        source = BenchmarkData.createCandleSeries(contract, tradingday, BenchmarkData.FIVE_SECONDS, 1);
+        strategyData = BenchmarkData.createStrategyData(contract, tradingday, new ArrayList<>());
+    }
+
+    @Benchmark
+    public boolean rollupFiveSecondBar() throws Exception {
+
+        if (index == source.getItemCount()) {
+            strategyData.clearBaseCandleDataset();
+            index = 0;
+        }
+        return BenchmarkData.replayCandle(strategyData, (CandleItem) source.getDataItem(index++),
+                BarSize.FIVE_MIN / BenchmarkData.FIVE_SECONDS);
+    }
+}
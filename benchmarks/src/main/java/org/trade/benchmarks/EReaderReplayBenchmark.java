@@ -0,0 +1,257 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.benchmarks;
+
+import com.ib.client.DefaultEWrapper;
+import com.ib.client.EClientSocket;
+import com.ib.client.EJavaSignal;
+import com.ib.client.EReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a recorded TWS message stream through EReader i.e. the socket read,
+ * the message queue and the EDecoder field parsing up to the EWrapper
+ * callbacks.
+ * <p>
+ * The recording is the raw bytes read from the TWS socket after the connect
+ * handshake, each message is a 4 byte length followed by the fields. When
+ * recording is not set a stream of tick price/size, RT_VOLUME and 5sec
+ * realtime bar messages for 500 contracts is generated.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EReaderReplayBenchmark {
+
+    private static final int MESSAGES = 10000;
+    private static final int SERVER_VERSION = 76;
+    private static final int PROCESS_EVERY = 64;
+
+    @Param({""})
+    public String recording;
+
+    private byte[] stream;
+    private int messages;
+    private ReplaySocket socket;
+    private EReader reader;
+    private CountingWrapper wrapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        if (recording.isEmpty()) {
+            stream = createStream(MESSAGES, 500);
+        } else {
+            stream = Files.readAllBytes(Paths.get(recording));
+        }
+        messages = countMessages(stream);
+        wrapper = new CountingWrapper();
+        socket = new ReplaySocket(wrapper);
+        reader = new EReader(socket, new EJavaSignal());
+    }
+
+    /**
+     * Read and decode the whole stream, the average time is per message when
+     * the generated stream is used.
+     *
+     * @return long the number of callbacks.
+     */
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long replay() throws IOException {
+
+        socket.replay(stream);
+        for (int i = 0; i < messages; i++) {
+            reader.putMessageToQueue();
+            if (i % PROCESS_EVERY == 0) {
+                reader.processMsgs();
+            }
+        }
+        reader.processMsgs();
+        return wrapper.callbacks;
+    }
+
+    /**
+     * Method createStream. Build a market data stream in the TWS wire format.
+     *
+     * @param messages  int
+     * @param contracts int
+     * @return byte[]
+     */
+    static byte[] createStream(int messages, int contracts) throws IOException {
+
+        Random random = new Random(1);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(messages * 48);
+        DataOutputStream frames = new DataOutputStream(out);
+        long time = 1700000000L;
+
+        for (int i = 0; i < messages; i++) {
+
+            int tickerId = random.nextInt(contracts);
+            String price = String.format(Locale.ROOT, "%.2f", 20 + random.nextDouble() * 200);
+            int size = 1 + random.nextInt(50);
+
+            switch (i % 8) {
+                case 0, 1, 2 -> writeFrame(frames, "1", "6", tickerId, 1 + random.nextInt(2) * 3, price, size, 1);
+                case 3, 4 -> writeFrame(frames, "2", "6", tickerId, random.nextInt(2) * 3, size);
+                case 5, 6 -> writeFrame(frames, "46", "6", tickerId, 48,
+                        price + ";" + size + ";" + (time * 1000) + ";" + (size * 1000) + ";" + price + ";false");
+                default -> writeFrame(frames, "50", "3", tickerId, time + i / 8, price, price, price, price,
+                        size * 10, price, size);
+            }
+        }
+        frames.flush();
+        return out.toByteArray();
+    }
+
+    private static void writeFrame(DataOutputStream frames, Object... fields) throws IOException {
+
+        ByteArrayOutputStream msg = new ByteArrayOutputStream(64);
+        for (Object field : fields) {
+            msg.write(field.toString().getBytes(StandardCharsets.ISO_8859_1));
+            msg.write(0);
+        }
+        frames.writeInt(msg.size());
+        msg.writeTo(frames);
+    }
+
+    private static int countMessages(byte[] stream) throws IOException {
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(stream));
+        int count = 0;
+        while (in.available() > 0) {
+            in.skipNBytes(in.readInt());
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * EClientSocket that reads from the recording instead of a socket.
+     */
+    private static class ReplaySocket extends EClientSocket {
+
+        private DataInputStream in;
+
+        ReplaySocket(CountingWrapper wrapper) {
+            super(wrapper, new EJavaSignal());
+            m_serverVersion = SERVER_VERSION;
+        }
+
+        void replay(byte[] stream) {
+            in = new DataInputStream(new ByteArrayInputStream(stream));
+        }
+
+        @Override
+        public boolean isUseV100Plus() {
+            return true;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            return in.read(buf, off, len);
+        }
+
+        @Override
+        public int readInt() throws IOException {
+            return in.readInt();
+        }
+    }
+
+    /**
+     * Consume the callbacks so the decoded values are not dead code.
+     */
+    private static class CountingWrapper extends DefaultEWrapper {
+
+        private long callbacks = 0;
+        private double sum = 0;
+
+        @Override
+        public void tickPrice(int tickerId, int field, double price, int canAutoExecute) {
+            callbacks++;
+            sum += price;
+        }
+
+        @Override
+        public void tickSize(int tickerId, int field, int size) {
+            callbacks++;
+            sum += size;
+        }
+
+        @Override
+        public void tickString(int tickerId, int tickType, String value) {
+            callbacks++;
+            sum += value.length();
+        }
+
+        @Override
+        public void realtimeBar(int reqId, long time, double open, double high, double low, double close,
+                                long volume, double wap, int count) {
+            callbacks++;
+            sum += close;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trade.core.persistent.dao.Contract;
+import org.trade.core.persistent.dao.Tradingday;
+import org.trade.core.persistent.dao.series.indicator.CandleSeries;
+import org.trade.core.persistent.dao.series.indicator.IndicatorSeries;
+import org.trade.core.valuetype.BarSize;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * IndicatorSeries.updateSeries() for each of the indicator series over twenty
+ * days of five-minute bars. newBar adds the next bar, updateBar re-calculates
+ * the current bar as happens for every five-second bar in a five-minute bar.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IndicatorSeriesBenchmark {
+
+    @Param({"AverageTrueRangeSeries", "BollingerBandsSeries", "CandleSeries", "CommodityChannelIndexSeries",
+            "HeikinAshiSeries", "MACDSeries", "MoneyFlowIndexSeries", "MovingAverageSeries", "PivotSeries",
+            "RelativeStrengthIndexSeries", "StochasticOscillatorSeries", "VolumeSeries", "VostroSeries",
+            "VwapSeries"})
+    public String type;
+
+    private CandleSeries source;
+    private IndicatorSeries series;
+    private IndicatorSeries currentBarSeries;
+    private int index = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        BenchmarkData.loadConfig();
+        Contract contract = BenchmarkData.createContract();
+        Tradingday tradingday = BenchmarkData.createTradingday();
+        source = BenchmarkData.createCandleSeries(contract, tradingday, BarSize.FIVE_MIN, 20);
+        series = BenchmarkData.createIndicator(type);
+        currentBarSeries = BenchmarkData.createIndicator(type);
+        for (int i = 0; i < source.getItemCount(); i++) {
+            currentBarSeries.updateSeries(source, i, true);
+        }
+    }
+
+    @Benchmark
+    public IndicatorSeries newBar() throws Exception {
+
+        if (index == source.getItemCount()) {
+            series.clear();
+            index = 0;
+        }
+        series.updateSeries(source, index++, true);
+        return series;
+    }
+
+    @Benchmark
+    public IndicatorSeries updateBar() throws Exception {
+
+        currentBarSeries.updateSeries(source, source.getItemCount() - 1, false);
+        return currentBarSeries;
+    }
+}
@@ -0,0 +1,119 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.trade.core.persistent.dao.series.indicator.pivot.PivotCalculator;
+import org.trade.core.util.MatrixFunctions;
+import org.trade.core.util.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The polynomial regression used for pivots. calculatePivot is called by the
+ * PivotSeries for every bar with the pairs for the last n bars.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PivotCalculatorBenchmark {
+
+    @Param({"5", "7", "50"})
+    public int bars;
+
+    @Param({"2", "3"})
+    public int polyOrder;
+
+    private PivotCalculator pivotCalculator;
+    private double[] xValues;
+    private double[] yValues;
+    private Pair[] pairs;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+
+        pivotCalculator = new PivotCalculator(polyOrder, 0.6);
+        Random random = new Random(bars);
+        xValues = new double[bars];
+        yValues = new double[bars];
+        pairs = new Pair[bars];
+        double vwap = 30.94;
+        for (int i = 0; i < bars; i++) {
+            vwap = vwap + (random.nextGaussian() / 10);
+            xValues[i] = i;
+            yValues[i] = vwap;
+            pairs[i] = new Pair(xValues[i], yValues[i]);
+        }
+    }
+
+    @Benchmark
+    public boolean calculatePivot() {
+
+        List<Pair> userData = new ArrayList<>(bars);
+        for (int i = 0; i < bars; i++) {
+            userData.add(new Pair(xValues[i], yValues[i]));
+        }
+        return pivotCalculator.calculatePivot(userData);
+    }
+
+    @Benchmark
+    public double regression() {
+
+        double[] terms = MatrixFunctions.getCalculatedCoeffients(pairs, polyOrder);
+        return MatrixFunctions.getCorrelationCoefficient(pairs, terms)
+                + MatrixFunctions.getStandardError(pairs, terms);
+    }
+}
@@ -0,0 +1,259 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.benchmarks;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.dao.EntityManagerHelper;
+import org.trade.core.persistent.dao.Contract;
+import org.trade.core.persistent.dao.Tradestrategy;
+import org.trade.core.persistent.dao.Tradingday;
+import org.trade.core.persistent.dao.TradingdayHome;
+import org.trade.core.persistent.dao.Tradingdays;
+import org.trade.core.util.time.TradingCalendar;
+import org.trade.core.valuetype.Currency;
+import org.trade.core.valuetype.Exchange;
+import org.trade.core.valuetype.SECType;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading a date range of tradingdays as the Tradingday Tab does. The
+ * database is seeded with days x symbols tradestrategies on trading days in
+ * 2001 which are removed again at the end of the trial.
+ * <p>
+ * loader graph is TradingdayHome.findTradingdaysByDateRange(), lite is
+ * findTradingdaysLiteByDateRange() and lazy initializes each tradestrategies
+ * collections in turn as the finder used to. The SQL statements per load are
+ * logged after each iteration from the Hibernate statistics.
+ * <p>
+ * Rows are added to and deleted from the database in config.properties so
+ * point it at a test schema. The benchmark will not run unless
+ * trade.benchmark.seed is true i.e.
+ * java -Dtrade.config=file:../config.properties -Dtrade.benchmark.seed=true
+ * -jar target/benchmarks.jar TradingdayLoadBenchmark
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class TradingdayLoadBenchmark {
+
+    private final static Logger _log = LoggerFactory.getLogger(TradingdayLoadBenchmark.class);
+
+    private static final String SYMBOL_PREFIX = "BENCH";
+    private static final String BENCHMARK_SEED = "trade.benchmark.seed";
+
+    @Param({"20", "250"})
+    public int days;
+
+    @Param({"100"})
+    public int symbols;
+
+    @Param({"graph", "lite", "lazy"})
+    public String loader;
+
+    private final TradingdayHome tradingdayHome = new TradingdayHome();
+    private final List<Integer> idTradingdays = new ArrayList<>();
+    private ZonedDateTime startDate;
+    private ZonedDateTime endDate;
+    private long statements = 0;
+    private long loads = 0;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+
+        if (!Boolean.getBoolean(BENCHMARK_SEED)) {
+            throw new IllegalStateException("TradingdayLoadBenchmark adds and deletes rows in the database of "
+                    + "config.properties, run it against a test schema with -D" + BENCHMARK_SEED + "=true");
+        }
+        BenchmarkData.loadConfig();
+        EntityManagerHelper.getStatistics().setStatisticsEnabled(true);
+        startDate = TradingCalendar.getTradingDayStart(
+                ZonedDateTime.of(2001, 1, 2, 0, 0, 0, 0, TradingCalendar.MKT_TIMEZONE));
+        endDate = startDate;
+
+        EntityManager entityManager = EntityManagerHelper.getEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            for (int i = 0; i < symbols; i++) {
+                Contract contract = new Contract(SECType.STOCK, String.format("%s%03d", SYMBOL_PREFIX, i),
+                        Exchange.SMART, Currency.USD, null, null);
+                entityManager.persist(contract);
+            }
+            ZonedDateTime date = startDate;
+            for (int i = 0; i < days; i++) {
+                Tradingday tradingday = Tradingday.newInstance(date);
+                entityManager.persist(tradingday);
+                entityManager.flush();
+                idTradingdays.add(tradingday.getId());
+                endDate = tradingday.getOpen();
+                date = TradingCalendar.getNextTradingDay(date);
+            }
+            /*
+             * One tradestrategy per symbol per day for the first strategy and
+             * portfolio.
+             */
+            entityManager.createNativeQuery("insert into tradestrategy (bar_size, chart_days, risk_amount, trade, "
+                            + "last_update_date, version, id_trading_day, id_contract, id_strategy, id_portfolio) "
+                            + "select 300, 2, 1000, 1, now(3), 0, t.id, c.id, (select min(id) from strategy), "
+                            + "(select min(id) from portfolio) from tradingday t, contract c "
+                            + "where t.id in (:idTradingdays) and c.symbol like :symbol")
+                    .setParameter("idTradingdays", idTradingdays).setParameter("symbol", SYMBOL_PREFIX + "%")
+                    .executeUpdate();
+            entityManager.getTransaction().commit();
+        } catch (Exception ex) {
+            EntityManagerHelper.rollback();
+            tearDown();
+            throw ex;
+        } finally {
+            EntityManagerHelper.close();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+
+        EntityManager entityManager = EntityManagerHelper.getEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            entityManager.createNativeQuery("delete from tradestrategy where id_contract in "
+                    + "(select id from contract where symbol like :symbol)")
+                    .setParameter("symbol", SYMBOL_PREFIX + "%").executeUpdate();
+            if (!idTradingdays.isEmpty()) {
+                entityManager.createNativeQuery("delete from tradingday where id in (:idTradingdays)")
+                        .setParameter("idTradingdays", idTradingdays).executeUpdate();
+            }
+            entityManager.createNativeQuery("delete from contract where symbol like :symbol")
+                    .setParameter("symbol", SYMBOL_PREFIX + "%").executeUpdate();
+            entityManager.getTransaction().commit();
+        } finally {
+            EntityManagerHelper.close();
+            EntityManagerHelper.evictAllCaches();
+            idTradingdays.clear();
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        statements = EntityManagerHelper.getStatistics().getPrepareStatementCount();
+        loads = 0;
+    }
+
+    @TearDown(Level.Iteration)
+    public void endIteration() {
+        Statistics stats = EntityManagerHelper.getStatistics();
+        if (loads > 0) {
+            _log.info("TradingdayLoadBenchmark loader: {} days: {} symbols: {} statements/load: {}", loader, days,
+                    symbols, (stats.getPrepareStatementCount() - statements) / loads);
+        }
+    }
+
+    @Benchmark
+    public Tradingdays load() {
+
+        loads++;
+        return switch (loader) {
+            case "lite" -> tradingdayHome.findTradingdaysLiteByDateRange(startDate, endDate);
+            case "lazy" -> findTradingdaysLazy(startDate, endDate);
+            default -> tradingdayHome.findTradingdaysByDateRange(startDate, endDate);
+        };
+    }
+
+    /**
+     * Method findTradingdaysLazy. The date range load initializing each
+     * tradestrategies collections one at a time.
+     *
+     * @param startDate ZonedDateTime
+     * @param endDate   ZonedDateTime
+     * @return Tradingdays
+     */
+    private Tradingdays findTradingdaysLazy(ZonedDateTime startDate, ZonedDateTime endDate) {
+
+        try {
+            EntityManager entityManager = EntityManagerHelper.getEntityManager();
+            entityManager.getTransaction().begin();
+            Tradingdays tradingdays = new Tradingdays();
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Tradingday> query = builder.createQuery(Tradingday.class);
+            Root<Tradingday> from = query.from(Tradingday.class);
+            query.select(from);
+            query.orderBy(builder.desc(from.get("open")));
+            query.where(builder.between(from.get("open"), startDate, endDate));
+            for (Tradingday tradingday : entityManager.createQuery(query).getResultList()) {
+                tradingdays.add(tradingday);
+                for (Tradestrategy tradestrategy : tradingday.getTradestrategies()) {
+                    tradestrategy.getTradeOrders().size();
+                    tradestrategy.getPortfolio().getPortfolioAccounts().size();
+                    tradestrategy.getStrategy().getIndicatorSeries().size();
+                }
+            }
+            entityManager.getTransaction().commit();
+            return tradingdays;
+        } catch (Exception ex) {
+            EntityManagerHelper.rollback();
+            throw ex;
+        } finally {
+            EntityManagerHelper.close();
+        }
+    }
+}
@@ -357,6 +357,17 @@ public abstract class AbstractBrokerModel implements IBrokerModel, Cloneable, Se
         }
     }
 
+    /**
+     * Method getOrderBook.
+     *
+     * @return BackTestOrderBook
+     * @see IBrokerModel#getOrderBook()
+     */
+    public BackTestOrderBook getOrderBook() {
+
+        return null;
+    }
+
     /**
      * Method isBrokerDataOnly.
      *
@@ -44,6 +44,7 @@ import org.trade.core.broker.client.IClientWrapper;
 import org.trade.core.broker.client.OrderState;
 import org.trade.core.factory.ClassFactory;
 import org.trade.core.persistent.IPersistentModel;
+import org.trade.core.persistent.PersistentModelException;
 import org.trade.core.persistent.dao.Contract;
 import org.trade.core.persistent.dao.TradeOrder;
 import org.trade.core.persistent.dao.TradeOrderfill;
@@ -82,6 +83,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
     private static final ConcurrentHashMap<Integer, Contract> m_realTimeBarsRequests = new ConcurrentHashMap<>();
     private static final ConcurrentHashMap<Integer, Contract> m_contractRequests = new ConcurrentHashMap<>();
     private final IPersistentModel m_tradePersistentModel;
+    private final BackTestOrderBook m_orderBook;
 
     private final ClientSocket m_client;
 
@@ -94,11 +96,13 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
     private static final String backfillWhatToShow;
     private static final Integer backfillOffsetDays = 0;
     private static final Integer backfillUseRTH;
+    private static final boolean backTestOrderBook;
 
     static {
         try {
             backfillWhatToShow = ConfigProperties.getPropAsString("trade.backfill.whatToShow");
             backfillUseRTH = ConfigProperties.getPropAsInt("trade.backfill.useRTH");
+            backTestOrderBook = ConfigProperties.getPropAsBoolean("trade.backtest.orderBook");
 
         } catch (Exception ex) {
             throw new IllegalArgumentException("Error initializing IBrokerModel Msg: " + ex.getMessage());
@@ -112,6 +116,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
             m_client = new ClientSocket(this);
             m_tradePersistentModel = (IPersistentModel) ClassFactory
                     .getServiceForInterface(IPersistentModel._persistentModel, this);
+            m_orderBook = (backTestOrderBook ? new BackTestOrderBook(m_tradePersistentModel) : null);
             int maxKey = m_tradePersistentModel.findTradeOrderByMaxKey();
 
             if (maxKey < 100000) {
@@ -187,6 +192,17 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
         return m_client.getBackTestBroker(idTradestrategy);
     }
 
+    /**
+     * Method getOrderBook.
+     *
+     * @return BackTestOrderBook
+     * @see IBrokerModel#getOrderBook()
+     */
+    public BackTestOrderBook getOrderBook() {
+
+        return m_orderBook;
+    }
+
     /**
      * Method getNextRequestId.
      *
@@ -624,7 +640,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
                 if (null == tradeOrder.getClientId()) {
                     tradeOrder.setClientId(999);
                 }
-                TradeOrder transientInstance = m_tradePersistentModel.persistTradeOrder(tradeOrder);
+                TradeOrder transientInstance = persistTradeOrder(tradeOrder);
                 // Debug logging
                 _log.debug("Order Placed Key: {}", transientInstance.getOrderKey());
                 TWSBrokerModel.logContract(TWSBrokerModel.getIBContract(contract));
@@ -675,8 +691,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
 
             BackTestBrokerModel.logExecution(execution);
 
-            TradeOrder transientInstance = m_tradePersistentModel
-                    .findTradeOrderByKey(execution.getTradeOrder().getOrderKey());
+            TradeOrder transientInstance = findTradeOrderByKey(execution.getTradeOrder().getOrderKey());
 
             if (null == transientInstance) {
 
@@ -700,7 +715,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
             transientInstance.setFilledQuantity(tradeOrderfill.getCumulativeQuantity());
             transientInstance.setFilledDate(tradeOrderfill.getTime());
             boolean isFilled = transientInstance.getIsFilled();
-            TradeOrder updatedOrder = m_tradePersistentModel.persistTradeOrderfill(transientInstance);
+            TradeOrder updatedOrder = persistTradeOrderfill(transientInstance);
 
             // Let the controller know an order was filled
             if (updatedOrder.getIsFilled() && !isFilled)
@@ -735,7 +750,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
 
         try {
 
-            TradeOrder transientInstance = m_tradePersistentModel.findTradeOrderByKey(tradeOrder.getOrderKey());
+            TradeOrder transientInstance = findTradeOrderByKey(tradeOrder.getOrderKey());
             if (null == transientInstance) {
                 error(orderId, 3170, "Warning Order not found for Order Key: " + orderId + " make sure Client ID: " + 0
                         + " is not the master in TWS. On openOrder update.");
@@ -755,7 +770,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
                     BackTestBrokerModel.logOrderState(orderState);
                     BackTestBrokerModel.logTradeOrder(tradeOrder);
 
-                    TradeOrder updatedOrder = m_tradePersistentModel.persistTradeOrder(transientInstance);
+                    TradeOrder updatedOrder = persistTradeOrder(transientInstance);
 
                     if (updatedOrder.hasTradePosition() && !updatedOrder.getTradePosition().isOpen()) {
                         // Let the controller know a position was closed
@@ -765,7 +780,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
                     _log.debug("Order key: {} state changed. Status:{}", transientInstance.getOrderKey(), orderState.m_status);
                     BackTestBrokerModel.logOrderState(orderState);
                     BackTestBrokerModel.logTradeOrder(tradeOrder);
-                    TradeOrder updatedOrder = m_tradePersistentModel.persistTradeOrder(transientInstance);
+                    TradeOrder updatedOrder = persistTradeOrder(transientInstance);
                     if (OrderStatus.CANCELLED.equals(updatedOrder.getStatus())) {
                         // Let the controller know a position was closed
                         this.fireTradeOrderCancelled(updatedOrder);
@@ -780,6 +795,49 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
     public void openOrderEnd() {
     }
 
+    /**
+     * Method findTradeOrderByKey. Orders held in the back test order book are
+     * found there, all others come from the database.
+     *
+     * @param orderKey Integer
+     * @return TradeOrder
+     */
+    private TradeOrder findTradeOrderByKey(Integer orderKey) {
+
+        if (null != m_orderBook && m_orderBook.containsTradeOrder(orderKey)) {
+            return m_orderBook.findTradeOrderByKey(orderKey);
+        }
+        return m_tradePersistentModel.findTradeOrderByKey(orderKey);
+    }
+
+    /**
+     * Method persistTradeOrder.
+     *
+     * @param tradeOrder TradeOrder
+     * @return TradeOrder
+     */
+    private TradeOrder persistTradeOrder(TradeOrder tradeOrder) throws PersistentModelException {
+
+        if (null != m_orderBook && m_orderBook.isManaged(tradeOrder)) {
+            return m_orderBook.persistTradeOrder(tradeOrder);
+        }
+        return m_tradePersistentModel.persistTradeOrder(tradeOrder);
+    }
+
+    /**
+     * Method persistTradeOrderfill.
+     *
+     * @param tradeOrder TradeOrder
+     * @return TradeOrder
+     */
+    private TradeOrder persistTradeOrderfill(TradeOrder tradeOrder) throws PersistentModelException {
+
+        if (null != m_orderBook && m_orderBook.isManaged(tradeOrder)) {
+            return m_orderBook.persistTradeOrderfill(tradeOrder);
+        }
+        return m_tradePersistentModel.persistTradeOrderfill(tradeOrder);
+    }
+
     /**
      * Method orderStatus.
      * <p>
@@ -802,7 +860,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
 
         try {
 
-            TradeOrder transientInstance = m_tradePersistentModel.findTradeOrderByKey(orderId);
+            TradeOrder transientInstance = findTradeOrderByKey(orderId);
 
             if (null == transientInstance) {
                 error(orderId, 3170, "Warning Order not found for Order Key: " + orderId + " make sure Client ID: " + 0
@@ -849,7 +907,7 @@ public class BackTestBrokerModel extends AbstractBrokerModel implements IClientW
                         lastFillPrice, clientId, whyHeld);
 
                 boolean isFilled = transientInstance.getIsFilled();
-                TradeOrder updatedOrder = m_tradePersistentModel.persistTradeOrder(transientInstance);
+                TradeOrder updatedOrder = persistTradeOrder(transientInstance);
 
                 if (OrderStatus.CANCELLED.equals(updatedOrder.getStatus())) {
 
@@ -0,0 +1,671 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.broker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.persistent.IPersistentModel;
+import org.trade.core.persistent.PersistentModelException;
+import org.trade.core.persistent.dao.TradeOrder;
+import org.trade.core.persistent.dao.TradeOrderfill;
+import org.trade.core.persistent.dao.TradePosition;
+import org.trade.core.persistent.dao.TradestrategyLite;
+import org.trade.core.persistent.dao.TradestrategyOrders;
+import org.trade.core.util.CoreUtils;
+import org.trade.core.util.time.TradingCalendar;
+import org.trade.core.valuetype.Action;
+import org.trade.core.valuetype.Money;
+import org.trade.core.valuetype.OrderStatus;
+import org.trade.core.valuetype.Side;
+import org.trade.core.valuetype.TradestrategyStatus;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * In memory order book used by back testing. The orders, fills and positions
+ * for a Tradestrategy are held here while the DBBroker replays the candles,
+ * both the DBBroker and the strategy workers read and write the same
+ * instances. When the run for the Tradestrategy completes the order book is
+ * flushed to the database in one pass.
+ * <p>
+ * The position/fill logic mirrors TradePersistentModel.persistTradeOrder() so
+ * that the TradelogReport is the same as when every order is persisted as it
+ * changes.
+ */
+public class BackTestOrderBook {
+
+    private final static Logger _log = LoggerFactory.getLogger(BackTestOrderBook.class);
+
+    private static final int SCALE_5 = 5;
+    private static final int SCALE_2 = 2;
+
+    private final IPersistentModel m_tradePersistentModel;
+
+    // Use Tradestrategy getId as key
+    private final ConcurrentHashMap<Integer, Ledger> m_ledgers = new ConcurrentHashMap<>();
+    // Use TradeOrder getOrderKey as key
+    private final ConcurrentHashMap<Integer, Ledger> m_orderKeys = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor for BackTestOrderBook.
+     *
+     * @param tradePersistentModel IPersistentModel
+     */
+    public BackTestOrderBook(IPersistentModel tradePersistentModel) {
+        this.m_tradePersistentModel = tradePersistentModel;
+    }
+
+    /**
+     * Method open. Load the current orders/position for the tradestrategy
+     * into the order book. From this point all order changes for the
+     * tradestrategy are held in memory until flush() is called.
+     *
+     * @param idTradestrategy Integer
+     */
+    public void open(Integer idTradestrategy) throws PersistentModelException {
+
+        TradestrategyOrders positionOrders = m_tradePersistentModel
+                .findPositionOrdersByTradestrategyId(idTradestrategy);
+        TradestrategyLite tradestrategyLite = m_tradePersistentModel.findTradestrategyLiteById(idTradestrategy);
+        /*
+         * The broker and strategy threads iterate over these lists while
+         * orders are added.
+         */
+        positionOrders.setTradeOrders(new CopyOnWriteArrayList<>(positionOrders.getTradeOrders()));
+        if (positionOrders.hasOpenTradePosition()) {
+            positionOrders.getOpenTradePosition().setTradeOrders(
+                    new CopyOnWriteArrayList<>(positionOrders.getOpenTradePosition().getTradeOrders()));
+        }
+        Ledger ledger = new Ledger(positionOrders, tradestrategyLite);
+
+        for (TradeOrder tradeOrder : positionOrders.getTradeOrders()) {
+            m_orderKeys.put(tradeOrder.getOrderKey(), ledger);
+        }
+        m_ledgers.put(idTradestrategy, ledger);
+    }
+
+    /**
+     * Method isOpen.
+     *
+     * @param idTradestrategy Integer
+     * @return boolean
+     */
+    public boolean isOpen(Integer idTradestrategy) {
+        return null != idTradestrategy && m_ledgers.containsKey(idTradestrategy);
+    }
+
+    /**
+     * Method containsTradeOrder.
+     *
+     * @param orderKey Integer
+     * @return boolean
+     */
+    public boolean containsTradeOrder(Integer orderKey) {
+        return null != orderKey && m_orderKeys.containsKey(orderKey);
+    }
+
+    /**
+     * Method isManaged. True if the order is held in this order book or is a
+     * new order for a tradestrategy that is open.
+     *
+     * @param tradeOrder TradeOrder
+     * @return boolean
+     */
+    public boolean isManaged(TradeOrder tradeOrder) {
+        if (containsTradeOrder(tradeOrder.getOrderKey())) {
+            return true;
+        }
+        return isOpen(getTradestrategyId(tradeOrder));
+    }
+
+    /**
+     * Method findPositionOrdersByTradestrategyId. Returns the live
+     * TradestrategyOrders this instance is shared by the broker and the
+     * strategies.
+     *
+     * @param idTradestrategy Integer
+     * @return TradestrategyOrders
+     */
+    public TradestrategyOrders findPositionOrdersByTradestrategyId(Integer idTradestrategy)
+            throws PersistentModelException {
+
+        Ledger ledger = m_ledgers.get(idTradestrategy);
+        if (null == ledger) {
+            throw new PersistentModelException("Order book not open for Tradestrategy id: " + idTradestrategy);
+        }
+        return ledger.positionOrders;
+    }
+
+    /**
+     * Method findTradeOrderByKey.
+     *
+     * @param orderKey Integer
+     * @return TradeOrder
+     */
+    public TradeOrder findTradeOrderByKey(Integer orderKey) {
+
+        Ledger ledger = m_orderKeys.get(orderKey);
+        if (null == ledger) {
+            return null;
+        }
+        synchronized (ledger) {
+            for (TradeOrder tradeOrder : ledger.positionOrders.getTradeOrders()) {
+                if (orderKey.equals(tradeOrder.getOrderKey())) {
+                    return tradeOrder;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method persistTradeOrder. The in memory equivalent of
+     * TradePersistentModel.persistTradeOrder().
+     *
+     * @param tradeOrder TradeOrder
+     * @return TradeOrder
+     */
+    public TradeOrder persistTradeOrder(final TradeOrder tradeOrder) throws PersistentModelException {
+
+        if (null == tradeOrder.getOrderKey()) {
+            throw new PersistentModelException("Order key cannot be null.");
+        }
+
+        Ledger ledger = m_orderKeys.get(tradeOrder.getOrderKey());
+        if (null == ledger) {
+            ledger = m_ledgers.get(getTradestrategyId(tradeOrder));
+            if (null == ledger) {
+                throw new PersistentModelException(
+                        "Order book not open for TradeOrder key: " + tradeOrder.getOrderKey());
+            }
+        }
+
+        synchronized (ledger) {
+
+            TradeOrder instance = tradeOrder;
+            TradeOrder current = findTradeOrder(ledger, tradeOrder.getOrderKey());
+            if (null == current) {
+                ledger.positionOrders.addTradeOrder(instance);
+                m_orderKeys.put(instance.getOrderKey(), ledger);
+            } else if (current != tradeOrder) {
+                /*
+                 * A different instance of an order we hold, this becomes the
+                 * order held in the book.
+                 */
+                List<TradeOrder> tradeOrders = ledger.positionOrders.getTradeOrders();
+                tradeOrders.set(tradeOrders.indexOf(current), instance);
+                if (!instance.hasTradePosition() && current.hasTradePosition()) {
+                    instance.setTradePosition(current.getTradePosition());
+                }
+                if (instance.hasTradePosition()) {
+                    List<TradeOrder> positionOrders = instance.getTradePosition().getTradeOrders();
+                    for (int i = 0; i < positionOrders.size(); i++) {
+                        if (positionOrders.get(i) == current) {
+                            positionOrders.set(i, instance);
+                        }
+                    }
+                }
+                ledger.changedOrders.remove(current);
+            }
+            ledger.changedOrders.add(instance);
+
+            if (null == instance.getId() && null == instance.getStatus()) {
+                instance.setStatus(OrderStatus.UNSUBMIT);
+            }
+
+            if (!instance.getIsFilled()
+                    && CoreUtils.nullSafeComparator(instance.getQuantity(), instance.getFilledQuantity()) == 0) {
+                instance.setIsFilled(true);
+                instance.setStatus(OrderStatus.FILLED);
+            }
+
+            /*
+             * If a partial filled order is cancelled mark the order as filled.
+             */
+            if (OrderStatus.CANCELLED.equals(instance.getStatus()) && !instance.getIsFilled()
+                    && CoreUtils.nullSafeComparator(instance.getFilledQuantity(), 0) == 1) {
+                instance.setIsFilled(true);
+                instance.setStatus(OrderStatus.FILLED);
+            }
+
+            if (null == instance.getTradestrategyId()) {
+                instance.setTradestrategyId(ledger.tradestrategyLite);
+            }
+
+            TradePosition tradePosition;
+            if (!instance.hasTradePosition()) {
+                if (CoreUtils.nullSafeComparator(instance.getFilledQuantity(), 0) == 1) {
+
+                    if (ledger.positionOrders.hasOpenTradePosition()) {
+                        tradePosition = ledger.positionOrders.getOpenTradePosition();
+                        if (!tradePosition.containsTradeOrder(instance)) {
+                            tradePosition.addTradeOrder(instance);
+                        }
+                    } else {
+
+                        ZonedDateTime positionOpenDate = instance.getFilledDate();
+                        if (null == positionOpenDate) {
+                            positionOpenDate = TradingCalendar.getDateTimeNowMarketTimeZone();
+                        }
+                        tradePosition = new TradePosition(ledger.positionOrders.getContract(), positionOpenDate,
+                                (Action.BUY.equals(instance.getAction()) ? Side.BOT : Side.SLD));
+                        tradePosition.setIdPortfolio(ledger.positionOrders.getIdPortfolio());
+                        tradePosition.setTradeOrders(new CopyOnWriteArrayList<>());
+                        instance.setIsOpenPosition(true);
+                        ledger.setStatus(TradestrategyStatus.OPEN);
+                        tradePosition.addTradeOrder(instance);
+                    }
+                    instance.setTradePosition(tradePosition);
+                } else {
+                    instance.setDirty(false);
+                    return instance;
+                }
+            } else {
+                tradePosition = instance.getTradePosition();
+                /*
+                 * A position from the database that is not the open position
+                 * will not have its orders loaded.
+                 */
+                if (null != tradePosition.getId() && tradePosition != ledger.positionOrders.getOpenTradePosition()) {
+                    tradePosition = m_tradePersistentModel.findTradePositionById(tradePosition.getId());
+                    instance.setTradePosition(tradePosition);
+                }
+            }
+
+            updateTradePosition(ledger, tradePosition, instance);
+            instance.setDirty(false);
+            return instance;
+        }
+    }
+
+    /**
+     * Method persistTradeOrderfill. The in memory equivalent of
+     * TradePersistentModel.persistTradeOrderfill().
+     *
+     * @param tradeOrder TradeOrder
+     * @return TradeOrder
+     */
+    public TradeOrder persistTradeOrderfill(final TradeOrder tradeOrder) throws PersistentModelException {
+
+        ZonedDateTime filledDate = null;
+        double filledValue = 0;
+        double commission = 0;
+        int filledQuantity = 0;
+        for (TradeOrderfill tradeOrderfill : tradeOrder.getTradeOrderfills()) {
+
+            if (null != tradeOrderfill.getCommission())
+                commission = commission + tradeOrderfill.getCommission().doubleValue();
+
+            filledQuantity = filledQuantity + tradeOrderfill.getQuantity();
+            filledValue = filledValue + (tradeOrderfill.getPrice().doubleValue() * tradeOrderfill.getQuantity());
+            if (null == filledDate)
+                filledDate = tradeOrderfill.getTime();
+
+            if (filledDate.isBefore(tradeOrderfill.getTime()))
+                filledDate = tradeOrderfill.getTime();
+        }
+
+        if (filledQuantity > 0) {
+            BigDecimal avgFillPrice = (new BigDecimal(filledValue / filledQuantity)).setScale(SCALE_5,
+                    RoundingMode.HALF_EVEN);
+            BigDecimal commissionAmount = (new BigDecimal(commission)).setScale(SCALE_2, RoundingMode.HALF_EVEN);
+
+            if (CoreUtils.nullSafeComparator(filledQuantity, tradeOrder.getFilledQuantity()) == 1) {
+                tradeOrder.setAverageFilledPrice(avgFillPrice);
+                tradeOrder.setFilledQuantity(filledQuantity);
+                tradeOrder.setFilledDate(filledDate);
+                if (CoreUtils.nullSafeComparator(commissionAmount, tradeOrder.getCommission()) == 1)
+                    tradeOrder.setCommission(commissionAmount);
+
+                tradeOrder.setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
+            }
+        }
+        return persistTradeOrder(tradeOrder);
+    }
+
+    /**
+     * Method updateTradestrategyStatus.
+     *
+     * @param idTradestrategy Integer
+     * @param status          String
+     */
+    public void updateTradestrategyStatus(Integer idTradestrategy, String status) throws PersistentModelException {
+
+        Ledger ledger = m_ledgers.get(idTradestrategy);
+        if (null == ledger) {
+            throw new PersistentModelException("Order book not open for Tradestrategy id: " + idTradestrategy);
+        }
+        synchronized (ledger) {
+            ledger.setStatus(status);
+        }
+    }
+
+    /**
+     * Method flush. Write the orders/fills/positions held for the
+     * tradestrategy to the database and remove the tradestrategy from the
+     * order book.
+     * <p>
+     * New orders are saved unfilled first then the fills are applied in filled
+     * date order via persistTradeOrder() so the positions are built exactly as
+     * they would have been had each order been saved as it changed.
+     *
+     * @param idTradestrategy Integer
+     */
+    public void flush(Integer idTradestrategy) throws PersistentModelException {
+
+        Ledger ledger = m_ledgers.remove(idTradestrategy);
+        if (null == ledger) {
+            return;
+        }
+
+        synchronized (ledger) {
+
+            for (TradeOrder tradeOrder : ledger.positionOrders.getTradeOrders()) {
+                m_orderKeys.remove(tradeOrder.getOrderKey());
+            }
+
+            if (ledger.changedOrders.isEmpty() && !ledger.statusChanged) {
+                return;
+            }
+
+            List<FilledState> filledStates = new ArrayList<>(ledger.changedOrders.size());
+
+            for (TradeOrder tradeOrder : ledger.changedOrders) {
+
+                FilledState filledState = new FilledState(tradeOrder);
+                filledStates.add(filledState);
+
+                /*
+                 * Positions are rebuilt from the fills by persistTradeOrder().
+                 * Only positions that already exist in the database are kept.
+                 */
+                if (null == tradeOrder.getId()
+                        || (tradeOrder.hasTradePosition() && null == tradeOrder.getTradePosition().getId())) {
+                    tradeOrder.setTradePosition(null);
+                    tradeOrder.setIsOpenPosition(false);
+                }
+
+                if (null == tradeOrder.getId()) {
+                    /*
+                     * Save the order as it was when first placed.
+                     */
+                    tradeOrder.setIsFilled(false);
+                    tradeOrder.setFilledQuantity(null);
+                    tradeOrder.setAverageFilledPrice(null);
+                    tradeOrder.setFilledDate(null);
+                    tradeOrder.setCommission(null);
+                    tradeOrder.setStatus(OrderStatus.UNSUBMIT);
+                    tradeOrder.setTradeOrderfills(new ArrayList<>(0));
+                    m_tradePersistentModel.persistAspect(tradeOrder);
+                }
+            }
+
+            filledStates.sort(FilledState.FILLED_DATE_ASC);
+
+            for (FilledState filledState : filledStates) {
+
+                TradeOrder tradeOrder = filledState.restore();
+                if (CoreUtils.nullSafeComparator(tradeOrder.getFilledQuantity(), 0) == 1) {
+                    m_tradePersistentModel.persistTradeOrderfill(tradeOrder);
+                } else {
+                    m_tradePersistentModel.persistTradeOrder(tradeOrder);
+                }
+            }
+
+            if (ledger.statusChanged) {
+
+                TradestrategyOrders positionOrders = m_tradePersistentModel
+                        .findPositionOrdersByTradestrategyId(idTradestrategy);
+                if (CoreUtils.nullSafeComparator(positionOrders.getStatus(), ledger.positionOrders.getStatus()) != 0) {
+                    positionOrders.setStatus(ledger.positionOrders.getStatus());
+                    positionOrders.setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
+                    m_tradePersistentModel.persistAspect(positionOrders);
+                }
+            }
+            _log.debug("Order book flushed idTradestrategy: {} orders: {}", idTradestrategy,
+                    ledger.changedOrders.size());
+        }
+    }
+
+    /**
+     * Method updateTradePosition. Recalculate the position totals from the
+     * orders of the position.
+     *
+     * @param ledger        Ledger
+     * @param tradePosition TradePosition
+     * @param tradeOrder    TradeOrder
+     */
+    private void updateTradePosition(Ledger ledger, TradePosition tradePosition, TradeOrder tradeOrder) {
+
+        boolean allOrdersCancelled = true;
+        int totalBuyQuantity = 0;
+        int totalSellQuantity = 0;
+        double totalCommission = 0;
+        double totalBuyValue = 0;
+        double totalSellValue = 0;
+
+        for (TradeOrder order : tradePosition.getTradeOrders()) {
+
+            if (!OrderStatus.CANCELLED.equals(order.getStatus())) {
+                allOrdersCancelled = false;
+            }
+
+            if (null != order.getFilledQuantity()) {
+
+                if (Action.BUY.equals(order.getAction())) {
+                    totalBuyQuantity = totalBuyQuantity + order.getFilledQuantity();
+                    totalBuyValue = totalBuyValue + (order.getAverageFilledPrice().doubleValue()
+                            * order.getFilledQuantity().doubleValue());
+                } else {
+                    totalSellQuantity = totalSellQuantity + order.getFilledQuantity();
+                    totalSellValue = totalSellValue + (order.getAverageFilledPrice().doubleValue()
+                            * order.getFilledQuantity().doubleValue());
+                }
+                if (null != order.getCommission()) {
+                    totalCommission = totalCommission + order.getCommission().doubleValue();
+                }
+            }
+        }
+
+        Money comms = new Money(totalCommission);
+        if (CoreUtils.nullSafeComparator(totalBuyQuantity, tradePosition.getTotalBuyQuantity()) != 0
+                || CoreUtils.nullSafeComparator(totalSellQuantity, tradePosition.getTotalSellQuantity()) != 0) {
+
+            int openQuantity = totalBuyQuantity - totalSellQuantity;
+            tradePosition.setOpenQuantity(openQuantity);
+            tradePosition.setTotalBuyQuantity(totalBuyQuantity);
+            tradePosition.setTotalBuyValue((new BigDecimal(totalBuyValue)).setScale(SCALE_5, RoundingMode.HALF_EVEN));
+            tradePosition.setTotalSellQuantity(totalSellQuantity);
+            tradePosition
+                    .setTotalSellValue((new BigDecimal(totalSellValue)).setScale(SCALE_5, RoundingMode.HALF_EVEN));
+            tradePosition.setTotalNetValue(
+                    (new BigDecimal(totalSellValue - totalBuyValue)).setScale(SCALE_5, RoundingMode.HALF_EVEN));
+            tradePosition.setTotalCommission(comms.getBigDecimalValue());
+            if (openQuantity > 0) {
+                tradePosition.setSide(Side.BOT);
+            }
+            if (openQuantity < 0) {
+                tradePosition.setSide(Side.SLD);
+            }
+
+            /*
+             * Position should be closed if openQuantity = 0. Note in memory
+             * positions have no id so compare the instances.
+             */
+            if (tradePosition == ledger.positionOrders.getOpenTradePosition()) {
+                if (openQuantity == 0) {
+                    tradePosition.setPositionCloseDate(tradeOrder.getFilledDate());
+                    ledger.positionOrders.getContract().setTradePosition(null);
+                }
+            } else {
+                ledger.positionOrders.getContract().setTradePosition(tradePosition);
+            }
+
+            if (!tradePosition.isOpen() && !TradestrategyStatus.CLOSED.equals(ledger.positionOrders.getStatus())) {
+                for (TradeOrder item : tradePosition.getTradeOrders()) {
+                    if (null != item.getTradestrategyId() && item.getTradestrategyId() != ledger.tradestrategyLite) {
+                        item.getTradestrategyId().setStatus(TradestrategyStatus.CLOSED);
+                    }
+                }
+                ledger.setStatus(TradestrategyStatus.CLOSED);
+            }
+            tradePosition.setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
+
+        } else {
+            if (allOrdersCancelled) {
+                if (null == ledger.positionOrders.getStatus()) {
+                    ledger.setStatus(TradestrategyStatus.CANCELLED);
+                }
+            }
+            if (CoreUtils.nullSafeComparator(comms.getBigDecimalValue(), tradePosition.getTotalCommission()) == 1) {
+                tradePosition.setTotalCommission(comms.getBigDecimalValue());
+                tradePosition.setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
+            }
+        }
+    }
+
+    /**
+     * Method findTradeOrder.
+     *
+     * @param ledger   Ledger
+     * @param orderKey Integer
+     * @return TradeOrder
+     */
+    private static TradeOrder findTradeOrder(Ledger ledger, Integer orderKey) {
+        for (TradeOrder tradeOrder : ledger.positionOrders.getTradeOrders()) {
+            if (orderKey.equals(tradeOrder.getOrderKey())) {
+                return tradeOrder;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Method getTradestrategyId.
+     *
+     * @param tradeOrder TradeOrder
+     * @return Integer
+     */
+    private static Integer getTradestrategyId(TradeOrder tradeOrder) {
+        if (null != tradeOrder.getTradestrategyId()) {
+            return tradeOrder.getTradestrategyId().getId();
+        }
+        if (null != tradeOrder.getTradestrategy()) {
+            return tradeOrder.getTradestrategy().getId();
+        }
+        return null;
+    }
+
+    /**
+     * The orders and position of one Tradestrategy.
+     */
+    private static class Ledger {
+
+        private final TradestrategyOrders positionOrders;
+        private final TradestrategyLite tradestrategyLite;
+        private final Set<TradeOrder> changedOrders = new LinkedHashSet<>();
+        private boolean statusChanged = false;
+
+        Ledger(TradestrategyOrders positionOrders, TradestrategyLite tradestrategyLite) {
+            this.positionOrders = positionOrders;
+            this.tradestrategyLite = tradestrategyLite;
+        }
+
+        void setStatus(String status) {
+            ZonedDateTime lastUpdateDate = TradingCalendar.getDateTimeNowMarketTimeZone();
+            this.positionOrders.setStatus(status);
+            this.positionOrders.setLastUpdateDate(lastUpdateDate);
+            this.tradestrategyLite.setStatus(status);
+            this.tradestrategyLite.setLastUpdateDate(lastUpdateDate);
+            this.statusChanged = true;
+        }
+    }
+
+    /**
+     * The filled state of an order held while the order is first saved
+     * unfilled.
+     */
+    private static class FilledState {
+
+        static final Comparator<FilledState> FILLED_DATE_ASC = (o1, o2) -> {
+            int returnVal = CoreUtils.nullSafeComparator(o1.filledDate, o2.filledDate);
+            if (returnVal == 0) {
+                returnVal = CoreUtils.nullSafeComparator(o1.tradeOrder.getOrderKey(), o2.tradeOrder.getOrderKey());
+            }
+            return returnVal;
+        };
+
+        private final TradeOrder tradeOrder;
+        private final String status;
+        private final Boolean isFilled;
+        private final Integer filledQuantity;
+        private final BigDecimal averageFilledPrice;
+        private final ZonedDateTime filledDate;
+        private final BigDecimal commission;
+        private final List<TradeOrderfill> tradeOrderfills;
+
+        FilledState(TradeOrder tradeOrder) {
+            this.tradeOrder = tradeOrder;
+            this.status = tradeOrder.getStatus();
+            this.isFilled = tradeOrder.getIsFilled();
+            this.filledQuantity = tradeOrder.getFilledQuantity();
+            this.averageFilledPrice = tradeOrder.getAverageFilledPrice();
+            this.filledDate = tradeOrder.getFilledDate();
+            this.commission = tradeOrder.getCommission();
+            this.tradeOrderfills = tradeOrder.getTradeOrderfills();
+        }
+
+        TradeOrder restore() {
+            tradeOrder.setStatus(status);
+            tradeOrder.setIsFilled(isFilled);
+            tradeOrder.setFilledQuantity(filledQuantity);
+            tradeOrder.setAverageFilledPrice(averageFilledPrice);
+            tradeOrder.setFilledDate(filledDate);
+            tradeOrder.setCommission(commission);
+            tradeOrder.setTradeOrderfills(tradeOrderfills);
+            return tradeOrder;
+        }
+    }
+}
@@ -2,8 +2,11 @@ package org.trade.core.broker;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.trade.core.broker.client.BackTestScheduler;
+import org.trade.core.dao.EntityManagerHelper;
 import org.trade.core.persistent.IPersistentModel;
 import org.trade.core.persistent.PersistentModelException;
+import org.trade.core.persistent.TradelogAnalytics;
 import org.trade.core.persistent.dao.Contract;
 import org.trade.core.persistent.dao.Strategy;
 import org.trade.core.persistent.dao.Tradestrategy;
@@ -21,8 +24,9 @@ import java.io.IOException;
 import java.math.BigDecimal;
 import java.time.Duration;
 import java.time.ZonedDateTime;
-import java.util.LinkedList;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -38,10 +42,13 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
     private int grandTotal = 0;
     private long startTime = 0;
     private final Integer backTestBarSize;
-    private AtomicInteger timerRunning = null;
-    private final Object lockCoreUtilsTest = new Object();
-    private final Timer timer;
-    private final LinkedList<Long> submitTimes = new LinkedList<>();
+    private final int maxInFlight;
+    private final boolean skipStored;
+    private BackTestScheduler scheduler = null;
+    private HistoricalDataPacer pacer = null;
+    private final AtomicInteger skippedRequests = new AtomicInteger(0);
+    private final AtomicInteger mergedRequests = new AtomicInteger(0);
+    private final Set<String> submittedRequests = ConcurrentHashMap.newKeySet();
     private final ConcurrentHashMap<String, Contract> contractRequests = new ConcurrentHashMap<>();
     private final ConcurrentHashMap<Integer, Tradestrategy> indicatorRequests = new ConcurrentHashMap<>();
 
@@ -58,12 +65,21 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
         this.tradingdays = tradingdays;
         this.backTestBarSize = ConfigProperties.getPropAsInt("trade.backtest.barSize");
 
-        this.timer = new Timer(250, _ -> {
-            synchronized (lockCoreUtilsTest) {
-                timerRunning.addAndGet(250);
-                lockCoreUtilsTest.notifyAll();
-            }
-        });
+        int inFlight = 8;
+        try {
+            inFlight = ConfigProperties.getPropAsInt("trade.backfill.maxInFlight");
+        } catch (Exception ex) {
+            _log.debug("trade.backfill.maxInFlight not set using: {} Msg: {}", inFlight, ex.getMessage());
+        }
+        this.maxInFlight = Math.max(inFlight, 1);
+
+        boolean skip = true;
+        try {
+            skip = ConfigProperties.getPropAsBoolean("trade.backfill.skipStored");
+        } catch (Exception ex) {
+            _log.debug("trade.backfill.skipStored not set using: {} Msg: {}", skip, ex.getMessage());
+        }
+        this.skipStored = skip;
     }
 
     /**
@@ -77,9 +93,27 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
         int totalSumbitted = 0;
         int reSumbittedAt = 20;
         this.startTime = System.currentTimeMillis();
-        this.submitTimes.clear();
+        this.submittedRequests.clear();
+        this.skippedRequests.set(0);
+        this.mergedRequests.set(0);
         ConcurrentHashMap<Integer, Tradingday> runningContractRequests = new ConcurrentHashMap<>();
 
+        /*
+         * Back tests against the DB run the brokers on the bounded scheduler
+         * pool when one is configured.
+         */
+        if (!this.brokerModel.isConnected() && !this.brokerModel.isBrokerDataOnly()) {
+            this.scheduler = BackTestScheduler.getInstance();
+            if (null != this.scheduler) {
+                this.scheduler.reset();
+            }
+            TradelogAnalytics analytics = TradelogAnalytics.getInstance();
+            if (null != analytics) {
+                analytics.reset();
+            }
+        }
+        this.pacer = HistoricalDataPacer.newInstance(this.brokerModel, null != this.scheduler);
+
         // Initialize the progress bar
         setProgress(0);
 
@@ -88,7 +122,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
             this.grandTotal = calculateTotalTradestrategiesToProcess(this.startTime);
             tradingdays.getTradingdays().sort(Tradingday.DATE_ORDER_ASC);
 
-            for (Tradingday tradingday : tradingdays.getTradingdays()) {
+            for (Tradingday tradingday : getTradingdaysInPriorityOrder()) {
 
                 Tradingday toProcessTradingday = (Tradingday) tradingday.clone();
 
@@ -203,10 +237,12 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
                     }
                 }
             }
+            awaitScheduler();
             setProgress(100);
             Duration duration = Duration.ofSeconds(((System.currentTimeMillis() - this.startTime) / 1000));
             message = "Completed total contracts processed: " + totalSumbitted + " in: "
-                    + String.format(durationFormat, duration.toHoursPart(), duration.toMinutesPart(), duration.toSecondsPart());
+                    + String.format(durationFormat, duration.toHoursPart(), duration.toMinutesPart(), duration.toSecondsPart())
+                    + getThroughputMessage() + getRequestMessage();
             _log.debug(message);
             publish(message);
         }
@@ -221,7 +257,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
      * @return int
      */
     private int submitBrokerRequest(Tradestrategy tradestrategy, ZonedDateTime endDate, int totalSumbitted)
-            throws InterruptedException, BrokerModelException {
+            throws InterruptedException, BrokerModelException, PersistentModelException {
 
         if (this.brokerModel.isHistoricalDataRunning(tradestrategy.getContract()) || this.isCancelled()) {
 
@@ -229,6 +265,38 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
             return totalSumbitted;
         }
 
+        /*
+         * When only getting data identical requests from tradestrategies on
+         * other strategies are merged and data that is already stored is not
+         * requested again. Both count as processed.
+         */
+        if (this.brokerModel.isBrokerDataOnly()) {
+
+            if (!this.submittedRequests.add(getRequestKey(tradestrategy, endDate))) {
+
+                _log.debug("submitBrokerRequest merged: {} endDate: {} barSize: {} chartDays: {}", tradestrategy.getContract().getSymbol(), endDate, tradestrategy.getBarSize(), tradestrategy.getChartDays());
+                this.mergedRequests.incrementAndGet();
+                return incrementProcessed(totalSumbitted);
+            }
+
+            if (isStored(tradestrategy)) {
+
+                _log.debug("submitBrokerRequest already stored: {} endDate: {} barSize: {} chartDays: {}", tradestrategy.getContract().getSymbol(), endDate, tradestrategy.getBarSize(), tradestrategy.getChartDays());
+                this.skippedRequests.incrementAndGet();
+                return incrementProcessed(totalSumbitted);
+            }
+        }
+
+        /*
+         * Wait for a token from the pacer before the request is made so the
+         * requests run at the data source limit.
+         */
+        awaitPacer(totalSumbitted);
+
+        if (this.isCancelled()) {
+            return totalSumbitted;
+        }
+
         _log.debug("submitBrokerRequest: {} endDate: {} barSize: {} chartDays:{}", tradestrategy.getContract().getSymbol(), endDate, tradestrategy.getBarSize(), tradestrategy.getChartDays());
 
         /*
@@ -241,8 +309,37 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
         }
 
         this.brokerModel.onBrokerData(tradestrategy, endDate);
+        totalSumbitted = incrementProcessed(totalSumbitted);
+
+        /*
+         * The SwingWorker has a maximum of 10 threads to run and this process
+         * uses one so we have 9 left for the BrokerWorkers. So wait while the
+         * BrokerWorkers threads complete. The limit is set by
+         * trade.backfill.maxInFlight.
+         */
+        if (!this.isCancelled()) {
+
+            synchronized (this.brokerModel.getHistoricalData()) {
+
+                while (this.brokerModel.getHistoricalData().size() > this.maxInFlight) {
+
+                    this.brokerModel.getHistoricalData().wait();
+                }
+            }
+        }
+        return totalSumbitted;
+    }
+
+    /**
+     * Method incrementProcessed. Count a processed request and update the
+     * progress.
+     *
+     * @param totalSumbitted int
+     * @return int
+     */
+    private int incrementProcessed(int totalSumbitted) {
+
         totalSumbitted++;
-        hasSubmittedInSeconds();
 
         /*
          * This can happen if there is the same indicator contract but in
@@ -255,80 +352,150 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
 
         int percent = (int) (((double) (totalSumbitted - this.brokerModel.getHistoricalData().size()) / getGrandTotal())
                 * 100d);
-        setProgress(percent);
+        setProgress(Math.max(Math.min(percent, 100), 0));
+        return totalSumbitted;
+    }
 
-        double numberPerPeriod = 0;
-        int periodSeconds = 0;
-        String message = "";
+    /**
+     * Method awaitPacer. Block until the pacer has a token for the next
+     * request, publishing the queue and estimated time every 5 seconds.
+     *
+     * @param totalSumbitted int
+     */
+    private void awaitPacer(int totalSumbitted) throws InterruptedException {
 
-        if (this.brokerModel.isConnected()) {
+        if (null == this.pacer) {
+            return;
+        }
 
-            /*
-             * Need to slow things down as limit is 60 including real time bars
-             * requests per 10 minutes. When connected to TWS. Note only TWSManager return true for
-             * connected.
-             */
-            numberPerPeriod = 60;
-            periodSeconds = 601; // Ten minutes
-            message = " as there are more than 60 data requests.";
-        } else if (!this.brokerModel.isConnected() && this.brokerModel.isBrokerDataOnly()) {
+        long start = System.currentTimeMillis();
+        long lastMessage = 0;
 
-            /*
-             * Need to slow things down as limit is 5 per minute for Polygon data with free license.
-             */
-            numberPerPeriod = 5;
-            periodSeconds = 61;
-            message = " as Polygon license only allows 5 request per minute.";
-        } else if (!this.brokerModel.isConnected() && !this.brokerModel.isBrokerDataOnly()) {
+        while (!this.isCancelled() && !this.pacer.tryAcquire()) {
 
-            /*
-             * Need to slow things down as limit is 5 per 5 second for the DB poll.
-             */
-            numberPerPeriod = 5;
-            periodSeconds = 6;
-            message = " as connection pool only allows 1 request per second.";
+            long now = System.currentTimeMillis();
+            if ((now - lastMessage) >= (5 * 1000)) {
+
+                lastMessage = now;
+                Duration duration = Duration.ofMillis(getEstimatedMillis(totalSumbitted));
+                publish("Please wait " + String.format(durationFormat, duration.toHoursPart(), duration.toMinutesPart(), duration.toSecondsPart()) + this.pacer.getDescription() + " Completed: " + (totalSumbitted - this.brokerModel.getHistoricalData().size()) + ", of: " + getGrandTotal() + getRequestMessage());
+            }
+            Thread.sleep(Math.clamp(this.pacer.getWaitMillis(), 1L, 250L));
+        }
+        this.pacer.addWaitedMillis(System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Method getEstimatedMillis.
+     *
+     * @param totalSumbitted int
+     * @return long the estimated milliseconds to submit the remaining
+     * requests at the pacing limit, 0 if there is no pacing.
+     */
+    private long getEstimatedMillis(int totalSumbitted) {
+
+        if (null == this.pacer) {
+            return 0;
         }
+        return this.pacer.getEstimatedMillis(Math.max(getGrandTotal() - totalSumbitted, 0));
+    }
 
-        if (((Math.floor(totalSumbitted / numberPerPeriod) == (totalSumbitted / numberPerPeriod)) && (totalSumbitted > 0))) {
+    /**
+     * Method getRequestKey. Requests with the same key return the same data
+     * from the broker.
+     *
+     * @param tradestrategy Tradestrategy
+     * @param endDate       ZonedDateTime
+     * @return String
+     */
+    private static String getRequestKey(Tradestrategy tradestrategy, ZonedDateTime endDate) {
 
-            timerRunning = new AtomicInteger(0);
-            timer.start();
-            synchronized (lockCoreUtilsTest) {
+        Contract contract = tradestrategy.getContract();
+        return String.join("|", contract.getSymbol(), contract.getSecType(), contract.getExchange(),
+                contract.getCurrency(), String.valueOf(endDate.toInstant()), String.valueOf(tradestrategy.getBarSize()),
+                String.valueOf(tradestrategy.getChartDays()));
+    }
 
-                while (timerRunning.get() / 1000 < periodSeconds && !this.isCancelled()) {
+    /**
+     * Method isStored. A completed tradingday whose candles for the contract
+     * and bar size are already in the database does not need to be requested
+     * again. The candles must cover every bar of the chart days ending on the
+     * tradingday.
+     *
+     * @param tradestrategy Tradestrategy
+     * @return boolean
+     */
+    private boolean isStored(Tradestrategy tradestrategy) throws PersistentModelException {
 
-                    // Update the message every 5 seconds
-                    if (timerRunning.get() % (5 * 1000) == 0) {
+        Tradingday tradingday = tradestrategy.getTradingday();
 
-                        percent = (int) (((double) (totalSumbitted - this.brokerModel.getHistoricalData().size()) / getGrandTotal())
-                                * 100d);
-                        setProgress(percent);
-                        Duration duration = Duration.ofSeconds((periodSeconds - 1) + ((periodSeconds - 1) * (Math.round((Math.floor(getGrandTotal() / numberPerPeriod) - Math.floor(totalSumbitted / numberPerPeriod))))));
-                        publish("Please wait " + String.format(durationFormat, duration.toHoursPart(), duration.toMinutesPart(), duration.toSecondsPart()) + message + " Completed: " + (totalSumbitted - this.brokerModel.getHistoricalData().size()) + ", of: " + getGrandTotal());
-                    }
-                    lockCoreUtilsTest.wait();
-                }
-            }
-            timer.stop();
-            _log.debug("Finished wait.");
+        if (!this.skipStored || null == tradestrategy.getContract().getId() || null == tradingday
+                || !tradingday.getClose().isBefore(TradingCalendar.getZonedDateTimeFromMilli(this.startTime))) {
+            return false;
         }
 
-        /*
-         * The SwingWorker has a maximum of 10 threads to run and this process
-         * uses one so we have 9 left for the BrokerWorkers. So wait while the
-         * BrokerWorkers threads complete.
-         */
-        if (!this.isCancelled()) {
+        long barsPerDay = Math.max(
+                Duration.between(tradingday.getOpen(), tradingday.getClose()).getSeconds() / tradestrategy.getBarSize(),
+                1);
+        int chartDays = Math.max(tradestrategy.getChartDays(), 1);
+        ZonedDateTime startOpen = TradingCalendar.addTradingDays(tradingday.getOpen(), -(chartDays - 1));
+        Long stored = this.tradePersistentModel.findCandleCountByContractDateRangeBarSize(
+                tradestrategy.getContract().getId(), startOpen, tradingday.getOpen(), tradestrategy.getBarSize());
+        return null != stored && stored >= (barsPerDay * chartDays);
+    }
 
-            synchronized (this.brokerModel.getHistoricalData()) {
+    /**
+     * Method getTradingdaysInPriorityOrder. The tradingdays in ascending date
+     * order with the current tradingday first.
+     *
+     * @return List<Tradingday>
+     */
+    private List<Tradingday> getTradingdaysInPriorityOrder() {
 
-                while (this.brokerModel.getHistoricalData().size() > 8) {
+        List<Tradingday> ordered = new ArrayList<>(this.tradingdays.getTradingdays());
+        ZonedDateTime now = TradingCalendar.getZonedDateTimeFromMilli(this.startTime);
 
-                    this.brokerModel.getHistoricalData().wait();
-                }
+        for (int i = 0; i < ordered.size(); i++) {
+            if (TradingCalendar.sameDay(ordered.get(i).getOpen(), now)) {
+                ordered.addFirst(ordered.remove(i));
+                break;
             }
         }
-        return totalSumbitted;
+        return ordered;
+    }
+
+    /**
+     * Method getSkippedRequests.
+     *
+     * @return int the requests not made as the data was already stored.
+     */
+    public int getSkippedRequests() {
+        return this.skippedRequests.get();
+    }
+
+    /**
+     * Method getMergedRequests.
+     *
+     * @return int the requests merged with an identical request.
+     */
+    public int getMergedRequests() {
+        return this.mergedRequests.get();
+    }
+
+    /**
+     * Method getRequestMessage.
+     *
+     * @return String the in flight, skipped and merged request counts or
+     * empty if none were skipped or merged and none are in flight.
+     */
+    private String getRequestMessage() {
+
+        int inFlight = this.brokerModel.getHistoricalData().size();
+        if (inFlight == 0 && getSkippedRequests() == 0 && getMergedRequests() == 0) {
+            return "";
+        }
+        return " (in flight: " + inFlight + ", already stored: " + getSkippedRequests() + ", merged: "
+                + getMergedRequests() + ")";
     }
 
     /**
@@ -372,48 +539,45 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
     }
 
     /**
-     * Method hasSubmittedInSeconds. Make sure no more than six requests every 2
-     * seconds.
-     * <p>
-     * 162 - Historical Market Data Service error message: Historical data
-     * request pacing violation
-     * <p>
-     * The following conditions can cause a pacing violation:
-     * <p>
-     * Making identical historical data requests within 15 seconds;
-     * <p>
-     * Making six or more historical data requests for the same Contract,
-     * Exchange and Tick Type within two seconds.
-     * <p>
-     * Also, observe the following limitation when requesting historical data:
-     * <p>
-     * Do not make more than 60 historical data requests in any ten-minute
-     * period.
+     * Method awaitScheduler. Wait for the back test brokers running on the
+     * scheduler pool to finish, updating the progress as they complete.
      */
-    private void hasSubmittedInSeconds() throws InterruptedException {
-
-        this.submitTimes.addFirst(System.currentTimeMillis());
-
-        if (this.submitTimes.size() == 5 && this.brokerModel.isConnected()) {
-
-            int TIME_BETWEEN_SUBMIT = 4;
-            if ((this.submitTimes.getFirst() - this.submitTimes.getLast()) < (TIME_BETWEEN_SUBMIT * 1000)) {
-                _log.debug("hasSubmittedInSeconds 5 in: {}", (this.submitTimes.getFirst() - this.submitTimes.getLast()) / 1000d);
-                timerRunning = new AtomicInteger(0);
-                timer.start();
-                synchronized (lockCoreUtilsTest) {
-                    while (((this.submitTimes.getFirst() - this.submitTimes.getLast())
-                            + timerRunning.get()) < (TIME_BETWEEN_SUBMIT * 1000) && !this.isCancelled()) {
-                        _log.debug("Please wait {} seconds.", TIME_BETWEEN_SUBMIT - (timerRunning.get() / 1000));
-                        lockCoreUtilsTest.wait();
-                    }
-                }
-                timer.stop();
+    private void awaitScheduler() {
+
+        if (null == this.scheduler) {
+            return;
+        }
+
+        try {
+
+            while (!this.isCancelled() && !this.scheduler.awaitCompletion(1000)) {
+
+                int percent = (int) (((double) this.scheduler.getCompleted() / Math.max(getGrandTotal(), 1)) * 100d);
+                setProgress(Math.min(percent, 100));
+                publish("Completed: " + this.scheduler.getCompleted() + ", of: " + this.scheduler.getSubmitted()
+                        + getThroughputMessage());
             }
-            this.submitTimes.removeLast();
+        } catch (InterruptedException ex) {
+            // Do nothing
+            _log.error("awaitScheduler interrupted Msg: {}", ex.getMessage());
         }
     }
 
+    /**
+     * Method getThroughputMessage.
+     *
+     * @return String the tradestrategies/sec of the back test scheduler or
+     * empty if the scheduler is not in use.
+     */
+    private String getThroughputMessage() {
+
+        if (null == this.scheduler) {
+            return "";
+        }
+        return String.format(" (%.2f tradestrategies/sec on %d threads)", this.scheduler.getThroughput(),
+                this.scheduler.getPoolSize());
+    }
+
     /**
      * Method reProcessTradingdays. Every reSumbittedAt value submitted
      * contracts try to run any that could not be run due to a conflict. Run
@@ -476,8 +640,14 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
         indicatorRequests.clear();
         Duration duration = Duration.ofSeconds((System.currentTimeMillis() - this.startTime) / 1000);
         String message = "Completed total contracts processed: " + this.getGrandTotal() + " in: "
-                + String.format(durationFormat, duration.toHoursPart(), duration.toMinutesPart(), duration.toSecondsPart());
+                + String.format(durationFormat, duration.toHoursPart(), duration.toMinutesPart(), duration.toSecondsPart())
+                + getThroughputMessage() + getRequestMessage();
         this.firePropertyChange("information", "OK", message);
+        if (null != this.pacer) {
+            _log.info("Historical data requests paced: {} waited: {}ms skipped: {} merged: {}", this.pacer.getAcquired(), this.pacer.getWaitedMillis(), getSkippedRequests(), getMergedRequests());
+        }
+        EntityManagerHelper.logPoolStatistics();
+        EntityManagerHelper.logCacheStatistics();
     }
 
     /**
@@ -552,7 +722,7 @@ public class BrokerDataRequestMonitor extends SwingWorker<Void, String> {
      * @return int
      */
     private int processTradingday(Tradingday tradingday, int totalSumbitted)
-            throws BrokerModelException, InterruptedException {
+            throws BrokerModelException, InterruptedException, PersistentModelException {
 
         if (tradingday.getTradestrategies().isEmpty()) {
 
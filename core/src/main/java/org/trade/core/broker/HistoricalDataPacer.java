@@ -0,0 +1,271 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.broker;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Paces historical data requests to the limits of the data source. Each limit
+ * is a bucket of tokens, a request takes one token from every bucket and each
+ * token is returned to its bucket one period after it was taken. So a bucket
+ * of 60 tokens over 600 seconds never allows more than 60 requests in any ten
+ * minute window, but unlike a fixed window it allows the next request as soon
+ * as the oldest one in the window ages out.
+ * <p>
+ * The IB pacing rules for historical data are: no more than 60 requests in
+ * any ten minute period and no more than six requests for the same contract
+ * within two seconds. Identical requests within 15 seconds are avoided by the
+ * BrokerDataRequestMonitor merging them before they are submitted.
+ */
+public class HistoricalDataPacer {
+
+    private final Bucket[] buckets;
+    private final LongSupplier clock;
+    private final String description;
+    private final AtomicInteger acquired = new AtomicInteger(0);
+    private final AtomicLong waitedMillis = new AtomicLong(0);
+
+    /**
+     * Constructor for HistoricalDataPacer.
+     *
+     * @param description String the reason for the pacing, used in messages.
+     * @param limits      int[] pairs of number of requests and period in
+     *                    seconds.
+     */
+    public HistoricalDataPacer(String description, int... limits) {
+        this(System::currentTimeMillis, description, limits);
+    }
+
+    /**
+     * Constructor for HistoricalDataPacer.
+     *
+     * @param clock       LongSupplier the current time in milliseconds.
+     * @param description String the reason for the pacing, used in messages.
+     * @param limits      int[] pairs of number of requests and period in
+     *                    seconds.
+     */
+    HistoricalDataPacer(LongSupplier clock, String description, int... limits) {
+
+        if (limits.length == 0 || limits.length % 2 != 0) {
+            throw new IllegalArgumentException("Limits must be pairs of number of requests and period seconds");
+        }
+        this.clock = clock;
+        this.description = description;
+        this.buckets = new Bucket[limits.length / 2];
+        for (int i = 0; i < this.buckets.length; i++) {
+            this.buckets[i] = new Bucket(limits[i * 2], limits[(i * 2) + 1] * 1000L);
+        }
+    }
+
+    /**
+     * Method newInstance. Returns the pacer for the broker model or null if
+     * the requests do not need pacing i.e. back tests run on the
+     * BackTestScheduler whose bounded pool provides the back pressure.
+     *
+     * @param brokerModel IBrokerModel
+     * @param scheduled   boolean true if the back test scheduler is in use.
+     * @return HistoricalDataPacer
+     */
+    public static HistoricalDataPacer newInstance(IBrokerModel brokerModel, boolean scheduled) {
+
+        if (brokerModel.isConnected()) {
+
+            /*
+             * The limit is 60 including real time bars requests per 10
+             * minutes when connected to TWS and no more than 5 in 4 seconds.
+             * Note only TWSManager return true for connected.
+             */
+            return new HistoricalDataPacer(" as there are more than 60 data requests.", 60, 601, 5, 4);
+        } else if (brokerModel.isBrokerDataOnly()) {
+
+            /*
+             * The limit is 5 per minute for Polygon data with free license.
+             */
+            return new HistoricalDataPacer(" as Polygon license only allows 5 request per minute.", 5, 61);
+        } else if (!scheduled) {
+
+            /*
+             * The limit is 5 per 5 second for the DB poll.
+             */
+            return new HistoricalDataPacer(" as connection pool only allows 1 request per second.", 5, 6);
+        }
+        return null;
+    }
+
+    /**
+     * Method getWaitMillis.
+     *
+     * @return long the milliseconds until a token is available in every
+     * bucket, 0 if a request can be made now.
+     */
+    public synchronized long getWaitMillis() {
+
+        long now = this.clock.getAsLong();
+        long wait = 0;
+        for (Bucket bucket : this.buckets) {
+            wait = Math.max(wait, bucket.getWaitMillis(now));
+        }
+        return wait;
+    }
+
+    /**
+     * Method tryAcquire. Take a token from every bucket if they all have one.
+     *
+     * @return boolean true if the request may be made now.
+     */
+    public synchronized boolean tryAcquire() {
+
+        if (getWaitMillis() > 0) {
+            return false;
+        }
+        long now = this.clock.getAsLong();
+        for (Bucket bucket : this.buckets) {
+            bucket.take(now);
+        }
+        this.acquired.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Method addWaitedMillis.
+     *
+     * @param millis long the time a caller spent waiting for a token.
+     */
+    public void addWaitedMillis(long millis) {
+        this.waitedMillis.addAndGet(millis);
+    }
+
+    /**
+     * Method getEstimatedMillis. Estimate how long it will take to make the
+     * remaining requests at the pacing limit. The requests are played through
+     * a copy of the buckets, each one made as soon as every bucket has a
+     * token, so the limits are combined as they are when paced.
+     *
+     * @param remaining int the number of requests still to make.
+     * @return long milliseconds until the last request can be made.
+     */
+    public synchronized long getEstimatedMillis(int remaining) {
+
+        long now = this.clock.getAsLong();
+        Bucket[] copies = new Bucket[this.buckets.length];
+        for (int i = 0; i < this.buckets.length; i++) {
+            copies[i] = this.buckets[i].copy(now);
+        }
+        long time = now;
+        for (int i = 0; i < remaining; i++) {
+            long wait = 0;
+            for (Bucket bucket : copies) {
+                wait = Math.max(wait, bucket.getWaitMillis(time));
+            }
+            time = time + wait;
+            for (Bucket bucket : copies) {
+                bucket.take(time);
+            }
+        }
+        return time - now;
+    }
+
+    /**
+     * Method getDescription.
+     *
+     * @return String
+     */
+    public String getDescription() {
+        return this.description;
+    }
+
+    /**
+     * Method getAcquired.
+     *
+     * @return int the number of requests paced.
+     */
+    public int getAcquired() {
+        return this.acquired.get();
+    }
+
+    /**
+     * Method getWaitedMillis.
+     *
+     * @return long the total time spent waiting for tokens.
+     */
+    public long getWaitedMillis() {
+        return this.waitedMillis.get();
+    }
+
+    /**
+     * A bucket of tokens where each token taken is returned one period later.
+     */
+    private static final class Bucket {
+
+        private final int capacity;
+        private final long periodMillis;
+        private final ArrayDeque<Long> taken;
+
+        private Bucket(int capacity, long periodMillis) {
+            this.capacity = capacity;
+            this.periodMillis = periodMillis;
+            this.taken = new ArrayDeque<>(capacity);
+        }
+
+        private void refill(long now) {
+            while (!this.taken.isEmpty() && (now - this.taken.peekFirst()) >= this.periodMillis) {
+                this.taken.pollFirst();
+            }
+        }
+
+        private long getWaitMillis(long now) {
+            refill(now);
+            if (this.taken.size() < this.capacity) {
+                return 0;
+            }
+            return this.periodMillis - (now - this.taken.peekFirst());
+        }
+
+        private void take(long now) {
+            this.taken.addLast(now);
+        }
+
+        private Bucket copy(long now) {
+            refill(now);
+            Bucket bucket = new Bucket(this.capacity, this.periodMillis);
+            bucket.taken.addAll(this.taken);
+            return bucket;
+        }
+    }
+}
@@ -120,6 +120,14 @@ public interface IBrokerModel {
      */
     Broker getBackTestBroker(Integer idTradestrategy);
 
+    /**
+     * Method getOrderBook. The in memory order book used when back testing,
+     * null if orders are persisted as they change.
+     *
+     * @return BackTestOrderBook
+     */
+    BackTestOrderBook getOrderBook();
+
     /**
      * Method onSubscribeAccountUpdates.
      *
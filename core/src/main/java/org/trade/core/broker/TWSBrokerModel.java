@@ -20,6 +20,8 @@ import org.trade.core.broker.request.TWSGroupRequest;
 import org.trade.core.dao.Aspect;
 import org.trade.core.dao.Aspects;
 import org.trade.core.factory.ClassFactory;
+import org.trade.core.persistent.CandleArchive;
+import org.trade.core.persistent.CandlePersistQueue;
 import org.trade.core.persistent.IPersistentModel;
 import org.trade.core.persistent.dao.Account;
 import org.trade.core.persistent.dao.Contract;
@@ -30,6 +32,7 @@ import org.trade.core.persistent.dao.Tradestrategy;
 import org.trade.core.persistent.dao.series.indicator.CandleSeries;
 import org.trade.core.persistent.dao.series.indicator.StrategyData;
 import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
+import org.trade.core.persistent.dao.series.indicator.candle.RTVolume;
 import org.trade.core.properties.ConfigProperties;
 import org.trade.core.util.CoreUtils;
 import org.trade.core.util.time.TradingCalendar;
@@ -60,7 +63,6 @@ import java.util.Date;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
-import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -95,6 +97,9 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
 
     private final EClientSocket m_client;
     private final IPersistentModel m_tradePersistentModel;
+    private final CandlePersistQueue m_candlePersistQueue;
+    // Only used on the EReader thread.
+    private final RTVolume m_rtVolume = new RTVolume();
     private final AtomicInteger reqId;
     private AtomicInteger orderKey = null;
     private Integer m_clientId = null;
@@ -154,6 +159,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
             m_client = new EClientSocket(this, this);
             m_tradePersistentModel = (IPersistentModel) ClassFactory
                     .getServiceForInterface(IPersistentModel._persistentModel, this);
+            m_candlePersistQueue = CandlePersistQueue.getInstance(m_tradePersistentModel);
             reqId = new AtomicInteger((int) (System.currentTimeMillis() / 1000d));
 
         } catch (Exception ex) {
@@ -181,6 +187,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
     public void onDisconnect() {
 
         onCancelAllRealtimeData();
+        flushCandlePersistQueue();
 
         if (m_client.isConnected()) {
 
@@ -200,6 +207,42 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
         this.fireConnectionClosed(true);
     }
 
+    /**
+     * Method flushCandlePersistQueue. Write any realtime candles still waiting
+     * in the write behind queue.
+     */
+    private void flushCandlePersistQueue() {
+
+        if (null != m_candlePersistQueue) {
+            try {
+                if (!m_candlePersistQueue.flush(5000)) {
+                    _log.warn("Realtime candles not all saved {}", m_candlePersistQueue);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Method archiveCandleSeries. Add the closed tradingdays of a back filled
+     * series to the candle archive used by the back tests.
+     *
+     * @param candleSeries CandleSeries
+     */
+    private void archiveCandleSeries(CandleSeries candleSeries) {
+
+        CandleArchive candleArchive = CandleArchive.getInstance();
+
+        if (null != candleArchive) {
+            try {
+                candleArchive.appendCandleSeries(candleSeries);
+            } catch (IOException ex) {
+                _log.warn("Error writing candle archive Symbol: {} Msg: {}", candleSeries.getSymbol(), ex.getMessage());
+            }
+        }
+    }
+
     public Broker getBackTestBroker(Integer idTradestrategy) {
         return null;
     }
@@ -1256,40 +1299,47 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
 
         try {
 
-            BigDecimal price = (new BigDecimal(value)).setScale(SCALE, RoundingMode.HALF_EVEN);
-            synchronized (price) {
-                // _log.warn("tickPrice Field: " + field + " value :" + value
-                // + " time: " + System.currentTimeMillis());
-                if (!m_marketDataRequests.containsKey(reqId)) {
-                    return;
-                }
-                Contract contract = m_marketDataRequests.get(reqId);
+            // _log.warn("tickPrice Field: " + field + " value :" + value
+            // + " time: " + System.currentTimeMillis());
+            TickType tickType = TickType.get(field);
+            if (tickType != TickType.ASK && tickType != TickType.BID && tickType != TickType.LAST) {
+                return;
+            }
+            Contract contract = m_marketDataRequests.get(reqId);
+            if (null == contract) {
+                return;
+            }
 
-                /*
-                 * Make sure the lastPrice is between the current Bid/Ask as
-                 * prints can come in late in T/S i.e. bad ticks that are
-                 * outside the current Bid/Ask.
-                 */
+            /*
+             * Ticks arrive on the single EReader thread so the price fields
+             * have one writer and are published through volatile fields, the
+             * subscriber list is a copy on write snapshot. One BigDecimal is
+             * shared by every subscriber of this tick.
+             *
+             * Make sure the lastPrice is between the current Bid/Ask as
+             * prints can come in late in T/S i.e. bad ticks that are
+             * outside the current Bid/Ask.
+             */
+            BigDecimal price = (new BigDecimal(value)).setScale(SCALE, RoundingMode.HALF_EVEN);
 
-                for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
-                    Contract seriesContract = tradestrategy.getStrategyData().getBaseCandleSeries().getContract();
+            for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
+                StrategyData strategyData = tradestrategy.getStrategyData();
+                Contract seriesContract = strategyData.getBaseCandleSeries().getContract();
 
-                    switch (TickType.get(field)) {
-                        case ASK: {
-                            seriesContract.setLastAskPrice(price);
-                            break;
-                        }
-                        case BID: {
-                            seriesContract.setLastBidPrice(price);
-                            break;
-                        }
-                        case LAST: {
-                            seriesContract.setLastPrice(price);
-                            break;
-                        }
-                        default: {
-                            break;
-                        }
+                switch (tickType) {
+                    case ASK: {
+                        seriesContract.setLastAskPrice(price);
+                        strategyData.getTickAggregator().flush();
+                        break;
+                    }
+                    case BID: {
+                        seriesContract.setLastBidPrice(price);
+                        strategyData.getTickAggregator().flush();
+                        break;
+                    }
+                    default: {
+                        seriesContract.setLastPrice(price);
+                        break;
                     }
                 }
             }
@@ -1298,12 +1348,16 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
         }
     }
 
-    public synchronized void tickSize(int reqId, int field, int value) {
+    public void tickSize(int reqId, int field, int value) {
         try {
             if (Objects.requireNonNull(TickType.get(field)) == TickType.VOLUME) {
-                if (m_realTimeBarsRequests.containsKey(reqId)) {
-                    Contract contract = m_realTimeBarsRequests.get(reqId);
+                Contract contract = m_realTimeBarsRequests.get(reqId);
+                if (null != contract) {
 
+                    /*
+                     * Each StrategyData is locked on its own so subscribers of
+                     * other contracts are never blocked by this update.
+                     */
                     for (Tradestrategy tradestrategy : contract
                             .getTradestrategies()) {
                         StrategyData datasetContainer = tradestrategy
@@ -1344,144 +1398,25 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
             // _log.info("tickString reqId: " + reqId + " field: " + field
             // + " value: " + value);
 
-            synchronized (value) {
-
-                if (!m_marketDataRequests.containsKey(reqId)) {
-                    return;
-                }
+            if (TickType.get(field) != TickType.RT_VOLUME || !m_marketDataRequests.containsKey(reqId)) {
+                return;
+            }
 
-                if (Objects.requireNonNull(TickType.get(field)) == TickType.RT_VOLUME) {/*
-                 * If there is no price ignore this value.
-                 */
-                    if (value.startsWith(";")) {
-                        return;
-                    }
+            /*
+             * If there is no price ignore this value.
+             */
+            if (!m_rtVolume.parse(value)) {
+                return;
+            }
 
-                    StringTokenizer st = new StringTokenizer(value, ";");
-                    int tokenNumber = 0;
-                    BigDecimal price = new BigDecimal(0);
-                    ZonedDateTime time = null;
-                    while (st.hasMoreTokens()) {
+            Contract contract = m_marketDataRequests.get(reqId);
 
-                        tokenNumber++;
-                        String token = st.nextToken();
+            synchronized (contract) {
 
-                        switch (tokenNumber) {
-                            case 1: {
-                                price = (BigDecimal.valueOf(Double.parseDouble(token))).setScale(SCALE,
-                                        RoundingMode.HALF_EVEN);
-                                break;
-                            }
-                            case 2: {
-                                _log.debug("TickString Trade Size: {}", Integer.parseInt(token));
-                                break;
-                            }
-                            case 3: {
-                                time = TradingCalendar.getZonedDateTimeFromMilli(Long.parseLong(token));
-                                break;
-                            }
-                            case 4: {
-                                _log.debug("TickString Total Volume: {}", Integer.parseInt(token) * 100);
-                                break;
-                            }
-                            case 5: {
-                                _log.debug("TickString Total Vwap: {}", token);
-                                break;
-                            }
-                            case 6: {
-                                break;
-                            }
-                            default: {
-                                break;
-                            }
-                        }
-                    }
+                for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
 
-                    if (price.doubleValue() > 0) {
-
-                        Contract contract = m_marketDataRequests.get(reqId);
-                        // _log.warn("TickString ReqId: " + reqId + " Field: "
-                        // + field + " String: " + value);
-                        for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
-
-                            Contract seriesContract = tradestrategy.getStrategyData().getBaseCandleSeries()
-                                    .getContract();
-                            int index = tradestrategy.getStrategyData().getBaseCandleSeries().indexOf(time);
-                            if (index < 0)
-                                return;
-
-                            CandleItem candleItem = (CandleItem) tradestrategy.getStrategyData().getBaseCandleSeries()
-                                    .getDataItem(index);
-                            if (seriesContract.getLastAskPrice().doubleValue() > 0
-                                    && seriesContract.getLastBidPrice().doubleValue() > 0
-                                    && (price.doubleValue() <= seriesContract.getLastAskPrice().doubleValue()
-                                    && price.doubleValue() >= seriesContract.getLastBidPrice().doubleValue())) {
-
-                                if (marketUpdateOnClose && (price.doubleValue() != candleItem.getClose())) {
-
-                                    candleItem.setClose(price.doubleValue());
-                                    candleItem.setLastUpdateDate(time);
-                                    /*
-                                     * Note if you want you can fire the series
-                                     * change here this will fire runStrategy.
-                                     * Could cause problems if the method is not
-                                     * synchronized in the strategy when the
-                                     * stock is fast running.
-                                     */
-                                    tradestrategy.getStrategyData().getBaseCandleSeries().fireSeriesChanged();
-                                    /*
-                                     * This can be used to update the charts.
-                                     * NOTE not recommended for performance
-                                     * reasons chart events are slow to update..
-                                     */
-                                    // tradestrategy.getStrategyData()
-                                    // .getCandleDataset().getSeries(0)
-                                    // .fireSeriesChanged();
-                                    // _log.info("TickString Symbol: "
-                                    // + seriesContract.getSymbol()
-                                    // + " Trade Time: " + time
-                                    // + " Price: " + price + " Bid: "
-                                    // + seriesContract.getLastBidPrice()
-                                    // + " Ask: "
-                                    // + seriesContract.getLastAskPrice());
-                                } else {
-
-                                    if (price.doubleValue() > candleItem.getHigh()
-                                            || price.doubleValue() < candleItem.getLow()) {
-
-                                        candleItem.setClose(price.doubleValue());
-                                        candleItem.setLastUpdateDate(time);
-                                        /*
-                                         * Note if you want you can fire the
-                                         * series change here this will fire
-                                         * runStrategy. Could cause problems if
-                                         * the method is not synchronized in the
-                                         * strategy when the stock is fast
-                                         * running.
-                                         */
-                                        tradestrategy.getStrategyData().getBaseCandleSeries().fireSeriesChanged();
-                                        /*
-                                         * This can be used to update the
-                                         * charts. NOTE not recommended for
-                                         * performance reasons chart events are
-                                         * slow to update..
-                                         */
-                                        // tradestrategy.getStrategyData()
-                                        // .getCandleDataset().getSeries(0)
-                                        // .fireSeriesChanged();
-                                        //
-                                        // _log.info("TickString Symbol: "
-                                        // + seriesContract.getSymbol()
-                                        // + " Trade Time: " + time
-                                        // + " Price: " + price + " Bid: "
-                                        // + seriesContract.getLastBidPrice()
-                                        // + " Ask: "
-                                        // + seriesContract.getLastAskPrice());
-                                    }
-                                }
-                            }
-                        }
-                    }
+                    tradestrategy.getStrategyData().getTickAggregator().onTrade(m_rtVolume.getPrice(),
+                            m_rtVolume.getSize(), m_rtVolume.getTime());
                 }
             }
         } catch (Exception ex) {
@@ -1859,6 +1794,7 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
 
                 CandleSeries candleSeries = tradestrategy.getStrategyData().getBaseCandleSeries();
                 m_tradePersistentModel.persistCandleSeries(candleSeries);
+                archiveCandleSeries(candleSeries);
 
                 _log.debug("HistoricalDataComplete complete Req Id: {} Symbol: {} Tradingday: {} candles to saved: {} Contract Tradestrategies size:: {}", reqId, tradestrategy.getContract().getSymbol(), tradestrategy.getTradingday().getOpen(), candleSeries.getItemCount(), tradestrategy.getContract().getTradestrategies().size());
 
@@ -1917,10 +1853,16 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
 
                 Contract contract = m_realTimeBarsRequests.get(reqId);
 
+                /*
+                 * The lock is per contract and the subscribers are already
+                 * held in Tradestrategy.TRADINGDAY_CONTRACT order by the
+                 * contract.
+                 */
                 synchronized (contract) {
 
-                    contract.getTradestrategies().sort(Tradestrategy.TRADINGDAY_CONTRACT);
                     boolean updateCandleDB = true;
+                    BigDecimal price = this.isMarketDataRunning(contract) ? null
+                            : new BigDecimal(close).setScale(SCALE, RoundingMode.HALF_EVEN);
 
                     for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
 
@@ -1929,9 +1871,8 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
                         if (TradingCalendar.isMarketHours(tradestrategy.getTradingday().getOpen(),
                                 tradestrategy.getTradingday().getClose(), date)) {
 
-                            if (!this.isMarketDataRunning(contract)) {
+                            if (null != price) {
 
-                                BigDecimal price = new BigDecimal(close).setScale(SCALE, RoundingMode.HALF_EVEN);
                                 strategyData.getBaseCandleSeries().getContract().setLastAskPrice(price);
                                 strategyData.getBaseCandleSeries().getContract().setLastBidPrice(price);
                                 strategyData.getBaseCandleSeries().getContract().setLastPrice(price);
@@ -1948,7 +1889,11 @@ public class TWSBrokerModel extends AbstractBrokerModel implements EWrapper, ERe
 
                                 if (updateCandleDB) {
 
-                                    m_tradePersistentModel.persistCandle(candleItem.getCandle());
+                                    if (null == m_candlePersistQueue) {
+                                        m_tradePersistentModel.persistCandle(candleItem.getCandle());
+                                    } else {
+                                        m_candlePersistQueue.offer(candleItem.getCandle());
+                                    }
                                     updateCandleDB = false;
                                 }
                             }
@@ -22,6 +22,8 @@ import com.ib.controller.Profile;
 import org.slf4j.LoggerFactory;
 import org.trade.core.broker.client.Broker;
 import org.trade.core.factory.ClassFactory;
+import org.trade.core.persistent.CandleArchive;
+import org.trade.core.persistent.CandlePersistQueue;
 import org.trade.core.persistent.IPersistentModel;
 import org.trade.core.persistent.PersistentModelException;
 import org.trade.core.persistent.dao.Account;
@@ -33,6 +35,7 @@ import org.trade.core.persistent.dao.Tradestrategy;
 import org.trade.core.persistent.dao.series.indicator.CandleSeries;
 import org.trade.core.persistent.dao.series.indicator.StrategyData;
 import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
+import org.trade.core.persistent.dao.series.indicator.candle.RTVolume;
 import org.trade.core.properties.ConfigProperties;
 import org.trade.core.util.CoreUtils;
 import org.trade.core.util.time.TradingCalendar;
@@ -58,7 +61,6 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.StringTokenizer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
@@ -125,6 +127,7 @@ public class TWSBrokerService extends AbstractBrokerModel {
     private AtomicInteger reqId = null;
     private AtomicInteger orderKey = null;
     private IPersistentModel m_tradePersistentModel = null;
+    private CandlePersistQueue m_candlePersistQueue = null;
     private ApiController m_controller;
 
     public TWSBrokerService() {
@@ -132,6 +135,7 @@ public class TWSBrokerService extends AbstractBrokerModel {
 
             m_tradePersistentModel = (IPersistentModel) ClassFactory
                     .getServiceForInterface(IPersistentModel._persistentModel, this);
+            m_candlePersistQueue = CandlePersistQueue.getInstance(m_tradePersistentModel);
             reqId = new AtomicInteger((int) (System.currentTimeMillis() / 1000d));
 
         } catch (Exception ex) {
@@ -146,6 +150,25 @@ public class TWSBrokerService extends AbstractBrokerModel {
         openOrders.clear();
     }
 
+    /**
+     * Method archiveCandleSeries. Add the closed tradingdays of a back filled
+     * series to the candle archive used by the back tests.
+     *
+     * @param candleSeries CandleSeries
+     */
+    private void archiveCandleSeries(CandleSeries candleSeries) {
+
+        CandleArchive candleArchive = CandleArchive.getInstance();
+
+        if (null != candleArchive) {
+            try {
+                candleArchive.appendCandleSeries(candleSeries);
+            } catch (IOException ex) {
+                _log.warn("Error writing candle archive Symbol: {} Msg: {}", candleSeries.getSymbol(), ex.getMessage());
+            }
+        }
+    }
+
     @Override
     public boolean isConnected() {
         return controller().client().isConnected();
@@ -154,6 +177,15 @@ public class TWSBrokerService extends AbstractBrokerModel {
     @Override
     public void onDisconnect() {
         onCancelAllRealtimeData();
+        if (null != m_candlePersistQueue) {
+            try {
+                if (!m_candlePersistQueue.flush(5000)) {
+                    _log.warn("Realtime candles not all saved {}", m_candlePersistQueue);
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
         if (isConnected()) {
             for (String accountNumber : m_accountRequests.keySet()) {
                 this.onCancelAccountUpdates(accountNumber);
@@ -1234,6 +1266,7 @@ public class TWSBrokerService extends AbstractBrokerModel {
 
                 CandleSeries candleSeries = tradestrategy.getStrategyData().getBaseCandleSeries();
                 m_tradePersistentModel.persistCandleSeries(candleSeries);
+                archiveCandleSeries(candleSeries);
 
                 _log.debug("HistoricalData complete Req Id: " + getReqId() + " Symbol: "
                         + tradestrategy.getContract().getSymbol() + " Tradingday: "
@@ -1321,17 +1354,22 @@ public class TWSBrokerService extends AbstractBrokerModel {
                 if (m_realTimeBarsRequests.containsKey(getReqId())) {
                     Contract contract = m_realTimeBarsRequests.get(getReqId());
 
+                    /*
+                     * The lock is per contract and the subscribers are already
+                     * held in Tradestrategy.TRADINGDAY_CONTRACT order by the
+                     * contract.
+                     */
                     synchronized (contract) {
-                        Collections.sort(contract.getTradestrategies(), Tradestrategy.TRADINGDAY_CONTRACT);
                         boolean updateCandleDB = true;
+                        BigDecimal price = getBrokerModel().isMarketDataRunning(contract) ? null
+                                : new BigDecimal(bar.close()).setScale(SCALE, RoundingMode.HALF_EVEN);
                         for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
                             StrategyData strategyData = tradestrategy.getStrategyData();
 
                             if (TradingCalendar.isMarketHours(tradestrategy.getTradingday().getOpen(),
                                     tradestrategy.getTradingday().getClose(), date)) {
 
-                                if (!getBrokerModel().isMarketDataRunning(contract)) {
-                                    BigDecimal price = new BigDecimal(bar.close()).setScale(SCALE, RoundingMode.HALF_EVEN);
+                                if (null != price) {
                                     strategyData.getBaseCandleSeries().getContract().setLastAskPrice(price);
                                     strategyData.getBaseCandleSeries().getContract().setLastBidPrice(price);
                                     strategyData.getBaseCandleSeries().getContract().setLastPrice(price);
@@ -1345,7 +1383,11 @@ public class TWSBrokerService extends AbstractBrokerModel {
                                     CandleItem candleItem = (CandleItem) strategyData.getBaseCandleSeries()
                                             .getDataItem(strategyData.getBaseCandleSeries().getItemCount() - 1);
                                     if (updateCandleDB) {
-                                        getPersistentModel().persistCandle(candleItem.getCandle());
+                                        if (null == m_candlePersistQueue) {
+                                            getPersistentModel().persistCandle(candleItem.getCandle());
+                                        } else {
+                                            m_candlePersistQueue.offer(candleItem.getCandle());
+                                        }
                                         updateCandleDB = false;
                                     }
                                 }
@@ -1364,6 +1406,8 @@ public class TWSBrokerService extends AbstractBrokerModel {
         private AbstractBrokerModel m_brokerModel;
         private Integer m_reqId;
         private IPersistentModel m_tradePersistentModel;
+        // Only used on the message processing thread.
+        private final RTVolume m_rtVolume = new RTVolume();
 
         TopMktDataHandler(AbstractBrokerModel brokerModel, Integer reqId) {
             this.m_brokerModel = brokerModel;
@@ -1392,39 +1436,44 @@ public class TWSBrokerService extends AbstractBrokerModel {
         public void tickPrice(TickType tickType, double value, int canAutoExecute) {
             try {
 
-                BigDecimal price = (new BigDecimal(value)).setScale(SCALE, RoundingMode.HALF_EVEN);
-                synchronized (price) {
-                    // _log.warn("tickPrice Field: " + field + " value :" + value
-                    // + " time: " + System.currentTimeMillis());
-                    if (!m_marketDataRequests.containsKey(getReqId()))
-                        return;
-                    Contract contract = m_marketDataRequests.get(getReqId());
+                // _log.warn("tickPrice Field: " + field + " value :" + value
+                // + " time: " + System.currentTimeMillis());
+                if (tickType != TickType.ASK && tickType != TickType.BID && tickType != TickType.LAST)
+                    return;
+                Contract contract = m_marketDataRequests.get(getReqId());
+                if (null == contract)
+                    return;
 
-                    /*
-                     * Make sure the lastPrice is between the current Bid/Ask as
-                     * prints can come in late in T/S i.e. bad ticks that are
-                     * outside the current Bid/Ask.
-                     */
+                /*
+                 * Ticks arrive on the single message processing thread so the
+                 * price fields have one writer and are published through
+                 * volatile fields, the subscriber list is a copy on write
+                 * snapshot. One BigDecimal is shared by every subscriber.
+                 *
+                 * Make sure the lastPrice is between the current Bid/Ask as
+                 * prints can come in late in T/S i.e. bad ticks that are
+                 * outside the current Bid/Ask.
+                 */
+                BigDecimal price = (new BigDecimal(value)).setScale(SCALE, RoundingMode.HALF_EVEN);
 
-                    for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
-                        Contract seriesContract = tradestrategy.getStrategyData().getBaseCandleSeries().getContract();
+                for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
+                    StrategyData strategyData = tradestrategy.getStrategyData();
+                    Contract seriesContract = strategyData.getBaseCandleSeries().getContract();
 
-                        switch (tickType) {
-                            case ASK: {
-                                seriesContract.setLastAskPrice(price);
-                                break;
-                            }
-                            case BID: {
-                                seriesContract.setLastBidPrice(price);
-                                break;
-                            }
-                            case LAST: {
-                                seriesContract.setLastPrice(price);
-                                break;
-                            }
-                            default: {
-                                break;
-                            }
+                    switch (tickType) {
+                        case ASK: {
+                            seriesContract.setLastAskPrice(price);
+                            strategyData.getTickAggregator().flush();
+                            break;
+                        }
+                        case BID: {
+                            seriesContract.setLastBidPrice(price);
+                            strategyData.getTickAggregator().flush();
+                            break;
+                        }
+                        default: {
+                            seriesContract.setLastPrice(price);
+                            break;
                         }
                     }
                 }
@@ -1439,8 +1488,8 @@ public class TWSBrokerService extends AbstractBrokerModel {
                 switch (tickType) {
                     case VOLUME: {
 
-                        if (m_realTimeBarsRequests.containsKey(getReqId())) {
-                            Contract contract = m_realTimeBarsRequests.get(getReqId());
+                        Contract contract = m_realTimeBarsRequests.get(getReqId());
+                        if (null != contract) {
 
                             for (Tradestrategy tradestrategy : contract
                                     .getTradestrategies()) {
@@ -1491,145 +1540,21 @@ public class TWSBrokerService extends AbstractBrokerModel {
                 // _log.info("tickString reqId: " + reqId + " field: " + field
                 // + " value: " + value);
 
-                synchronized (value) {
+                if (tickType != TickType.RT_VOLUME || !m_marketDataRequests.containsKey(getReqId()))
+                    return;
 
-                    if (!m_marketDataRequests.containsKey(getReqId()))
-                        return;
+                /*
+                 * If there is no price ignore this value.
+                 */
+                if (!m_rtVolume.parse(value))
+                    return;
 
-                    switch (tickType) {
-                        case RT_VOLUME: {
-                            /*
-                             * If there is no price ignore this value.
-                             */
-                            if (value.startsWith(";"))
-                                return;
-
-                            StringTokenizer st = new StringTokenizer(value, ";");
-                            int tokenNumber = 0;
-                            BigDecimal price = new BigDecimal(0);
-                            ZonedDateTime time = null;
-                            while (st.hasMoreTokens()) {
-                                tokenNumber++;
-                                String token = st.nextToken();
-                                switch (tokenNumber) {
-                                    case 1: {
-                                        price = (new BigDecimal(Double.parseDouble(token))).setScale(SCALE,
-                                                RoundingMode.HALF_EVEN);
-                                        break;
-                                    }
-                                    case 2: {
-                                        _log.debug("TickString Trade Size: " + Integer.parseInt(token));
-                                        break;
-                                    }
-                                    case 3: {
-                                        time = TradingCalendar.getZonedDateTimeFromMilli(Long.parseLong(token));
-                                        break;
-                                    }
-                                    case 4: {
-                                        _log.debug("TickString Total Volume: " + Integer.parseInt(token) * 100);
-                                        break;
-                                    }
-                                    case 5: {
-                                        _log.debug("TickString Total Vwap: " + token);
-                                        break;
-                                    }
-                                    case 6: {
-                                        break;
-                                    }
-                                    default: {
-                                        break;
-                                    }
-                                }
-                            }
+                Contract contract = m_marketDataRequests.get(getReqId());
 
-                            if (price.doubleValue() > 0) {
-
-                                Contract contract = m_marketDataRequests.get(getReqId());
-                                // _log.warn("TickString ReqId: " + reqId + " Field: "
-                                // + field + " String: " + value);
-                                for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
-
-                                    Contract seriesContract = tradestrategy.getStrategyData().getBaseCandleSeries()
-                                            .getContract();
-                                    int index = tradestrategy.getStrategyData().getBaseCandleSeries().indexOf(time);
-                                    if (index < 0)
-                                        return;
-
-                                    CandleItem candleItem = (CandleItem) tradestrategy.getStrategyData().getBaseCandleSeries()
-                                            .getDataItem(index);
-                                    if (seriesContract.getLastAskPrice().doubleValue() > 0
-                                            && seriesContract.getLastBidPrice().doubleValue() > 0
-                                            && (price.doubleValue() <= seriesContract.getLastAskPrice().doubleValue()
-                                            && price.doubleValue() >= seriesContract.getLastBidPrice().doubleValue())) {
-
-                                        if (marketUpdateOnClose && (price.doubleValue() != candleItem.getClose())) {
-
-                                            candleItem.setClose(price.doubleValue());
-                                            candleItem.setLastUpdateDate(time);
-                                            /*
-                                             * Note if you want you can fire the series
-                                             * change here this will fire runStrategy.
-                                             * Could cause problems if the method is not
-                                             * synchronized in the strategy when the
-                                             * stock is fast running.
-                                             */
-                                            tradestrategy.getStrategyData().getBaseCandleSeries().fireSeriesChanged();
-                                            /*
-                                             * This can be used to update the charts.
-                                             * NOTE not recommended for performance
-                                             * reasons chart events are slow to update..
-                                             */
-                                            // tradestrategy.getStrategyData()
-                                            // .getCandleDataset().getSeries(0)
-                                            // .fireSeriesChanged();
-                                            // _log.info("TickString Symbol: "
-                                            // + seriesContract.getSymbol()
-                                            // + " Trade Time: " + time
-                                            // + " Price: " + price + " Bid: "
-                                            // + seriesContract.getLastBidPrice()
-                                            // + " Ask: "
-                                            // + seriesContract.getLastAskPrice());
-                                        } else {
-                                            if (price.doubleValue() > candleItem.getHigh()
-                                                    || price.doubleValue() < candleItem.getLow()) {
-                                                candleItem.setClose(price.doubleValue());
-                                                candleItem.setLastUpdateDate(time);
-                                                /*
-                                                 * Note if you want you can fire the
-                                                 * series change here this will fire
-                                                 * runStrategy. Could cause problems if
-                                                 * the method is not synchronized in the
-                                                 * strategy when the stock is fast
-                                                 * running.
-                                                 */
-                                                tradestrategy.getStrategyData().getBaseCandleSeries().fireSeriesChanged();
-                                                /*
-                                                 * This can be used to update the
-                                                 * charts. NOTE not recommended for
-                                                 * performance reasons chart events are
-                                                 * slow to update..
-                                                 */
-                                                // tradestrategy.getStrategyData()
-                                                // .getCandleDataset().getSeries(0)
-                                                // .fireSeriesChanged();
-                                                //
-                                                // _log.info("TickString Symbol: "
-                                                // + seriesContract.getSymbol()
-                                                // + " Trade Time: " + time
-                                                // + " Price: " + price + " Bid: "
-                                                // + seriesContract.getLastBidPrice()
-                                                // + " Ask: "
-                                                // + seriesContract.getLastAskPrice());
-                                            }
-                                        }
-                                    }
-                                }
-                            }
-                            break;
-                        }
-                        default: {
-                            break;
-                        }
+                synchronized (contract) {
+                    for (Tradestrategy tradestrategy : contract.getTradestrategies()) {
+                        tradestrategy.getStrategyData().getTickAggregator().onTrade(m_rtVolume.getPrice(),
+                                m_rtVolume.getSize(), m_rtVolume.getTime());
                     }
                 }
             } catch (Exception ex) {
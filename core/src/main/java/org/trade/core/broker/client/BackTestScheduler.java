@@ -0,0 +1,246 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.broker.client;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.dao.EntityManagerHelper;
+import org.trade.core.properties.ConfigProperties;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the back test brokers (one per Tradestrategy/Tradingday) on a bounded
+ * pool of worker threads. Submitting blocks once the pool and its queue are
+ * full, so the BrokerDataRequestMonitor cannot race ahead of the brokers that
+ * are actually replaying candles.
+ * <p>
+ * Each broker only reads the candles and writes the orders of its own
+ * tradestrategy, so the results do not depend on the size of the pool or the
+ * order in which the tasks complete.
+ * <p>
+ * The pool size is set by trade.backtest.poolSize, a value of 0 turns the
+ * scheduler off and the brokers are run on the SwingWorker executor.
+ */
+public class BackTestScheduler {
+
+    private final static Logger _log = LoggerFactory.getLogger(BackTestScheduler.class);
+
+    private static BackTestScheduler m_instance = null;
+    private static final int poolSize;
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore permits;
+    private final AtomicInteger submitted = new AtomicInteger(0);
+    private final AtomicInteger completed = new AtomicInteger(0);
+    private final Object lockCompleted = new Object();
+    private long startTime = 0;
+
+    static {
+        int size = 0;
+        try {
+            size = ConfigProperties.getPropAsInt("trade.backtest.poolSize");
+        } catch (Exception ex) {
+            _log.debug("trade.backtest.poolSize not set back test scheduler disabled Msg: {}", ex.getMessage());
+        }
+        poolSize = (size < 0 ? Runtime.getRuntime().availableProcessors() : size);
+    }
+
+    /**
+     * Constructor for BackTestScheduler.
+     *
+     * @param threads int the number of brokers that may run at once.
+     */
+    public BackTestScheduler(int threads) {
+
+        AtomicInteger threadCount = new AtomicInteger(0);
+        this.executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "BackTestThread" + threadCount.getAndIncrement());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.executor.allowCoreThreadTimeOut(true);
+        // Allow one queued broker per thread so a worker never sits idle.
+        this.permits = new Semaphore(threads * 2, true);
+    }
+
+    /**
+     * Method getInstance. Returns the shared scheduler or null if
+     * trade.backtest.poolSize is 0.
+     *
+     * @return BackTestScheduler
+     */
+    public static synchronized BackTestScheduler getInstance() {
+
+        if (null == m_instance && poolSize > 0) {
+            m_instance = new BackTestScheduler(poolSize);
+        }
+        return m_instance;
+    }
+
+    /**
+     * Method reset. Clear the counters at the start of a run.
+     */
+    public void reset() {
+
+        synchronized (lockCompleted) {
+            this.submitted.set(0);
+            this.completed.set(0);
+            this.startTime = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Method submit. Queue the broker to run, blocking while the pool is
+     * saturated.
+     *
+     * @param broker Broker
+     */
+    public void submit(final Broker broker) throws InterruptedException {
+
+        this.permits.acquire();
+        this.submitted.getAndIncrement();
+
+        /*
+         * The broker is complete when its done() has run on the EDT, not when
+         * run() returns on the pool thread.
+         */
+        broker.setCompletionListener(() -> {
+            synchronized (lockCompleted) {
+                this.completed.getAndIncrement();
+                lockCompleted.notifyAll();
+            }
+        });
+
+        try {
+
+            this.executor.execute(() -> {
+                try (EntityManagerHelper.Scope ignored = EntityManagerHelper.openScope()) {
+                    broker.run();
+                } finally {
+                    this.permits.release();
+                }
+            });
+        } catch (RuntimeException ex) {
+
+            broker.setCompletionListener(null);
+            this.submitted.getAndDecrement();
+            this.permits.release();
+            throw ex;
+        }
+    }
+
+    /**
+     * Method awaitCompletion. Wait for all the submitted brokers to finish or
+     * the timeout to expire.
+     *
+     * @param timeoutMillis long
+     * @return boolean true if all the brokers have completed.
+     */
+    public boolean awaitCompletion(long timeoutMillis) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        synchronized (lockCompleted) {
+
+            while (this.completed.get() < this.submitted.get()) {
+
+                long remaining = deadline - System.currentTimeMillis();
+
+                if (remaining <= 0) {
+                    return false;
+                }
+                lockCompleted.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Method getSubmitted.
+     *
+     * @return int
+     */
+    public int getSubmitted() {
+        return this.submitted.get();
+    }
+
+    /**
+     * Method getCompleted.
+     *
+     * @return int
+     */
+    public int getCompleted() {
+        return this.completed.get();
+    }
+
+    /**
+     * Method getThroughput. The tradestrategies completed per second since the
+     * last reset.
+     *
+     * @return double
+     */
+    public double getThroughput() {
+
+        double seconds = (System.currentTimeMillis() - this.startTime) / 1000d;
+
+        if (seconds <= 0) {
+            return 0;
+        }
+        return this.completed.get() / seconds;
+    }
+
+    /**
+     * Method getPoolSize.
+     *
+     * @return int
+     */
+    public int getPoolSize() {
+        return this.executor.getMaximumPoolSize();
+    }
+
+    /**
+     * Method shutdown.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+}
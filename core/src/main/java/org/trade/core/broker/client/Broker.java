@@ -2,9 +2,11 @@ package org.trade.core.broker.client;
 
 import org.trade.core.persistent.dao.Tradestrategy;
 import org.trade.core.persistent.dao.strategy.IStrategyChangeListener;
+import org.trade.core.persistent.dao.strategy.IStrategyRule;
 import org.trade.core.persistent.dao.strategy.StrategyRuleException;
 
 import javax.swing.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class Broker extends SwingWorker<Void, Void> implements IStrategyChangeListener {
@@ -12,11 +14,60 @@ public abstract class Broker extends SwingWorker<Void, Void> implements IStrateg
     protected AtomicInteger ruleComplete = new AtomicInteger(0);
     protected AtomicInteger strategiesRunning = new AtomicInteger(0);
     protected final Object lockBackTestWorker = new Object();
+    protected final ConcurrentLinkedQueue<IStrategyRule> pendingStrategies = new ConcurrentLinkedQueue<>();
+    private volatile Runnable completionListener = null;
 
     public Broker() {
 
     }
 
+    /**
+     * Method setCompletionListener. The listener is run once the broker has
+     * finished i.e. after done() has run on the EDT.
+     *
+     * @param completionListener Runnable
+     */
+    public void setCompletionListener(Runnable completionListener) {
+        this.completionListener = completionListener;
+    }
+
+    /**
+     * Method fireCompleted. Called at the end of done() by the sub classes.
+     */
+    protected void fireCompleted() {
+
+        Runnable listener = this.completionListener;
+        if (null != listener) {
+            this.completionListener = null;
+            listener.run();
+        }
+    }
+
+    /**
+     * Method isSynchronous. When true the strategies are not started on their
+     * own threads but handed to this broker via addStrategy and run on the
+     * broker thread.
+     *
+     * @return boolean
+     */
+    public boolean isSynchronous() {
+        return false;
+    }
+
+    /**
+     * Method addStrategy. Hand a strategy to the broker to be started on the
+     * broker thread.
+     *
+     * @param strategy IStrategyRule
+     */
+    public void addStrategy(IStrategyRule strategy) {
+
+        pendingStrategies.add(strategy);
+        synchronized (lockBackTestWorker) {
+            lockBackTestWorker.notifyAll();
+        }
+    }
+
     /**
      * Method strategyComplete.
      *
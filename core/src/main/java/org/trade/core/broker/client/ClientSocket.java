@@ -80,7 +80,13 @@ public class ClientSocket {
                     DBBroker backTestBroker = new DBBroker(tradestrategy.getStrategyData(),
                             tradestrategy.getId(), m_client);
                     m_backTestBroker.put(reqId, backTestBroker);
-                    backTestBroker.execute();
+                    BackTestScheduler scheduler = BackTestScheduler.getInstance();
+
+                    if (null != scheduler) {
+                        scheduler.submit(backTestBroker);
+                    } else {
+                        backTestBroker.execute();
+                    }
                 }
                 m_client.historicalDataComplete(reqId);
             }
@@ -37,9 +37,13 @@ package org.trade.core.broker.client;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.trade.core.broker.BackTestOrderBook;
+import org.trade.core.broker.IBrokerModel;
 import org.trade.core.factory.ClassFactory;
+import org.trade.core.persistent.CandleArchive;
 import org.trade.core.persistent.IPersistentModel;
 import org.trade.core.persistent.PersistentModelException;
+import org.trade.core.persistent.TradelogAnalytics;
 import org.trade.core.persistent.dao.Candle;
 import org.trade.core.persistent.dao.Contract;
 import org.trade.core.persistent.dao.Strategy;
@@ -52,6 +56,7 @@ import org.trade.core.persistent.dao.series.indicator.CandleSeries;
 import org.trade.core.persistent.dao.series.indicator.IndicatorSeries;
 import org.trade.core.persistent.dao.series.indicator.StrategyData;
 import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
+import org.trade.core.persistent.dao.strategy.IStrategyRule;
 import org.trade.core.properties.ConfigProperties;
 import org.trade.core.util.CoreUtils;
 import org.trade.core.util.time.TradingCalendar;
@@ -65,7 +70,10 @@ import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.function.BooleanSupplier;
 
 /**
  *
@@ -79,16 +87,20 @@ public class DBBroker extends Broker {
     private Tradestrategy tradestrategy = null;
     private final Integer idTradestrategy;
     private final IClientWrapper brokerModel;
+    private final BackTestOrderBook orderBook;
     private BigDecimal trailAmount = null;
     private BigDecimal trailLimitOffsetAmount = null;
     private long execId = TradingCalendar.geMillisFromZonedDateTime(TradingCalendar.getDateTimeNowMarketTimeZone());
+    private final List<IStrategyRule> inlineStrategies = new ArrayList<>();
     private static final Integer _backTestBarSize;
+    private static final boolean _backTestSynchronous;
 
     static {
 
         try {
 
             _backTestBarSize = ConfigProperties.getPropAsInt("trade.backtest.barSize");
+            _backTestSynchronous = ConfigProperties.getPropAsBoolean("trade.backtest.synchronous");
         } catch (IOException ex) {
 
             throw new IllegalArgumentException("Error initializing BackTestBroker Msg: " + ex.getMessage());
@@ -107,6 +119,7 @@ public class DBBroker extends Broker {
         this.idTradestrategy = idTradestrategy;
         this.brokerModel = brokerModel;
         this.strategyData = strategyData;
+        this.orderBook = (brokerModel instanceof IBrokerModel) ? ((IBrokerModel) brokerModel).getOrderBook() : null;
     }
 
     /**
@@ -121,6 +134,9 @@ public class DBBroker extends Broker {
             this.tradePersistentModel = (IPersistentModel) ClassFactory
                     .getServiceForInterface(IPersistentModel._persistentModel, this);
             this.tradestrategy = this.tradePersistentModel.findTradestrategyById(this.idTradestrategy);
+            if (null != this.orderBook) {
+                this.orderBook.open(this.idTradestrategy);
+            }
             this.strategyData.clearBaseCandleDataset();
             this.tradestrategy.setStrategyData(this.strategyData);
 
@@ -160,13 +176,7 @@ public class DBBroker extends Broker {
             /*
              * Wait for the strategy to start.
              */
-            synchronized (lockBackTestWorker) {
-
-                while (strategiesRunning.get() < 1) {
-
-                    lockBackTestWorker.wait();
-                }
-            }
+            waitForStrategies(() -> strategiesRunning.get() < 1);
 
             if (candlesTradingday.isEmpty()) {
 
@@ -175,6 +185,7 @@ public class DBBroker extends Broker {
                  * Poke the strategy this will kill it as there is no data.
                  */
                 this.tradestrategy.getStrategyData().getBaseCandleSeries().fireSeriesChanged();
+                fireStrategies();
             } else {
 
                 candles.addAll(candlesTradingday);
@@ -211,17 +222,17 @@ public class DBBroker extends Broker {
                         candle.getTradeCount(), this.tradestrategy.getBarSize() / candle.getBarSize(),
                         candle.getLastUpdateDate());
 
-                /*
-                 * Wait for the candle to be processed by the strategy.
-                 */
-                synchronized (lockBackTestWorker) {
+                if (isSynchronous()) {
+                    /*
+                     * Fire the rules on this thread, no hand-off needed.
+                     */
+                    fireStrategies();
+                } else {
                     /*
                      * Wait for the rule to be completed by the strategy. note
                      * this worker is listening to the strategy worker.
                      */
-                    while ((strategiesRunning.get() > 0) && (ruleComplete.get() < 1)) {
-                        lockBackTestWorker.wait();
-                    }
+                    waitForStrategies(() -> (strategiesRunning.get() > 0) && (ruleComplete.get() < 1));
                 }
 
                 if (candle.getStartPeriod().isBefore(this.tradestrategy.getTradingday().getOpen())) {
@@ -229,7 +240,7 @@ public class DBBroker extends Broker {
                     continue;
                 }
 
-                positionOrders = this.tradePersistentModel.findPositionOrdersByTradestrategyId(this.idTradestrategy);
+                positionOrders = findPositionOrders();
 
                 /*
                  * The new candle may create an order so this call fills it and
@@ -256,18 +267,13 @@ public class DBBroker extends Broker {
                      * the trade that we weren't stopped out on the entry
                      * candle.
                      */
-                    positionOrders = this.tradePersistentModel
-                            .findPositionOrdersByTradestrategyId(this.idTradestrategy);
+                    positionOrders = findPositionOrders();
 
                     if (this.tradestrategy.getStrategy().hasStrategyManager()) {
 
-                        synchronized (lockBackTestWorker) {
-
-                            while (strategiesRunning.get() < 1 && positionOrders.hasOpenTradePosition()) {
-
-                                lockBackTestWorker.wait();
-                            }
-                        }
+                        final TradestrategyOrders openPositionOrders = positionOrders;
+                        waitForStrategies(
+                                () -> strategiesRunning.get() < 1 && openPositionOrders.hasOpenTradePosition());
                     }
 
                     if (positionOrders.hasOpenTradePosition()) {
@@ -285,8 +291,7 @@ public class DBBroker extends Broker {
                                  * Refresh the orders as the other thread may
                                  * have added orders that need to be filled.
                                  */
-                                positionOrders = this.tradePersistentModel
-                                        .findPositionOrdersByTradestrategyId(this.idTradestrategy);
+                                positionOrders = findPositionOrders();
                                 filledOrders(this.tradestrategy.getContract(), positionOrders, candle);
                             }
                         }
@@ -296,11 +301,7 @@ public class DBBroker extends Broker {
                      * We now have an open position so we wait for the strategy
                      * that got us into this position to close.
                      */
-                    synchronized (lockBackTestWorker) {
-                        while (strategiesRunning.get() > 1) {
-                            lockBackTestWorker.wait();
-                        }
-                    }
+                    waitForStrategies(() -> strategiesRunning.get() > 1);
                 }
 
                 if (strategiesRunning.get() == 0 && !positionOrders.hasOpenTradePosition()) {
@@ -309,22 +310,162 @@ public class DBBroker extends Broker {
             }
 
             candles.clear();
+
+            TradelogAnalytics analytics = TradelogAnalytics.getInstance();
+            if (null != analytics) {
+                analytics.add(this.tradestrategy, findPositionOrders());
+            }
         } catch (InterruptedException interExp) {
             // Do nothing.
         } catch (Exception ex) {
 
             _log.error("Error BackTestBroker Symbol: {} Msg: {}", this.tradestrategy.getContract().getSymbol(), ex.getMessage(), ex);
+        } finally {
+            stopStrategies();
+            flushOrderBook();
         }
         return null;
     }
 
     public void done() {
 
-        brokerModel.onCancelRealtimeBars(this.tradestrategy);
-        brokerModel.onCancelBrokerData(this.tradestrategy);
-        // Free some memory!!
-        this.tradestrategy.setStrategyData(null);
-        _log.debug("BackTestBroker done for: {} idTradestrategy: {}", tradestrategy.getContract().getSymbol(), this.tradestrategy.getId());
+        try {
+            brokerModel.onCancelRealtimeBars(this.tradestrategy);
+            brokerModel.onCancelBrokerData(this.tradestrategy);
+            // Free some memory!!
+            this.tradestrategy.setStrategyData(null);
+            _log.debug("BackTestBroker done for: {} idTradestrategy: {}", tradestrategy.getContract().getSymbol(), this.tradestrategy.getId());
+        } finally {
+            fireCompleted();
+        }
+    }
+
+    /**
+     * Method isSynchronous.
+     *
+     * @return boolean true if trade.backtest.synchronous is set.
+     * @see Broker#isSynchronous()
+     */
+    public boolean isSynchronous() {
+        return _backTestSynchronous;
+    }
+
+    /**
+     * Method waitForStrategies. Wait while the condition holds. The condition
+     * depends on the strategies started/completed so when running synchronous
+     * any strategies handed to this broker are started first.
+     *
+     * @param condition BooleanSupplier
+     */
+    private void waitForStrategies(BooleanSupplier condition) throws InterruptedException {
+
+        while (condition.getAsBoolean()) {
+
+            if (isSynchronous() && startStrategies()) {
+                continue;
+            }
+
+            synchronized (lockBackTestWorker) {
+
+                if (condition.getAsBoolean() && pendingStrategies.isEmpty()) {
+                    lockBackTestWorker.wait();
+                }
+            }
+        }
+    }
+
+    /**
+     * Method startStrategies. Start any strategies that have been handed to
+     * this broker and complete any that have been cancelled. Note the
+     * strategies that open a position are cancelled when their strategy
+     * manager is started.
+     *
+     * @return boolean true if a strategy was started or completed.
+     */
+    private boolean startStrategies() {
+
+        boolean changed = false;
+        IStrategyRule strategy;
+
+        while (null != (strategy = pendingStrategies.poll())) {
+
+            inlineStrategies.add(strategy);
+            strategy.executeInline();
+            changed = true;
+        }
+
+        for (IStrategyRule item : inlineStrategies) {
+
+            if (item.isCancelled() && !item.isDone()) {
+                item.fireInline();
+                changed = true;
+            }
+        }
+        inlineStrategies.removeIf(IStrategyRule::isDone);
+        return changed;
+    }
+
+    /**
+     * Method fireStrategies. Fire the rules of the running strategies for the
+     * candle just built. Strategies handed over since the last candle are then
+     * started, they process the current candle on startup.
+     */
+    private void fireStrategies() {
+
+        for (IStrategyRule strategy : inlineStrategies) {
+            strategy.fireInline();
+        }
+        inlineStrategies.removeIf(IStrategyRule::isDone);
+        startStrategies();
+    }
+
+    /**
+     * Method stopStrategies. The candles have all been processed so complete
+     * any strategies still running on this thread.
+     */
+    private void stopStrategies() {
+
+        if (!isSynchronous()) {
+            return;
+        }
+
+        startStrategies();
+
+        for (IStrategyRule strategy : inlineStrategies) {
+            strategy.cancel();
+            strategy.fireInline();
+        }
+        inlineStrategies.clear();
+    }
+
+    /**
+     * Method flushOrderBook. Save the orders held in the order book, this is
+     * done on the broker thread before the run is complete so anything that
+     * waits for the broker sees the orders saved.
+     */
+    private void flushOrderBook() {
+
+        if (null != this.orderBook) {
+            try {
+                this.orderBook.flush(this.idTradestrategy);
+            } catch (Exception ex) {
+                _log.error("Error BackTestBroker saving orders Symbol: {} Msg: {}", this.tradestrategy.getContract().getSymbol(), ex.getMessage(), ex);
+            }
+        }
+    }
+
+    /**
+     * Method findPositionOrders. When the order book is used the orders are
+     * held in memory and shared with the strategy.
+     *
+     * @return TradestrategyOrders
+     */
+    private TradestrategyOrders findPositionOrders() throws PersistentModelException {
+
+        if (null != this.orderBook) {
+            return this.orderBook.findPositionOrdersByTradestrategyId(this.idTradestrategy);
+        }
+        return this.tradePersistentModel.findPositionOrdersByTradestrategyId(this.idTradestrategy);
     }
 
     /**
@@ -338,6 +479,11 @@ public class DBBroker extends Broker {
     private boolean filledOrders(Contract contract, TradestrategyOrders positionOrders, Candle candle) {
 
         boolean orderfilled = false;
+        /*
+         * Orders filled or cancelled on this candle. Note the orders may be
+         * shared with the strategy via the order book so they are not marked.
+         */
+        Set<Integer> orderKeysDone = new HashSet<>();
 
         for (TradeOrder order : positionOrders.getTradeOrders()) {
 
@@ -362,8 +508,20 @@ public class DBBroker extends Broker {
 
             if (OrderStatus.SUBMITTED.equals(order.getStatus()) && order.getTransmit()) {
 
+                BigDecimal auxPrice = order.getAuxPrice();
+                BigDecimal limitPrice = order.getLimitPrice();
                 BigDecimal filledPrice = getFilledPrice(order, candle);
 
+                if (null == filledPrice && null != this.orderBook) {
+                    /*
+                     * The trail prices are not saved until the order fills.
+                     * The order is shared via the order book so put them back
+                     * as they would be when the order is next read.
+                     */
+                    order.setAuxPrice(auxPrice);
+                    order.setLimitPrice(limitPrice);
+                }
+
                 if (null != filledPrice) {
 
                     if (!orderfilled) {
@@ -379,7 +537,7 @@ public class DBBroker extends Broker {
                         // If OCA cancel other side
                         for (TradeOrder orderOCA : positionOrders.getTradeOrders()) {
 
-                            if (orderOCA.isDirty()) {
+                            if (orderKeysDone.contains(orderOCA.getOrderKey())) {
                                 continue;
                             }
 
@@ -398,28 +556,28 @@ public class DBBroker extends Broker {
                                         // Green bar
                                         if (filledPrice.compareTo(orderOCAFilledPrice) > 0) {
                                             cancelOrder(contract, order);
-                                            order.setDirty(true);
+                                            orderKeysDone.add(order.getOrderKey());
                                             createOrderExecution(contract, orderOCA, orderOCAFilledPrice,
                                                     candle.getStartPeriod());
-                                            orderOCA.setDirty(true);
+                                            orderKeysDone.add(orderOCA.getOrderKey());
                                             break;
                                         }
                                     } else {
                                         if (filledPrice.compareTo(orderOCAFilledPrice) < 0) {
                                             cancelOrder(contract, order);
-                                            order.setDirty(true);
+                                            orderKeysDone.add(order.getOrderKey());
                                             createOrderExecution(contract, orderOCA, orderOCAFilledPrice,
                                                     candle.getStartPeriod());
-                                            orderOCA.setDirty(true);
+                                            orderKeysDone.add(orderOCA.getOrderKey());
                                             break;
                                         }
                                     }
                                 }
 
                                 cancelOrder(contract, orderOCA);
-                                orderOCA.setDirty(true);
+                                orderKeysDone.add(orderOCA.getOrderKey());
                                 createOrderExecution(contract, order, filledPrice, candle.getStartPeriod());
-                                order.setDirty(true);
+                                orderKeysDone.add(order.getOrderKey());
                                 break;
                             }
                         }
@@ -749,8 +907,7 @@ public class DBBroker extends Broker {
                         new Strategy(), tradestrategy.getPortfolio(), new BigDecimal(0), null, null, false,
                         tradestrategy.getChartDays(), tradestrategy.getBarSize());
                 childTradestrategy.setDirty(false);
-                List<Candle> indicatorCandles = this.tradePersistentModel.findCandlesByContractDateRangeBarSize(
-                        childTradestrategy.getContract().getId(), startDate, endDate,
+                List<Candle> indicatorCandles = findCandles(childTradestrategy.getContract(), startDate, endDate,
                         childTradestrategy.getBarSize());
 
                 if (indicatorCandles.isEmpty()) {
@@ -800,8 +957,7 @@ public class DBBroker extends Broker {
                  */
                 if ((Math.floor(
                         tradestrategy.getBarSize() / (double) size) == (tradestrategy.getBarSize() / (double) size))) {
-                    candles = tradePersistentModel.findCandlesByContractDateRangeBarSize(
-                            tradestrategy.getContract().getId(), startDate, endDate, size);
+                    candles = findCandles(tradestrategy.getContract(), startDate, endDate, size);
                     if (!candles.isEmpty()) {
                         break;
                     }
@@ -810,4 +966,44 @@ public class DBBroker extends Broker {
         }
         return candles;
     }
+
+    /**
+     * Method findCandles. Read the candles from the candle archive when it
+     * holds the whole range, otherwise query the database and add the result
+     * to the archive for the next run.
+     *
+     * @param contract  Contract
+     * @param startDate ZonedDateTime
+     * @param endDate   ZonedDateTime
+     * @param barSize   int
+     * @return List<Candle>
+     */
+    private List<Candle> findCandles(Contract contract, ZonedDateTime startDate, ZonedDateTime endDate, int barSize)
+            throws PersistentModelException {
+
+        CandleArchive archive = CandleArchive.getInstance();
+
+        if (null != archive) {
+            try {
+                List<Candle> candles = archive.findCandles(contract, barSize, startDate, endDate);
+                if (null != candles) {
+                    return candles;
+                }
+            } catch (IOException ex) {
+                _log.warn("Error reading candle archive Symbol: {} Msg: {}", contract.getSymbol(), ex.getMessage());
+            }
+        }
+
+        List<Candle> candles = this.tradePersistentModel.findCandlesByContractDateRangeBarSize(contract.getId(),
+                startDate, endDate, barSize);
+
+        if (null != archive && !candles.isEmpty()) {
+            try {
+                archive.append(contract.getId(), barSize, candles);
+            } catch (IOException ex) {
+                _log.warn("Error writing candle archive Symbol: {} Msg: {}", contract.getSymbol(), ex.getMessage());
+            }
+        }
+        return candles;
+    }
 }
@@ -35,14 +35,12 @@
  */
 package org.trade.core.broker.client;
 
-import org.json.JSONArray;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trade.core.persistent.dao.Candle;
 import org.trade.core.persistent.dao.Contract;
 import org.trade.core.persistent.dao.series.indicator.candle.CandlePeriod;
-import org.trade.core.properties.ConfigProperties;
 import org.trade.core.util.CoreUtils;
 import org.trade.core.util.time.TradingCalendar;
 import org.trade.core.valuetype.BarSize;
@@ -51,14 +49,12 @@ import org.trade.core.valuetype.Currency;
 import org.trade.core.valuetype.Exchange;
 
 import java.io.IOException;
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 
 public class PolygonBroker extends Broker {
 
@@ -70,19 +66,7 @@ public class PolygonBroker extends Broker {
     private final String barSize;
     private final String endDateTime;
     private final IClientWrapper brokerModel;
-    private final static String url;
-    private final static String apiKey;
-
-    static {
-
-        try {
-            url = ConfigProperties.getPropAsString("trade.polygon.url");
-            apiKey = ConfigProperties.getPropAsString("trade.polygon.key");
-        } catch (IOException ex) {
-
-            throw new IllegalArgumentException("Error initializing PolygonBroker Msg: " + ex.getMessage());
-        }
-    }
+    private PolygonClient client;
 
     public PolygonBroker(Integer reqId, Contract contract, String endDateTime, String chartDays, String barSize,
                          IClientWrapper brokerModel) {
@@ -99,6 +83,8 @@ public class PolygonBroker extends Broker {
 
         try {
 
+            this.client = PolygonClient.getInstance();
+
             if (setContractDetails(contract)) {
 
                 this.brokerModel.contractDetails(contract.getId(), contract);
@@ -146,68 +132,38 @@ public class PolygonBroker extends Broker {
     public void done() {
 
         _log.debug("PolygonBroker done for: {}", contract.getSymbol());
+        fireCompleted();
     }
 
     private boolean setContractDetails(Contract contract) throws IOException, InterruptedException {
 
-        /*
-         * Polygon curl -X GET "https://api.polygon.io/v3/reference/tickers/AAPL?apiKey=WGlljpSus0Ai1mj2ayaASNTcxchw9aUp"
-         */
-        String strUrl = url + "v3/reference/tickers/" + contract.getSymbol() + "?apiKey=" + apiKey;
-
-        _log.debug("Debug: PolygonBroker::setContractDetails URL: {}", strUrl);
-
-        // create a request
-        HttpResponse<String> response;
+        JSONObject resultObj = this.client.getTicker(contract.getSymbol());
 
-        try (HttpClient client = HttpClient.newHttpClient()) {
-
-            var request = HttpRequest.newBuilder(
-                            URI.create(strUrl))
-                    .header("accept", "application/json")
-                    .build();
-
-            response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        }
+        if (null != resultObj) {
+            String name = resultObj.getString("name");
 
-        if (response.statusCode() == 200) {
+            if (CoreUtils.nullSafeComparator(contract.getLongName(), name) != 0) {
 
-            String jsonString = response.body();
-            JSONObject contractObj = new JSONObject(jsonString);
-            JSONObject resultObj = contractObj.optJSONObject("results");
-
-            if (null != resultObj) {
-                String name = resultObj.getString("name");
-
-                if (CoreUtils.nullSafeComparator(contract.getLongName(), name) != 0) {
-
-                    contract.setLongName(name);
-                    contract.setDirty(true);
-                }
-
-                String currency = resultObj.getString("currency_name").toUpperCase();
+                contract.setLongName(name);
+                contract.setDirty(true);
+            }
 
-                if (CoreUtils.nullSafeComparator(contract.getCurrency(), currency) != 0) {
+            String currency = resultObj.getString("currency_name").toUpperCase();
 
-                    contract.setCurrency(Currency.newInstance(currency).getCode());
-                    contract.setDirty(true);
-                }
+            if (CoreUtils.nullSafeComparator(contract.getCurrency(), currency) != 0) {
 
-                String exchange = resultObj.getString("primary_exchange");
+                contract.setCurrency(Currency.newInstance(currency).getCode());
+                contract.setDirty(true);
+            }
 
-                if (CoreUtils.nullSafeComparator(contract.getPrimaryExchange(), exchange) != 0) {
+            String exchange = resultObj.getString("primary_exchange");
 
-                    contract.setPrimaryExchange(Exchange.newInstance(exchange).getCode());
-                    contract.setDirty(true);
-                }
-                return true;
-            } else {
+            if (CoreUtils.nullSafeComparator(contract.getPrimaryExchange(), exchange) != 0) {
 
-                _log.error("Error: PolygonBroker::setContractDetails  request to URL: {}, no results found: {}, contractObj: {}", strUrl, response.statusCode(), contractObj);
+                contract.setPrimaryExchange(Exchange.newInstance(exchange).getCode());
+                contract.setDirty(true);
             }
-        } else {
-
-            _log.error("Error: PolygonBroker::setContractDetails request to URL: {}, failed with status code: {}", strUrl, response.statusCode());
+            return true;
         }
         return false;
     }
@@ -216,142 +172,108 @@ public class PolygonBroker extends Broker {
                                       ZonedDateTime endDate) throws IOException, InterruptedException {
 
         /*
-         * Polygon curl -X GET "https://api.polygon.io/v2/aggs/ticker/AAPL/range/1/minute/1746696600000/1746734400000?adjusted=true&sort=asc&limit=1500&apiKey=WGlljpSus0Ai1mj2ayaASNTcxchw9aUp"
+         * Request each trading day on its own so the days download in parallel
+         * and completed days are served from the cache on the next backfill.
          */
         int barSize = 60;
-        String strUrl = url + "v2/aggs/ticker/" + symbol + "/range/1/minute/" + startDate.toInstant().toEpochMilli() + "/" + endDate.toInstant().toEpochMilli() + "?adjusted=true&sort=asc&limit=3000&apiKey=" + apiKey;
-        _log.debug("Debug: PolygonBroker::getPriceDataSetIntraday URL: {}", strUrl);
+        ZonedDateTime now = TradingCalendar.getDateTimeNowMarketTimeZone();
+        List<CompletableFuture<List<PolygonClient.Bar>>> days = new ArrayList<>();
 
-        // create a request
-        HttpResponse<String> response;
-        try (HttpClient client = HttpClient.newHttpClient()) {
+        for (ZonedDateTime day = startDate; !day.isAfter(endDate); day = TradingCalendar.getNextTradingDay(day)) {
 
-            var request = HttpRequest.newBuilder(
-                            URI.create(strUrl))
-                    .header("accept", "application/json")
-                    .build();
+            if (!TradingCalendar.isTradingDay(day)) {
+                continue;
+            }
+            ZonedDateTime from = TradingCalendar.getTradingDayStart(day);
+            ZonedDateTime to = TradingCalendar.getTradingDayEnd(day);
+            boolean cacheable = to.isBefore(now) && !to.isAfter(endDate);
 
-            response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (to.isAfter(endDate)) {
+                to = endDate;
+            }
+            if (to.isAfter(from)) {
+                days.add(this.client.getAggregatesAsync(symbol, PolygonClient.MINUTE, from, to, cacheable));
+            }
         }
 
-        if (response.statusCode() == 200) {
-
-            String jsonString = response.body();
-            JSONObject contractObj = new JSONObject(jsonString);
-            int resultsCount = contractObj.getInt("resultsCount");
-
-            if (resultsCount > 0) {
-
-                JSONArray bars = contractObj.optJSONArray("results");
+        int count = 0;
 
-                for (int i = 0; i < bars.length(); i++) {
+        for (CompletableFuture<List<PolygonClient.Bar>> future : days) {
 
-                    JSONObject barObj = bars.getJSONObject(i);
+            for (PolygonClient.Bar bar : getBars(future)) {
 
-                    ZonedDateTime time = TradingCalendar.getZonedDateTimeFromMilli((barObj.getLong("t")));
-                    ZonedDateTime tradingdayStart = TradingCalendar.getTradingDayStart(time);
-                    ZonedDateTime tradingdayEnd = TradingCalendar.getTradingDayEnd(time);
+                ZonedDateTime time = TradingCalendar.getZonedDateTimeFromMilli(bar.time());
+                ZonedDateTime tradingdayStart = TradingCalendar.getTradingDayStart(time);
+                ZonedDateTime tradingdayEnd = TradingCalendar.getTradingDayEnd(time);
 
-                    // values:Timestamp,close,high,low,open,volume
-                    double close = barObj.getDouble("c");
-                    double high = barObj.getDouble("h");
-                    double low = barObj.getDouble("l");
-                    double open = barObj.getDouble("o");
-                    double vwap = barObj.getDouble("vw");
-                    long volume = barObj.getLong("v");
-                    int tradeCount = barObj.getInt("n");
+                if ((time.isAfter(tradingdayStart) || time.equals(tradingdayStart)) && time.isBefore(tradingdayEnd)) {
 
-                    _log.debug("Info: PolygonBroker::getPriceDataSetIntraday Time : {}, Open: {}, High: {}, Low: {}, Close: {}, VW: {}, Volume: {}, tradeCount: {}", time, open, high, low, close, vwap, volume, tradeCount);
-
-                    if ((time.isAfter(tradingdayStart) || time.equals(tradingdayStart)) && time.isBefore(tradingdayEnd)) {
-
-                        // On the last one let the brokerModel model know its finished.
-                        String dateString = String.valueOf(time.toInstant().toEpochMilli());
-                        this.brokerModel.historicalData(reqId, dateString, open, high, low, close, volume,
-                                tradeCount, barSize, vwap, false);
-                    }
+                    String dateString = String.valueOf(bar.time());
+                    this.brokerModel.historicalData(reqId, dateString, bar.open(), bar.high(), bar.low(), bar.close(),
+                            (long) bar.volume(), bar.tradeCount(), barSize, bar.vwap(), false);
+                    count++;
                 }
-            } else {
-
-                _log.error("Error: PolygonBroker::setPriceDataIntraday  request to URL: {}, no results found: {}, contractObj: {}", strUrl, response.statusCode(), contractObj);
             }
-        } else {
+        }
 
-            _log.error("Error: PolygonBroker::setPriceDataIntraday request to URL: {}, failed with status code: {}, msg: {}", strUrl, response.statusCode(), response.body());
+        if (count == 0) {
+
+            _log.error("Error: PolygonBroker::setPriceDataIntraday Symbol: {}, no results found from: {} to: {}", symbol,
+                    startDate, endDate);
         }
     }
 
     private void setPriceDataDay(int reqId, String symbol, ZonedDateTime startDate, ZonedDateTime endDate) throws IOException, InterruptedException {
 
-        /*
-         * Polygon curl -X GET "https://api.polygon.io/v2/aggs/ticker/AAPL/range/1/day/1746696600000/1746734400000?adjusted=true&sort=asc&limit=1500&apiKey=WGlljpSus0Ai1mj2ayaASNTcxchw9aUp"
-         */
-        String strUrl = url + "v2/aggs/ticker/" + symbol + "/range/1/day/" + startDate.toInstant().toEpochMilli() + "/" + endDate.toInstant().toEpochMilli() + "?adjusted=true&sort=asc&limit=1500&apiKey=" + apiKey;
-        _log.debug("Debug: PolygonBroker::setPriceDataDay URL: {}", strUrl);
-
-        // create a request
-        HttpResponse<String> response;
-        try (HttpClient client = HttpClient.newHttpClient()) {
+        boolean cacheable = endDate.isBefore(TradingCalendar.getTradingDayStart(
+                TradingCalendar.getDateTimeNowMarketTimeZone()));
+        List<PolygonClient.Bar> bars = this.client.getAggregates(symbol, PolygonClient.DAY, startDate, endDate,
+                cacheable);
 
-            var request = HttpRequest.newBuilder(
-                            URI.create(strUrl))
-                    .header("accept", "application/json")
-                    .build();
-
-            response = client.send(request, HttpResponse.BodyHandlers.ofString());
-        }
-
-        if (response.statusCode() == 200) {
+        if (!bars.isEmpty()) {
 
             List<Candle> candles = new ArrayList<>();
-            String jsonString = response.body();
-            JSONObject contractObj = new JSONObject(jsonString);
-            int resultsCount = contractObj.getInt("resultsCount");
 
-            if (resultsCount > 0) {
+            for (PolygonClient.Bar bar : bars) {
 
-                JSONArray bars = contractObj.optJSONArray("results");
+                ZonedDateTime time = TradingCalendar.getZonedDateTimeFromMilli(bar.time());
 
-                for (int i = 0; i < bars.length(); i++) {
+                _log.info("Info: PolygonBroker::setPriceDataDay Time : {}, Open: {}, High: {}, Low: {}, Close: {}, VW: {}, Volume: {}, tradeCount: {}", time, bar.open(), bar.high(), bar.low(), bar.close(), bar.vwap(), bar.volume(), bar.tradeCount());
+                CandlePeriod period = new CandlePeriod(time, TradingCalendar.getDateAtTime(time, endDate).minusSeconds(1));
 
-                    JSONObject barObj = bars.getJSONObject(i);
+                Candle candle = new Candle(null, period, bar.open(), bar.high(), bar.low(), bar.close(),
+                        (long) bar.volume(), bar.vwap(), bar.tradeCount(), TradingCalendar.getDateTimeNowMarketTimeZone());
 
-                    ZonedDateTime time = TradingCalendar.getZonedDateTimeFromMilli((barObj.getLong("t")));
-                    // values:Timestamp,close,high,low,open,volume
-                    double close = barObj.getDouble("c");
-                    double high = barObj.getDouble("h");
-                    double low = barObj.getDouble("l");
-                    double open = barObj.getDouble("o");
-                    double vw = barObj.getDouble("vw");
-                    long volume = barObj.getLong("v");
-                    int tradeCount = barObj.getInt("n");
+                candle.setLastUpdateDate(time);
+                candles.add(candle);
+            }
 
-                    _log.info("Info: PolygonBroker::getPriceDataSetIntraday Time : {}, Open: {}, High: {}, Low: {}, Close: {}, VW: {}, Volume: {}, tradeCount: {}", time, open, high, low, close, vw, volume, tradeCount);
-                    CandlePeriod period = new CandlePeriod(time, TradingCalendar.getDateAtTime(time, endDate).minusSeconds(1));
+            Collections.reverse(candles);
+            for (Candle candle : candles) {
 
-                    Candle candle = new Candle(null, period, open, high, low, close, volume, vw,
-                            tradeCount, TradingCalendar.getDateTimeNowMarketTimeZone());
+                long millis = TradingCalendar.geMillisFromZonedDateTime(candle.getStartPeriod());
 
-                    candle.setLastUpdateDate(time);
-                    candles.add(candle);
-                }
-
-                Collections.reverse(candles);
-                for (Candle candle : candles) {
+                this.brokerModel.historicalData(reqId, String.valueOf(millis), candle.getOpen().doubleValue(),
+                        candle.getHigh().doubleValue(), candle.getLow().doubleValue(), candle.getClose().doubleValue(),
+                        candle.getVolume().intValue(), candle.getTradeCount(), 1, candle.getVwap().doubleValue(), false);
+            }
+        } else {
 
-                    long millis = TradingCalendar.geMillisFromZonedDateTime(candle.getStartPeriod());
+            _log.error("Error: PolygonBroker::setPriceDataDay Symbol: {}, no results found from: {} to: {}", symbol,
+                    startDate, endDate);
+        }
+    }
 
-                    this.brokerModel.historicalData(reqId, String.valueOf(millis), candle.getOpen().doubleValue(),
-                            candle.getHigh().doubleValue(), candle.getLow().doubleValue(), candle.getClose().doubleValue(),
-                            candle.getVolume().intValue(), candle.getTradeCount(), 1, candle.getVwap().doubleValue(), false);
-                }
-            } else {
+    private static List<PolygonClient.Bar> getBars(CompletableFuture<List<PolygonClient.Bar>> future)
+            throws IOException, InterruptedException {
 
-                _log.error("Error: PolygonBroker::setPriceDataDay  request to URL: {}, no results found: {}, contractObj: {}", strUrl, response.statusCode(), contractObj);
+        try {
+            return future.get();
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof IOException ioException) {
+                throw ioException;
             }
-        } else {
-
-            _log.error("Error: PolygonBroker::setPriceDataDay  request to URL: {}, failed with status code: {}", strUrl, response.statusCode());
+            throw new IOException(ex.getCause());
         }
     }
 }
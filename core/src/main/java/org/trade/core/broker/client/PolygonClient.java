@@ -0,0 +1,722 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.broker.client;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.properties.ConfigProperties;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared client for the Polygon REST API used by the PolygonBrokers.
+ * <p>
+ * One HttpClient is used for every request and at most
+ * trade.polygon.maxConcurrent requests are in flight at once across all the
+ * brokers. When trade.polygon.requestsPerMinute is set the requests are
+ * spaced to stay under that rate, a 429 or 503 response is retried after the
+ * Retry-After delay.
+ * <p>
+ * The aggregate responses are parsed as they are read from the socket, the
+ * bars go straight into a list without building a JSONObject of the whole
+ * response, and the next_url pages are followed. Completed ranges are written
+ * to trade.polygon.cache.dir keyed by symbol/timespan/date and time range so a
+ * backfill of the same tradingdays is served from disk. A part day is never
+ * answered from a cached full day or the reverse.
+ */
+public class PolygonClient {
+
+    private final static Logger _log = LoggerFactory.getLogger(PolygonClient.class);
+
+    public static final String MINUTE = "minute";
+    public static final String DAY = "day";
+
+    private static final int MAX_RETRIES = 5;
+    private static final DateTimeFormatter CACHE_DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter CACHE_TIME = DateTimeFormatter.ofPattern("HHmmss");
+
+    private static PolygonClient m_instance = null;
+
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final String url;
+    private final String apiKey;
+    private final Path cacheDir;
+    private final long minIntervalNanos;
+    private final AtomicLong nextRequestNanos = new AtomicLong(0);
+    private final AtomicInteger requests = new AtomicInteger(0);
+    private final AtomicInteger cacheHits = new AtomicInteger(0);
+
+    /**
+     * Constructor for PolygonClient.
+     *
+     * @param url               String the base url ending in /
+     * @param apiKey            String
+     * @param cacheDir          Path the cache directory or null for no cache.
+     * @param maxConcurrent     int the number of requests that may be in flight.
+     * @param requestsPerMinute int the request rate limit or 0 for none.
+     */
+    public PolygonClient(String url, String apiKey, Path cacheDir, int maxConcurrent, int requestsPerMinute) {
+
+        this.url = url;
+        this.apiKey = apiKey;
+        this.cacheDir = cacheDir;
+        this.minIntervalNanos = (requestsPerMinute > 0 ? TimeUnit.MINUTES.toNanos(1) / requestsPerMinute : 0);
+        this.permits = new Semaphore(Math.max(1, maxConcurrent), true);
+        this.httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(30))
+                .followRedirects(HttpClient.Redirect.NORMAL).build();
+
+        AtomicInteger threadCount = new AtomicInteger(0);
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(Math.max(1, maxConcurrent), Math.max(1, maxConcurrent), 60L,
+                TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "PolygonClientThread" + threadCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        pool.allowCoreThreadTimeOut(true);
+        this.executor = pool;
+    }
+
+    /**
+     * Method getInstance. Returns the client shared by all the PolygonBrokers.
+     *
+     * @return PolygonClient
+     */
+    public static synchronized PolygonClient getInstance() throws IOException {
+
+        if (null == m_instance) {
+
+            String url = ConfigProperties.getPropAsString("trade.polygon.url");
+            String apiKey = ConfigProperties.getPropAsString("trade.polygon.key");
+            int maxConcurrent = 4;
+            int requestsPerMinute = 0;
+            Path cacheDir = null;
+
+            try {
+                maxConcurrent = ConfigProperties.getPropAsInt("trade.polygon.maxConcurrent");
+            } catch (Exception ex) {
+                _log.debug("trade.polygon.maxConcurrent not set using: {}", maxConcurrent);
+            }
+            try {
+                requestsPerMinute = ConfigProperties.getPropAsInt("trade.polygon.requestsPerMinute");
+            } catch (Exception ex) {
+                _log.debug("trade.polygon.requestsPerMinute not set requests are not rate limited");
+            }
+            try {
+                String dir = ConfigProperties.getPropAsString("trade.polygon.cache.dir");
+                if (null != dir && !dir.isBlank()) {
+                    cacheDir = Paths.get(dir.trim());
+                }
+            } catch (Exception ex) {
+                _log.debug("trade.polygon.cache.dir not set responses are not cached");
+            }
+            m_instance = new PolygonClient(url, apiKey, cacheDir, maxConcurrent, requestsPerMinute);
+        }
+        return m_instance;
+    }
+
+    /**
+     * Method getTicker. Returns the results object of the ticker reference
+     * request or null if the symbol was not found.
+     *
+     * @param symbol String
+     * @return JSONObject
+     */
+    public JSONObject getTicker(String symbol) throws IOException, InterruptedException {
+
+        /*
+         * Polygon curl -X GET "https://api.polygon.io/v3/reference/tickers/AAPL?apiKey=..."
+         */
+        String strUrl = url + "v3/reference/tickers/" + symbol + "?apiKey=" + apiKey;
+        HttpResponse<InputStream> response = send(strUrl);
+
+        try (Reader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+
+            if (response.statusCode() != 200) {
+
+                _log.error("Error: PolygonClient::getTicker Symbol: {}, failed with status code: {}", symbol,
+                        response.statusCode());
+                return null;
+            }
+            JSONObject contractObj = new JSONObject(new JSONTokener(reader));
+            JSONObject resultObj = contractObj.optJSONObject("results");
+
+            if (null == resultObj) {
+                _log.error("Error: PolygonClient::getTicker Symbol: {}, no results found: {}", symbol, contractObj);
+            }
+            return resultObj;
+        }
+    }
+
+    /**
+     * Method getAggregatesAsync. Download the bars on the client's pool.
+     *
+     * @param symbol    String
+     * @param timespan  String MINUTE or DAY
+     * @param from      ZonedDateTime
+     * @param to        ZonedDateTime
+     * @param cacheable boolean true if the range is complete and may be cached.
+     * @return CompletableFuture<List<Bar>>
+     */
+    public CompletableFuture<List<Bar>> getAggregatesAsync(String symbol, String timespan, ZonedDateTime from,
+                                                           ZonedDateTime to, boolean cacheable) {
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return getAggregates(symbol, timespan, from, to, cacheable);
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(ex);
+            }
+        }, executor);
+    }
+
+    /**
+     * Method getAggregates. Returns the bars in ascending time order for the
+     * range from the cache or by downloading every page of the range.
+     *
+     * @param symbol    String
+     * @param timespan  String MINUTE or DAY
+     * @param from      ZonedDateTime
+     * @param to        ZonedDateTime
+     * @param cacheable boolean true if the range is complete and may be cached.
+     * @return List<Bar>
+     */
+    public List<Bar> getAggregates(String symbol, String timespan, ZonedDateTime from, ZonedDateTime to,
+                                   boolean cacheable) throws IOException, InterruptedException {
+
+        Path cacheFile = getCacheFile(symbol, timespan, from, to);
+
+        if (null != cacheFile && Files.isReadable(cacheFile)) {
+
+            try {
+                List<Bar> bars = readCache(cacheFile);
+                cacheHits.getAndIncrement();
+                _log.debug("PolygonClient::getAggregates cache hit: {} bars: {}", cacheFile, bars.size());
+                return bars;
+            } catch (IOException | RuntimeException ex) {
+                _log.warn("PolygonClient::getAggregates ignoring unreadable cache file: {} Msg: {}", cacheFile,
+                        ex.getMessage());
+            }
+        }
+
+        /*
+         * Polygon curl -X GET "https://api.polygon.io/v2/aggs/ticker/AAPL/range/1/minute/1746696600000/1746734400000?adjusted=true&sort=asc&limit=50000&apiKey=..."
+         */
+        List<Bar> bars = new ArrayList<>();
+        String strUrl = url + "v2/aggs/ticker/" + symbol + "/range/1/" + timespan + "/"
+                + from.toInstant().toEpochMilli() + "/" + to.toInstant().toEpochMilli()
+                + "?adjusted=true&sort=asc&limit=50000&apiKey=" + apiKey;
+
+        while (null != strUrl) {
+
+            _log.debug("PolygonClient::getAggregates Symbol: {} page: {}", symbol, bars.size());
+            HttpResponse<InputStream> response = send(strUrl);
+
+            try (Reader reader = new InputStreamReader(response.body(), StandardCharsets.UTF_8)) {
+
+                if (response.statusCode() != 200) {
+                    throw new IOException("Polygon aggregates request for: " + symbol + " failed with status code: "
+                            + response.statusCode());
+                }
+                String nextUrl = parseAggregates(reader, bars);
+                strUrl = (null == nextUrl ? null : nextUrl + (nextUrl.contains("?") ? "&" : "?") + "apiKey=" + apiKey);
+            }
+        }
+
+        if (null != cacheFile && cacheable) {
+            writeCache(cacheFile, bars);
+        }
+        return bars;
+    }
+
+    /**
+     * Method getRequests. The number of http requests sent.
+     *
+     * @return int
+     */
+    public int getRequests() {
+        return this.requests.get();
+    }
+
+    /**
+     * Method getCacheHits. The number of aggregate requests served from the
+     * cache.
+     *
+     * @return int
+     */
+    public int getCacheHits() {
+        return this.cacheHits.get();
+    }
+
+    /**
+     * Method shutdown.
+     */
+    public void shutdown() {
+
+        this.executor.shutdownNow();
+        this.httpClient.shutdownNow();
+        synchronized (PolygonClient.class) {
+            if (m_instance == this) {
+                m_instance = null;
+            }
+        }
+    }
+
+    /**
+     * Method send. Send the request once a permit and a rate slot are free,
+     * retrying while the server asks us to back off. The caller must close the
+     * response body.
+     *
+     * @param strUrl String
+     * @return HttpResponse<InputStream>
+     */
+    private HttpResponse<InputStream> send(String strUrl) throws IOException, InterruptedException {
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(strUrl)).header("accept", "application/json")
+                .timeout(Duration.ofMinutes(2)).build();
+
+        for (int attempt = 0; ; attempt++) {
+
+            HttpResponse<InputStream> response;
+            this.permits.acquire();
+            try {
+                awaitRateSlot();
+                requests.getAndIncrement();
+                response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            } finally {
+                this.permits.release();
+            }
+
+            int status = response.statusCode();
+            if ((status != 429 && status != 503) || attempt >= MAX_RETRIES) {
+                return response;
+            }
+            response.body().close();
+
+            long delayMillis = response.headers().firstValue("Retry-After").map(value -> {
+                try {
+                    return TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim()));
+                } catch (NumberFormatException ex) {
+                    return -1L;
+                }
+            }).orElse(-1L);
+
+            if (delayMillis < 0) {
+                delayMillis = 1000L << attempt;
+            }
+            _log.warn("PolygonClient::send status: {} retry in: {}ms attempt: {}", status, delayMillis, attempt + 1);
+            Thread.sleep(delayMillis);
+        }
+    }
+
+    /**
+     * Method awaitRateSlot. Reserve the next free slot under the request rate
+     * limit and sleep until it comes round.
+     */
+    private void awaitRateSlot() throws InterruptedException {
+
+        if (minIntervalNanos == 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        long slot;
+        long next;
+        do {
+            next = nextRequestNanos.get();
+            slot = Math.max(now, next);
+        } while (!nextRequestNanos.compareAndSet(next, slot + minIntervalNanos));
+
+        long wait = slot - now;
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    /**
+     * Method getCacheFile. The file name holds the from/to date and time i.e.
+     * 20240102_093000-160000.csv or 20240102_000000-20240105_000000.csv when
+     * the range spans days.
+     *
+     * @param symbol   String
+     * @param timespan String
+     * @param from     ZonedDateTime
+     * @param to       ZonedDateTime
+     * @return Path null if there is no cache.
+     */
+    private Path getCacheFile(String symbol, String timespan, ZonedDateTime from, ZonedDateTime to) {
+
+        if (null == cacheDir) {
+            return null;
+        }
+        ZonedDateTime toDateTime = to.withZoneSameInstant(from.getZone());
+        String fromDate = CACHE_DATE.format(from);
+        String toDate = CACHE_DATE.format(toDateTime);
+        String name = fromDate + "_" + CACHE_TIME.format(from) + "-"
+                + (fromDate.equals(toDate) ? "" : toDate + "_") + CACHE_TIME.format(toDateTime) + ".csv";
+        return cacheDir.resolve(symbol.toUpperCase()).resolve(timespan).resolve(name);
+    }
+
+    private static List<Bar> readCache(Path cacheFile) throws IOException {
+
+        List<Bar> bars = new ArrayList<>();
+
+        try (BufferedReader reader = Files.newBufferedReader(cacheFile, StandardCharsets.UTF_8)) {
+
+            String line;
+            while (null != (line = reader.readLine())) {
+
+                if (line.isEmpty()) {
+                    continue;
+                }
+                String[] values = line.split(",");
+                bars.add(new Bar(Long.parseLong(values[0]), Double.parseDouble(values[1]),
+                        Double.parseDouble(values[2]), Double.parseDouble(values[3]), Double.parseDouble(values[4]),
+                        Double.parseDouble(values[5]), Double.parseDouble(values[6]), Integer.parseInt(values[7])));
+            }
+        }
+        return bars;
+    }
+
+    private static void writeCache(Path cacheFile, List<Bar> bars) {
+
+        try {
+
+            Files.createDirectories(cacheFile.getParent());
+            Path tmpFile = Files.createTempFile(cacheFile.getParent(), cacheFile.getFileName().toString(), ".tmp");
+
+            try (BufferedWriter writer = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+                for (Bar bar : bars) {
+                    writer.write(bar.time() + "," + bar.open() + "," + bar.high() + "," + bar.low() + ","
+                            + bar.close() + "," + bar.volume() + "," + bar.vwap() + "," + bar.tradeCount());
+                    writer.newLine();
+                }
+            }
+            Files.move(tmpFile, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            _log.warn("PolygonClient::writeCache could not write: {} Msg: {}", cacheFile, ex.getMessage());
+        }
+    }
+
+    /**
+     * Method parseAggregates. Read an aggregates response adding the results
+     * to the bars.
+     *
+     * @param reader Reader
+     * @param bars   List<Bar>
+     * @return String the next_url or null if this is the last page.
+     */
+    static String parseAggregates(Reader reader, List<Bar> bars) throws IOException {
+
+        JsonReader json = new JsonReader(reader);
+        String nextUrl = null;
+        String status = null;
+        String error = null;
+
+        json.expect('{');
+        if (!json.consume('}')) {
+            do {
+                String key = json.readString();
+                json.expect(':');
+                switch (key) {
+                    case "results" -> readBars(json, bars);
+                    case "next_url" -> nextUrl = json.readStringOrNull();
+                    case "status" -> status = json.readStringOrNull();
+                    case "error" -> error = json.readStringOrNull();
+                    default -> json.skipValue();
+                }
+            } while (json.consume(','));
+            json.expect('}');
+        }
+
+        if ("ERROR".equals(status) || null != error) {
+            throw new IOException("Polygon aggregates request failed status: " + status + " error: " + error);
+        }
+        return nextUrl;
+    }
+
+    private static void readBars(JsonReader json, List<Bar> bars) throws IOException {
+
+        if (json.consumeNull()) {
+            return;
+        }
+        json.expect('[');
+        if (json.consume(']')) {
+            return;
+        }
+        do {
+            long time = 0;
+            double open = 0, high = 0, low = 0, close = 0, volume = 0;
+            double vwap = Double.NaN;
+            int tradeCount = 0;
+
+            json.expect('{');
+            if (!json.consume('}')) {
+                do {
+                    String key = json.readString();
+                    json.expect(':');
+                    switch (key) {
+                        case "t" -> time = (long) json.readDouble();
+                        case "o" -> open = json.readDouble();
+                        case "h" -> high = json.readDouble();
+                        case "l" -> low = json.readDouble();
+                        case "c" -> close = json.readDouble();
+                        case "v" -> volume = json.readDouble();
+                        case "vw" -> vwap = json.readDouble();
+                        case "n" -> tradeCount = (int) json.readDouble();
+                        default -> json.skipValue();
+                    }
+                } while (json.consume(','));
+                json.expect('}');
+            }
+            bars.add(new Bar(time, open, high, low, close, volume, Double.isNaN(vwap) ? close : vwap, tradeCount));
+        } while (json.consume(','));
+        json.expect(']');
+    }
+
+    /**
+     * A Polygon aggregate bar, time is the start of the bar in epoch millis.
+     */
+    public record Bar(long time, double open, double high, double low, double close, double volume, double vwap,
+                      int tradeCount) {
+    }
+
+    /**
+     * Minimal pull reader over the response stream, enough to walk the
+     * aggregates document without materializing it.
+     */
+    private static final class JsonReader {
+
+        private final Reader reader;
+        private final char[] buffer = new char[8192];
+        private final StringBuilder token = new StringBuilder(64);
+        private int pos = 0;
+        private int limit = 0;
+
+        JsonReader(Reader reader) {
+            this.reader = reader;
+        }
+
+        private boolean fill() throws IOException {
+
+            limit = reader.read(buffer, 0, buffer.length);
+            pos = 0;
+            if (limit <= 0) {
+                limit = 0;
+                return false;
+            }
+            return true;
+        }
+
+        private int peek() throws IOException {
+
+            while (true) {
+                if (pos == limit && !fill()) {
+                    return -1;
+                }
+                char c = buffer[pos];
+                if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                    return c;
+                }
+                pos++;
+            }
+        }
+
+        private char next() throws IOException {
+
+            if (pos == limit && !fill()) {
+                throw new EOFException("Unexpected end of Polygon response");
+            }
+            return buffer[pos++];
+        }
+
+        void expect(char c) throws IOException {
+
+            int found = peek();
+            if (found != c) {
+                throw new IOException("Malformed Polygon response expected: " + c + " found: "
+                        + (found < 0 ? "EOF" : String.valueOf((char) found)));
+            }
+            pos++;
+        }
+
+        boolean consume(char c) throws IOException {
+
+            if (peek() == c) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean consumeNull() throws IOException {
+
+            if (peek() == 'n') {
+                skipValue();
+                return true;
+            }
+            return false;
+        }
+
+        String readStringOrNull() throws IOException {
+
+            if (consumeNull()) {
+                return null;
+            }
+            return readString();
+        }
+
+        String readString() throws IOException {
+
+            expect('"');
+            token.setLength(0);
+            while (true) {
+                char c = next();
+                if (c == '"') {
+                    return token.toString();
+                }
+                if (c != '\\') {
+                    token.append(c);
+                    continue;
+                }
+                c = next();
+                switch (c) {
+                    case 'b' -> token.append('\b');
+                    case 'f' -> token.append('\f');
+                    case 'n' -> token.append('\n');
+                    case 'r' -> token.append('\r');
+                    case 't' -> token.append('\t');
+                    case 'u' -> {
+                        int value = 0;
+                        for (int i = 0; i < 4; i++) {
+                            value = (value << 4) + Character.digit(next(), 16);
+                        }
+                        token.append((char) value);
+                    }
+                    default -> token.append(c);
+                }
+            }
+        }
+
+        double readDouble() throws IOException {
+
+            if (consumeNull()) {
+                return 0;
+            }
+            peek();
+            token.setLength(0);
+            while (pos < limit || fill()) {
+                char c = buffer[pos];
+                if ((c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E') {
+                    token.append(c);
+                    pos++;
+                } else {
+                    break;
+                }
+            }
+            if (token.isEmpty()) {
+                throw new IOException("Malformed Polygon response expected a number");
+            }
+            return Double.parseDouble(token.toString());
+        }
+
+        void skipValue() throws IOException {
+
+            int c = peek();
+            switch (c) {
+                case '"' -> readString();
+                case '{', '[' -> {
+                    char close = (c == '{' ? '}' : ']');
+                    pos++;
+                    if (!consume(close)) {
+                        do {
+                            if (close == '}') {
+                                readString();
+                                expect(':');
+                            }
+                            skipValue();
+                        } while (consume(','));
+                        expect(close);
+                    }
+                }
+                case 't', 'f', 'n' -> {
+                    while (pos < limit || fill()) {
+                        if (!Character.isLetter(buffer[pos])) {
+                            break;
+                        }
+                        pos++;
+                    }
+                }
+                case -1 -> throw new EOFException("Unexpected end of Polygon response");
+                default -> readDouble();
+            }
+        }
+    }
+}
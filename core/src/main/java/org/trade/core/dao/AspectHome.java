@@ -60,7 +60,7 @@ public class AspectHome {
      * @param transientInstance Aspect
      * @return Aspect
      */
-    public synchronized <T extends Aspect> T persist(T transientInstance) throws Exception {
+    public <T extends Aspect> T persist(T transientInstance) throws Exception {
         return persist(transientInstance, false);
     }
 
@@ -72,7 +72,7 @@ public class AspectHome {
      * @return Aspect
      */
 
-    public synchronized <T extends Aspect> T persist(T transientInstance, boolean overrideVersion) throws Exception {
+    public <T extends Aspect> T persist(T transientInstance, boolean overrideVersion) throws Exception {
 
         try {
 
@@ -108,7 +108,7 @@ public class AspectHome {
      *
      * @param transientInstance Aspect
      */
-    public synchronized void remove(Aspect transientInstance) {
+    public void remove(Aspect transientInstance) {
 
         try {
             if (null != transientInstance.getId()) {
@@ -161,6 +161,76 @@ public class AspectHome {
         }
     }
 
+    /**
+     * Method findByClassName. Find one page of the aspects of a class in id
+     * order. The next page is found by passing the id of the last aspect of
+     * this page so the database seeks straight to it via the primary key
+     * rather than skipping the rows before it.
+     *
+     * @param className  String
+     * @param afterId    Integer the id of the last aspect of the previous
+     *                   page or null for the first page.
+     * @param maxResults int the page size.
+     * @return Aspects
+     */
+    public Aspects findByClassName(String className, Integer afterId, int maxResults) throws ClassNotFoundException {
+
+        try {
+            EntityManager entityManager = EntityManagerHelper.getEntityManager();
+            entityManager.getTransaction().begin();
+            Aspects aspects = new Aspects();
+            Class<?> c = Class.forName(className);
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Object> criteriaQuery = builder.createQuery();
+            Root<?> from = criteriaQuery.from(c);
+            CriteriaQuery<Object> query = criteriaQuery.select(from);
+            if (null != afterId) {
+                query.where(builder.greaterThan(from.get("id"), afterId));
+            }
+            query.orderBy(builder.asc(from.get("id")));
+            TypedQuery<Object> typedQuery = entityManager.createQuery(query);
+            typedQuery.setMaxResults(maxResults);
+            List<Object> items = typedQuery.getResultList();
+            for (Object item : items) {
+                aspects.add((Aspect) item);
+            }
+            entityManager.getTransaction().commit();
+            return aspects;
+        } catch (Exception re) {
+            EntityManagerHelper.rollback();
+            throw re;
+        } finally {
+            EntityManagerHelper.close();
+        }
+    }
+
+    /**
+     * Method findCountByClassName.
+     *
+     * @param className String
+     * @return Long the number of rows in the table for the class.
+     */
+    public Long findCountByClassName(String className) throws ClassNotFoundException {
+
+        try {
+            EntityManager entityManager = EntityManagerHelper.getEntityManager();
+            entityManager.getTransaction().begin();
+            Class<?> c = Class.forName(className);
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> query = builder.createQuery(Long.class);
+            Root<?> from = query.from(c);
+            query.select(builder.count(from));
+            Long count = entityManager.createQuery(query).getSingleResult();
+            entityManager.getTransaction().commit();
+            return (null == count ? 0L : count);
+        } catch (Exception re) {
+            EntityManagerHelper.rollback();
+            throw re;
+        } finally {
+            EntityManagerHelper.close();
+        }
+    }
+
     /**
      * Method findByClassNameFieldName.
      *
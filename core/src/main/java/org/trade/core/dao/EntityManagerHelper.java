@@ -36,12 +36,28 @@
 
 package org.trade.core.dao;
 
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.EntityManagerFactory;
 import jakarta.persistence.Persistence;
 import jakarta.persistence.Query;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.trade.core.properties.ConfigProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 
 /**
@@ -71,14 +87,96 @@ public class EntityManagerHelper {
      */
     static final String PERSISTENCE_UNIT = "dbresource";
 
-    private static final EntityManagerFactory factory;
+    /*
+     * Connections kept over the worker pool for the broker, UI and candle
+     * writer threads.
+     */
+    private static final int POOL_RESERVE = 6;
 
-    private static final ThreadLocal<EntityManager> threadLocal;
+    /*
+     * The back tests run on the SwingWorker executor when
+     * trade.backtest.poolSize is 0, it is fixed at ten threads.
+     */
+    private static final int SWING_WORKER_THREADS = 10;
+
+    private static final ThreadLocal<EntityManager> threadLocal = new ThreadLocal<>();
+    private static final ThreadLocal<Scope> threadScope = new ThreadLocal<>();
+    private static final PoolMetrics poolMetrics = new PoolMetrics();
     private final static Logger _log = LoggerFactory.getLogger(EntityManagerHelper.class);
 
-    static {
-        factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT);
-        threadLocal = new ThreadLocal<>();
+    /*
+     * The factory is created on first use so threads that only open a scope
+     * do not start the persistence unit.
+     */
+    private static final class FactoryHolder {
+        private static final EntityManagerFactory factory = createEntityManagerFactory();
+    }
+
+    /**
+     * Method getFactory.
+     *
+     * @return EntityManagerFactory
+     */
+    private static EntityManagerFactory getFactory() {
+        return FactoryHolder.factory;
+    }
+
+    /**
+     * Method createEntityManagerFactory. Start the persistence unit with the
+     * HikariCP pool sized from config.properties. When trade.db.pool.maxSize
+     * is not set there is a connection for each broker thread and its
+     * strategy worker over the reserve.
+     *
+     * @return EntityManagerFactory
+     */
+    private static EntityManagerFactory createEntityManagerFactory() {
+
+        int maxSize = getProperty("trade.db.pool.maxSize", -1);
+        if (maxSize < 1) {
+            int workers = getProperty("trade.backtest.poolSize", 0);
+            if (workers < 0) {
+                workers = Runtime.getRuntime().availableProcessors();
+            } else if (workers == 0) {
+                workers = SWING_WORKER_THREADS;
+            }
+            maxSize = (workers * 2) + POOL_RESERVE;
+        }
+        int minIdle = Math.min(getProperty("trade.db.pool.minIdle", 2), maxSize);
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("hibernate.hikari.maximumPoolSize", String.valueOf(maxSize));
+        properties.put("hibernate.hikari.minimumIdle", String.valueOf(minIdle));
+        properties.put("hibernate.hikari.connectionTimeout",
+                String.valueOf(getProperty("trade.db.pool.connectionTimeout", 30000)));
+        EntityManagerFactory factory = Persistence.createEntityManagerFactory(PERSISTENCE_UNIT, properties);
+
+        HikariDataSource dataSource = getDataSource(factory);
+        if (null != dataSource) {
+            try {
+                dataSource.setMetricsTrackerFactory(poolMetrics);
+            } catch (IllegalStateException ex) {
+                _log.warn("Connection pool metrics not available Msg: {}", ex.getMessage());
+            }
+        }
+        _log.info("Connection pool maxSize: {} minIdle: {}", maxSize, minIdle);
+        return factory;
+    }
+
+    /**
+     * Method getDataSource.
+     *
+     * @param factory EntityManagerFactory
+     * @return HikariDataSource or null if the persistence unit is not pooled
+     * by HikariCP.
+     */
+    private static HikariDataSource getDataSource(EntityManagerFactory factory) {
+
+        ConnectionProvider provider = factory.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .getService(ConnectionProvider.class);
+        if (null != provider && provider.isUnwrappableAs(HikariDataSource.class)) {
+            return provider.unwrap(HikariDataSource.class);
+        }
+        return null;
     }
 
     /**
@@ -96,7 +194,7 @@ public class EntityManagerHelper {
 
         EntityManager manager = threadLocal.get();
         if ((manager == null) || !manager.isOpen()) {
-            manager = factory.createEntityManager();
+            manager = getFactory().createEntityManager();
             threadLocal.set(manager);
         }
         return manager;
@@ -115,22 +213,80 @@ public class EntityManagerHelper {
      * be method managed. i.e. begin, commit, close transaction.
      */
     public static EntityManager getLocalEntityManager() {
-        return factory.createEntityManager();
+        return getFactory().createEntityManager();
     }
 
     /**
      * <p>
      * Close the EntityManager and set the thread's instance to null.
      * </p>
+     * <p>
+     * Inside a scope this ends the unit of work, any open transaction is
+     * rolled back and the persistence context is cleared but the
+     * EntityManager is kept until the scope is closed.
+     * </p>
      */
     public static void close() {
         EntityManager em = threadLocal.get();
+        if (null != threadScope.get()) {
+            if (em != null && em.isOpen()) {
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                em.clear();
+            }
+            return;
+        }
         if (em != null) {
             em.close();
         }
         threadLocal.remove();
     }
 
+    /**
+     * <p>
+     * Open a scope for the EntityManager on this thread. Worker threads open a
+     * scope around their run so the EntityManager is reused for each unit of
+     * work and released when the thread finishes. Scopes may be nested only
+     * the outer one closes the EntityManager.
+     * </p>
+     *
+     * @return Scope to be closed in a finally block or try with resources.
+     */
+    public static Scope openScope() {
+        Scope scope = threadScope.get();
+        if (null == scope) {
+            scope = new Scope();
+            threadScope.set(scope);
+        } else {
+            scope.depth++;
+        }
+        return scope;
+    }
+
+    /**
+     * The EntityManager scope of a worker thread.
+     */
+    public static final class Scope implements AutoCloseable {
+
+        private int depth = 1;
+
+        private Scope() {
+        }
+
+        /**
+         * Method close. Close the EntityManager when the outer scope is
+         * closed.
+         */
+        public void close() {
+            if (--this.depth > 0) {
+                return;
+            }
+            threadScope.remove();
+            EntityManagerHelper.close();
+        }
+    }
+
     /**
      * <p>
      * Initiate a transaction for the EntityManager on this thread.
@@ -212,4 +368,182 @@ public class EntityManagerHelper {
         }
     }
 
+    /**
+     * <p>
+     * Evict one entity from the second level cache. Use this when the row was
+     * changed outside of this persistence unit, or through a second mapping of
+     * the same table (i.e. ContractLite and Contract).
+     * </p>
+     *
+     * @param entityClass Class<?>
+     * @param id          Object
+     */
+    public static void evictCache(Class<?> entityClass, Object id) {
+        getFactory().getCache().evict(entityClass, id);
+    }
+
+    /**
+     * <p>
+     * Evict every instance of an entity class from the second level cache.
+     * </p>
+     *
+     * @param entityClass Class<?>
+     */
+    public static void evictCache(Class<?> entityClass) {
+        getFactory().getCache().evict(entityClass);
+    }
+
+    /**
+     * <p>
+     * Evict all entities, collections and cached query results.
+     * </p>
+     */
+    public static void evictAllCaches() {
+        getFactory().getCache().evictAll();
+        evictQueryCaches();
+    }
+
+    /**
+     * <p>
+     * Evict the cached query results, the cached entities are kept.
+     * </p>
+     */
+    public static void evictQueryCaches() {
+        getFactory().unwrap(SessionFactory.class).getCache().evictQueryRegions();
+    }
+
+    /**
+     * <p>
+     * Return the Hibernate statistics for the second level and query cache.
+     * </p>
+     *
+     * @return Statistics
+     */
+    public static Statistics getStatistics() {
+        return getFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * <p>
+     * Return the second level cache hit ratio since start up or the last
+     * statistics clear.
+     * </p>
+     *
+     * @return double between 0 and 1, 0 if the cache has not been used.
+     */
+    public static double getCacheHitRatio() {
+        Statistics stats = getStatistics();
+        long hits = stats.getSecondLevelCacheHitCount();
+        long total = hits + stats.getSecondLevelCacheMissCount();
+        return total == 0 ? 0d : (double) hits / total;
+    }
+
+    /**
+     * <p>
+     * Write the second level and query cache counters to the log.
+     * </p>
+     */
+    public static void logCacheStatistics() {
+        Statistics stats = getStatistics();
+        _log.info("Second level cache hits: {} misses: {} puts: {} ratio: {} Query cache hits: {} misses: {} puts: {}",
+                stats.getSecondLevelCacheHitCount(), stats.getSecondLevelCacheMissCount(),
+                stats.getSecondLevelCachePutCount(), String.format("%.3f", getCacheHitRatio()),
+                stats.getQueryCacheHitCount(), stats.getQueryCacheMissCount(), stats.getQueryCachePutCount());
+    }
+
+    /**
+     * <p>
+     * Return the connection pool usage and the time threads waited for a
+     * connection.
+     * </p>
+     *
+     * @return PoolStatistics or null if the pool is not HikariCP.
+     */
+    public static PoolStatistics getPoolStatistics() {
+
+        HikariDataSource dataSource = getDataSource(getFactory());
+        if (null == dataSource || null == dataSource.getHikariPoolMXBean()) {
+            return null;
+        }
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        long acquired = poolMetrics.acquired.sum();
+        double averageWait = acquired == 0 ? 0d
+                : (double) poolMetrics.waitNanos.sum() / acquired / TimeUnit.MILLISECONDS.toNanos(1);
+        double maxWait = (double) poolMetrics.maxWaitNanos.get() / TimeUnit.MILLISECONDS.toNanos(1);
+        return new PoolStatistics(pool.getActiveConnections(), pool.getIdleConnections(),
+                pool.getTotalConnections(), dataSource.getMaximumPoolSize(), pool.getThreadsAwaitingConnection(),
+                acquired, averageWait, maxWait, poolMetrics.timeouts.sum());
+    }
+
+    /**
+     * <p>
+     * Write the connection pool counters to the log.
+     * </p>
+     */
+    public static void logPoolStatistics() {
+        PoolStatistics stats = getPoolStatistics();
+        if (null != stats) {
+            _log.info("Connection pool active: {} idle: {} total: {} max: {} waiting: {} acquired: {} "
+                            + "avg wait ms: {} max wait ms: {} timeouts: {}", stats.active(), stats.idle(),
+                    stats.total(), stats.maximum(), stats.awaiting(), stats.acquired(),
+                    String.format("%.3f", stats.averageWaitMillis()), String.format("%.3f", stats.maxWaitMillis()),
+                    stats.timeouts());
+        }
+    }
+
+    /**
+     * Method getProperty.
+     *
+     * @param key          String
+     * @param defaultValue int
+     * @return int the property or the default if it is not set.
+     */
+    private static int getProperty(String key, int defaultValue) {
+
+        try {
+            return ConfigProperties.getPropAsInt(key);
+        } catch (Exception ex) {
+            _log.debug("{} not set using: {} Msg: {}", key, defaultValue, ex.getMessage());
+            return defaultValue;
+        }
+    }
+
+    /**
+     * The connection pool usage. Utilisation is active over maximum.
+     */
+    public record PoolStatistics(int active, int idle, int total, int maximum, int awaiting, long acquired,
+                                 double averageWaitMillis, double maxWaitMillis, long timeouts) {
+
+        public double utilisation() {
+            return maximum == 0 ? 0d : (double) active / maximum;
+        }
+    }
+
+    /*
+     * HikariCP metrics tracker that sums the time taken to borrow a
+     * connection from the pool.
+     */
+    private static final class PoolMetrics implements MetricsTrackerFactory {
+
+        private final LongAdder acquired = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder timeouts = new LongAdder();
+
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+
+            return new IMetricsTracker() {
+
+                public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                    acquired.increment();
+                    waitNanos.add(elapsedAcquiredNanos);
+                    maxWaitNanos.accumulate(elapsedAcquiredNanos);
+                }
+
+                public void recordConnectionTimeout() {
+                    timeouts.increment();
+                }
+            };
+        }
+    }
 }
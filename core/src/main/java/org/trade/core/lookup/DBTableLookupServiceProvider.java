@@ -35,11 +35,13 @@
  */
 package org.trade.core.lookup;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
 import org.trade.core.dao.EntityManagerHelper;
 import org.trade.core.properties.ConfigProperties;
 import org.trade.core.util.Reflector;
@@ -73,6 +75,7 @@ public class DBTableLookupServiceProvider implements ILookupServiceProvider {
 
     public static void clearLookup() {
         _lookups.clear();
+        EntityManagerHelper.evictQueryCaches();
     }
 
     /**
@@ -281,6 +284,9 @@ public class DBTableLookupServiceProvider implements ILookupServiceProvider {
             Root<?> from = criteriaQuery.from(c);
             CriteriaQuery<Object> select = criteriaQuery.select(from);
             TypedQuery<Object> typedQuery = entityManager.createQuery(select);
+            if (c.isAnnotationPresent(Cacheable.class)) {
+                typedQuery.setHint(HibernateHints.HINT_CACHEABLE, true);
+            }
             List<Object> items = typedQuery.getResultList();
             entityManager.getTransaction().commit();
             if (!items.isEmpty()) {
@@ -0,0 +1,626 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.persistent.dao.Candle;
+import org.trade.core.persistent.dao.Contract;
+import org.trade.core.persistent.dao.series.indicator.CandleSeries;
+import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
+import org.trade.core.persistent.dao.series.indicator.candle.CandlePeriod;
+import org.trade.core.properties.ConfigProperties;
+import org.trade.core.util.time.TradingCalendar;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Append only file archive of candles used as the back test data source.
+ * <p>
+ * There is one file per contract and barSize under trade.candle.archive.dir.
+ * A file is a sequence of blocks, one per tradingday, each block holds the
+ * candles of the day column by column. The start times are delta encoded in
+ * seconds and the prices are held as 1/10000 ticks, each price is encoded as
+ * the difference to the open or the previous close, so most values fit in
+ * one or two bytes.
+ * <p>
+ * The file is read through a single read only memory map, finding the
+ * candles for a date range scans the block headers and decodes only the days
+ * asked for. A block appended later for the same day replaces the earlier
+ * one, an empty block with a count of -1 drops the day. Only days that have
+ * closed and have candles are archived. A day whose candles differ from the
+ * block held is written again, candles saved through the persistent model
+ * drop their days so the next back test reads them from the database. A file
+ * written by another format version is started again.
+ * <p>
+ * A blank trade.candle.archive.dir turns the archive off.
+ */
+public class CandleArchive {
+
+    private final static Logger _log = LoggerFactory.getLogger(CandleArchive.class);
+
+    private static final int MAGIC = 0x43414e44;
+    private static final int VERSION = 1;
+    private static final int FILE_HEADER_SIZE = 8;
+    private static final int BLOCK_HEADER_SIZE = 16;
+    private static final int PRICE_SCALE = 4;
+
+    private static CandleArchive m_instance = null;
+    private static final String archiveDir;
+
+    private final Path dir;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    static {
+        String value = null;
+        try {
+            value = ConfigProperties.getPropAsString("trade.candle.archive.dir");
+        } catch (Exception ex) {
+            _log.debug("trade.candle.archive.dir not set candle archive disabled Msg: {}", ex.getMessage());
+        }
+        archiveDir = (null == value || value.isBlank()) ? null : value.trim();
+    }
+
+    /**
+     * Constructor for CandleArchive.
+     *
+     * @param dir Path the directory that holds the archive files.
+     */
+    public CandleArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    /**
+     * Method getInstance. Returns the shared archive or null if
+     * trade.candle.archive.dir is not set.
+     *
+     * @return CandleArchive
+     */
+    public static synchronized CandleArchive getInstance() {
+
+        if (null == m_instance && null != archiveDir) {
+            m_instance = new CandleArchive(Paths.get(archiveDir));
+        }
+        return m_instance;
+    }
+
+    /**
+     * Method findCandles. Returns the candles for the tradingdays that open
+     * between the dates in startPeriod order or null if the archive does not
+     * hold every trading day of the range. The candles are not entities, they
+     * reference the contract and have no tradingday.
+     *
+     * @param contract      Contract
+     * @param barSize       int
+     * @param startOpenDate ZonedDateTime
+     * @param endOpenDate   ZonedDateTime
+     * @return List<Candle>
+     */
+    public List<Candle> findCandles(Contract contract, int barSize, ZonedDateTime startOpenDate,
+                                    ZonedDateTime endOpenDate) throws IOException {
+
+        Segment segment = getSegment(contract.getId(), barSize);
+        List<Block> blocks = new ArrayList<>();
+        ByteBuffer buffer;
+
+        synchronized (segment) {
+
+            for (ZonedDateTime day = startOpenDate; !day.isAfter(endOpenDate); day = day.plusDays(1)) {
+
+                if (!TradingCalendar.isTradingDay(day)) {
+                    continue;
+                }
+                Block block = segment.blocks.get(toEpochDay(day.toEpochSecond()));
+                if (null == block) {
+                    return null;
+                }
+                if (block.count > 0) {
+                    blocks.add(block);
+                }
+            }
+            buffer = segment.map();
+        }
+
+        List<Candle> candles = new ArrayList<>();
+        for (Block block : blocks) {
+            decode(buffer, block, contract, barSize, candles);
+        }
+        return candles;
+    }
+
+    /**
+     * Method append. Archive the candles of every closed tradingday that is
+     * not yet held or is held with different candles.
+     *
+     * @param idContract Integer
+     * @param barSize    int
+     * @param candles    List<Candle>
+     * @return int the number of candles written.
+     */
+    public int append(Integer idContract, int barSize, List<Candle> candles) throws IOException {
+
+        TreeMap<Long, Day> days = groupByDay(barSize, candles, true);
+
+        if (days.isEmpty()) {
+            return 0;
+        }
+
+        Segment segment = getSegment(idContract, barSize);
+        int written = 0;
+
+        synchronized (segment) {
+
+            List<ByteBuffer> encoded = new ArrayList<>();
+            List<Block> appended = new ArrayList<>();
+            long offset = Math.max(segment.size, FILE_HEADER_SIZE);
+
+            for (Map.Entry<Long, Day> day : days.entrySet()) {
+
+                List<Candle> dayCandles = day.getValue().candles;
+                dayCandles.sort(Comparator.comparing(Candle::getStartPeriod));
+                long openSecond = day.getValue().openSecond;
+                ByteBuffer block = encode(openSecond, dayCandles);
+                Block existing = segment.blocks.get(day.getKey());
+                if (null != existing && segment.map().slice((int) existing.offset, existing.length).equals(block)) {
+                    continue;
+                }
+                appended.add(new Block(day.getKey(), offset, openSecond, dayCandles.size(), block.remaining()));
+                offset = offset + block.remaining();
+                encoded.add(block);
+                written = written + dayCandles.size();
+            }
+
+            if (encoded.isEmpty()) {
+                return 0;
+            }
+            segment.write(encoded);
+
+            for (Block block : appended) {
+                segment.blocks.put(block.epochDay, block);
+            }
+        }
+        _log.debug("CandleArchive append idContract: {} barSize: {} days: {} candles: {}", idContract, barSize,
+                days.size(), written);
+        return written;
+    }
+
+    /**
+     * Method invalidate. Drop the archived tradingdays of the candles so the
+     * next find for them goes back to the database. Call this whenever the
+     * candles are saved.
+     *
+     * @param idContract Integer
+     * @param barSize    int
+     * @param candles    List<Candle> the candles saved.
+     * @return int the number of days dropped.
+     */
+    public int invalidate(Integer idContract, int barSize, List<Candle> candles) throws IOException {
+
+        TreeMap<Long, Day> days = groupByDay(barSize, candles, false);
+
+        if (days.isEmpty()) {
+            return 0;
+        }
+
+        Segment segment = getSegment(idContract, barSize);
+
+        synchronized (segment) {
+
+            List<ByteBuffer> encoded = new ArrayList<>();
+            for (Map.Entry<Long, Day> day : days.entrySet()) {
+
+                if (segment.blocks.containsKey(day.getKey())) {
+                    ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE);
+                    block.putInt(0).putLong(day.getValue().openSecond).putInt(-1).flip();
+                    encoded.add(block);
+                }
+            }
+
+            if (encoded.isEmpty()) {
+                return 0;
+            }
+            segment.write(encoded);
+
+            for (Long epochDay : days.keySet()) {
+                segment.blocks.remove(epochDay);
+            }
+            _log.debug("CandleArchive invalidate idContract: {} barSize: {} days: {}", idContract, barSize,
+                    encoded.size());
+            return encoded.size();
+        }
+    }
+
+    /**
+     * Method invalidateCandleSeries. Drop the archived tradingdays of the
+     * candles in the series.
+     *
+     * @param candleSeries CandleSeries
+     * @return int the number of days dropped.
+     */
+    public int invalidateCandleSeries(CandleSeries candleSeries) throws IOException {
+        return invalidate(candleSeries.getContract().getId(), candleSeries.getBarSize(), getCandles(candleSeries));
+    }
+
+    /**
+     * Method appendCandleSeries. Archive the candles of the closed
+     * tradingdays in the series.
+     *
+     * @param candleSeries CandleSeries
+     * @return int the number of candles written.
+     */
+    public int appendCandleSeries(CandleSeries candleSeries) throws IOException {
+        return append(candleSeries.getContract().getId(), candleSeries.getBarSize(), getCandles(candleSeries));
+    }
+
+    private static List<Candle> getCandles(CandleSeries candleSeries) {
+
+        List<Candle> candles = new ArrayList<>(candleSeries.getItemCount());
+        for (int i = 0; i < candleSeries.getItemCount(); i++) {
+            candles.add(((CandleItem) candleSeries.getDataItem(i)).getCandle());
+        }
+        return candles;
+    }
+
+    /**
+     * Method groupByDay. Group the candles of the barSize by the epoch day of
+     * their tradingday open.
+     *
+     * @param barSize    int
+     * @param candles    List<Candle>
+     * @param closedOnly boolean true to leave out the days that have not
+     *                   closed.
+     * @return TreeMap<Long, Day>
+     */
+    private static TreeMap<Long, Day> groupByDay(int barSize, List<Candle> candles, boolean closedOnly) {
+
+        ZonedDateTime now = TradingCalendar.getDateTimeNowMarketTimeZone();
+        TreeMap<Long, Day> days = new TreeMap<>();
+
+        for (Candle candle : candles) {
+
+            ZonedDateTime open = (null == candle.getTradingday() ? TradingCalendar.getTradingDayStart(
+                    candle.getStartPeriod()) : candle.getTradingday().getOpen());
+            ZonedDateTime close = (null == candle.getTradingday() ? TradingCalendar.getTradingDayEnd(
+                    candle.getStartPeriod()) : candle.getTradingday().getClose());
+            if ((!closedOnly || close.isBefore(now)) && candle.getBarSize() == barSize) {
+                long openSecond = open.toEpochSecond();
+                days.computeIfAbsent(toEpochDay(openSecond), k -> new Day(openSecond)).candles.add(candle);
+            }
+        }
+        return days;
+    }
+
+    private Segment getSegment(Integer idContract, int barSize) throws IOException {
+
+        String key = idContract + "/" + barSize;
+        Segment segment = segments.get(key);
+
+        if (null == segment) {
+            synchronized (segments) {
+                segment = segments.get(key);
+                if (null == segment) {
+                    Path file = dir.resolve(String.valueOf(idContract)).resolve(barSize + ".candles");
+                    Files.createDirectories(file.getParent());
+                    segment = new Segment(file);
+                    segment.load();
+                    segments.put(key, segment);
+                }
+            }
+        }
+        return segment;
+    }
+
+    private static ByteBuffer encode(long openSecond, List<Candle> candles) {
+
+        int count = candles.size();
+        long[] start = new long[count];
+        long[] lastUpdate = new long[count];
+        long[] open = new long[count];
+        long[] high = new long[count];
+        long[] low = new long[count];
+        long[] close = new long[count];
+        long[] vwap = new long[count];
+        long[] volume = new long[count];
+        long[] tradeCount = new long[count];
+
+        long prevStart = openSecond;
+        long prevClose = 0;
+        for (int i = 0; i < count; i++) {
+
+            Candle candle = candles.get(i);
+            long startSecond = candle.getStartPeriod().toEpochSecond();
+            long o = toTicks(candle.getOpen());
+            long c = toTicks(candle.getClose());
+
+            start[i] = startSecond - prevStart;
+            lastUpdate[i] = (null == candle.getLastUpdateDate() ? 0
+                    : candle.getLastUpdateDate().toInstant().toEpochMilli() - (startSecond * 1000));
+            open[i] = o - prevClose;
+            high[i] = toTicks(candle.getHigh()) - o;
+            low[i] = o - toTicks(candle.getLow());
+            close[i] = c - o;
+            vwap[i] = (null == candle.getVwap() ? 0 : toTicks(candle.getVwap()) - c);
+            volume[i] = (null == candle.getVolume() ? 0 : candle.getVolume());
+            tradeCount[i] = (null == candle.getTradeCount() ? 0 : candle.getTradeCount());
+            prevStart = startSecond;
+            prevClose = c;
+        }
+
+        VarBuffer payload = new VarBuffer(count * 12 + 16);
+        for (long[] column : Arrays.asList(start, lastUpdate, open, high, low, close, vwap, volume, tradeCount)) {
+            for (long value : column) {
+                payload.putZigZag(value);
+            }
+        }
+
+        ByteBuffer block = ByteBuffer.allocate(BLOCK_HEADER_SIZE + payload.size());
+        block.putInt(payload.size()).putLong(openSecond).putInt(count);
+        block.put(payload.bytes(), 0, payload.size());
+        block.flip();
+        return block;
+    }
+
+    private static void decode(ByteBuffer buffer, Block block, Contract contract, int barSize, List<Candle> candles) {
+
+        int count = block.count;
+        int[] pos = {(int) block.offset + BLOCK_HEADER_SIZE};
+        long[][] columns = new long[9][count];
+
+        for (long[] column : columns) {
+            for (int i = 0; i < count; i++) {
+                column[i] = getZigZag(buffer, pos);
+            }
+        }
+
+        long prevStart = block.openSecond;
+        long prevClose = 0;
+        for (int i = 0; i < count; i++) {
+
+            long startSecond = prevStart + columns[0][i];
+            long o = prevClose + columns[2][i];
+            long c = o + columns[5][i];
+            ZonedDateTime startPeriod = TradingCalendar.getZonedDateTimeFromMilli(startSecond * 1000);
+
+            Candle candle = new Candle(contract, null, new CandlePeriod(startPeriod, barSize),
+                    TradingCalendar.getZonedDateTimeFromMilli(startSecond * 1000 + columns[1][i]));
+            candle.setOpen(toPrice(o));
+            candle.setHigh(toPrice(o + columns[3][i]));
+            candle.setLow(toPrice(o - columns[4][i]));
+            candle.setClose(toPrice(c));
+            candle.setVwap(toPrice(c + columns[6][i]));
+            candle.setVolume(columns[7][i]);
+            candle.setTradeCount((int) columns[8][i]);
+            candles.add(candle);
+
+            prevStart = startSecond;
+            prevClose = c;
+        }
+    }
+
+    private static long toEpochDay(long epochSecond) {
+        return TradingCalendar.getZonedDateTimeFromMilli(epochSecond * 1000).toLocalDate().toEpochDay();
+    }
+
+    private static long toTicks(BigDecimal price) {
+        return price.setScale(PRICE_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+    }
+
+    private static BigDecimal toPrice(long ticks) {
+        return (ticks % 100 == 0) ? BigDecimal.valueOf(ticks / 100, PRICE_SCALE - 2)
+                : BigDecimal.valueOf(ticks, PRICE_SCALE);
+    }
+
+    private static long getZigZag(ByteBuffer buffer, int[] pos) {
+
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(pos[0]++);
+            value |= (long) (b & 0x7f) << shift;
+            shift = shift + 7;
+        } while (b < 0);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private record Block(long epochDay, long offset, long openSecond, int count, int length) {
+    }
+
+    private static final class Day {
+
+        private final long openSecond;
+        private final List<Candle> candles = new ArrayList<>();
+
+        Day(long openSecond) {
+            this.openSecond = openSecond;
+        }
+    }
+
+    /**
+     * Growable byte array for the zig zag var ints of a block.
+     */
+    private static final class VarBuffer {
+
+        private byte[] bytes;
+        private int size = 0;
+
+        VarBuffer(int capacity) {
+            this.bytes = new byte[capacity];
+        }
+
+        void putZigZag(long value) {
+
+            long v = (value << 1) ^ (value >> 63);
+            if (size + 10 > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2 + 10);
+            }
+            while ((v & ~0x7fL) != 0) {
+                bytes[size++] = (byte) ((v & 0x7f) | 0x80);
+                v = v >>> 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        byte[] bytes() {
+            return bytes;
+        }
+
+        int size() {
+            return size;
+        }
+    }
+
+    /**
+     * The index and memory map of one archive file. Guarded by its own lock.
+     */
+    private static final class Segment {
+
+        private final Path file;
+        private final Map<Long, Block> blocks = new TreeMap<>();
+        private long size = 0;
+        private MappedByteBuffer mapped = null;
+
+        Segment(Path file) {
+            this.file = file;
+        }
+
+        void load() throws IOException {
+
+            if (!Files.exists(file)) {
+                return;
+            }
+            ByteBuffer buffer = map();
+            if (buffer.limit() < FILE_HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a candle archive file: " + file);
+            }
+            if (buffer.getInt(4) != VERSION) {
+                // The next append starts the file again.
+                _log.warn("CandleArchive ignoring version: {} file: {}", buffer.getInt(4), file);
+                return;
+            }
+
+            long pos = FILE_HEADER_SIZE;
+            long limit = buffer.limit();
+            while (pos + BLOCK_HEADER_SIZE <= limit) {
+
+                int length = buffer.getInt((int) pos);
+                long openSecond = buffer.getLong((int) pos + 4);
+                int count = buffer.getInt((int) pos + 12);
+                if (length < 0 || pos + BLOCK_HEADER_SIZE + length > limit) {
+                    break;
+                }
+                long epochDay = toEpochDay(openSecond);
+                if (count < 0) {
+                    blocks.remove(epochDay);
+                } else {
+                    blocks.put(epochDay, new Block(epochDay, pos, openSecond, count, BLOCK_HEADER_SIZE + length));
+                }
+                pos = pos + BLOCK_HEADER_SIZE + length;
+            }
+            if (pos != limit) {
+                _log.warn("CandleArchive ignoring partly written block at: {} in: {}", pos, file);
+            }
+            size = pos;
+        }
+
+        /**
+         * Method write. Write the blocks to the end of the file, the header is
+         * written first when the file is new or was started again.
+         *
+         * @param encoded List<ByteBuffer>
+         */
+        void write(List<ByteBuffer> encoded) throws IOException {
+
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+
+                if (size < FILE_HEADER_SIZE) {
+                    ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_SIZE);
+                    header.putInt(MAGIC).putInt(VERSION).flip();
+                    channel.truncate(0);
+                    channel.write(header, 0);
+                    mapped = null;
+                } else {
+                    // Drop any partly written block left by a crash.
+                    channel.truncate(size);
+                }
+                channel.position(Math.max(size, FILE_HEADER_SIZE));
+                for (ByteBuffer block : encoded) {
+                    while (block.hasRemaining()) {
+                        channel.write(block);
+                    }
+                }
+                size = channel.position();
+            }
+        }
+
+        /**
+         * Method map. Map the file read only, the map is only replaced once
+         * the file has grown.
+         *
+         * @return ByteBuffer
+         */
+        ByteBuffer map() throws IOException {
+
+            if (null == mapped || mapped.capacity() < size || size == 0) {
+
+                if (!Files.exists(file)) {
+                    return ByteBuffer.allocate(0);
+                }
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                    mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                }
+            }
+            return mapped;
+        }
+    }
+}
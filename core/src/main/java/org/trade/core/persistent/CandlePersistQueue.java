@@ -0,0 +1,476 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.dao.EntityManagerHelper;
+import org.trade.core.persistent.dao.Candle;
+import org.trade.core.properties.ConfigProperties;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Write behind stage for the realtime candles. The broker thread offers the
+ * candle that was just updated and carries on building candles and running
+ * the strategies, a single writer thread saves the candles to the database.
+ * <p>
+ * The broker thread keeps changing the candle so a copy of its values is
+ * taken when it is offered, the writer only sees the copies. A candle that is
+ * already waiting to be written is not queued again, its copy is replaced so
+ * the 5sec updates to the same bar are coalesced into one write of its latest
+ * values. Each flush is written as one batch in one transaction. The writer
+ * flushes when trade.candle.writeBehind.batchSize candles
+ * are waiting or every trade.candle.writeBehind.flushMillis. The queue holds
+ * at most trade.candle.writeBehind.queueSize candles, when it is full the
+ * oldest candle is dropped rather than blocking the broker thread.
+ * <p>
+ * A queueSize of 0 turns the queue off and the candles are saved on the
+ * broker thread.
+ */
+public class CandlePersistQueue implements Runnable {
+
+    private final static Logger _log = LoggerFactory.getLogger(CandlePersistQueue.class);
+
+    private static CandlePersistQueue m_instance = null;
+    private static final int queueSize;
+    private static final int batchSize;
+    private static final long flushMillis;
+
+    private final IPersistentModel m_tradePersistentModel;
+    private final ArrayDeque<Candle> queue = new ArrayDeque<>();
+    private final Map<Candle, Candle> pending = new IdentityHashMap<>();
+    private final Object lockQueue = new Object();
+    private final int capacity;
+    private final int maxBatch;
+    private final long interval;
+    private final Thread writer;
+    private volatile boolean running = true;
+    private boolean writing = false;
+    private boolean flushRequested = false;
+
+    private long offered = 0;
+    private long coalesced = 0;
+    private long dropped = 0;
+    private long written = 0;
+    private long failed = 0;
+    private long flushes = 0;
+    private long totalFlushNanos = 0;
+    private long lastFlushNanos = 0;
+    private long maxFlushNanos = 0;
+
+    static {
+        queueSize = getProperty("trade.candle.writeBehind.queueSize", 0);
+        batchSize = getProperty("trade.candle.writeBehind.batchSize", 100);
+        flushMillis = getProperty("trade.candle.writeBehind.flushMillis", 1000);
+    }
+
+    /**
+     * Constructor for CandlePersistQueue.
+     *
+     * @param tradePersistentModel IPersistentModel
+     * @param capacity             int the maximum number of waiting candles.
+     * @param maxBatch             int the number of candles that triggers a flush.
+     * @param interval             long the maximum time in ms between flushes.
+     */
+    public CandlePersistQueue(IPersistentModel tradePersistentModel, int capacity, int maxBatch, long interval) {
+
+        this.m_tradePersistentModel = tradePersistentModel;
+        this.capacity = Math.max(1, capacity);
+        this.maxBatch = Math.max(1, maxBatch);
+        this.interval = Math.max(1, interval);
+        this.writer = new Thread(this, "CandlePersistQueue");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Method getInstance. Returns the shared queue or null if
+     * trade.candle.writeBehind.queueSize is 0.
+     *
+     * @param tradePersistentModel IPersistentModel
+     * @return CandlePersistQueue
+     */
+    public static synchronized CandlePersistQueue getInstance(IPersistentModel tradePersistentModel) {
+
+        if (null == m_instance && queueSize > 0) {
+            m_instance = new CandlePersistQueue(tradePersistentModel, queueSize, batchSize, flushMillis);
+        }
+        return m_instance;
+    }
+
+    /**
+     * Method offer. Queue a copy of the candle to be saved. Returns
+     * immediately. The caller must hold the lock the candle is updated under.
+     *
+     * @param candle Candle
+     */
+    public void offer(final Candle candle) {
+
+        Candle snapshot = snapshot(candle);
+
+        synchronized (lockQueue) {
+
+            this.offered++;
+
+            if (null != this.pending.put(candle, snapshot)) {
+                this.coalesced++;
+                return;
+            }
+
+            if (this.queue.size() >= this.capacity) {
+                Candle oldest = this.queue.pollFirst();
+                this.pending.remove(oldest);
+                this.dropped++;
+                _log.warn("CandlePersistQueue full dropped candle Symbol: {} start: {}",
+                        oldest.getContract().getSymbol(), oldest.getStartPeriod());
+            }
+            this.queue.addLast(candle);
+
+            if (this.queue.size() >= this.maxBatch) {
+                lockQueue.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Method flush. Write all the waiting candles and wait for the writer to
+     * finish or the timeout to expire.
+     *
+     * @param timeoutMillis long
+     * @return boolean true if the queue is empty.
+     */
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+
+        synchronized (lockQueue) {
+
+            while (!this.queue.isEmpty() || this.writing) {
+
+                long remaining = deadline - System.currentTimeMillis();
+
+                if (remaining <= 0 || !this.writer.isAlive()) {
+                    return false;
+                }
+                this.flushRequested = true;
+                lockQueue.notifyAll();
+                lockQueue.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    public void run() {
+
+        try (EntityManagerHelper.Scope ignored = EntityManagerHelper.openScope()) {
+            drain();
+        }
+    }
+
+    /**
+     * Method drain. Write the queued candles in batches until the queue is
+     * stopped.
+     */
+    private void drain() {
+
+        List<Candle> batch = new ArrayList<>(this.maxBatch);
+
+        while (this.running) {
+
+            try {
+
+                synchronized (lockQueue) {
+
+                    long deadline = System.currentTimeMillis() + this.interval;
+
+                    while (this.running && !this.flushRequested && this.queue.size() < this.maxBatch) {
+
+                        long remaining = deadline - System.currentTimeMillis();
+
+                        if (remaining <= 0) {
+                            break;
+                        }
+                        lockQueue.wait(remaining);
+                    }
+
+                    while (!this.queue.isEmpty() && batch.size() < this.maxBatch) {
+                        Candle candle = this.queue.pollFirst();
+                        batch.add(this.pending.remove(candle));
+                    }
+                    if (this.queue.isEmpty()) {
+                        this.flushRequested = false;
+                    }
+                    this.writing = !batch.isEmpty();
+                }
+
+                if (!batch.isEmpty()) {
+                    write(batch);
+                    batch.clear();
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                this.running = false;
+            } finally {
+                synchronized (lockQueue) {
+                    this.writing = false;
+                    lockQueue.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Method write. Save the candles as one batch, if the batch fails it is
+     * logged and counted as failed.
+     *
+     * @param batch List<Candle>
+     */
+    private void write(List<Candle> batch) {
+
+        long startTime = System.nanoTime();
+        int ok = 0;
+
+        try {
+            this.m_tradePersistentModel.persistCandles(batch);
+            ok = batch.size();
+        } catch (Exception ex) {
+            _log.error("CandlePersistQueue error saving candles rows: {} first Symbol: {} start: {} Msg: {}",
+                    batch.size(), batch.getFirst().getContract().getSymbol(), batch.getFirst().getStartPeriod(),
+                    ex.getMessage());
+        }
+
+        long elapsed = System.nanoTime() - startTime;
+
+        synchronized (lockQueue) {
+            this.written = this.written + ok;
+            this.failed = this.failed + (batch.size() - ok);
+            this.flushes++;
+            this.totalFlushNanos = this.totalFlushNanos + elapsed;
+            this.lastFlushNanos = elapsed;
+            this.maxFlushNanos = Math.max(this.maxFlushNanos, elapsed);
+            _log.debug("CandlePersistQueue flush rows: {} time: {}ms depth: {}", batch.size(),
+                    elapsed / 1000000d, this.queue.size());
+        }
+    }
+
+    /**
+     * Method snapshot. Copy the values of the candle that are saved.
+     *
+     * @param candle Candle
+     * @return Candle
+     */
+    private static Candle snapshot(Candle candle) {
+
+        Candle snapshot = new Candle();
+        snapshot.setContract(candle.getContract());
+        snapshot.setTradingday(candle.getTradingday());
+        snapshot.setPeriod(candle.getPeriod());
+        snapshot.setStartPeriod(candle.getStartPeriod());
+        snapshot.setEndPeriod(candle.getEndPeriod());
+        snapshot.setBarSize(candle.getBarSize());
+        snapshot.setOpen(candle.getOpen());
+        snapshot.setHigh(candle.getHigh());
+        snapshot.setLow(candle.getLow());
+        snapshot.setClose(candle.getClose());
+        snapshot.setVolume(candle.getVolume());
+        snapshot.setVwap(candle.getVwap());
+        snapshot.setTradeCount(candle.getTradeCount());
+        snapshot.setLastUpdateDate(candle.getLastUpdateDate());
+        return snapshot;
+    }
+
+    /**
+     * Method getQueueDepth.
+     *
+     * @return int the number of candles waiting to be written.
+     */
+    public int getQueueDepth() {
+        synchronized (lockQueue) {
+            return this.queue.size();
+        }
+    }
+
+    /**
+     * Method getOffered.
+     *
+     * @return long
+     */
+    public long getOffered() {
+        synchronized (lockQueue) {
+            return this.offered;
+        }
+    }
+
+    /**
+     * Method getCoalesced. The offers that updated a candle already waiting
+     * to be written.
+     *
+     * @return long
+     */
+    public long getCoalesced() {
+        synchronized (lockQueue) {
+            return this.coalesced;
+        }
+    }
+
+    /**
+     * Method getDropped. The candles dropped because the queue was full.
+     *
+     * @return long
+     */
+    public long getDropped() {
+        synchronized (lockQueue) {
+            return this.dropped;
+        }
+    }
+
+    /**
+     * Method getWritten.
+     *
+     * @return long
+     */
+    public long getWritten() {
+        synchronized (lockQueue) {
+            return this.written;
+        }
+    }
+
+    /**
+     * Method getFailed.
+     *
+     * @return long
+     */
+    public long getFailed() {
+        synchronized (lockQueue) {
+            return this.failed;
+        }
+    }
+
+    /**
+     * Method getLastFlushMillis.
+     *
+     * @return double
+     */
+    public double getLastFlushMillis() {
+        synchronized (lockQueue) {
+            return this.lastFlushNanos / 1000000d;
+        }
+    }
+
+    /**
+     * Method getMaxFlushMillis.
+     *
+     * @return double
+     */
+    public double getMaxFlushMillis() {
+        synchronized (lockQueue) {
+            return this.maxFlushNanos / 1000000d;
+        }
+    }
+
+    /**
+     * Method getAverageFlushMillis.
+     *
+     * @return double
+     */
+    public double getAverageFlushMillis() {
+        synchronized (lockQueue) {
+            if (this.flushes == 0) {
+                return 0;
+            }
+            return (this.totalFlushNanos / (double) this.flushes) / 1000000d;
+        }
+    }
+
+    /**
+     * Method toString. The metrics for logging.
+     *
+     * @return String
+     */
+    public String toString() {
+        synchronized (lockQueue) {
+            return "CandlePersistQueue depth: " + this.queue.size() + " offered: " + this.offered + " coalesced: "
+                    + this.coalesced + " dropped: " + this.dropped + " written: " + this.written + " failed: "
+                    + this.failed + " flush avg ms: " + String.format("%.3f", getAverageFlushMillis())
+                    + " max ms: " + String.format("%.3f", getMaxFlushMillis());
+        }
+    }
+
+    /**
+     * Method shutdown. Stop the writer once the waiting candles are written,
+     * the next call to getInstance starts a new queue.
+     */
+    public void shutdown() {
+
+        try {
+            if (!flush(this.interval * 10)) {
+                _log.warn("CandlePersistQueue shutdown before all candles were written {}", this);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        this.running = false;
+        this.writer.interrupt();
+
+        synchronized (CandlePersistQueue.class) {
+            if (m_instance == this) {
+                m_instance = null;
+            }
+        }
+    }
+
+    /**
+     * Method getProperty.
+     *
+     * @param key          String
+     * @param defaultValue int
+     * @return int
+     */
+    private static int getProperty(String key, int defaultValue) {
+
+        try {
+            return ConfigProperties.getPropAsInt(key);
+        } catch (Exception ex) {
+            _log.debug("{} not set using: {} Msg: {}", key, defaultValue, ex.getMessage());
+            return defaultValue;
+        }
+    }
+}
@@ -121,6 +121,13 @@ public interface IPersistentModel {
      */
     Candle persistCandle(Candle candle) throws PersistentModelException;
 
+    /**
+     * Method persistCandles. Save the candles in one batch.
+     *
+     * @param candles List<Candle>
+     */
+    void persistCandles(List<Candle> candles) throws PersistentModelException;
+
     /**
      * Method findAccountById.
      *
@@ -356,6 +363,17 @@ public interface IPersistentModel {
     Tradingdays findTradingdaysByDateRange(ZonedDateTime startDate, ZonedDateTime endDate)
             throws PersistentModelException;
 
+    /**
+     * Method findTradingdaysLiteByDateRange. The tradestrategies are loaded
+     * without their orders, portfolio accounts or indicator series.
+     *
+     * @param startDate ZonedDateTime
+     * @param endDate   ZonedDateTime
+     * @return Tradingdays
+     */
+    Tradingdays findTradingdaysLiteByDateRange(ZonedDateTime startDate, ZonedDateTime endDate)
+            throws PersistentModelException;
+
     /**
      * Method findTradelogReport.
      *
@@ -391,6 +409,18 @@ public interface IPersistentModel {
      */
     Long findCandleCount(Integer idTradingday, Integer idContract) throws PersistentModelException;
 
+    /**
+     * Method findCandleCountByContractDateRangeBarSize.
+     *
+     * @param idContract Integer
+     * @param startDate  ZonedDateTime
+     * @param endDate    ZonedDateTime
+     * @param barSize    Integer
+     * @return Long
+     */
+    Long findCandleCountByContractDateRangeBarSize(Integer idContract, ZonedDateTime startDate,
+                                                   ZonedDateTime endDate, Integer barSize) throws PersistentModelException;
+
     /**
      * Method findRuleById.
      *
@@ -438,6 +468,26 @@ public interface IPersistentModel {
      */
     Aspects findAspectsByClassName(String aspectClassName) throws PersistentModelException;
 
+    /**
+     * Method findAspectsByClassName. Find one page of aspects in id order.
+     *
+     * @param aspectClassName String
+     * @param afterId         Integer the last id of the previous page or null
+     *                        for the first page.
+     * @param maxResults      int
+     * @return Aspects
+     */
+    Aspects findAspectsByClassName(String aspectClassName, Integer afterId, int maxResults)
+            throws PersistentModelException;
+
+    /**
+     * Method findAspectCountByClassName.
+     *
+     * @param aspectClassName String
+     * @return Long
+     */
+    Long findAspectCountByClassName(String aspectClassName) throws PersistentModelException;
+
     /**
      * Method findAspectsByClassNameFieldName.
      *
@@ -36,9 +36,11 @@
 package org.trade.core.persistent;
 
 import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.Persistence;
 import org.trade.core.dao.Aspect;
 import org.trade.core.dao.AspectHome;
 import org.trade.core.dao.Aspects;
+import org.trade.core.dao.EntityManagerHelper;
 import org.trade.core.persistent.dao.Account;
 import org.trade.core.persistent.dao.AccountHome;
 import org.trade.core.persistent.dao.Candle;
@@ -47,6 +49,7 @@ import org.trade.core.persistent.dao.CodeType;
 import org.trade.core.persistent.dao.CodeTypeHome;
 import org.trade.core.persistent.dao.Contract;
 import org.trade.core.persistent.dao.ContractHome;
+import org.trade.core.persistent.dao.ContractLite;
 import org.trade.core.persistent.dao.Portfolio;
 import org.trade.core.persistent.dao.PortfolioHome;
 import org.trade.core.persistent.dao.Rule;
@@ -80,8 +83,11 @@ import org.trade.core.valuetype.TradestrategyStatus;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Hashtable;
 import java.util.List;
+import java.util.Map;
 
 /**
  *
@@ -106,6 +112,12 @@ public class TradePersistentModel implements IPersistentModel {
     private static final int SCALE_5 = 5;
     private static final int SCALE_2 = 2;
 
+    /*
+     * Shared by every model so orders for the same contract are serialised
+     * across them.
+     */
+    private static final TradePositionLedger positionLedger = new TradePositionLedger();
+
     public TradePersistentModel() {
         m_codeTypeHome = new CodeTypeHome();
         m_contractHome = new ContractHome();
@@ -330,6 +342,7 @@ public class TradePersistentModel implements IPersistentModel {
                     m_aspectHome.persist(transientInstance.getContract());
                 }
                 m_aspectHome.remove(tradePosition);
+                positionLedger.remove(tradePosition.getId());
             }
 
             transientInstance.getTradeOrders().clear();
@@ -359,6 +372,10 @@ public class TradePersistentModel implements IPersistentModel {
         return m_tradingdayHome.findTradingdaysByDateRange(startDate, endDate);
     }
 
+    public Tradingdays findTradingdaysLiteByDateRange(final ZonedDateTime startDate, final ZonedDateTime endDate) {
+        return m_tradingdayHome.findTradingdaysLiteByDateRange(startDate, endDate);
+    }
+
     public List<Candle> findCandlesByContractDateRangeBarSize(final Integer idContract, final ZonedDateTime startDate,
                                                               final ZonedDateTime endDate, final Integer barSize) {
         return m_candleHome.findCandlesByContractDateRangeBarSize(idContract, startDate, endDate, barSize);
@@ -368,6 +385,11 @@ public class TradePersistentModel implements IPersistentModel {
         return m_candleHome.findCandleCount(idTradingday, idContract);
     }
 
+    public Long findCandleCountByContractDateRangeBarSize(final Integer idContract, final ZonedDateTime startDate,
+                                                          final ZonedDateTime endDate, final Integer barSize) {
+        return m_candleHome.findCandleCountByContractDateRangeBarSize(idContract, startDate, endDate, barSize);
+    }
+
     public Contract persistContract(final Contract transientInstance) throws PersistentModelException {
 
         try {
@@ -401,6 +423,11 @@ public class TradePersistentModel implements IPersistentModel {
                 candleSeries.getContract().setVersion(contract.getVersion());
             }
             m_candleHome.persistCandleSeries(candleSeries);
+
+            CandleArchive candleArchive = CandleArchive.getInstance();
+            if (null != candleArchive) {
+                candleArchive.invalidateCandleSeries(candleSeries);
+            }
         } catch (OptimisticLockException ex1) {
             throw new PersistentModelException("Error saving CandleSeries please refresh before save.");
         } catch (Exception e) {
@@ -409,6 +436,30 @@ public class TradePersistentModel implements IPersistentModel {
         }
     }
 
+    public void persistCandles(final List<Candle> candles) throws PersistentModelException {
+
+        try {
+
+            m_candleHome.persistCandles(candles);
+
+            CandleArchive candleArchive = CandleArchive.getInstance();
+            if (null != candleArchive) {
+                Map<Integer, Map<Integer, List<Candle>>> candlesByContract = new HashMap<>();
+                for (Candle candle : candles) {
+                    candlesByContract.computeIfAbsent(candle.getContract().getId(), k -> new HashMap<>())
+                            .computeIfAbsent(candle.getBarSize(), k -> new ArrayList<>()).add(candle);
+                }
+                for (Map.Entry<Integer, Map<Integer, List<Candle>>> contract : candlesByContract.entrySet()) {
+                    for (Map.Entry<Integer, List<Candle>> barSize : contract.getValue().entrySet()) {
+                        candleArchive.invalidate(contract.getKey(), barSize.getKey(), barSize.getValue());
+                    }
+                }
+            }
+        } catch (Exception e) {
+            throw new PersistentModelException("Error saving Candles: " + candles.size() + "\n Msg: " + e.getMessage());
+        }
+    }
+
     public Candle persistCandle(final Candle candle) throws PersistentModelException {
 
         try {
@@ -440,6 +491,11 @@ public class TradePersistentModel implements IPersistentModel {
                 }
                 Candle item = m_aspectHome.persist(candle);
                 candle.setVersion(item.getVersion());
+
+                CandleArchive candleArchive = CandleArchive.getInstance();
+                if (null != candleArchive) {
+                    candleArchive.invalidate(candle.getContract().getId(), candle.getBarSize(), List.of(candle));
+                }
                 return item;
             }
         } catch (OptimisticLockException ex1) {
@@ -462,7 +518,28 @@ public class TradePersistentModel implements IPersistentModel {
         }
     }
 
-    public synchronized TradeOrder persistTradeOrder(final TradeOrder tradeOrder) throws PersistentModelException {
+    public TradeOrder persistTradeOrder(final TradeOrder tradeOrder) throws PersistentModelException {
+
+        /*
+         * Orders are serialised per contract as the tradestrategies of a
+         * contract share its position, orders for other contracts run in
+         * parallel.
+         */
+        synchronized (positionLedger.getLock(getContractId(tradeOrder))) {
+            return persistTradeOrderLocked(tradeOrder);
+        }
+    }
+
+    /**
+     * Method persistTradeOrderLocked. Persist the order and update its
+     * position, the caller must hold the lock for the contract.
+     *
+     * @param tradeOrder TradeOrder
+     * @return TradeOrder
+     */
+    private TradeOrder persistTradeOrderLocked(final TradeOrder tradeOrder) throws PersistentModelException {
+
+        Integer idTradePosition = null;
         try {
 
             if (null == tradeOrder.getOrderKey()) {
@@ -512,11 +589,8 @@ public class TradePersistentModel implements IPersistentModel {
                     tradestrategyOrders = this.findPositionOrdersByTradestrategyId(tradestrategyId);
 
                     if (tradestrategyOrders.hasOpenTradePosition()) {
-                        tradePosition = this.findTradePositionById(
+                        tradePosition = this.findLedgerTradePosition(
                                 tradestrategyOrders.getContract().getTradePosition().getId());
-                        if (!tradePosition.containsTradeOrder(tradeOrder)) {
-                            tradePosition.addTradeOrder(tradeOrder);
-                        }
 
                     } else {
                         /*
@@ -532,12 +606,14 @@ public class TradePersistentModel implements IPersistentModel {
 
                         tradePosition = new TradePosition(tradestrategyOrders.getContract(), positionOpenDate,
                                 (Action.BUY.equals(tradeOrder.getAction()) ? Side.BOT : Side.SLD));
+                        tradePosition.setIdPortfolio(tradestrategyOrders.getIdPortfolio());
                         tradeOrder.setIsOpenPosition(true);
                         tradestrategyOrders.setStatus(TradestrategyStatus.OPEN);
                         tradestrategyOrders.setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
                         this.persistAspect(tradestrategyOrders);
                         tradePosition.addTradeOrder(tradeOrder);
                         tradePosition = this.persistAspect(tradePosition);
+                        positionLedger.seed(tradePosition);
                     }
                     tradeOrder.setTradePosition(tradePosition);
                 } else {
@@ -549,52 +625,24 @@ public class TradePersistentModel implements IPersistentModel {
                     return this.persistAspect(tradeOrder);
                 }
             } else {
-                tradePosition = this.findTradePositionById(tradeOrder.getTradePosition().getId());
+                tradePosition = this.findLedgerTradePosition(tradeOrder.getTradePosition().getId());
                 tradeOrder.setTradePosition(tradePosition);
             }
 
-            boolean allOrdersCancelled = true;
-            int totalBuyQuantity = 0;
-            int totalSellQuantity = 0;
-            double totalCommission = 0;
-            double totalBuyValue = 0;
-            double totalSellValue = 0;
-
-            for (TradeOrder order : tradePosition.getTradeOrders()) {
-
-                if (order.getOrderKey().equals(tradeOrder.getOrderKey())) {
-                    order = tradeOrder;
-                }
-
-                /*
-                 * If all orders are cancelled and not filled then we need to
-                 * update the tradestrategy status to cancelled.
-                 */
-                if (!OrderStatus.CANCELLED.equals(order.getStatus())) {
-                    allOrdersCancelled = false;
-                }
-
-                if (null != order.getFilledQuantity()) {
+            /*
+             * Update the position totals from the change to this order.
+             */
+            idTradePosition = tradePosition.getId();
+            TradePositionLedger.Totals totals = positionLedger.apply(idTradePosition, tradeOrder);
+            boolean allOrdersCancelled = totals.allOrdersCancelled();
+            int totalBuyQuantity = totals.buyQuantity();
+            int totalSellQuantity = totals.sellQuantity();
 
-                    if (Action.BUY.equals(order.getAction())) {
-                        totalBuyQuantity = totalBuyQuantity + order.getFilledQuantity();
-                        totalBuyValue = totalBuyValue + (order.getAverageFilledPrice().doubleValue()
-                                * order.getFilledQuantity().doubleValue());
-                    } else {
-                        totalSellQuantity = totalSellQuantity + order.getFilledQuantity();
-                        totalSellValue = totalSellValue + (order.getAverageFilledPrice().doubleValue()
-                                * order.getFilledQuantity().doubleValue());
-                    }
-                    if (null != order.getCommission()) {
-                        totalCommission = totalCommission + order.getCommission().doubleValue();
-                    }
-                }
-            }
             /*
              * totalFilledQuantity has changed for the trade update the trade
              * values.
              */
-            Money comms = new Money(totalCommission);
+            Money comms = new Money(totals.commission().doubleValue());
             if (CoreUtils.nullSafeComparator(totalBuyQuantity, tradePosition.getTotalBuyQuantity()) != 0
                     || CoreUtils.nullSafeComparator(totalSellQuantity,
                     tradePosition.getTotalSellQuantity()) != 0) {
@@ -602,13 +650,11 @@ public class TradePersistentModel implements IPersistentModel {
                 int openQuantity = totalBuyQuantity - totalSellQuantity;
                 tradePosition.setOpenQuantity(openQuantity);
                 tradePosition.setTotalBuyQuantity(totalBuyQuantity);
-                tradePosition.setTotalBuyValue(
-                        (new BigDecimal(totalBuyValue)).setScale(SCALE_5, RoundingMode.HALF_EVEN));
+                tradePosition.setTotalBuyValue(totals.buyValue().setScale(SCALE_5, RoundingMode.HALF_EVEN));
                 tradePosition.setTotalSellQuantity(totalSellQuantity);
-                tradePosition.setTotalSellValue(
-                        (new BigDecimal(totalSellValue)).setScale(SCALE_5, RoundingMode.HALF_EVEN));
-                tradePosition.setTotalNetValue(
-                        (new BigDecimal(totalSellValue - totalBuyValue)).setScale(SCALE_5, RoundingMode.HALF_EVEN));
+                tradePosition.setTotalSellValue(totals.sellValue().setScale(SCALE_5, RoundingMode.HALF_EVEN));
+                tradePosition.setTotalNetValue(totals.sellValue().subtract(totals.buyValue()).setScale(SCALE_5,
+                        RoundingMode.HALF_EVEN));
                 tradePosition.setTotalCommission(comms.getBigDecimalValue());
                 if (openQuantity > 0) {
                     tradePosition.setSide(Side.BOT);
@@ -641,7 +687,7 @@ public class TradePersistentModel implements IPersistentModel {
                      * Now update all the tradestrategies as there could be many
                      * if the position is across multiple days.
                      */
-                    for (TradeOrder item : tradePosition.getTradeOrders()) {
+                    for (TradeOrder item : this.findTradePositionById(idTradePosition).getTradeOrders()) {
                         if (!item.getTradestrategyId().getId()
                                 .equals(tradestrategyOrders.getId())) {
                             item.getTradestrategyId().setStatus(TradestrategyStatus.CLOSED);
@@ -657,6 +703,13 @@ public class TradePersistentModel implements IPersistentModel {
                 tradePosition.setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
                 this.persistAspect(tradePosition);
 
+                /*
+                 * A closed position gets no more fills.
+                 */
+                if (!tradePosition.isOpen()) {
+                    positionLedger.remove(idTradePosition);
+                }
+
             } else {
                 if (allOrdersCancelled) {
                     if (null == tradestrategyOrders) {
@@ -685,14 +738,81 @@ public class TradePersistentModel implements IPersistentModel {
             return this.persistAspect(tradeOrder);
 
         } catch (OptimisticLockException ex1) {
+            positionLedger.remove(idTradePosition);
             throw new PersistentModelException("Error saving TradeOrder please refresh before save.");
         } catch (Exception e) {
+            positionLedger.remove(idTradePosition);
             throw new PersistentModelException(
                     "Error saving TradeOrder: " + tradeOrder.getOrderKey() + "\n Msg: " + e.getMessage());
         }
     }
 
-    public synchronized TradeOrder persistTradeOrderfill(final TradeOrder tradeOrder) throws PersistentModelException {
+    /**
+     * Method findLedgerTradePosition. Find the position, its orders are only
+     * loaded the first time it is seen to seed the ledger totals.
+     *
+     * @param id Integer
+     * @return TradePosition
+     */
+    private TradePosition findLedgerTradePosition(final Integer id) throws PersistentModelException {
+
+        boolean seeded = positionLedger.contains(id);
+        TradePosition instance = m_tradePositionHome.findById(id, !seeded);
+        if (null == instance)
+            throw new PersistentModelException("TradePosition not found for id: " + id);
+        if (!seeded) {
+            positionLedger.seed(instance);
+        }
+        return instance;
+    }
+
+    /**
+     * Method getContractId. The tradestrategy of an order may be a detached
+     * lazy reference, so its contract is only read if loaded otherwise it is
+     * found from the tradestrategy id. Every update for a contract must use
+     * the same lock.
+     *
+     * @param tradeOrder TradeOrder
+     * @return Integer the id of the contract the order is for or null if the
+     * order has no tradestrategy.
+     */
+    private Integer getContractId(final TradeOrder tradeOrder) {
+
+        if (tradeOrder.hasTradePosition() && null != tradeOrder.getTradePosition().getContract()) {
+            return tradeOrder.getTradePosition().getContract().getId();
+        }
+        Tradestrategy tradestrategy = tradeOrder.getTradestrategy();
+        if (null != tradestrategy && Persistence.getPersistenceUtil().isLoaded(tradestrategy)
+                && null != tradestrategy.getContract()) {
+            return tradestrategy.getContract().getId();
+        }
+        Integer idTradestrategy = null;
+        if (null != tradeOrder.getTradestrategyId()) {
+            idTradestrategy = tradeOrder.getTradestrategyId().getId();
+        } else if (null != tradestrategy) {
+            idTradestrategy = tradestrategy.getId();
+        }
+        if (null == idTradestrategy) {
+            return null;
+        }
+        return m_tradestrategyHome.findContractIdById(idTradestrategy);
+    }
+
+    public TradeOrder persistTradeOrderfill(final TradeOrder tradeOrder) throws PersistentModelException {
+
+        synchronized (positionLedger.getLock(getContractId(tradeOrder))) {
+            return persistTradeOrderfillLocked(tradeOrder);
+        }
+    }
+
+    /**
+     * Method persistTradeOrderfillLocked. Total the fills of the order and
+     * persist it, the caller must hold the lock for the contract.
+     *
+     * @param tradeOrder TradeOrder
+     * @return TradeOrder
+     */
+    private TradeOrder persistTradeOrderfillLocked(final TradeOrder tradeOrder) throws PersistentModelException {
         try {
 
             ZonedDateTime filledDate = null;
@@ -740,7 +860,7 @@ public class TradePersistentModel implements IPersistentModel {
                     tradeOrder.setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
                 }
             }
-            return persistTradeOrder(tradeOrder);
+            return persistTradeOrderLocked(tradeOrder);
 
         } catch (OptimisticLockException ex1) {
             throw new PersistentModelException("Error saving TradeOrderfill please refresh before save.");
@@ -812,6 +932,42 @@ public class TradePersistentModel implements IPersistentModel {
         }
     }
 
+    public Aspects findAspectsByClassName(String aspectClassName, Integer afterId, int maxResults)
+            throws PersistentModelException {
+        try {
+
+            if ("org.trade.persistent.dao.Strategy".equals(aspectClassName)
+                    || "org.trade.persistent.dao.Portfolio".equals(aspectClassName)) {
+                /*
+                 * These need their LAZY children loaded and are small so they
+                 * are returned as one page.
+                 */
+                return (null == afterId ? findAspectsByClassName(aspectClassName) : new Aspects());
+            }
+            return m_aspectHome.findByClassName(aspectClassName, afterId, maxResults);
+
+        } catch (PersistentModelException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new PersistentModelException("Error finding Aspects: " + ex.getMessage());
+        }
+    }
+
+    public Long findAspectCountByClassName(String aspectClassName) throws PersistentModelException {
+        try {
+
+            if ("org.trade.persistent.dao.Strategy".equals(aspectClassName)
+                    || "org.trade.persistent.dao.Portfolio".equals(aspectClassName)) {
+                return (long) findAspectsByClassName(aspectClassName).getAspect().size();
+            }
+            return m_aspectHome.findCountByClassName(aspectClassName);
+        } catch (PersistentModelException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new PersistentModelException("Error counting Aspects: " + ex.getMessage());
+        }
+    }
+
     public Aspects findAspectsByClassNameFieldName(String className, String fieldname, String value)
             throws PersistentModelException {
         try {
@@ -833,7 +989,7 @@ public class TradePersistentModel implements IPersistentModel {
 
     public <T extends Aspect> T persistAspect(final T transientInstance) throws PersistentModelException {
         try {
-            return m_aspectHome.persist(transientInstance);
+            return evictContract(m_aspectHome.persist(transientInstance));
         } catch (OptimisticLockException ex1) {
             throw new PersistentModelException(
                     "Error saving " + transientInstance.getClass().getSimpleName() + " please refresh before save.");
@@ -846,7 +1002,7 @@ public class TradePersistentModel implements IPersistentModel {
     public <T extends Aspect> T persistAspect(final T transientInstance, boolean overrideVersion)
             throws PersistentModelException {
         try {
-            return m_aspectHome.persist(transientInstance, overrideVersion);
+            return evictContract(m_aspectHome.persist(transientInstance, overrideVersion));
         } catch (OptimisticLockException ex1) {
             throw new PersistentModelException(
                     "Error saving " + transientInstance.getClass().getSimpleName() + " please refresh before save.");
@@ -856,11 +1012,34 @@ public class TradePersistentModel implements IPersistentModel {
         }
     }
 
+    /**
+     * Method evictContract. ContractLite maps the same table as Contract so a
+     * saved ContractLite leaves a stale Contract in the second level cache.
+     *
+     * @param instance T
+     * @return T
+     */
+    private <T extends Aspect> T evictContract(T instance) {
+        if (instance instanceof ContractLite) {
+            EntityManagerHelper.evictCache(Contract.class, instance.getId());
+        }
+        return instance;
+    }
+
     public void removeAspect(final Aspect transientInstance) throws PersistentModelException {
 
         try {
 
             m_aspectHome.remove(transientInstance);
+            /*
+             * The totals of the position no longer match the database, the
+             * next update will seed them again.
+             */
+            if (transientInstance instanceof TradePosition tradePosition) {
+                positionLedger.remove(tradePosition.getId());
+            } else if (transientInstance instanceof TradeOrder tradeOrder && tradeOrder.hasTradePosition()) {
+                positionLedger.remove(tradeOrder.getTradePosition().getId());
+            }
         } catch (OptimisticLockException ex1) {
 
             throw new PersistentModelException(
@@ -0,0 +1,217 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent;
+
+import org.trade.core.persistent.dao.TradeOrder;
+import org.trade.core.persistent.dao.TradePosition;
+import org.trade.core.valuetype.Action;
+import org.trade.core.valuetype.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The running totals of the open trade positions. A position is read from the
+ * database with its orders once, after that each order update replaces that
+ * order's contribution to the totals, so a fill does not reload and re-add
+ * every order of the position.
+ * <p>
+ * Positions belong to a contract and may be shared by the tradestrategies of
+ * that contract, so updates are serialised per contract. Orders for different
+ * contracts are persisted in parallel. The totals of a position must only be
+ * read or changed while holding the lock for its contract.
+ */
+public class TradePositionLedger {
+
+    private final Object sharedLock = new Object();
+    private final ConcurrentHashMap<Integer, Object> contractLocks = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Integer, Position> positions = new ConcurrentHashMap<>();
+
+    public TradePositionLedger() {
+    }
+
+    /**
+     * Method getLock.
+     *
+     * @param idContract Integer
+     * @return Object the lock for the contract or a shared lock if the
+     * contract is not known.
+     */
+    public Object getLock(Integer idContract) {
+
+        if (null == idContract) {
+            return this.sharedLock;
+        }
+        return this.contractLocks.computeIfAbsent(idContract, k -> new Object());
+    }
+
+    /**
+     * Method contains.
+     *
+     * @param idTradePosition Integer
+     * @return boolean true if the totals for the position are held.
+     */
+    public boolean contains(Integer idTradePosition) {
+        return null != idTradePosition && this.positions.containsKey(idTradePosition);
+    }
+
+    /**
+     * Method seed. Start the totals of a position from its orders, these must
+     * have been loaded.
+     *
+     * @param tradePosition TradePosition
+     */
+    public void seed(TradePosition tradePosition) {
+
+        Position position = new Position();
+        for (TradeOrder order : tradePosition.getTradeOrders()) {
+            position.put(order);
+        }
+        this.positions.put(tradePosition.getId(), position);
+    }
+
+    /**
+     * Method apply. Replace the order's contribution to the totals of the
+     * position with its current values.
+     *
+     * @param idTradePosition Integer
+     * @param tradeOrder      TradeOrder
+     * @return Totals the totals of the position after the update.
+     */
+    public Totals apply(Integer idTradePosition, TradeOrder tradeOrder) {
+
+        Position position = this.positions.get(idTradePosition);
+        if (null == position) {
+            throw new IllegalStateException("TradePosition not in ledger id: " + idTradePosition);
+        }
+        position.put(tradeOrder);
+        return position.getTotals();
+    }
+
+    /**
+     * Method remove. Forget the totals of a position i.e. it has closed or its
+     * update failed, the next update will seed it again from the database.
+     *
+     * @param idTradePosition Integer
+     */
+    public void remove(Integer idTradePosition) {
+
+        if (null != idTradePosition) {
+            this.positions.remove(idTradePosition);
+        }
+    }
+
+    /**
+     * The totals of the filled orders of a position.
+     *
+     * @param buyQuantity        int
+     * @param sellQuantity       int
+     * @param buyValue           BigDecimal
+     * @param sellValue          BigDecimal
+     * @param commission         BigDecimal
+     * @param allOrdersCancelled boolean
+     */
+    public record Totals(int buyQuantity, int sellQuantity, BigDecimal buyValue, BigDecimal sellValue,
+                         BigDecimal commission, boolean allOrdersCancelled) {
+    }
+
+    /**
+     * The contribution of one order to the totals.
+     */
+    private record OrderTotals(boolean buy, int quantity, BigDecimal value, BigDecimal commission,
+                               boolean cancelled) {
+
+        private static OrderTotals create(TradeOrder order) {
+
+            boolean cancelled = OrderStatus.CANCELLED.equals(order.getStatus());
+            if (null == order.getFilledQuantity()) {
+                return new OrderTotals(false, 0, BigDecimal.ZERO, BigDecimal.ZERO, cancelled);
+            }
+            int quantity = order.getFilledQuantity();
+            BigDecimal value = (null == order.getAverageFilledPrice() ? BigDecimal.ZERO
+                    : order.getAverageFilledPrice().multiply(BigDecimal.valueOf(quantity)));
+            BigDecimal commission = (null == order.getCommission() ? BigDecimal.ZERO : order.getCommission());
+            return new OrderTotals(Action.BUY.equals(order.getAction()), quantity, value, commission, cancelled);
+        }
+    }
+
+    /**
+     * The orders and running totals of a position.
+     */
+    private static final class Position {
+
+        private final Map<Integer, OrderTotals> orders = new HashMap<>();
+        private int buyQuantity = 0;
+        private int sellQuantity = 0;
+        private BigDecimal buyValue = BigDecimal.ZERO;
+        private BigDecimal sellValue = BigDecimal.ZERO;
+        private BigDecimal commission = BigDecimal.ZERO;
+        private int notCancelled = 0;
+
+        private void put(TradeOrder order) {
+
+            OrderTotals current = OrderTotals.create(order);
+            OrderTotals previous = this.orders.put(order.getOrderKey(), current);
+            if (null != previous) {
+                add(previous, -1);
+            }
+            add(current, 1);
+        }
+
+        private void add(OrderTotals order, int sign) {
+
+            if (!order.cancelled()) {
+                this.notCancelled += sign;
+            }
+            BigDecimal value = (sign < 0 ? order.value().negate() : order.value());
+            if (order.buy()) {
+                this.buyQuantity += sign * order.quantity();
+                this.buyValue = this.buyValue.add(value);
+            } else {
+                this.sellQuantity += sign * order.quantity();
+                this.sellValue = this.sellValue.add(value);
+            }
+            this.commission = this.commission.add(sign < 0 ? order.commission().negate() : order.commission());
+        }
+
+        private Totals getTotals() {
+            return new Totals(this.buyQuantity, this.sellQuantity, this.buyValue, this.sellValue, this.commission,
+                    this.notCancelled == 0);
+        }
+    }
+}
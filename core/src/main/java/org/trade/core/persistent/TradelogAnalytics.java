@@ -0,0 +1,784 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.persistent.dao.TradeOrder;
+import org.trade.core.persistent.dao.TradePosition;
+import org.trade.core.persistent.dao.TradelogReport;
+import org.trade.core.persistent.dao.TradelogSummary;
+import org.trade.core.persistent.dao.Tradestrategy;
+import org.trade.core.persistent.dao.TradestrategyOrders;
+import org.trade.core.properties.ConfigProperties;
+import org.trade.core.util.CoreUtils;
+import org.trade.core.util.time.TradingCalendar;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
+
+/**
+ * In memory analytics of the positions closed by a back test. Each back test
+ * broker adds the positions of its tradestrategy when it completes. Every
+ * worker thread appends to its own shard of primitive columns so millions of
+ * positions are held without contention and without reading them back from
+ * the database.
+ * <p>
+ * compute() merges the shards, orders the positions by close time for the
+ * equity curve and maximum drawdown, and tallies the month, symbol, strategy
+ * and time of day breakdowns in parallel. The Sharpe and Sortino ratios are
+ * annualized from the daily net P&L of every trading day in the run.
+ * <p>
+ * Enabled by trade.backtest.analytics in config.properties.
+ */
+public class TradelogAnalytics {
+
+    private final static Logger _log = LoggerFactory.getLogger(TradelogAnalytics.class);
+
+    private static final int TRADING_DAYS_PER_YEAR = 252;
+    private static final int BUCKET_MINUTES = 30;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final String TOTAL = "Total";
+
+    private static TradelogAnalytics m_instance = null;
+    private static final boolean enabled;
+
+    private final Queue<Shard> shards = new ConcurrentLinkedQueue<>();
+    private final ThreadLocal<Shard> localShard = ThreadLocal.withInitial(this::newShard);
+    private final Names symbols = new Names();
+    private final Names strategies = new Names();
+    private final ConcurrentHashMap<Integer, LongAdder> tradestrategyCounts = new ConcurrentHashMap<>();
+    private volatile Results results = null;
+
+    static {
+        boolean value = false;
+        try {
+            value = ConfigProperties.getPropAsBoolean("trade.backtest.analytics");
+        } catch (Exception ex) {
+            _log.debug("trade.backtest.analytics not set back test analytics disabled Msg: {}", ex.getMessage());
+        }
+        enabled = value;
+    }
+
+    /**
+     * Method getInstance. Returns the shared analytics or null if
+     * trade.backtest.analytics is false.
+     *
+     * @return TradelogAnalytics
+     */
+    public static synchronized TradelogAnalytics getInstance() {
+
+        if (null == m_instance && enabled) {
+            m_instance = new TradelogAnalytics();
+        }
+        return m_instance;
+    }
+
+    /**
+     * Method reset. Clear the positions at the start of a run.
+     */
+    public void reset() {
+
+        for (Shard shard : this.shards) {
+            shard.clear();
+        }
+        this.tradestrategyCounts.clear();
+        this.results = null;
+    }
+
+    /**
+     * Method getResults.
+     *
+     * @return Results the last results computed or null if none since the
+     * last reset.
+     */
+    public Results getResults() {
+        return this.results;
+    }
+
+    /**
+     * Method add. Add the closed positions opened by this tradestrategy.
+     *
+     * @param tradestrategy  Tradestrategy
+     * @param positionOrders TradestrategyOrders the orders of the
+     *                       tradestrategy.
+     */
+    public void add(Tradestrategy tradestrategy, TradestrategyOrders positionOrders) {
+
+        String symbol = tradestrategy.getContract().getSymbol();
+        String strategy = tradestrategy.getStrategy().getName();
+        this.tradestrategyCounts
+                .computeIfAbsent(toMonth(tradestrategy.getTradingday().getOpen()), key -> new LongAdder())
+                .increment();
+
+        for (TradeOrder order : positionOrders.getTradeOrders()) {
+            /*
+             * A position is counted once by the order that opened it.
+             */
+            if (Boolean.TRUE.equals(order.getIsOpenPosition()) && order.hasTradePosition()) {
+                add(order.getTradePosition(), symbol, strategy);
+            }
+        }
+    }
+
+    /**
+     * Method add. Add a position, open positions are ignored.
+     *
+     * @param position TradePosition
+     * @param symbol   String
+     * @param strategy String
+     */
+    public void add(TradePosition position, String symbol, String strategy) {
+
+        if (null == position.getPositionCloseDate()
+                || CoreUtils.nullSafeComparator(position.getOpenQuantity(), 0) != 0) {
+            return;
+        }
+        ZonedDateTime open = position.getPositionOpenDate().withZoneSameInstant(TradingCalendar.MKT_TIMEZONE);
+        ZonedDateTime close = position.getPositionCloseDate().withZoneSameInstant(TradingCalendar.MKT_TIMEZONE);
+        double gross = null == position.getTotalNetValue() ? 0 : position.getTotalNetValue().doubleValue();
+        double commission = null == position.getTotalCommission() ? 0
+                : position.getTotalCommission().doubleValue();
+        int quantity = Objects.requireNonNullElse(position.getTotalBuyQuantity(), 0)
+                + Objects.requireNonNullElse(position.getTotalSellQuantity(), 0);
+
+        this.localShard.get().add(close.toEpochSecond(), (int) close.toLocalDate().toEpochDay(), toMonth(close),
+                open.getHour() * 60 + open.getMinute(), gross, commission, quantity,
+                this.symbols.indexOf(symbol), this.strategies.indexOf(strategy));
+    }
+
+    /**
+     * Method getPositionCount.
+     *
+     * @return int the number of closed positions added since the last reset.
+     */
+    public int getPositionCount() {
+
+        int count = 0;
+        for (Shard shard : this.shards) {
+            count += shard.size();
+        }
+        return count;
+    }
+
+    /**
+     * Method compute. Calculate the analytics for all the positions added
+     * since the last reset.
+     *
+     * @param winLossAmount BigDecimal a position is a win when its P&L is
+     *                      above this amount and a loss when it is at or
+     *                      below minus this amount.
+     * @return Results
+     */
+    public Results compute(BigDecimal winLossAmount) {
+
+        final double winLoss = null == winLossAmount ? 0 : winLossAmount.doubleValue();
+        final Shard all = merge();
+        final int size = all.size;
+
+        /*
+         * Order the positions by close time, the index is packed in the low
+         * bits so one primitive sort does the work.
+         */
+        long[] order = new long[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (all.closeSecond[i] << 32) | i;
+        }
+        Arrays.parallelSort(order);
+
+        long[] equityTimes = new long[size];
+        double[] equityCurve = new double[size];
+        int[] dayKeys = new int[size];
+        double[] dayValues = new double[size];
+        int days = 0;
+        double equity = 0;
+        double peak = 0;
+        double maxDrawdown = 0;
+        long peakTime = size > 0 ? all.closeSecond[(int) order[0]] : 0;
+        long drawdownStart = 0;
+        long drawdownEnd = 0;
+
+        for (int k = 0; k < size; k++) {
+            int i = (int) order[k];
+            double net = all.gross[i] - all.commission[i];
+            equity += net;
+            equityTimes[k] = all.closeSecond[i];
+            equityCurve[k] = equity;
+            if (equity > peak) {
+                peak = equity;
+                peakTime = all.closeSecond[i];
+            } else if (peak - equity > maxDrawdown) {
+                maxDrawdown = peak - equity;
+                drawdownStart = peakTime;
+                drawdownEnd = all.closeSecond[i];
+            }
+            if (days == 0 || dayKeys[days - 1] != all.closeDay[i]) {
+                dayKeys[days++] = all.closeDay[i];
+            }
+            dayValues[days - 1] += net;
+        }
+        double[] daily = toTradingDays(dayKeys, dayValues, days);
+
+        int minMonth = Integer.MAX_VALUE;
+        int maxMonth = Integer.MIN_VALUE;
+        for (int i = 0; i < size; i++) {
+            minMonth = Math.min(minMonth, all.closeMonth[i]);
+            maxMonth = Math.max(maxMonth, all.closeMonth[i]);
+        }
+        final int firstMonth = size > 0 ? minMonth : 0;
+        final int months = size > 0 ? maxMonth - minMonth + 1 : 0;
+        final int symbolCount = this.symbols.size();
+        final int strategyCount = this.strategies.size();
+        final int buckets = (24 * 60) / BUCKET_MINUTES;
+
+        Tallies tallies = IntStream.range(0, size).parallel().collect(
+                () -> new Tallies(months, symbolCount, strategyCount, buckets),
+                (acc, i) -> acc.add(all, i, firstMonth, winLoss), Tallies::combine);
+
+        Map<Integer, Row> byMonth = new TreeMap<>(Comparator.reverseOrder());
+        for (int m = 0; m < months; m++) {
+            if (tallies.month.positions[m] > 0) {
+                byMonth.put(firstMonth + m, tallies.month.row(m, formatMonth(firstMonth + m),
+                        getTradestrategyCount(firstMonth + m)));
+            }
+        }
+        int totalTradestrategies = 0;
+        for (Map.Entry<Integer, LongAdder> entry : this.tradestrategyCounts.entrySet()) {
+            totalTradestrategies += entry.getValue().intValue();
+            byMonth.putIfAbsent(entry.getKey(), new Row(formatMonth(entry.getKey()), 0, 0, 0, 0, 0, 0, 0,
+                    entry.getValue().intValue()));
+        }
+
+        List<String> symbolNames = this.symbols.snapshot();
+        List<String> strategyNames = this.strategies.snapshot();
+        List<Row> bySymbol = new ArrayList<>();
+        for (int s = 0; s < symbolCount; s++) {
+            if (tallies.symbol.positions[s] > 0) {
+                bySymbol.add(tallies.symbol.row(s, symbolNames.get(s), 0));
+            }
+        }
+        List<Row> byStrategy = new ArrayList<>();
+        for (int s = 0; s < strategyCount; s++) {
+            if (tallies.strategy.positions[s] > 0) {
+                byStrategy.add(tallies.strategy.row(s, strategyNames.get(s), 0));
+            }
+        }
+        List<Row> byTimeOfDay = new ArrayList<>();
+        for (int b = 0; b < buckets; b++) {
+            if (tallies.timeOfDay.positions[b] > 0) {
+                int minute = b * BUCKET_MINUTES;
+                byTimeOfDay.add(tallies.timeOfDay.row(b, String.format("%02d:%02d", minute / 60, minute % 60), 0));
+            }
+        }
+        bySymbol.sort(Comparator.comparingDouble(Row::netProfitLoss).reversed());
+        byStrategy.sort(Comparator.comparingDouble(Row::netProfitLoss).reversed());
+
+        Tally total = new Tally(1);
+        for (int m = 0; m < months; m++) {
+            total.add(tallies.month, m, 0);
+        }
+
+        this.results = new Results(total.row(0, TOTAL, totalTradestrategies), new ArrayList<>(byMonth.values()), bySymbol,
+                byStrategy, byTimeOfDay, equityTimes, equityCurve, maxDrawdown, toDateTime(drawdownStart),
+                toDateTime(drawdownEnd), daily.length, sharpeRatio(daily), sortinoRatio(daily));
+        return this.results;
+    }
+
+    /**
+     * Method toTradelogReport. Render the results as the monthly and total
+     * rows of a TradelogReport with the full results attached.
+     *
+     * @param results Results
+     * @return TradelogReport
+     */
+    public static TradelogReport toTradelogReport(Results results) {
+
+        TradelogReport tradelogReport = new TradelogReport();
+        int id = 0;
+        tradelogReport.add(toTradelogSummary(++id, results.total()));
+        for (Row row : results.byMonth()) {
+            tradelogReport.add(toTradelogSummary(++id, row));
+        }
+        tradelogReport.setAnalytics(results);
+        return tradelogReport;
+    }
+
+    /**
+     * Method logResults.
+     *
+     * @param results Results
+     */
+    public static void logResults(Results results) {
+
+        Row total = results.total();
+        _log.info("Back test analytics positions: {} net P&L: {} max drawdown: {} batting average: {} "
+                        + "sharpe: {} sortino: {} trading days: {}", total.positions(),
+                String.format("%.2f", total.netProfitLoss()), String.format("%.2f", results.maxDrawdown()),
+                total.battingAverage(), String.format("%.3f", results.sharpeRatio()),
+                String.format("%.3f", results.sortinoRatio()), results.tradingDays());
+        for (Row row : results.byStrategy()) {
+            _log.info("Back test analytics strategy: {} positions: {} net P&L: {} batting average: {}", row.name(),
+                    row.positions(), String.format("%.2f", row.netProfitLoss()), row.battingAverage());
+        }
+    }
+
+    /**
+     * Method toTradelogSummary.
+     *
+     * @param id  int
+     * @param row Row
+     * @return TradelogSummary
+     */
+    private static TradelogSummary toTradelogSummary(int id, Row row) {
+
+        return new TradelogSummary(id, row.name(), toDecimal(row.battingAverage(), 4),
+                toDecimal(row.simpleSharpeRatio(), 4), toDecimal(row.grossProfitLoss(), 2), (int) row.quantity(),
+                toDecimal(row.commission(), 2), toDecimal(row.netProfitLoss(), 2),
+                toDecimal(row.profitAmount(), 2), toDecimal(row.lossAmount(), 2), row.wins(), row.losses(),
+                row.positions(), row.tradestrategies());
+    }
+
+    /**
+     * Method toTradingDays. Spread the daily P&L over every trading day from
+     * the first to the last close so flat days count in the ratios.
+     *
+     * @param dayKeys   int[] epoch days in ascending order.
+     * @param dayValues double[]
+     * @param days      int
+     * @return double[]
+     */
+    private static double[] toTradingDays(int[] dayKeys, double[] dayValues, int days) {
+
+        if (days == 0) {
+            return new double[0];
+        }
+        double[] daily = new double[dayKeys[days - 1] - dayKeys[0] + 1];
+        int count = 0;
+        int next = 0;
+        for (int day = dayKeys[0]; day <= dayKeys[days - 1]; day++) {
+            if (dayKeys[next] == day) {
+                daily[count++] = dayValues[next++];
+            } else if (TradingCalendar.isTradingDay(LocalDate.ofEpochDay(day).atStartOfDay(TradingCalendar.MKT_TIMEZONE))) {
+                daily[count++] = 0;
+            }
+        }
+        return Arrays.copyOf(daily, count);
+    }
+
+    /**
+     * Method sharpeRatio. Annualized mean over standard deviation of the daily
+     * P&L. For a fixed capital this is the same as the ratio on returns.
+     *
+     * @param daily double[]
+     * @return double
+     */
+    private static double sharpeRatio(double[] daily) {
+
+        if (daily.length < 2) {
+            return 0;
+        }
+        double mean = Arrays.stream(daily).average().orElse(0);
+        double sumSquares = 0;
+        for (double value : daily) {
+            sumSquares += (value - mean) * (value - mean);
+        }
+        double deviation = Math.sqrt(sumSquares / (daily.length - 1));
+        return deviation == 0 ? 0 : (mean / deviation) * Math.sqrt(TRADING_DAYS_PER_YEAR);
+    }
+
+    /**
+     * Method sortinoRatio. Annualized mean over the downside deviation of the
+     * daily P&L.
+     *
+     * @param daily double[]
+     * @return double
+     */
+    private static double sortinoRatio(double[] daily) {
+
+        if (daily.length < 2) {
+            return 0;
+        }
+        double mean = Arrays.stream(daily).average().orElse(0);
+        double sumSquares = 0;
+        for (double value : daily) {
+            if (value < 0) {
+                sumSquares += value * value;
+            }
+        }
+        double deviation = Math.sqrt(sumSquares / daily.length);
+        return deviation == 0 ? 0 : (mean / deviation) * Math.sqrt(TRADING_DAYS_PER_YEAR);
+    }
+
+    /**
+     * Method getTradestrategyCount.
+     *
+     * @param month int
+     * @return int
+     */
+    private int getTradestrategyCount(int month) {
+        LongAdder count = this.tradestrategyCounts.get(month);
+        return null == count ? 0 : count.intValue();
+    }
+
+    /**
+     * Method merge. Copy every shard into one set of columns.
+     *
+     * @return Shard
+     */
+    private Shard merge() {
+
+        Shard all = new Shard(Math.max(1, getPositionCount()));
+        for (Shard shard : this.shards) {
+            shard.copyTo(all);
+        }
+        return all;
+    }
+
+    /**
+     * Method newShard. Create and register the shard of the calling thread.
+     *
+     * @return Shard
+     */
+    private Shard newShard() {
+        Shard shard = new Shard(INITIAL_CAPACITY);
+        this.shards.add(shard);
+        return shard;
+    }
+
+    private static int toMonth(ZonedDateTime dateTime) {
+        ZonedDateTime date = dateTime.withZoneSameInstant(TradingCalendar.MKT_TIMEZONE);
+        return date.getYear() * 12 + date.getMonthValue() - 1;
+    }
+
+    private static String formatMonth(int month) {
+        return String.format("%04d/%02d", month / 12, (month % 12) + 1);
+    }
+
+    private static ZonedDateTime toDateTime(long epochSecond) {
+        return epochSecond == 0 ? null : Instant.ofEpochSecond(epochSecond).atZone(TradingCalendar.MKT_TIMEZONE);
+    }
+
+    private static BigDecimal toDecimal(Double value, int scale) {
+        return null == value || value.isNaN() || value.isInfinite() ? null
+                : BigDecimal.valueOf(value).setScale(scale, RoundingMode.HALF_EVEN);
+    }
+
+    /**
+     * The analytics of one run.
+     *
+     * @param total            Row all the positions.
+     * @param byMonth          List<Row> newest month first.
+     * @param bySymbol         List<Row> most profitable first.
+     * @param byStrategy       List<Row> most profitable first.
+     * @param byTimeOfDay      List<Row> by the time the position was opened.
+     * @param equityTimes      long[] close time in epoch seconds of each
+     *                         point of the equity curve.
+     * @param equityCurve      double[] cumulative net P&L.
+     * @param maxDrawdown      double largest fall from a peak of the equity
+     *                         curve.
+     * @param maxDrawdownStart ZonedDateTime the peak before the largest fall.
+     * @param maxDrawdownEnd   ZonedDateTime the trough of the largest fall.
+     * @param tradingDays      int
+     * @param sharpeRatio      double annualized.
+     * @param sortinoRatio     double annualized.
+     */
+    public record Results(Row total, List<Row> byMonth, List<Row> bySymbol, List<Row> byStrategy,
+                          List<Row> byTimeOfDay, long[] equityTimes, double[] equityCurve, double maxDrawdown,
+                          ZonedDateTime maxDrawdownStart, ZonedDateTime maxDrawdownEnd, int tradingDays,
+                          double sharpeRatio, double sortinoRatio) implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = 4137816629043592721L;
+    }
+
+    /**
+     * The totals for one period, symbol, strategy or time of day. Profit and
+     * loss amounts are before commission as in the TradelogSummary.
+     */
+    public record Row(String name, int positions, int wins, int losses, long quantity, double profitAmount,
+                      double lossAmount, double commission, int tradestrategies) implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = -6012438337619210275L;
+
+        public double grossProfitLoss() {
+            return this.profitAmount + this.lossAmount;
+        }
+
+        public double netProfitLoss() {
+            return grossProfitLoss() - this.commission;
+        }
+
+        public Double battingAverage() {
+            return (this.wins + this.losses) == 0 ? null : (double) this.wins / (this.wins + this.losses);
+        }
+
+        public Double simpleSharpeRatio() {
+            if (this.wins == 0 || this.losses == 0 || this.lossAmount == 0) {
+                return null;
+            }
+            return (this.profitAmount / this.wins) / ((this.lossAmount * -1) / this.losses);
+        }
+    }
+
+    /*
+     * Primitive columns of the positions added by one thread.
+     */
+    private static final class Shard {
+
+        private int size = 0;
+        private long[] closeSecond;
+        private int[] closeDay;
+        private int[] closeMonth;
+        private int[] openMinute;
+        private double[] gross;
+        private double[] commission;
+        private int[] quantity;
+        private int[] symbol;
+        private int[] strategy;
+
+        private Shard(int capacity) {
+            this.closeSecond = new long[capacity];
+            this.closeDay = new int[capacity];
+            this.closeMonth = new int[capacity];
+            this.openMinute = new int[capacity];
+            this.gross = new double[capacity];
+            this.commission = new double[capacity];
+            this.quantity = new int[capacity];
+            this.symbol = new int[capacity];
+            this.strategy = new int[capacity];
+        }
+
+        private synchronized void add(long closeSecond, int closeDay, int closeMonth, int openMinute, double gross,
+                                      double commission, int quantity, int symbol, int strategy) {
+            if (this.size == this.closeSecond.length) {
+                grow(this.size * 2);
+            }
+            this.closeSecond[this.size] = closeSecond;
+            this.closeDay[this.size] = closeDay;
+            this.closeMonth[this.size] = closeMonth;
+            this.openMinute[this.size] = openMinute;
+            this.gross[this.size] = gross;
+            this.commission[this.size] = commission;
+            this.quantity[this.size] = quantity;
+            this.symbol[this.size] = symbol;
+            this.strategy[this.size] = strategy;
+            this.size++;
+        }
+
+        private synchronized int size() {
+            return this.size;
+        }
+
+        private synchronized void clear() {
+            this.size = 0;
+        }
+
+        private synchronized void copyTo(Shard target) {
+            int count = this.size;
+            if (target.size + count > target.closeSecond.length) {
+                target.grow(target.size + count);
+            }
+            System.arraycopy(this.closeSecond, 0, target.closeSecond, target.size, count);
+            System.arraycopy(this.closeDay, 0, target.closeDay, target.size, count);
+            System.arraycopy(this.closeMonth, 0, target.closeMonth, target.size, count);
+            System.arraycopy(this.openMinute, 0, target.openMinute, target.size, count);
+            System.arraycopy(this.gross, 0, target.gross, target.size, count);
+            System.arraycopy(this.commission, 0, target.commission, target.size, count);
+            System.arraycopy(this.quantity, 0, target.quantity, target.size, count);
+            System.arraycopy(this.symbol, 0, target.symbol, target.size, count);
+            System.arraycopy(this.strategy, 0, target.strategy, target.size, count);
+            target.size += count;
+        }
+
+        private void grow(int capacity) {
+            this.closeSecond = Arrays.copyOf(this.closeSecond, capacity);
+            this.closeDay = Arrays.copyOf(this.closeDay, capacity);
+            this.closeMonth = Arrays.copyOf(this.closeMonth, capacity);
+            this.openMinute = Arrays.copyOf(this.openMinute, capacity);
+            this.gross = Arrays.copyOf(this.gross, capacity);
+            this.commission = Arrays.copyOf(this.commission, capacity);
+            this.quantity = Arrays.copyOf(this.quantity, capacity);
+            this.symbol = Arrays.copyOf(this.symbol, capacity);
+            this.strategy = Arrays.copyOf(this.strategy, capacity);
+        }
+    }
+
+    /*
+     * Running totals for each key of one breakdown.
+     */
+    private static final class Tally {
+
+        private final int[] positions;
+        private final int[] wins;
+        private final int[] losses;
+        private final long[] quantity;
+        private final double[] profit;
+        private final double[] loss;
+        private final double[] commission;
+
+        private Tally(int size) {
+            this.positions = new int[size];
+            this.wins = new int[size];
+            this.losses = new int[size];
+            this.quantity = new long[size];
+            this.profit = new double[size];
+            this.loss = new double[size];
+            this.commission = new double[size];
+        }
+
+        private void add(int key, double gross, double commission, int quantity, double winLoss) {
+            this.positions[key]++;
+            this.quantity[key] += quantity;
+            this.commission[key] += commission;
+            if (gross > 0) {
+                this.profit[key] += gross;
+            } else if (gross < 0) {
+                this.loss[key] += gross;
+            }
+            if (winLoss < gross) {
+                this.wins[key]++;
+            }
+            if ((-1 * winLoss) >= gross) {
+                this.losses[key]++;
+            }
+        }
+
+        private void add(Tally other, int from, int to) {
+            this.positions[to] += other.positions[from];
+            this.wins[to] += other.wins[from];
+            this.losses[to] += other.losses[from];
+            this.quantity[to] += other.quantity[from];
+            this.profit[to] += other.profit[from];
+            this.loss[to] += other.loss[from];
+            this.commission[to] += other.commission[from];
+        }
+
+        private void combine(Tally other) {
+            for (int i = 0; i < this.positions.length; i++) {
+                add(other, i, i);
+            }
+        }
+
+        private Row row(int key, String name, int tradestrategies) {
+            return new Row(name, this.positions[key], this.wins[key], this.losses[key], this.quantity[key],
+                    this.profit[key], this.loss[key], this.commission[key], tradestrategies);
+        }
+    }
+
+    /*
+     * The breakdowns filled by one thread of the parallel pass.
+     */
+    private static final class Tallies {
+
+        private final Tally month;
+        private final Tally symbol;
+        private final Tally strategy;
+        private final Tally timeOfDay;
+
+        private Tallies(int months, int symbols, int strategies, int buckets) {
+            this.month = new Tally(months);
+            this.symbol = new Tally(symbols);
+            this.strategy = new Tally(strategies);
+            this.timeOfDay = new Tally(buckets);
+        }
+
+        private void add(Shard all, int i, int firstMonth, double winLoss) {
+            double gross = all.gross[i];
+            double commission = all.commission[i];
+            int quantity = all.quantity[i];
+            this.month.add(all.closeMonth[i] - firstMonth, gross, commission, quantity, winLoss);
+            this.symbol.add(all.symbol[i], gross, commission, quantity, winLoss);
+            this.strategy.add(all.strategy[i], gross, commission, quantity, winLoss);
+            this.timeOfDay.add(all.openMinute[i] / BUCKET_MINUTES, gross, commission, quantity, winLoss);
+        }
+
+        private void combine(Tallies other) {
+            this.month.combine(other.month);
+            this.symbol.combine(other.symbol);
+            this.strategy.combine(other.strategy);
+            this.timeOfDay.combine(other.timeOfDay);
+        }
+    }
+
+    /*
+     * Symbol and strategy names interned to column indexes.
+     */
+    private static final class Names {
+
+        private final ConcurrentHashMap<String, Integer> index = new ConcurrentHashMap<>();
+        private final List<String> names = new ArrayList<>();
+
+        private int indexOf(String name) {
+            String key = Objects.requireNonNullElse(name, "");
+            Integer value = this.index.get(key);
+            if (null != value) {
+                return value;
+            }
+            synchronized (this) {
+                return this.index.computeIfAbsent(key, k -> {
+                    this.names.add(k);
+                    return this.names.size() - 1;
+                });
+            }
+        }
+
+        private synchronized int size() {
+            return this.names.size();
+        }
+
+        private synchronized List<String> snapshot() {
+            return new ArrayList<>(this.names);
+        }
+    }
+}
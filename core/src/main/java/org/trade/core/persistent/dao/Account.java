@@ -38,6 +38,7 @@ package org.trade.core.persistent.dao;
 // Generated Feb 21, 2011 2:18:03 PM by Hibernate Tools 3.4.0.CR1
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -48,6 +49,8 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.trade.core.dao.Aspect;
 import org.trade.core.util.time.TradingCalendar;
 import org.trade.core.valuetype.AccountType;
@@ -70,6 +73,8 @@ import static jakarta.persistence.GenerationType.IDENTITY;
  * @version $Revision: 1.0 $
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "account")
 public class Account extends Aspect implements Serializable, Cloneable {
 
@@ -421,6 +426,7 @@ public class Account extends Aspect implements Serializable, Cloneable {
      * @return List<PortfolioAccounts>
      */
     @OneToMany(mappedBy = "account", fetch = FetchType.LAZY, orphanRemoval = true, cascade = {CascadeType.REFRESH})
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     public List<PortfolioAccount> getPortfolioAccounts() {
         return this.portfolioAccounts;
     }
@@ -40,6 +40,7 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
 import org.trade.core.dao.EntityManagerHelper;
 
 import java.util.List;
@@ -92,7 +93,7 @@ public class AccountHome {
             Root<Account> from = query.from(Account.class);
             query.select(from);
             query.where(builder.equal(from.get("accountNumber"), accountNumber));
-            List<Account> items = entityManager.createQuery(query).getResultList();
+            List<Account> items = entityManager.createQuery(query).setHint(HibernateHints.HINT_CACHEABLE, true).getResultList();
             for (Account account : items) {
                 account.getPortfolioAccounts().size();
             }
@@ -37,6 +37,7 @@ package org.trade.core.persistent.dao;
 
 import jakarta.ejb.Stateless;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
@@ -44,13 +45,31 @@ import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.trade.core.dao.EntityManagerHelper;
 import org.trade.core.persistent.dao.series.indicator.CandleSeries;
 import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
-
+import org.trade.core.properties.ConfigProperties;
+import org.trade.core.util.time.TradingCalendar;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  *
@@ -58,82 +77,167 @@ import java.util.List;
 @Stateless
 public class CandleHome {
 
+    private final static Logger _log = LoggerFactory.getLogger(CandleHome.class);
+
+    private static final int DEFAULT_BATCH_SIZE = 500;
+
+    private static final String UPSERT_CANDLE = "insert into candle (open, high, low, close, period, start_period, "
+            + "end_period, bar_size, trade_count, volume, vwap, last_update_date, version, id_contract, "
+            + "id_trading_day) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0, ?, ?) on duplicate key update "
+            + "id = last_insert_id(id), open = values(open), high = values(high), low = values(low), "
+            + "close = values(close), period = values(period), bar_size = values(bar_size), "
+            + "trade_count = values(trade_count), volume = values(volume), vwap = values(vwap), "
+            + "last_update_date = values(last_update_date), version = version + 1";
+
+    private static final String SELECT_CANDLE_PERIODS = "select id, start_period from candle where id_contract = ? "
+            + "and id_trading_day = ? and bar_size = ?";
+
+    private static final String DELETE_CANDLE = "delete from candle where id = ?";
+
+    private static final ConcurrentHashMap<Integer, Object> contractLocks = new ConcurrentHashMap<>();
+
     public CandleHome() {
 
     }
 
     /**
      * Method persistCandleSeries.
+     * <p>
+     * Candles that already have an id are skipped, the remainder are written
+     * with a batched INSERT ... ON DUPLICATE KEY UPDATE on the candle unique
+     * key so a series can be saved again without first deleting the day. The
+     * rows of those days for the bar size that are no longer in the series
+     * are then deleted so the table matches the series.
+     * Series for different contracts are saved concurrently, a series for the
+     * same contract waits for the one in progress. New tradingdays are saved
+     * and committed before the candles so no lock is held on the tradingday
+     * unique key while the candles are written.
      *
      * @param candleSeries CandleSeries
      */
-    public synchronized void persistCandleSeries(final CandleSeries candleSeries) throws Exception {
+    public void persistCandleSeries(final CandleSeries candleSeries) throws Exception {
 
-        Candle transientInstance;
-        try {
+        if (candleSeries.isEmpty()) {
+            return;
+        }
 
-            if (candleSeries.isEmpty()) {
-                return;
-            }
+        final Object contractLock = contractLocks.computeIfAbsent(candleSeries.getContract().getId(),
+                k -> new Object());
 
-            EntityManager entityManager = EntityManagerHelper.getEntityManager();
-            entityManager.getTransaction().begin();
-            Tradingday tradingday = null;
-            Contract contract = findContractById(candleSeries.getContract().getId());
-            for (int i = 0; i < candleSeries.getItemCount(); i++) {
-
-                CandleItem candleItem = (CandleItem) candleSeries.getDataItem(i);
-                if (null != candleItem.getCandle().getId()) {
-                    Candle instance = entityManager.find(Candle.class, candleItem.getCandle().getId());
-                    if (instance.equals(candleItem.getCandle())) {
-                        continue;
-                    } else {
-                        // This should never happen.
-                        throw new Exception("Count: " + i + " Symbol: " + candleSeries.getSymbol() + "candleid: "
-                                + candleItem.getCandle().getId() + " open: "
-                                + candleItem.getCandle().getStartPeriod());
+        synchronized (contractLock) {
+
+            try {
+
+                long startTime = System.nanoTime();
+                Map<Tradingday, Integer> tradingdayIds = new IdentityHashMap<>();
+                for (int i = 0; i < candleSeries.getItemCount(); i++) {
+
+                    Candle candle = ((CandleItem) candleSeries.getDataItem(i)).getCandle();
+                    if (null == candle.getId() && !tradingdayIds.containsKey(candle.getTradingday())) {
+                        tradingdayIds.put(candle.getTradingday(), findOrPersistTradingday(candle.getTradingday()));
                     }
                 }
 
-                if (!candleItem.getCandle().getTradingday().equals(tradingday)) {
+                EntityManager entityManager = EntityManagerHelper.getEntityManager();
+                entityManager.getTransaction().begin();
+                Contract contract = findContractById(candleSeries.getContract().getId());
+                Map<Integer, Tradingday> tradingdays = new HashMap<>();
+                Map<Integer, Set<Timestamp>> startPeriods = new HashMap<>();
+                List<Candle> candles = new ArrayList<>(candleSeries.getItemCount());
 
-                    if (null == candleItem.getCandle().getTradingday().getId()) {
-                        tradingday = findTradingdayByDate(candleItem.getCandle().getTradingday().getOpen(),
-                                candleItem.getCandle().getTradingday().getClose());
-                    } else {
-                        tradingday = findTradingdayById(candleItem.getCandle().getTradingday().getId());
-                    }
+                for (int i = 0; i < candleSeries.getItemCount(); i++) {
 
-                    if (null == tradingday) {
-                        entityManager.persist(candleItem.getCandle().getTradingday());
-                        entityManager.getTransaction().commit();
-                        entityManager.getTransaction().begin();
-                        tradingday = candleItem.getCandle().getTradingday();
-                    } else {
-                        Integer barSize = candleSeries.getBarSize();
-                        String hqlDelete = "delete Candle where contract = :contract and tradingday = :tradingday and barSize = :barSize";
-                        entityManager.createQuery(hqlDelete).setParameter("contract", contract)
-                                .setParameter("tradingday", tradingday).setParameter("barSize", barSize)
-                                .executeUpdate();
-                        entityManager.getTransaction().commit();
-                        entityManager.getTransaction().begin();
+                    CandleItem candleItem = (CandleItem) candleSeries.getDataItem(i);
+                    Candle candle = candleItem.getCandle();
+                    if (null != candle.getId()) {
+                        continue;
                     }
+
+                    Tradingday tradingday = tradingdays.computeIfAbsent(tradingdayIds.get(candle.getTradingday()),
+                            this::findTradingdayById);
+                    candle.setTradingday(tradingday);
+                    candle.setContract(contract);
+                    candles.add(candle);
+                    startPeriods.computeIfAbsent(tradingday.getId(), k -> new HashSet<>());
                 }
+                for (int i = 0; i < candleSeries.getItemCount(); i++) {
 
-                transientInstance = candleItem.getCandle();
-                transientInstance.setTradingday(tradingday);
-                transientInstance.setContract(contract);
-                entityManager.persist(transientInstance);
+                    Candle candle = ((CandleItem) candleSeries.getDataItem(i)).getCandle();
+                    Set<Timestamp> keep = startPeriods.get(candle.getTradingday().getId());
+                    if (null != keep) {
+                        keep.add(toTimestamp(candle.getStartPeriod()));
+                    }
+                }
+                entityManager.getTransaction().commit();
 
-                // Commit every 50 rows
-                if ((Math.floor(i / 50d) == (i / 50d)) && (i > 0)) {
-                    entityManager.getTransaction().commit();
+                int batchSize = getBatchSize();
+                Session session = entityManager.unwrap(Session.class);
+                for (int i = 0; i < candles.size(); i = i + batchSize) {
+                    final List<Candle> batch = candles.subList(i, Math.min(i + batchSize, candles.size()));
                     entityManager.getTransaction().begin();
+                    session.doWork(connection -> upsertCandles(connection, batch));
+                    entityManager.getTransaction().commit();
+                }
+
+                entityManager.getTransaction().begin();
+                session.doWork(connection -> deleteCandles(connection, contract.getId(),
+                        candleSeries.getBarSize(), startPeriods));
+                entityManager.getTransaction().commit();
+
+                double seconds = (System.nanoTime() - startTime) / 1e9d;
+                _log.debug("persistCandleSeries Symbol: {} barSize: {} rows: {} time: {}s rows/sec: {}",
+                        candleSeries.getSymbol(), candleSeries.getBarSize(), candles.size(),
+                        String.format("%.3f", seconds), seconds > 0 ? Math.round(candles.size() / seconds) : 0);
+
+            } catch (Exception re) {
+                EntityManagerHelper.logError("Error persistCandleSeries failed :" + re.getMessage(), re);
+                EntityManagerHelper.rollback();
+                throw re;
+            } finally {
+                EntityManagerHelper.close();
+            }
+        }
+    }
+
+    /**
+     * Method persistCandles. Save the candles as one JDBC batch in one
+     * transaction with the same upsert as a series. The candles must not be
+     * shared with another thread, they are given the managed tradingday and
+     * the id of a new row.
+     *
+     * @param candles List<Candle>
+     */
+    public void persistCandles(final List<Candle> candles) throws Exception {
+
+        if (candles.isEmpty()) {
+            return;
+        }
+
+        try {
+
+            long startTime = System.nanoTime();
+            Map<Tradingday, Integer> tradingdayIds = new IdentityHashMap<>();
+            for (Candle candle : candles) {
+                if (!tradingdayIds.containsKey(candle.getTradingday())) {
+                    tradingdayIds.put(candle.getTradingday(), findOrPersistTradingday(candle.getTradingday()));
                 }
             }
+
+            EntityManager entityManager = EntityManagerHelper.getEntityManager();
+            entityManager.getTransaction().begin();
+            Map<Integer, Tradingday> tradingdays = new HashMap<>();
+            for (Candle candle : candles) {
+                candle.setTradingday(tradingdays.computeIfAbsent(tradingdayIds.get(candle.getTradingday()),
+                        this::findTradingdayById));
+            }
+            entityManager.unwrap(Session.class).doWork(connection -> upsertCandles(connection, candles));
             entityManager.getTransaction().commit();
+
+            _log.debug("persistCandles rows: {} time: {}ms", candles.size(),
+                    (System.nanoTime() - startTime) / 1000000d);
+
         } catch (Exception re) {
-            EntityManagerHelper.logError("Error persistCandleSeries failed :" + re.getMessage(), re);
+            EntityManagerHelper.logError("Error persistCandles failed :" + re.getMessage(), re);
             EntityManagerHelper.rollback();
             throw re;
         } finally {
@@ -141,6 +245,184 @@ public class CandleHome {
         }
     }
 
+    /**
+     * Method upsertCandles. Send the candles to the database as one JDBC
+     * batch. New rows get their id and version set, rows that already existed
+     * are left without an id so a later save looks them up by unique key and
+     * picks up the current version.
+     *
+     * @param connection Connection
+     * @param candles    List<Candle>
+     * @throws SQLException
+     */
+    private void upsertCandles(Connection connection, List<Candle> candles) throws SQLException {
+
+        try (PreparedStatement statement = connection.prepareStatement(UPSERT_CANDLE,
+                Statement.RETURN_GENERATED_KEYS)) {
+
+            for (Candle candle : candles) {
+
+                ZonedDateTime lastUpdateDate = candle.getLastUpdateDate();
+                if (null == lastUpdateDate) {
+                    lastUpdateDate = TradingCalendar.getDateTimeNowMarketTimeZone();
+                }
+                statement.setBigDecimal(1, candle.getOpen());
+                statement.setBigDecimal(2, candle.getHigh());
+                statement.setBigDecimal(3, candle.getLow());
+                statement.setBigDecimal(4, candle.getClose());
+                statement.setString(5, candle.getPeriod());
+                statement.setTimestamp(6, toTimestamp(candle.getStartPeriod()));
+                statement.setTimestamp(7, toTimestamp(candle.getEndPeriod()));
+                statement.setObject(8, candle.getBarSize(), Types.INTEGER);
+                statement.setObject(9, candle.getTradeCount(), Types.INTEGER);
+                statement.setObject(10, candle.getVolume(), Types.BIGINT);
+                statement.setBigDecimal(11, candle.getVwap());
+                statement.setTimestamp(12, toTimestamp(lastUpdateDate));
+                statement.setInt(13, candle.getContract().getId());
+                statement.setInt(14, candle.getTradingday().getId());
+                statement.addBatch();
+            }
+
+            int[] counts = statement.executeBatch();
+            List<Integer> keys = new ArrayList<>(candles.size());
+            try (ResultSet generatedKeys = statement.getGeneratedKeys()) {
+                while (generatedKeys.next()) {
+                    keys.add(generatedKeys.getInt(1));
+                }
+            }
+
+            // One row inserted, two rows updated, zero unchanged.
+            if (counts.length == candles.size() && keys.size() == candles.size()) {
+                for (int i = 0; i < candles.size(); i++) {
+                    if (counts[i] == 1) {
+                        candles.get(i).setId(keys.get(i));
+                        candles.get(i).setVersion(0);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Method deleteCandles. Delete the candles of each tradingday for the
+     * contract and bar size whose start period is not one to keep.
+     *
+     * @param connection   Connection
+     * @param idContract   Integer
+     * @param barSize      Integer
+     * @param startPeriods Map<Integer, Set<Timestamp>> the start periods to
+     *                     keep by tradingday id.
+     * @throws SQLException
+     */
+    private void deleteCandles(Connection connection, Integer idContract, Integer barSize,
+                               Map<Integer, Set<Timestamp>> startPeriods) throws SQLException {
+
+        try (PreparedStatement select = connection.prepareStatement(SELECT_CANDLE_PERIODS);
+             PreparedStatement delete = connection.prepareStatement(DELETE_CANDLE)) {
+
+            int count = 0;
+            for (Map.Entry<Integer, Set<Timestamp>> entry : startPeriods.entrySet()) {
+
+                select.setInt(1, idContract);
+                select.setInt(2, entry.getKey());
+                select.setInt(3, barSize);
+                try (ResultSet resultSet = select.executeQuery()) {
+                    while (resultSet.next()) {
+                        if (!entry.getValue().contains(resultSet.getTimestamp(2))) {
+                            delete.setInt(1, resultSet.getInt(1));
+                            delete.addBatch();
+                            count++;
+                        }
+                    }
+                }
+            }
+            if (count > 0) {
+                delete.executeBatch();
+                _log.debug("deleteCandles idContract: {} barSize: {} rows: {}", idContract, barSize, count);
+            }
+        }
+    }
+
+    /**
+     * Method findOrPersistTradingday. A new tradingday is saved in its own
+     * short transaction that is committed straight away. If another thread
+     * saved the same open/close first the unique key is violated and the
+     * tradingday it saved is used.
+     *
+     * @param transientInstance Tradingday
+     * @return Integer the id of the tradingday.
+     */
+    private Integer findOrPersistTradingday(Tradingday transientInstance) {
+
+        if (null != transientInstance.getId()) {
+            return transientInstance.getId();
+        }
+
+        EntityManager entityManager = EntityManagerHelper.getLocalEntityManager();
+        try {
+            Tradingday tradingday = findTradingdayByDate(entityManager, transientInstance.getOpen(),
+                    transientInstance.getClose());
+            if (null != tradingday) {
+                return tradingday.getId();
+            }
+            entityManager.getTransaction().begin();
+            entityManager.persist(transientInstance);
+            entityManager.getTransaction().commit();
+            return transientInstance.getId();
+
+        } catch (PersistenceException ex) {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            _log.debug("Tradingday open: {} close: {} saved by another thread Msg: {}", transientInstance.getOpen(),
+                    transientInstance.getClose(), ex.getMessage());
+        } finally {
+            entityManager.close();
+        }
+
+        transientInstance.setId(null);
+        entityManager = EntityManagerHelper.getLocalEntityManager();
+        try {
+            Tradingday tradingday = findTradingdayByDate(entityManager, transientInstance.getOpen(),
+                    transientInstance.getClose());
+            if (null == tradingday) {
+                throw new PersistenceException("Tradingday could not be saved open: " + transientInstance.getOpen()
+                        + " close: " + transientInstance.getClose());
+            }
+            return tradingday.getId();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    /**
+     * Method getBatchSize.
+     *
+     * @return int
+     */
+    private int getBatchSize() {
+
+        try {
+            return Math.max(1, ConfigProperties.getPropAsInt("trade.candle.batchSize"));
+        } catch (Exception ex) {
+            return DEFAULT_BATCH_SIZE;
+        }
+    }
+
+    /**
+     * Method toTimestamp.
+     *
+     * @param dateTime ZonedDateTime
+     * @return Timestamp
+     */
+    private static Timestamp toTimestamp(ZonedDateTime dateTime) {
+
+        if (null == dateTime) {
+            return null;
+        }
+        return Timestamp.from(dateTime.toInstant());
+    }
+
     /**
      * Method findByContractAndDateRange.
      *
@@ -344,6 +626,66 @@ public class CandleHome {
         }
     }
 
+    /**
+     * Method findCandleCountByContractDateRangeBarSize. Count the candles
+     * stored for a contract and bar size over the tradingdays that open in
+     * the date range.
+     *
+     * @param idContract    Integer
+     * @param startOpenDate ZonedDateTime
+     * @param endOpenDate   ZonedDateTime
+     * @param barSize       Integer
+     * @return Long
+     */
+    public Long findCandleCountByContractDateRangeBarSize(Integer idContract, ZonedDateTime startOpenDate,
+                                                          ZonedDateTime endOpenDate, Integer barSize) {
+
+        try {
+            EntityManager entityManager = EntityManagerHelper.getEntityManager();
+            entityManager.getTransaction().begin();
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Long> query = builder.createQuery(Long.class);
+            Root<Candle> from = query.from(Candle.class);
+            query.select(builder.count(from.get("id")));
+            List<Predicate> predicates = new ArrayList<>();
+
+            if (null != idContract) {
+
+                Join<Candle, Contract> contract = from.join("contract");
+                Predicate predicateContract = builder.equal(contract.get("id"), idContract);
+                predicates.add(predicateContract);
+            }
+
+            if (null != startOpenDate) {
+
+                Join<Candle, Tradingday> tradingdayOpenDate = from.join("tradingday");
+                Predicate predicateStartDate = builder
+                        .greaterThanOrEqualTo(tradingdayOpenDate.get("open"), startOpenDate);
+                predicates.add(predicateStartDate);
+                Predicate predicateEndDate = builder
+                        .lessThanOrEqualTo(tradingdayOpenDate.get("open"), endOpenDate);
+                predicates.add(predicateEndDate);
+            }
+
+            if (null != barSize) {
+
+                Predicate predicate = builder.equal(from.get("barSize"), barSize);
+                predicates.add(predicate);
+            }
+
+            query.where(predicates.toArray(new Predicate[]{}));
+            Long item = entityManager.createQuery(query).getSingleResult();
+            entityManager.getTransaction().commit();
+            return (null == item ? 0L : item);
+
+        } catch (Exception re) {
+            EntityManagerHelper.rollback();
+            throw re;
+        } finally {
+            EntityManagerHelper.close();
+        }
+    }
+
     /**
      * Method findCandleCount.
      *
@@ -426,27 +768,29 @@ public class CandleHome {
     /**
      * Method findTradingdayByDate.
      *
-     * @param open  ZonedDateTime
-     * @param close ZonedDateTime
+     * @param entityManager EntityManager
+     * @param open          ZonedDateTime
+     * @param close         ZonedDateTime
      * @return Tradingday
      */
-    private Tradingday findTradingdayByDate(ZonedDateTime open, ZonedDateTime close) {
+    private Tradingday findTradingdayByDate(EntityManager entityManager, ZonedDateTime open, ZonedDateTime close) {
 
-        EntityManager entityManager = EntityManagerHelper.getEntityManager();
         CriteriaBuilder builder = entityManager.getCriteriaBuilder();
         CriteriaQuery<Tradingday> query = builder.createQuery(Tradingday.class);
         Root<Tradingday> from = query.from(Tradingday.class);
         query.select(from);
+        List<Predicate> predicates = new ArrayList<>();
 
         if (null != open) {
 
-            query.where(builder.equal(from.get("open"), open));
+            predicates.add(builder.equal(from.get("open"), open));
         }
 
         if (null != close) {
 
-            query.where(builder.equal(from.get("close"), close));
+            predicates.add(builder.equal(from.get("close"), close));
         }
+        query.where(predicates.toArray(new Predicate[]{}));
 
         List<Tradingday> items = entityManager.createQuery(query).getResultList();
 
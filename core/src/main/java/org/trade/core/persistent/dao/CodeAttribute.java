@@ -35,6 +35,7 @@
  */
 package org.trade.core.persistent.dao;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -46,6 +47,8 @@ import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
 import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.trade.core.dao.Aspect;
 
 import java.io.Serial;
@@ -59,6 +62,8 @@ import static jakarta.persistence.GenerationType.IDENTITY;
  *
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "codeattribute")
 public class CodeAttribute extends Aspect implements java.io.Serializable {
 
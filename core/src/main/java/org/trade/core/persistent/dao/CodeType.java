@@ -36,6 +36,7 @@
 package org.trade.core.persistent.dao;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.DiscriminatorColumn;
 import jakarta.persistence.DiscriminatorType;
@@ -51,6 +52,8 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.trade.core.dao.Aspect;
 
 import java.io.Serial;
@@ -64,6 +67,8 @@ import static jakarta.persistence.GenerationType.IDENTITY;
  *
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "codetype")
 @Inheritance(strategy = InheritanceType.SINGLE_TABLE)
 @DiscriminatorColumn(name = "type", discriminatorType = DiscriminatorType.STRING)
@@ -197,6 +202,7 @@ public class CodeType extends Aspect implements java.io.Serializable {
      * @return List<CodeAttribute>
      */
     @OneToMany(mappedBy = "codeType", fetch = FetchType.EAGER, orphanRemoval = true, cascade = {CascadeType.ALL})
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     public List<CodeAttribute> getCodeAttribute() {
         return this.codeAttributes;
     }
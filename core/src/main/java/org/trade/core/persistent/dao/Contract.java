@@ -38,6 +38,7 @@ package org.trade.core.persistent.dao;
 // Generated Feb 21, 2011 12:43:33 PM by Hibernate Tools 3.4.0.CR1
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -50,6 +51,8 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.trade.core.dao.Aspect;
 
 import java.io.Serial;
@@ -59,7 +62,7 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.ListIterator;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static jakarta.persistence.GenerationType.IDENTITY;
 
@@ -71,6 +74,8 @@ import static jakarta.persistence.GenerationType.IDENTITY;
  * @version $Revision: 1.0 $
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "contract")
 public class Contract extends Aspect implements Serializable, Cloneable {
 
@@ -127,12 +132,12 @@ public class Contract extends Aspect implements Serializable, Cloneable {
     private String evRule;
     private BigDecimal evMultiplier;
 
-    private BigDecimal lastAskPrice = new BigDecimal(0);
-    private BigDecimal lastBidPrice = new BigDecimal(0);
-    private BigDecimal lastPrice = new BigDecimal(0);
+    private volatile BigDecimal lastAskPrice = new BigDecimal(0);
+    private volatile BigDecimal lastBidPrice = new BigDecimal(0);
+    private volatile BigDecimal lastPrice = new BigDecimal(0);
 
     private TradePosition tradePosition;
-    private List<Tradestrategy> tradestrategies = Collections.synchronizedList(new ArrayList<>(0));
+    private List<Tradestrategy> tradestrategies = new CopyOnWriteArrayList<>();
     private List<TradePosition> tradePositions = new ArrayList<>(0);
     private List<Candle> candles = new ArrayList<>(0);
 
@@ -848,11 +853,19 @@ public class Contract extends Aspect implements Serializable, Cloneable {
 
     /**
      * Method addTradestrategy.
+     * <p>
+     * The tradestrategy is inserted in Tradestrategy.TRADINGDAY_CONTRACT order
+     * so the broker market data callbacks can iterate the subscribers without
+     * sorting them on every bar.
      *
      * @param tradestrategy Tradestrategy
      */
     public void addTradestrategy(Tradestrategy tradestrategy) {
-        this.tradestrategies.add(tradestrategy);
+        synchronized (this.tradestrategies) {
+            int index = Collections.binarySearch(this.tradestrategies, tradestrategy,
+                    Tradestrategy.TRADINGDAY_CONTRACT);
+            this.tradestrategies.add(index < 0 ? -(index + 1) : index + 1, tradestrategy);
+        }
     }
 
     /**
@@ -861,14 +874,9 @@ public class Contract extends Aspect implements Serializable, Cloneable {
      * @param tradestrategy Tradestrategy
      */
     public boolean removeTradestrategy(Tradestrategy tradestrategy) {
-        for (ListIterator<Tradestrategy> itemIter = this.tradestrategies.listIterator(); itemIter.hasNext(); ) {
-            Tradestrategy item = itemIter.next();
-            if (item.equals(tradestrategy)) {
-                itemIter.remove();
-                return true;
-            }
+        synchronized (this.tradestrategies) {
+            return this.tradestrategies.remove(tradestrategy);
         }
-        return false;
     }
 
     /**
@@ -877,6 +885,9 @@ public class Contract extends Aspect implements Serializable, Cloneable {
      * Note this relationship is not used except in a local way to monitor
      * tradestrategies that are submitted via the broker interface hence the use
      * of Transient. This allows us to add to the collection.
+     * <p>
+     * The list is copy on write and kept in Tradestrategy.TRADINGDAY_CONTRACT
+     * order, iterating it needs no lock and always sees a consistent snapshot.
      *
      * @return List<Tradestrategy>
      */
@@ -887,12 +898,15 @@ public class Contract extends Aspect implements Serializable, Cloneable {
     }
 
     /**
-     * Method setTradestrategies.
+     * Method setTradestrategies. The tradestrategies are sorted into
+     * Tradestrategy.TRADINGDAY_CONTRACT order as addTradestrategy keeps them.
      *
      * @param tradestrategies List<Tradestrategy>
      */
     public void setTradestrategies(List<Tradestrategy> tradestrategies) {
-        this.tradestrategies = tradestrategies;
+        List<Tradestrategy> sorted = new ArrayList<>(tradestrategies);
+        sorted.sort(Tradestrategy.TRADINGDAY_CONTRACT);
+        this.tradestrategies = new CopyOnWriteArrayList<>(sorted);
     }
 
     /**
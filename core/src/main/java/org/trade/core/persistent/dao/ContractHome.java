@@ -43,6 +43,7 @@ import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Expression;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
 import org.trade.core.dao.EntityManagerHelper;
 
 import java.time.ZonedDateTime;
@@ -119,6 +120,7 @@ public class ContractHome {
 
             query.where(predicates.toArray(new Predicate[]{}));
             TypedQuery<Contract> typedQuery = entityManager.createQuery(query);
+            typedQuery.setHint(HibernateHints.HINT_CACHEABLE, true);
             List<Contract> items = typedQuery.getResultList();
             entityManager.getTransaction().commit();
 
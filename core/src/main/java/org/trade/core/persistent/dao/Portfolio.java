@@ -36,6 +36,7 @@
 package org.trade.core.persistent.dao;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -46,6 +47,8 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.trade.core.dao.Aspect;
 import org.trade.core.util.time.TradingCalendar;
 
@@ -62,6 +65,8 @@ import static jakarta.persistence.GenerationType.IDENTITY;
  *
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "portfolio")
 public class Portfolio extends Aspect implements Serializable, Cloneable {
 
@@ -43,6 +43,7 @@ import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Join;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
 import org.trade.core.dao.EntityManagerHelper;
 import org.trade.core.util.CoreUtils;
 import org.trade.core.util.time.TradingCalendar;
@@ -100,7 +101,7 @@ public class PortfolioHome {
             CriteriaQuery<Portfolio> query = builder.createQuery(Portfolio.class);
             Root<Portfolio> from = query.from(Portfolio.class);
             query.select(from);
-            List<Portfolio> items = entityManager.createQuery(query).getResultList();
+            List<Portfolio> items = entityManager.createQuery(query).setHint(HibernateHints.HINT_CACHEABLE, true).getResultList();
             for (Portfolio portfolio : items) {
                 portfolio.getPortfolioAccounts().size();
             }
@@ -131,7 +132,7 @@ public class PortfolioHome {
             CriteriaQuery<Portfolio> query = builder.createQuery(Portfolio.class);
             Root<Portfolio> from = query.from(Portfolio.class);
             query.select(from);
-            List<Portfolio> items = entityManager.createQuery(query).getResultList();
+            List<Portfolio> items = entityManager.createQuery(query).setHint(HibernateHints.HINT_CACHEABLE, true).getResultList();
 
             for (Portfolio item : items) {
 
@@ -169,7 +170,7 @@ public class PortfolioHome {
             Root<Portfolio> from = query.from(Portfolio.class);
             query.select(from);
             query.where(builder.equal(from.get("name"), name));
-            List<Portfolio> items = entityManager.createQuery(query).getResultList();
+            List<Portfolio> items = entityManager.createQuery(query).setHint(HibernateHints.HINT_CACHEABLE, true).getResultList();
 
             for (Portfolio item : items) {
 
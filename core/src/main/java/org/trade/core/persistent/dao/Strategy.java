@@ -38,6 +38,7 @@ package org.trade.core.persistent.dao;
 // Generated Feb 21, 2011 12:43:33 PM by Hibernate Tools 3.4.0.CR1
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -50,6 +51,8 @@ import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.trade.core.dao.Aspect;
 import org.trade.core.persistent.dao.series.indicator.IndicatorSeries;
 
@@ -68,6 +71,8 @@ import static jakarta.persistence.GenerationType.IDENTITY;
  * @version $Revision: 1.0 $
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "strategy")
 public class Strategy extends Aspect implements Serializable, Cloneable {
 
@@ -259,6 +264,7 @@ public class Strategy extends Aspect implements Serializable, Cloneable {
      * @return List<Rule>
      */
     @OneToMany(mappedBy = "strategy", fetch = FetchType.LAZY, orphanRemoval = true, cascade = {CascadeType.ALL})
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     public List<Rule> getRules() {
         return this.rules;
     }
@@ -40,6 +40,7 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Root;
+import org.hibernate.jpa.HibernateHints;
 import org.trade.core.dao.EntityManagerHelper;
 
 import java.util.List;
@@ -97,7 +98,7 @@ public class StrategyHome {
             Root<Strategy> from = query.from(Strategy.class);
             query.select(from);
             query.where(builder.equal(from.get("name"), name));
-            List<Strategy> items = entityManager.createQuery(query).getResultList();
+            List<Strategy> items = entityManager.createQuery(query).setHint(HibernateHints.HINT_CACHEABLE, true).getResultList();
             for (Strategy strategy : items) {
                 strategy.getIndicatorSeries().size();
                 strategy.getRules().size();
@@ -130,7 +131,7 @@ public class StrategyHome {
             CriteriaQuery<Strategy> query = builder.createQuery(Strategy.class);
             Root<Strategy> from = query.from(Strategy.class);
             query.select(from);
-            List<Strategy> items = entityManager.createQuery(query).getResultList();
+            List<Strategy> items = entityManager.createQuery(query).setHint(HibernateHints.HINT_CACHEABLE, true).getResultList();
             for (Strategy strategy : items) {
                 strategy.getIndicatorSeries().size();
                 strategy.getRules().size();
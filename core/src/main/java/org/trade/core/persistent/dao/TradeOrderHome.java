@@ -63,7 +63,7 @@ public class TradeOrderHome {
      * @param transientInstance TradeOrder
      * @return TradeOrder
      */
-    public synchronized TradeOrder persist(final TradeOrder transientInstance) {
+    public TradeOrder persist(final TradeOrder transientInstance) {
 
         try {
             EntityManager entityManager = EntityManagerHelper.getEntityManager();
@@ -124,7 +124,7 @@ public class TradeOrderHome {
      * @param orderKey Integer
      * @return TradeOrder
      */
-    public synchronized TradeOrder findTradeOrderByKey(Integer orderKey) {
+    public TradeOrder findTradeOrderByKey(Integer orderKey) {
 
         try {
             EntityManager entityManager = EntityManagerHelper.getEntityManager();
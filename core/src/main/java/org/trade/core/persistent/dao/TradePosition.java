@@ -91,6 +91,7 @@ public class TradePosition extends Aspect implements java.io.Serializable {
 
     @NotNull
     private ContractLite contract;
+    private Integer idPortfolio;
     private Integer openQuantity = 0;
     private ZonedDateTime positionOpenDate;
     private ZonedDateTime positionCloseDate;
@@ -202,6 +203,26 @@ public class TradePosition extends Aspect implements java.io.Serializable {
         this.contract = contract;
     }
 
+    /**
+     * Method getIdPortfolio. The portfolio of the tradestrategy that opened
+     * the position.
+     *
+     * @return Integer
+     */
+    @Column(name = "id_portfolio")
+    public Integer getIdPortfolio() {
+        return this.idPortfolio;
+    }
+
+    /**
+     * Method setIdPortfolio.
+     *
+     * @param idPortfolio Integer
+     */
+    public void setIdPortfolio(Integer idPortfolio) {
+        this.idPortfolio = idPortfolio;
+    }
+
     /**
      * Method getPositionOpenDate.
      *
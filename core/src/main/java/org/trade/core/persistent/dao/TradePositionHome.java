@@ -81,12 +81,24 @@ public class TradePositionHome {
      * @return TradePosition
      */
     public TradePosition findById(Integer id) {
+        return findById(id, true);
+    }
+
+    /**
+     * Method findById.
+     *
+     * @param id               Integer
+     * @param fetchTradeOrders boolean false if the trade orders are not
+     *                         needed, they are then not loaded.
+     * @return TradePosition
+     */
+    public TradePosition findById(Integer id, boolean fetchTradeOrders) {
 
         try {
             EntityManager entityManager = EntityManagerHelper.getEntityManager();
             entityManager.getTransaction().begin();
             TradePosition instance = entityManager.find(TradePosition.class, id);
-            if (null != instance)
+            if (null != instance && fetchTradeOrders)
                 instance.getTradeOrders().size();
             entityManager.getTransaction().commit();
             return instance;
@@ -63,6 +63,8 @@ public class TradelogDetail extends Aspect implements java.io.Serializable {
     @Serial
     private static final long serialVersionUID = -832064631322873796L;
 
+    private static volatile String sqlString = null;
+
     private Integer id;
     private Integer idTradestrategy;
     private String open;
@@ -496,18 +498,22 @@ public class TradelogDetail extends Aspect implements java.io.Serializable {
     }
 
     /**
-     * Method getSQLString.
+     * Method getSQLString. The SQL is read from the classpath the first time
+     * it is used.
      *
      * @return String
      */
     public static String getSQLString() {
-        String sql = null;
-        try {
-            sql = ConfigProperties.readFileAsString("org/trade/core/persistent/dao/sql/TradelogDetail.sql",
-                    Thread.currentThread().getContextClassLoader());
-        } catch (IOException e) {
-            // TODO Auto-generated catch block
-            e.printStackTrace();
+        String sql = sqlString;
+        if (null == sql) {
+            try {
+                sql = ConfigProperties.readFileAsString("org/trade/core/persistent/dao/sql/TradelogDetail.sql",
+                        Thread.currentThread().getContextClassLoader());
+                sqlString = sql;
+            } catch (IOException e) {
+                // TODO Auto-generated catch block
+                e.printStackTrace();
+            }
         }
         return sql;
     }
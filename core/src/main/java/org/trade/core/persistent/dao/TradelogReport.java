@@ -36,6 +36,7 @@
 package org.trade.core.persistent.dao;
 
 import org.trade.core.dao.Aspect;
+import org.trade.core.persistent.TradelogAnalytics;
 
 import java.io.Serial;
 import java.util.ArrayList;
@@ -54,6 +55,7 @@ public class TradelogReport extends Aspect implements java.io.Serializable {
 
     private List<TradelogDetail> tradelogDetail = new ArrayList<>(0);
     private List<TradelogSummary> tradelogSummary = new ArrayList<>(0);
+    private TradelogAnalytics.Results analytics = null;
 
     public TradelogReport() {
     }
@@ -169,8 +171,28 @@ public class TradelogReport extends Aspect implements java.io.Serializable {
         this.tradelogDetail = tradelogDetail;
     }
 
+    /**
+     * Method getAnalytics.
+     *
+     * @return TradelogAnalytics.Results the in memory back test analytics or
+     * null if this report was read from the database.
+     */
+    public TradelogAnalytics.Results getAnalytics() {
+        return this.analytics;
+    }
+
+    /**
+     * Method setAnalytics.
+     *
+     * @param analytics TradelogAnalytics.Results
+     */
+    public void setAnalytics(TradelogAnalytics.Results analytics) {
+        this.analytics = analytics;
+    }
+
     public void clear() {
         tradelogDetail.clear();
         tradelogSummary.clear();
+        analytics = null;
     }
 }
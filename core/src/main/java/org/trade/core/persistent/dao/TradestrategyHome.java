@@ -145,6 +145,37 @@ public class TradestrategyHome {
         }
     }
 
+    /**
+     * Method findContractIdById.
+     *
+     * @param id Integer
+     * @return Integer the id of the contract of the tradestrategy.
+     */
+    public synchronized Integer findContractIdById(Integer id) {
+
+        try {
+            EntityManager entityManager = EntityManagerHelper.getEntityManager();
+            entityManager.getTransaction().begin();
+            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+            CriteriaQuery<Integer> query = builder.createQuery(Integer.class);
+            Root<Tradestrategy> from = query.from(Tradestrategy.class);
+            query.select(from.get("contract").get("id"));
+            query.where(builder.equal(from.get("id"), id));
+            List<Integer> items = entityManager.createQuery(query).getResultList();
+            entityManager.getTransaction().commit();
+            if (!items.isEmpty()) {
+                return items.getFirst();
+            }
+            return null;
+
+        } catch (Exception re) {
+            EntityManagerHelper.rollback();
+            throw re;
+        } finally {
+            EntityManagerHelper.close();
+        }
+    }
+
     /**
      * Method findPositionOrdersByTradestrategyId.
      *
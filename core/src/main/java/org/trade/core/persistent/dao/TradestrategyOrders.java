@@ -71,6 +71,7 @@ public class TradestrategyOrders extends Aspect implements Serializable {
     private static final long serialVersionUID = -2181676329258092177L;
 
     private ContractLite contract;
+    private Integer idPortfolio;
     private String status;
     private ZonedDateTime lastUpdateDate;
     private List<TradeOrder> tradeOrders = new ArrayList<>(0);
@@ -110,6 +111,25 @@ public class TradestrategyOrders extends Aspect implements Serializable {
         this.contract = contract;
     }
 
+    /**
+     * Method getIdPortfolio.
+     *
+     * @return Integer
+     */
+    @Column(name = "id_portfolio", insertable = false, updatable = false)
+    public Integer getIdPortfolio() {
+        return this.idPortfolio;
+    }
+
+    /**
+     * Method setIdPortfolio.
+     *
+     * @param idPortfolio Integer
+     */
+    public void setIdPortfolio(Integer idPortfolio) {
+        this.idPortfolio = idPortfolio;
+    }
+
     /**
      * Method getStatus.
      *
@@ -38,6 +38,7 @@ package org.trade.core.persistent.dao;
 // Generated Feb 21, 2011 2:18:03 PM by Hibernate Tools 3.4.0.CR1
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
@@ -45,10 +46,14 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OrderBy;
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceUtil;
 import jakarta.persistence.Table;
 import jakarta.persistence.Transient;
 import jakarta.persistence.Version;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.trade.core.dao.Aspect;
 import org.trade.core.util.CoreUtils;
 import org.trade.core.util.time.TradingCalendar;
@@ -71,6 +76,8 @@ import static jakarta.persistence.GenerationType.IDENTITY;
  * @version $Revision: 1.0 $
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
 @Table(name = "tradingday")
 public class Tradingday extends Aspect implements Serializable, Cloneable {
 
@@ -459,6 +466,23 @@ public class Tradingday extends Aspect implements Serializable, Cloneable {
         return super.isDirty();
     }
 
+    /**
+     * Method isLoaded. A tradingday read by findTradingdaysLiteByDateRange
+     * does not have the orders, portfolio accounts or indicator series of
+     * its tradestrategies.
+     *
+     * @return boolean true if the orders of every tradestrategy are loaded.
+     */
+    @Transient
+    public boolean isLoaded() {
+        PersistenceUtil persistenceUtil = Persistence.getPersistenceUtil();
+        for (Tradestrategy item : this.getTradestrategies()) {
+            if (!persistenceUtil.isLoaded(item, "tradeOrders"))
+                return false;
+        }
+        return true;
+    }
+
     /**
      * Method clone.
      *
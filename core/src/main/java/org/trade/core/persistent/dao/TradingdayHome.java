@@ -41,14 +41,21 @@ import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.CriteriaBuilder;
 import jakarta.persistence.criteria.CriteriaQuery;
 import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Fetch;
 import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import jakarta.persistence.criteria.Root;
 import org.trade.core.dao.EntityManagerHelper;
 
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  *
@@ -94,10 +101,20 @@ public class TradingdayHome {
                 detachedInstance.setVersion(tradingday.getVersion());
             }
 
+            /*
+             * Save all the new or changed tradestrategies in one transaction.
+             * Strategies and contracts are looked up once per key as imported
+             * tradingdays share them across many tradestrategies.
+             */
+            Map<String, Strategy> strategies = new HashMap<>();
+            Map<String, Contract> contracts = new HashMap<>();
+            Map<Tradestrategy, Tradestrategy> merged = new IdentityHashMap<>();
+            List<Tradestrategy> saved = new ArrayList<>();
+            entityManager.getTransaction().begin();
+
             for (Tradestrategy tradestrategy : detachedInstance.getTradestrategies()) {
                 // If it has trades do nothing
                 if (tradestrategy.getTradeOrders().isEmpty() && tradestrategy.isDirty()) {
-                    entityManager.getTransaction().begin();
 
                     /*
                      * If the tradingday existed use the persisted version.
@@ -110,7 +127,10 @@ public class TradingdayHome {
                      * via this tab, as they are a drop down list. So find the
                      * persisted one and set this.
                      */
-                    Strategy strategy = this.findStrategyByName(tradestrategy.getStrategy().getName());
+                    String strategyName = tradestrategy.getStrategy().getName();
+                    Strategy strategy = strategies.containsKey(strategyName) ? strategies.get(strategyName)
+                            : this.findStrategyByName(strategyName);
+                    strategies.put(strategyName, strategy);
                     if (null != strategy) {
                         tradestrategy.setStrategy(strategy);
                     }
@@ -118,9 +138,13 @@ public class TradingdayHome {
                      * Check to see if the contract exists if it does merge and
                      * set the new persisted one. If no persist the contract.
                      */
-                    Contract contract = this.findContractByUniqueKey(tradestrategy.getContract().getSecType(),
-                            tradestrategy.getContract().getSymbol(), tradestrategy.getContract().getExchange(),
-                            tradestrategy.getContract().getCurrency(), tradestrategy.getContract().getExpiry());
+                    String contractKey = getContractKey(tradestrategy.getContract());
+                    Contract contract = contracts.get(contractKey);
+                    if (null == contract) {
+                        contract = this.findContractByUniqueKey(tradestrategy.getContract().getSecType(),
+                                tradestrategy.getContract().getSymbol(), tradestrategy.getContract().getExchange(),
+                                tradestrategy.getContract().getCurrency(), tradestrategy.getContract().getExpiry());
+                    }
                     if (null != contract) {
                         tradestrategy.setContract(contract);
                     }
@@ -129,27 +153,32 @@ public class TradingdayHome {
                      */
                     if (null == tradestrategy.getId()) {
                         entityManager.persist(tradestrategy);
-                        entityManager.getTransaction().commit();
                     } else {
-                        Tradestrategy instance = entityManager.merge(tradestrategy);
-                        entityManager.getTransaction().commit();
-                        tradestrategy.setVersion(instance.getVersion());
+                        merged.put(tradestrategy, entityManager.merge(tradestrategy));
                     }
-                    tradestrategy.setDirty(false);
+                    contracts.put(contractKey, tradestrategy.getContract());
+                    saved.add(tradestrategy);
                 }
             }
+            entityManager.getTransaction().commit();
+
+            for (Tradestrategy tradestrategy : saved) {
+                Tradestrategy instance = merged.get(tradestrategy);
+                if (null != instance) {
+                    tradestrategy.setVersion(instance.getVersion());
+                }
+                tradestrategy.setDirty(false);
+            }
+
             entityManager.getTransaction().begin();
             List<Tradestrategy> tradestrategies = findTradestrategyByIdTradingday(detachedInstance.getId());
+            Set<String> uniqueKeys = new HashSet<>();
+            for (Tradestrategy newTradestrategy : detachedInstance.getTradestrategies()) {
+                uniqueKeys.add(Tradingdays.getTradestrategyKey(newTradestrategy));
+            }
 
             for (Tradestrategy tradestrategy : tradestrategies) {
-                boolean exists = false;
-                for (Tradestrategy newTradestrategy : detachedInstance.getTradestrategies()) {
-                    if (newTradestrategy.equals(tradestrategy)) {
-                        exists = true;
-                        break;
-                    }
-                }
-                if (!exists) {
+                if (!uniqueKeys.contains(Tradingdays.getTradestrategyKey(tradestrategy))) {
                     if (tradestrategy.getTradeOrders().isEmpty()) {
                         entityManager.remove(tradestrategy);
                     } else {
@@ -184,10 +213,7 @@ public class TradingdayHome {
             entityManager.getTransaction().begin();
             Tradingday instance = entityManager.find(Tradingday.class, id);
             if (null != instance) {
-                for (Tradestrategy tradestrategy : instance.getTradestrategies()) {
-                    tradestrategy.getStrategy().getIndicatorSeries().size();
-                    tradestrategy.getTradeOrders().size();
-                }
+                fetchTradestrategyCollections(entityManager, List.of(instance));
             }
             entityManager.getTransaction().commit();
             return instance;
@@ -200,7 +226,9 @@ public class TradingdayHome {
     }
 
     /**
-     * Method findTradingdaysByDateRange.
+     * Method findTradingdaysByDateRange. The tradingdays, tradestrategies and
+     * their orders, portfolio accounts and indicator series are loaded with
+     * a fixed number of queries however long the date range.
      *
      * @param startDate ZonedDateTime
      * @param endDate   ZonedDateTime
@@ -212,32 +240,40 @@ public class TradingdayHome {
             EntityManager entityManager = EntityManagerHelper.getEntityManager();
             entityManager.getTransaction().begin();
             Tradingdays tradingdays = new Tradingdays();
-            CriteriaBuilder builder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<Tradingday> query = builder.createQuery(Tradingday.class);
-            Root<Tradingday> from = query.from(Tradingday.class);
-            query.select(from);
-            query.orderBy(builder.desc(from.get("open")));
-            List<Predicate> predicates = new ArrayList<>();
-
-            if (null != startDate) {
-                Predicate predicate = builder.greaterThanOrEqualTo(from.get("open"), startDate);
-                predicates.add(predicate);
-            }
-            if (null != endDate) {
-                Predicate predicate = builder.lessThanOrEqualTo(from.get("open"), endDate);
-                predicates.add(predicate);
+            List<Tradingday> items = findTradingdaysWithTradestrategies(entityManager, startDate, endDate);
+            fetchTradestrategyCollections(entityManager, items);
+            for (Tradingday tradingday : items) {
+                tradingdays.add(tradingday);
             }
+            entityManager.getTransaction().commit();
+            return tradingdays;
 
-            query.where(predicates.toArray(new Predicate[]{}));
-            TypedQuery<Tradingday> typedQuery = entityManager.createQuery(query);
-            List<Tradingday> items = typedQuery.getResultList();
-            for (Tradingday tradingday : items) {
+        } catch (Exception re) {
+            EntityManagerHelper.rollback();
+            throw re;
+        } finally {
+            EntityManagerHelper.close();
+        }
+    }
+
+    /**
+     * Method findTradingdaysLiteByDateRange. The tradingdays with their
+     * tradestrategies, contracts, strategies and portfolios in one query. The
+     * orders, portfolio accounts and indicator series are not loaded so this
+     * is for views that only list the tradestrategies.
+     *
+     * @param startDate ZonedDateTime
+     * @param endDate   ZonedDateTime
+     * @return Tradingdays
+     */
+    public Tradingdays findTradingdaysLiteByDateRange(ZonedDateTime startDate, ZonedDateTime endDate) {
+
+        try {
+            EntityManager entityManager = EntityManagerHelper.getEntityManager();
+            entityManager.getTransaction().begin();
+            Tradingdays tradingdays = new Tradingdays();
+            for (Tradingday tradingday : findTradingdaysWithTradestrategies(entityManager, startDate, endDate)) {
                 tradingdays.add(tradingday);
-                for (Tradestrategy tradestrategy : tradingday.getTradestrategies()) {
-                    tradestrategy.getTradeOrders().size();
-                    tradestrategy.getPortfolio().getPortfolioAccounts().size();
-                    tradestrategy.getStrategy().getIndicatorSeries().size();
-                }
             }
             entityManager.getTransaction().commit();
             return tradingdays;
@@ -271,12 +307,7 @@ public class TradingdayHome {
             if (null != closeDate)
                 query.where(builder.equal(from.get("close"), closeDate));
             List<Tradingday> items = entityManager.createQuery(query).getResultList();
-            for (Tradingday tradingday : items) {
-                for (Tradestrategy tradestrategy : tradingday.getTradestrategies()) {
-                    tradestrategy.getTradeOrders().size();
-                    tradestrategy.getStrategy().getIndicatorSeries().size();
-                }
-            }
+            fetchTradestrategyCollections(entityManager, items);
             entityManager.getTransaction().commit();
             if (!items.isEmpty()) {
                 return items.getFirst();
@@ -291,6 +322,93 @@ public class TradingdayHome {
         }
     }
 
+    /**
+     * Method findTradingdaysWithTradestrategies. Join fetch the
+     * tradestrategies and their eager associations with the tradingdays.
+     *
+     * @param entityManager EntityManager
+     * @param startDate     ZonedDateTime
+     * @param endDate       ZonedDateTime
+     * @return List<Tradingday>
+     */
+    private List<Tradingday> findTradingdaysWithTradestrategies(EntityManager entityManager,
+                                                                ZonedDateTime startDate, ZonedDateTime endDate) {
+
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tradingday> query = builder.createQuery(Tradingday.class);
+        Root<Tradingday> from = query.from(Tradingday.class);
+        Fetch<Tradingday, Tradestrategy> tradestrategies = from.fetch("tradestrategies", JoinType.LEFT);
+        tradestrategies.fetch("contract", JoinType.LEFT).fetch("tradePosition", JoinType.LEFT);
+        tradestrategies.fetch("strategy", JoinType.LEFT).fetch("strategyManager", JoinType.LEFT);
+        tradestrategies.fetch("portfolio", JoinType.LEFT);
+        query.select(from).distinct(true);
+        query.orderBy(builder.desc(from.get("open")));
+        List<Predicate> predicates = new ArrayList<>();
+
+        if (null != startDate) {
+            Predicate predicate = builder.greaterThanOrEqualTo(from.get("open"), startDate);
+            predicates.add(predicate);
+        }
+        if (null != endDate) {
+            Predicate predicate = builder.lessThanOrEqualTo(from.get("open"), endDate);
+            predicates.add(predicate);
+        }
+
+        query.where(predicates.toArray(new Predicate[]{}));
+        return entityManager.createQuery(query).getResultList();
+    }
+
+    /**
+     * Method fetchTradestrategyCollections. Initialize the orders, portfolio
+     * accounts and indicator series of all the tradestrategies. Each
+     * collection is loaded for every tradestrategy in one query rather than
+     * one query per tradestrategy. The collections are fetched separately as
+     * more than one list cannot be join fetched in a query.
+     *
+     * @param entityManager EntityManager
+     * @param tradingdays   List<Tradingday> managed by the entityManager.
+     */
+    private void fetchTradestrategyCollections(EntityManager entityManager, List<Tradingday> tradingdays) {
+
+        Set<Integer> idTradingdays = new HashSet<>();
+        Set<Integer> idPortfolios = new HashSet<>();
+        Set<Integer> idStrategies = new HashSet<>();
+        for (Tradingday tradingday : tradingdays) {
+            for (Tradestrategy tradestrategy : tradingday.getTradestrategies()) {
+                idTradingdays.add(tradingday.getId());
+                idPortfolios.add(tradestrategy.getPortfolio().getId());
+                idStrategies.add(tradestrategy.getStrategy().getId());
+            }
+        }
+        if (idTradingdays.isEmpty()) {
+            return;
+        }
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+
+        CriteriaQuery<Tradestrategy> tradestrategyQuery = builder.createQuery(Tradestrategy.class);
+        Root<Tradestrategy> tradestrategy = tradestrategyQuery.from(Tradestrategy.class);
+        Fetch<Tradestrategy, TradeOrder> tradeOrders = tradestrategy.fetch("tradeOrders", JoinType.LEFT);
+        tradeOrders.fetch("tradePosition", JoinType.LEFT);
+        tradeOrders.fetch("tradestrategyId", JoinType.LEFT);
+        tradestrategyQuery.select(tradestrategy).distinct(true);
+        tradestrategyQuery.where(tradestrategy.get("tradingday").get("id").in(idTradingdays));
+        entityManager.createQuery(tradestrategyQuery).getResultList();
+
+        CriteriaQuery<Portfolio> portfolioQuery = builder.createQuery(Portfolio.class);
+        Root<Portfolio> portfolio = portfolioQuery.from(Portfolio.class);
+        portfolio.fetch("portfolioAccounts", JoinType.LEFT).fetch("account", JoinType.LEFT);
+        portfolioQuery.select(portfolio).distinct(true);
+        portfolioQuery.where(portfolio.get("id").in(idPortfolios));
+        entityManager.createQuery(portfolioQuery).getResultList();
+
+        CriteriaQuery<Strategy> strategyQuery = builder.createQuery(Strategy.class);
+        Root<Strategy> strategy = strategyQuery.from(Strategy.class);
+        strategy.fetch("indicatorSeries", JoinType.LEFT);
+        strategyQuery.select(strategy).distinct(true);
+        strategyQuery.where(strategy.get("id").in(idStrategies));
+        entityManager.createQuery(strategyQuery).getResultList();
+    }
+
     /**
      * Method findStrategyByName.
      *
@@ -370,6 +488,19 @@ public class TradingdayHome {
 
     }
 
+    /**
+     * Method getContractKey. The key used to cache contract look ups during a
+     * persist, it matches the columns used by findContractByUniqueKey.
+     *
+     * @param contract Contract
+     * @return String
+     */
+    private static String getContractKey(Contract contract) {
+        return String.join("|", contract.getSecType(), contract.getSymbol(), contract.getExchange(),
+                contract.getCurrency(), (null == contract.getExpiry() ? null
+                        : contract.getExpiry().getYear() + "-" + contract.getExpiry().getMonthValue()));
+    }
+
     /**
      * Method findContractByUniqueKey.
      *
@@ -36,7 +36,6 @@
 package org.trade.core.persistent.dao;
 
 import org.trade.core.dao.Aspect;
-import org.trade.core.lookup.DBTableLookupServiceProvider;
 import org.trade.core.persistent.PersistentModelException;
 import org.trade.core.properties.ConfigProperties;
 import org.trade.core.util.time.TradingCalendar;
@@ -57,11 +56,16 @@ import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Scanner;
+import java.util.Set;
 
 /**
  *
@@ -355,9 +359,14 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
     }
 
     /**
-     * Method populateDataFromFile.
+     * Method populateDataFromFile. Streams the CSV file once, resolving each
+     * line against hash indexes of the contracts, tradingdays and
+     * tradestrategies already held so the import is linear in the number of
+     * lines. Each tradingday that was touched is sorted once at the end.
      *
-     * @param fileName String
+     * @param fileName   String
+     * @param tradingday Tradingday the default tradingday for lines without
+     *                   a date.
      */
     public synchronized void populateDataFromFile(String fileName, Tradingday tradingday) throws Exception {
 
@@ -368,13 +377,6 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
          * (opt),Multiplier(opt),|BOT/SLD(opt)|DATE(MM/dd/yyyy) (opt)|
          * Tier(Opt)| Mkt Gap(opt)| Mkt Bias(opt)| Mkt Bar(opt)");
          */
-        // FileReader fileReader = null;
-        // BufferedReader bufferedReader = null;
-        /*
-         * Refresh the decode tables.
-         */
-        DBTableLookupServiceProvider.clearLookup();
-
         try (FileReader fileReader = new FileReader(fileName);
              BufferedReader bufferedReader = new BufferedReader(fileReader)) {
 
@@ -402,7 +404,7 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
                 barSize = 300;
             }
 
-            int riskAmount = ConfigProperties.getPropAsInt("trade.risk");
+            BigDecimal riskAmount = new BigDecimal(ConfigProperties.getPropAsInt("trade.risk"));
             String strategyName = ConfigProperties.getPropAsString("trade.strategy.default");
 
             if (!DAOStrategy.newInstance(strategyName).isValid()) {
@@ -411,6 +413,22 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
             }
             Strategy strategy = (Strategy) DAOStrategy.newInstance(strategyName).getObject();
             Portfolio portfolio = (Portfolio) Objects.requireNonNull(DAOPortfolio.newInstance()).getObject();
+
+            /*
+             * Index what is already loaded so each line is resolved in constant
+             * time.
+             */
+            Map<String, Contract> contracts = new HashMap<>();
+            Map<String, Tradingday> tradingdayIndex = new HashMap<>();
+            synchronized (this.tradingdays) {
+                for (Tradingday item : this.tradingdays) {
+                    tradingdayIndex.putIfAbsent(getTradingdayKey(item.getOpen(), item.getClose()), item);
+                    for (Tradestrategy tradestrategy : item.getTradestrategies()) {
+                        contracts.putIfAbsent(tradestrategy.getContract().getSymbol(), tradestrategy.getContract());
+                    }
+                }
+            }
+            Map<Tradingday, Set<String>> tradestrategyIndex = new IdentityHashMap<>();
             String strLine;
 
             // read comma separated file line by line
@@ -420,7 +438,7 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 
                 if (null != tradestrategy) {
 
-                    Contract contract = this.getContract(tradestrategy.getContract().getSymbol());
+                    Contract contract = contracts.get(tradestrategy.getContract().getSymbol());
                     if (null != contract) {
 
                         tradestrategy.setContract(contract);
@@ -435,8 +453,8 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
                         tradestrategy.setTradingday(tradingday);
                     } else {
 
-                        Tradingday currTradingday = this.getTradingday(tradestrategy.getTradingday().getOpen(),
-                                tradestrategy.getTradingday().getClose());
+                        Tradingday currTradingday = tradingdayIndex.get(getTradingdayKey(
+                                tradestrategy.getTradingday().getOpen(), tradestrategy.getTradingday().getClose()));
 
                         if (null != currTradingday) {
 
@@ -467,7 +485,7 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
 
                         continue;
                     }
-                    tradestrategy.setRiskAmount(new BigDecimal(riskAmount));
+                    tradestrategy.setRiskAmount(riskAmount);
                     tradestrategy.setBarSize(barSize);
                     tradestrategy.setChartDays(chartDays);
                     tradestrategy.setTier(tierDefault);
@@ -476,23 +494,70 @@ public class Tradingdays extends Aspect implements java.io.Serializable {
                     tradestrategy.setStrategy(strategy);
                     tradestrategy.setPortfolio(portfolio);
 
-                    if (!tradestrategy.getTradingday().existTradestrategy(tradestrategy)) {
+                    Tradingday currTradingday = tradestrategy.getTradingday();
+                    Set<String> uniqueKeys = tradestrategyIndex.get(currTradingday);
 
-                        tradestrategy.getTradingday().addTradestrategy(tradestrategy);
+                    if (null == uniqueKeys) {
+
+                        uniqueKeys = new HashSet<>();
+                        for (Tradestrategy item : currTradingday.getTradestrategies()) {
+                            uniqueKeys.add(getTradestrategyKey(item));
+                        }
+                        tradestrategyIndex.put(currTradingday, uniqueKeys);
+                    }
+                    if (uniqueKeys.add(getTradestrategyKey(tradestrategy))) {
+
+                        currTradingday.addTradestrategy(tradestrategy);
+                        contracts.putIfAbsent(tradestrategy.getContract().getSymbol(), tradestrategy.getContract());
                     }
-                    if (!this.containsTradingday(tradestrategy.getTradingday())) {
+                    String tradingdayKey = getTradingdayKey(currTradingday.getOpen(), currTradingday.getClose());
+
+                    if (!tradingdayIndex.containsKey(tradingdayKey)) {
 
-                        this.add(tradestrategy.getTradingday());
+                        tradingdayIndex.put(tradingdayKey, currTradingday);
+                        this.add(currTradingday);
                     }
-                    tradestrategy.getTradingday().getTradestrategies().sort(Tradestrategy.DATE_ORDER_ASC);
                 }
             }
 
+            for (Tradingday item : tradestrategyIndex.keySet()) {
+                item.getTradestrategies().sort(Tradestrategy.DATE_ORDER_ASC);
+            }
+
         } catch (Exception ex) {
             throw new PersistentModelException(1, 200, ex.getMessage());
         }
     }
 
+    /**
+     * Method getTradingdayKey. The index key for a tradingday, two tradingdays
+     * with the same key are equal.
+     *
+     * @param open  ZonedDateTime
+     * @param close ZonedDateTime
+     * @return String
+     */
+    static String getTradingdayKey(ZonedDateTime open, ZonedDateTime close) {
+        return open.toInstant() + "|" + close.toInstant();
+    }
+
+    /**
+     * Method getTradestrategyKey. The index key for a tradestrategy, this
+     * matches the fields compared in Tradestrategy.equals() i.e. contract,
+     * tradingday open, strategy, portfolio and bar size.
+     *
+     * @param tradestrategy Tradestrategy
+     * @return String
+     */
+    static String getTradestrategyKey(Tradestrategy tradestrategy) {
+        Contract contract = tradestrategy.getContract();
+        return String.join("|", contract.getSymbol(), contract.getSecType(), contract.getExchange(),
+                contract.getCurrency(), String.valueOf(tradestrategy.getTradingday().getOpen().toInstant()),
+                (null == tradestrategy.getStrategy() ? null : tradestrategy.getStrategy().getName()),
+                (null == tradestrategy.getPortfolio() ? null : tradestrategy.getPortfolio().getName()),
+                String.valueOf(tradestrategy.getBarSize()));
+    }
+
     /**
      * Method parseContractLine.
      *
@@ -47,7 +47,6 @@ import org.trade.core.util.time.RegularTimePeriod;
 
 import java.io.Serial;
 import java.math.BigDecimal;
-import java.util.LinkedList;
 import java.util.Vector;
 
 /**
@@ -88,7 +87,7 @@ public class BollingerBandsSeries extends IndicatorSeries {
      * cleared.
      */
     private double sum = 0.0;
-    private LinkedList<Double> yyValues = new LinkedList<>();
+    private RollingWindow yyValues = new RollingWindow();
 
     /**
      * Creates a new empty series. By default, items added to the series will be
@@ -139,7 +138,7 @@ public class BollingerBandsSeries extends IndicatorSeries {
      */
     public Object clone() throws CloneNotSupportedException {
         BollingerBandsSeries clone = (BollingerBandsSeries) super.clone();
-        clone.yyValues = new LinkedList<>();
+        clone.yyValues = new RollingWindow();
         return clone;
     }
 
@@ -327,8 +326,7 @@ public class BollingerBandsSeries extends IndicatorSeries {
 
                 } else {
                     sum = sum - this.yyValues.getFirst() + yy.doubleValue();
-                    this.yyValues.removeFirst();
-                    this.yyValues.addFirst(yy.doubleValue());
+                    this.yyValues.setFirst(yy.doubleValue());
                 }
             } else {
                 if (newBar) {
@@ -336,8 +334,7 @@ public class BollingerBandsSeries extends IndicatorSeries {
                     this.yyValues.addFirst(yy.doubleValue());
                 } else {
                     sum = sum + yy.doubleValue() - this.yyValues.getFirst();
-                    this.yyValues.removeFirst();
-                    this.yyValues.addFirst(yy.doubleValue());
+                    this.yyValues.setFirst(yy.doubleValue());
                 }
             }
 
@@ -360,11 +357,11 @@ public class BollingerBandsSeries extends IndicatorSeries {
      * Method calculateMA.
      *
      * @param numberOfSTD BigDecimal
-     * @param yyValues    LinkedList<Double>
+     * @param yyValues    RollingWindow
      * @param sum         Double
      * @return double
      */
-    private double calculateBBands(BigDecimal numberOfSTD, LinkedList<Double> yyValues, Double sum) {
+    private double calculateBBands(BigDecimal numberOfSTD, RollingWindow yyValues, Double sum) {
 
         if (this.isUpper) {
             return ((sum / this.getLength())
@@ -375,12 +372,12 @@ public class BollingerBandsSeries extends IndicatorSeries {
         }
     }
 
-    public double standardDeviation(LinkedList<Double> a, Double sum) {
+    public double standardDeviation(RollingWindow a, Double sum) {
 
         double sumTotal = 0;
         double mean = sum / (a.size() * 1.0);
-        for (Double i : a)
-            sumTotal += Math.pow((i - mean), 2);
+        for (int i = 0; i < a.size(); i++)
+            sumTotal += Math.pow((a.get(i) - mean), 2);
         return Math.sqrt(sumTotal / (a.size() - 1)); // sample
     }
 
@@ -55,7 +55,6 @@ import org.trade.core.valuetype.ValueTypeException;
 import java.io.Serial;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
-import java.util.Collections;
 import java.util.LinkedList;
 import java.util.Vector;
 
@@ -93,18 +92,19 @@ public class CandleSeries extends IndicatorSeries {
     // Parms used for the rolling candle bar.
     private RollingCandle rollingCandle = new RollingCandle();
     private RollingCandle prevRollingCandle = null;
+    private Tradingday candleTradingday = null;
 
     private Double sumVwapVolume = 0d;
     private Long sumVolume = 0L;
     private Integer sumTradeCount = 0;
 
     private final LinkedList<RollingCandle> rollingCandleValues = new LinkedList<>();
-    private final LinkedList<Double> openValues = new LinkedList<>();
-    private final LinkedList<Double> highValues = new LinkedList<>();
-    private final LinkedList<Double> lowValues = new LinkedList<>();
-    private final LinkedList<Long> volumeValues = new LinkedList<>();
-    private final LinkedList<Integer> tradeCountValues = new LinkedList<>();
-    private final LinkedList<Double> vwapVolumeValues = new LinkedList<>();
+    private final RollingWindow openValues = new RollingWindow();
+    private final RollingMinMax highValues = new RollingMinMax();
+    private final RollingMinMax lowValues = new RollingMinMax();
+    private final RollingWindow volumeValues = new RollingWindow();
+    private final RollingWindow tradeCountValues = new RollingWindow();
+    private final RollingWindow vwapVolumeValues = new RollingWindow();
 
     public CandleSeries() {
 
@@ -516,9 +516,16 @@ public class CandleSeries extends IndicatorSeries {
         } else {
 
             RegularTimePeriod period = this.getPeriodStart(time, this.getBarSize());
-            Tradingday tradingday = new Tradingday(
-                    TradingCalendar.getDateAtTime(period.getStart(), this.getStartTime()),
-                    TradingCalendar.getDateAtTime(period.getStart(), this.getEndTime()));
+            ZonedDateTime tradingdayOpen = TradingCalendar.getDateAtTime(period.getStart(), this.getStartTime());
+            ZonedDateTime tradingdayClose = TradingCalendar.getDateAtTime(period.getStart(), this.getEndTime());
+            /*
+             * All the candles for a day share the one Tradingday.
+             */
+            if (null == this.candleTradingday || !this.candleTradingday.getOpen().isEqual(tradingdayOpen)
+                    || !this.candleTradingday.getClose().isEqual(tradingdayClose)) {
+                this.candleTradingday = new Tradingday(tradingdayOpen, tradingdayClose);
+            }
+            Tradingday tradingday = this.candleTradingday;
 
             if (null == lastUpdateDate)
                 lastUpdateDate = period.getEnd();
@@ -668,8 +675,12 @@ public class CandleSeries extends IndicatorSeries {
             if (newBar) {
                 this.add(candleItem, true);
             } else {
-                CandleItem dataItem = (CandleItem) this.getDataItem(this.getItemCount() - 1);
-                this.update(dataItem.getPeriod(), dataItem.getCandle());
+                /*
+                 * The last item is shared with the source series so it is
+                 * already up to date, just notify the listeners. This avoids
+                 * creating the Candle entity for every update.
+                 */
+                this.fireSeriesChanged();
             }
         }
     }
@@ -999,7 +1010,7 @@ public class CandleSeries extends IndicatorSeries {
                 if (this.highValues.isEmpty()) {
                     this.rollingCandle.high = high;
                 } else {
-                    this.rollingCandle.high = Collections.max(this.highValues);
+                    this.rollingCandle.high = this.highValues.getMax();
                 }
             }
 
@@ -1007,13 +1018,13 @@ public class CandleSeries extends IndicatorSeries {
                 if (this.lowValues.isEmpty()) {
                     this.rollingCandle.low = low;
                 } else {
-                    this.rollingCandle.low = Collections.min(this.lowValues);
+                    this.rollingCandle.low = this.lowValues.getMin();
                 }
             }
 
-            sumVolume = sumVolume - this.volumeValues.removeLast();
+            sumVolume = sumVolume - (long) this.volumeValues.removeLast();
             sumVwapVolume = sumVwapVolume - this.vwapVolumeValues.removeLast();
-            sumTradeCount = sumTradeCount - this.tradeCountValues.removeLast();
+            sumTradeCount = sumTradeCount - (int) this.tradeCountValues.removeLast();
         }
 
         this.rollingCandle.period = period;
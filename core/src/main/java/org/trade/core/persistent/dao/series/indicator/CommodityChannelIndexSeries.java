@@ -47,7 +47,6 @@ import org.trade.core.util.time.RegularTimePeriod;
 
 import java.io.Serial;
 import java.math.BigDecimal;
-import java.util.LinkedList;
 import java.util.Vector;
 
 /**
@@ -94,7 +93,7 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
      * when the series is cleared.
      */
     private double sumTypicalPrice = 0;
-    private LinkedList<Double> typicalPriceValues = new LinkedList<>();
+    private RollingWindow typicalPriceValues = new RollingWindow();
 
     /**
      * Creates a new empty series. By default, items added to the series will be
@@ -143,7 +142,7 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
      */
     public Object clone() throws CloneNotSupportedException {
         CommodityChannelIndexSeries clone = (CommodityChannelIndexSeries) super.clone();
-        clone.typicalPriceValues = new LinkedList<>();
+        clone.typicalPriceValues = new RollingWindow();
         return clone;
     }
 
@@ -324,8 +323,7 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
                         typicalPriceValues.addFirst(typicalPrice);
                     } else {
                         sumTypicalPrice = sumTypicalPrice - typicalPriceValues.getFirst() + typicalPrice;
-                        typicalPriceValues.removeFirst();
-                        typicalPriceValues.addFirst(typicalPrice);
+                        typicalPriceValues.setFirst(typicalPrice);
                     }
                 } else {
                     if (newBar) {
@@ -333,8 +331,7 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
                         typicalPriceValues.addFirst(typicalPrice);
                     } else {
                         sumTypicalPrice = sumTypicalPrice + typicalPrice - typicalPriceValues.getFirst();
-                        typicalPriceValues.removeFirst();
-                        typicalPriceValues.addFirst(typicalPrice);
+                        typicalPriceValues.setFirst(typicalPrice);
                     }
                 }
 
@@ -361,14 +358,14 @@ public class CommodityChannelIndexSeries extends IndicatorSeries {
      * Method calculateMA.
      *
      * @param sumTypicalPrice    String
-     * @param typicalPriceValues LinkedList<Double>
+     * @param typicalPriceValues RollingWindow
      * @return double
      */
-    private double calculateCCI(Double sumTypicalPrice, LinkedList<Double> typicalPriceValues) {
+    private double calculateCCI(Double sumTypicalPrice, RollingWindow typicalPriceValues) {
         double typicalPriceSMA = sumTypicalPrice / getLength();
         double sumMeanDeviation = 0;
-        for (double typicalPrice : typicalPriceValues) {
-            sumMeanDeviation = sumMeanDeviation + Math.abs(typicalPriceSMA - typicalPrice);
+        for (int i = 0; i < typicalPriceValues.size(); i++) {
+            sumMeanDeviation = sumMeanDeviation + Math.abs(typicalPriceSMA - typicalPriceValues.get(i));
         }
         if (sumMeanDeviation == 0)
             return 0;
@@ -47,7 +47,6 @@ import org.trade.core.util.time.RegularTimePeriod;
 
 import java.io.Serial;
 import java.math.BigDecimal;
-import java.util.LinkedList;
 import java.util.Vector;
 
 /**
@@ -93,17 +92,17 @@ public class MACDSeries extends IndicatorSeries {
     private double fastSum = 0.0;
     private double prevFastEMA = 0;
     private double fastMultiplyer = Double.MAX_VALUE;
-    private LinkedList<Double> fastYYValues = new LinkedList<>();
+    private RollingWindow fastYYValues = new RollingWindow();
 
     private double slowSum = 0.0;
     private double prevSlowEMA = 0;
     private double slowMultiplyer = Double.MAX_VALUE;
-    private final LinkedList<Double> slowYYValues = new LinkedList<>();
+    private final RollingWindow slowYYValues = new RollingWindow();
 
     private double signalSmoothingSum = 0.0;
     private double prevSignalSmoothingEMA = 0;
     private double signalSmoothingMultiplyer = Double.MAX_VALUE;
-    private final LinkedList<Double> signalSmoothingYYValues = new LinkedList<>();
+    private final RollingWindow signalSmoothingYYValues = new RollingWindow();
 
     /**
      * Creates a new empty series. By default, items added to the series will be
@@ -155,7 +154,7 @@ public class MACDSeries extends IndicatorSeries {
      */
     public Object clone() throws CloneNotSupportedException {
         MACDSeries clone = (MACDSeries) super.clone();
-        clone.fastYYValues = new LinkedList<>();
+        clone.fastYYValues = new RollingWindow();
         return clone;
     }
 
@@ -392,8 +391,7 @@ public class MACDSeries extends IndicatorSeries {
 
                 } else {
                     fastSum = fastSum - this.fastYYValues.getFirst() + yy.doubleValue();
-                    this.fastYYValues.removeFirst();
-                    this.fastYYValues.addFirst(yy.doubleValue());
+                    this.fastYYValues.setFirst(yy.doubleValue());
                 }
             } else {
                 if (newBar) {
@@ -401,8 +399,7 @@ public class MACDSeries extends IndicatorSeries {
                     this.fastYYValues.addFirst(yy.doubleValue());
                 } else {
                     fastSum = fastSum + yy.doubleValue() - this.fastYYValues.getFirst();
-                    this.fastYYValues.removeFirst();
-                    this.fastYYValues.addFirst(yy.doubleValue());
+                    this.fastYYValues.setFirst(yy.doubleValue());
                 }
             }
             if (this.slowYYValues.size() == getSlowLength()) {
@@ -421,8 +418,7 @@ public class MACDSeries extends IndicatorSeries {
 
                 } else {
                     slowSum = slowSum - this.slowYYValues.getFirst() + yy.doubleValue();
-                    this.slowYYValues.removeFirst();
-                    this.slowYYValues.addFirst(yy.doubleValue());
+                    this.slowYYValues.setFirst(yy.doubleValue());
                 }
             } else {
                 if (newBar) {
@@ -430,8 +426,7 @@ public class MACDSeries extends IndicatorSeries {
                     this.slowYYValues.addFirst(yy.doubleValue());
                 } else {
                     slowSum = slowSum + yy.doubleValue() - this.slowYYValues.getFirst();
-                    this.slowYYValues.removeFirst();
-                    this.slowYYValues.addFirst(yy.doubleValue());
+                    this.slowYYValues.setFirst(yy.doubleValue());
                 }
             }
 
@@ -471,8 +466,7 @@ public class MACDSeries extends IndicatorSeries {
 
                     } else {
                         signalSmoothingSum = signalSmoothingSum - this.signalSmoothingYYValues.getFirst() + MACD;
-                        this.signalSmoothingYYValues.removeFirst();
-                        this.signalSmoothingYYValues.addFirst(MACD);
+                        this.signalSmoothingYYValues.setFirst(MACD);
                     }
 
                 } else {
@@ -481,8 +475,7 @@ public class MACDSeries extends IndicatorSeries {
                         this.signalSmoothingYYValues.addFirst(MACD);
                     } else {
                         signalSmoothingSum = signalSmoothingSum + MACD - this.signalSmoothingYYValues.getFirst();
-                        this.signalSmoothingYYValues.removeFirst();
-                        this.signalSmoothingYYValues.addFirst(MACD);
+                        this.signalSmoothingYYValues.setFirst(MACD);
                     }
                 }
                 double signalLine = Double.MAX_VALUE;
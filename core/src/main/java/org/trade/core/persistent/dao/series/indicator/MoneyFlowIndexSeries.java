@@ -47,7 +47,6 @@ import org.trade.core.util.time.RegularTimePeriod;
 
 import java.io.Serial;
 import java.math.BigDecimal;
-import java.util.LinkedList;
 import java.util.Vector;
 
 /**
@@ -95,8 +94,8 @@ public class MoneyFlowIndexSeries extends IndicatorSeries {
     private double positiveSum = 0.0;
     private double negativeSum = 0.0;
 
-    private LinkedList<Double> yyValues = new LinkedList<>();
-    private LinkedList<Long> volValues = new LinkedList<>();
+    private RollingWindow yyValues = new RollingWindow();
+    private RollingWindow volValues = new RollingWindow();
 
     /**
      * Creates a new empty series. By default, items added to the series will be
@@ -145,8 +144,8 @@ public class MoneyFlowIndexSeries extends IndicatorSeries {
      */
     public Object clone() throws CloneNotSupportedException {
         MoneyFlowIndexSeries clone = (MoneyFlowIndexSeries) super.clone();
-        clone.yyValues = new LinkedList<>();
-        clone.volValues = new LinkedList<>();
+        clone.yyValues = new RollingWindow();
+        clone.volValues = new RollingWindow();
         return clone;
     }
 
@@ -351,8 +350,7 @@ public class MoneyFlowIndexSeries extends IndicatorSeries {
                             } else {
                                 negativeSum = negativeSum - Math.abs(this.yyValues.getFirst());
                             }
-                            this.yyValues.removeFirst();
-                            this.yyValues.addFirst(value);
+                            this.yyValues.setFirst(value);
                         }
                     } else {
                         if (newBar) {
@@ -364,10 +362,8 @@ public class MoneyFlowIndexSeries extends IndicatorSeries {
                             } else {
                                 negativeSum = negativeSum - Math.abs(this.yyValues.getFirst());
                             }
-                            this.yyValues.removeFirst();
-                            this.yyValues.addFirst(value);
-                            this.volValues.removeFirst();
-                            this.volValues.addFirst(candleItem.getVolume());
+                            this.yyValues.setFirst(value);
+                            this.volValues.setFirst(candleItem.getVolume());
                         }
                     }
 
@@ -48,7 +48,6 @@ import org.trade.core.valuetype.CalculationType;
 
 import java.io.Serial;
 import java.math.BigDecimal;
-import java.util.LinkedList;
 import java.util.Vector;
 
 /**
@@ -78,8 +77,9 @@ public class MovingAverageSeries extends IndicatorSeries {
      */
     private double sum = 0.0;
     private double multiplyer = 0;
-    private LinkedList<Double> yyValues = new LinkedList<>();
-    private LinkedList<Long> volValues = new LinkedList<>();
+    private RollingWindow yyValues = new RollingWindow();
+    private RollingWindow volValues = new RollingWindow();
+    private RollingWindow yyVolValues = new RollingWindow();
 
     /**
      * Creates a new empty series. By default, items added to the series will be
@@ -131,8 +131,9 @@ public class MovingAverageSeries extends IndicatorSeries {
      */
     public Object clone() throws CloneNotSupportedException {
         MovingAverageSeries clone = (MovingAverageSeries) super.clone();
-        clone.yyValues = new LinkedList<>();
-        clone.volValues = new LinkedList<>();
+        clone.yyValues = new RollingWindow();
+        clone.volValues = new RollingWindow();
+        clone.yyVolValues = new RollingWindow();
         return clone;
     }
 
@@ -147,6 +148,7 @@ public class MovingAverageSeries extends IndicatorSeries {
         multiplyer = 0;
         yyValues.clear();
         volValues.clear();
+        yyVolValues.clear();
     }
 
     /**
@@ -322,8 +324,7 @@ public class MovingAverageSeries extends IndicatorSeries {
                         this.volValues.addFirst(candleItem.getVolume());
                     } else {
                         sum = sum - this.yyValues.getFirst() + price;
-                        this.yyValues.removeFirst();
-                        this.yyValues.addFirst(price);
+                        this.yyValues.setFirst(price);
                     }
                 } else {
                     if (newBar) {
@@ -332,15 +333,27 @@ public class MovingAverageSeries extends IndicatorSeries {
                         this.volValues.addFirst(candleItem.getVolume());
                     } else {
                         sum = sum + price - this.yyValues.getFirst();
-                        this.yyValues.removeFirst();
-                        this.yyValues.addFirst(price);
-                        this.volValues.removeFirst();
-                        this.volValues.addFirst(candleItem.getVolume());
+                        this.yyValues.setFirst(price);
+                        this.volValues.setFirst(candleItem.getVolume());
+                    }
+                }
+
+                /*
+                 * Price * volume for each period used by the volume weighted
+                 * MA.
+                 */
+                double yyVol = this.yyValues.getFirst() * this.volValues.getFirst();
+                if (newBar) {
+                    if (this.yyVolValues.size() == getLength()) {
+                        this.yyVolValues.removeLast();
                     }
+                    this.yyVolValues.addFirst(yyVol);
+                } else {
+                    this.yyVolValues.setFirst(yyVol);
                 }
 
                 if (this.yyValues.size() == getLength()) {
-                    double ma = calculateMA(this.getMAType(), this.yyValues, this.volValues, sum);
+                    double ma = calculateMA(this.getMAType(), this.yyValues, this.volValues, this.yyVolValues, sum);
                     if (newBar) {
                         MovingAverageItem dataItem = new MovingAverageItem(candleItem.getPeriod(), new BigDecimal(ma));
                         this.add(dataItem, false);
@@ -377,13 +390,15 @@ public class MovingAverageSeries extends IndicatorSeries {
     /**
      * Method calculateMA.
      *
-     * @param calcType  String
-     * @param yyValues  LinkedList<Double>
-     * @param volValues LinkedList<Long>
-     * @param sum       Double
+     * @param calcType    String
+     * @param yyValues    RollingWindow
+     * @param volValues   RollingWindow
+     * @param yyVolValues RollingWindow
+     * @param sum         Double
      * @return double
      */
-    private double calculateMA(String calcType, LinkedList<Double> yyValues, LinkedList<Long> volValues, Double sum) {
+    private double calculateMA(String calcType, RollingWindow yyValues, RollingWindow volValues,
+                               RollingWindow yyVolValues, Double sum) {
 
         double ma = 0;
         if (CalculationType.LINEAR.equals(calcType)) {
@@ -404,28 +419,21 @@ public class MovingAverageSeries extends IndicatorSeries {
              * Use the EMA in the stored values as we need the previous one for
              * the calc.
              */
-            yyValues.removeFirst();
-            yyValues.addFirst(ma);
+            yyValues.setFirst(ma);
 
         } else if (CalculationType.WEIGHTED.equals(calcType)) {
 
-            double sumYY = 0;
-            int count = 0;
-            for (int i = yyValues.size(); i > 0; i--) {
-                count = count + (getLength() + 1 - i);
-                sumYY = sumYY + (yyValues.get(i - 1) * (getLength() + 1 - i));
-            }
-            ma = sumYY / count;
+            /*
+             * Weights are length for the newest value down to 1 for the
+             * oldest, the window keeps the weighted sum as values roll.
+             */
+            int count = (getLength() * (getLength() + 1)) / 2;
+            ma = yyValues.getWeightedSum(getLength()) / count;
 
         } else if (CalculationType.WEIGHTED_VOLUME.equals(calcType)) {
 
-            double sumYY = 0;
-            double count = 0;
-            for (int i = yyValues.size(); i > 0; i--) {
-                count = count + ((getLength() + 1 - i) * volValues.get(i - 1));
-                sumYY = sumYY + (yyValues.get(i - 1) * volValues.get(i - 1) * (getLength() + 1 - i));
-            }
-            ma = sumYY / count;
+            double count = volValues.getWeightedSum(getLength());
+            ma = yyVolValues.getWeightedSum(getLength()) / count;
         } else if (CalculationType.TRIANGULAR.equals(calcType)) {
 
             double sumYY = 0;
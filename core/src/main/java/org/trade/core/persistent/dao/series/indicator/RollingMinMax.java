@@ -0,0 +1,256 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent.dao.series.indicator;
+
+import java.io.Serial;
+import java.io.Serializable;
+
+/**
+ * A RollingWindow that also tracks the highest and lowest value in the window
+ * using monotonic deques, so the rolling high/low is O(1) amortized rather than
+ * a scan of the window.
+ * <p>
+ * Only the newest value in the window can be replaced (the current bar is still
+ * being built) so it is held outside the deques, the deques only hold the
+ * completed values and the newest value is included when the high/low is read.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class RollingMinMax extends RollingWindow {
+
+    @Serial
+    private static final long serialVersionUID = 6216745120317729094L;
+
+    private final MonotonicDeque maxValues = new MonotonicDeque(true);
+    private final MonotonicDeque minValues = new MonotonicDeque(false);
+    /*
+     * Sequence numbers of the newest and oldest values in the window.
+     */
+    private long firstSequence = -1;
+    private long lastSequence = 0;
+
+    public RollingMinMax() {
+        super();
+    }
+
+    /**
+     * Constructor for RollingMinMax.
+     *
+     * @param capacity int the initial capacity.
+     */
+    public RollingMinMax(int capacity) {
+        super(capacity);
+    }
+
+    /**
+     * Method addFirst. Adds the newest value to the window, the previous newest
+     * value is now complete and is added to the deques.
+     *
+     * @param value double
+     */
+    public void addFirst(double value) {
+        if (!isEmpty()) {
+            maxValues.add(firstSequence, getFirst());
+            minValues.add(firstSequence, getFirst());
+        }
+        super.addFirst(value);
+        firstSequence++;
+    }
+
+    /**
+     * Method removeFirst. Removes the newest value from the window, the
+     * previous value is the newest again. The deques may have dropped values
+     * the previous value dominated, so they are rebuilt from the window.
+     *
+     * @return double the removed value.
+     */
+    public double removeFirst() {
+        double value = super.removeFirst();
+        firstSequence--;
+        maxValues.clear();
+        minValues.clear();
+        if (isEmpty()) {
+            clear();
+            return value;
+        }
+        for (int i = size() - 1; i > 0; i--) {
+            maxValues.add(firstSequence - i, get(i));
+            minValues.add(firstSequence - i, get(i));
+        }
+        return value;
+    }
+
+    /**
+     * Method removeLast. Removes the oldest value from the window.
+     *
+     * @return double the removed value.
+     */
+    public double removeLast() {
+        double value = super.removeLast();
+        maxValues.removeFirst(lastSequence);
+        minValues.removeFirst(lastSequence);
+        lastSequence++;
+        if (isEmpty()) {
+            clear();
+        }
+        return value;
+    }
+
+    /**
+     * Method getMax.
+     *
+     * @return double the highest value in the window.
+     */
+    public double getMax() {
+        double max = getFirst();
+        if (!maxValues.isEmpty()) {
+            max = Math.max(max, maxValues.peekFirst());
+        }
+        return max;
+    }
+
+    /**
+     * Method getMin.
+     *
+     * @return double the lowest value in the window.
+     */
+    public double getMin() {
+        double min = getFirst();
+        if (!minValues.isEmpty()) {
+            min = Math.min(min, minValues.peekFirst());
+        }
+        return min;
+    }
+
+    /**
+     * Method clear. Removes all the values from the window.
+     */
+    public void clear() {
+        super.clear();
+        maxValues.clear();
+        minValues.clear();
+        firstSequence = -1;
+        lastSequence = 0;
+    }
+
+    /**
+     * A deque of (sequence, value) pairs held in ascending sequence order where
+     * the values are descending for a max deque and ascending for a min deque.
+     * The front of the deque is the max/min of the values it holds.
+     */
+    private static class MonotonicDeque implements Serializable {
+
+        @Serial
+        private static final long serialVersionUID = -1865037421990154733L;
+
+        private final boolean max;
+        private long[] sequences = new long[16];
+        private double[] values = new double[16];
+        private int head = 0;
+        private int size = 0;
+
+        MonotonicDeque(boolean max) {
+            this.max = max;
+        }
+
+        /**
+         * Method add. Adds a value to the back, dropping any values it
+         * dominates.
+         *
+         * @param sequence long
+         * @param value    double
+         */
+        void add(long sequence, double value) {
+            while (size > 0) {
+                double back = values[index(size - 1)];
+                if (max ? back > value : back < value) {
+                    break;
+                }
+                size--;
+            }
+            if (size == values.length) {
+                grow();
+            }
+            int i = index(size);
+            sequences[i] = sequence;
+            values[i] = value;
+            size++;
+        }
+
+        /**
+         * Method removeFirst. Removes the front value if it has the given
+         * sequence.
+         *
+         * @param sequence long
+         */
+        void removeFirst(long sequence) {
+            if (size > 0 && sequences[head] == sequence) {
+                head = index(1);
+                size--;
+            }
+        }
+
+        double peekFirst() {
+            return values[head];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void clear() {
+            head = 0;
+            size = 0;
+        }
+
+        private int index(int offset) {
+            return (head + offset) % values.length;
+        }
+
+        private void grow() {
+            long[] newSequences = new long[sequences.length * 2];
+            double[] newValues = new double[values.length * 2];
+            for (int i = 0; i < size; i++) {
+                newSequences[i] = sequences[index(i)];
+                newValues[i] = values[index(i)];
+            }
+            sequences = newSequences;
+            values = newValues;
+            head = 0;
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent.dao.series.indicator;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.NoSuchElementException;
+
+/**
+ * A primitive double ring buffer used by the indicator series to hold the
+ * values of their look-back window. The newest value is held at index 0 and the
+ * oldest at index size() - 1 so the methods mirror the LinkedList calls the
+ * series used previously, but values are not boxed and get(index) is O(1).
+ * <p>
+ * The window also keeps a running sum and an index weighted sum of its values
+ * so linear weighted averages can be read in O(1) for any look-back length. The
+ * running sums are re-summed every RESYNC_INTERVAL updates so floating point
+ * drift does not build up over long back tests.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class RollingWindow implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -3190562280386537716L;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int RESYNC_INTERVAL = 1 << 16;
+
+    private double[] values;
+    private int head = 0;
+    private int size = 0;
+    private double sum = 0;
+    private double indexSum = 0;
+    private int updates = 0;
+
+    public RollingWindow() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructor for RollingWindow.
+     *
+     * @param capacity int the initial capacity, the window grows if more values
+     *                 are added.
+     */
+    public RollingWindow(int capacity) {
+        this.values = new double[Math.max(capacity, 1)];
+    }
+
+    /**
+     * Method addFirst. Adds the newest value to the window.
+     *
+     * @param value double
+     */
+    public void addFirst(double value) {
+        if (size == values.length) {
+            grow();
+        }
+        head = (head == 0 ? values.length : head) - 1;
+        values[head] = value;
+        size++;
+        /*
+         * Every existing value moves up one index.
+         */
+        indexSum = indexSum + sum;
+        sum = sum + value;
+        updated();
+    }
+
+    /**
+     * Method removeFirst. Removes the newest value from the window.
+     *
+     * @return double the removed value.
+     */
+    public double removeFirst() {
+        double value = getFirst();
+        head = (head + 1) % values.length;
+        size--;
+        sum = sum - value;
+        indexSum = indexSum - sum;
+        updated();
+        return value;
+    }
+
+    /**
+     * Method removeLast. Removes the oldest value from the window.
+     *
+     * @return double the removed value.
+     */
+    public double removeLast() {
+        double value = getLast();
+        size--;
+        sum = sum - value;
+        indexSum = indexSum - (value * size);
+        updated();
+        return value;
+    }
+
+    /**
+     * Method setFirst. Replaces the newest value in the window.
+     *
+     * @param value double
+     * @return double the replaced value.
+     */
+    public double setFirst(double value) {
+        double oldValue = getFirst();
+        values[head] = value;
+        sum = sum - oldValue + value;
+        updated();
+        return oldValue;
+    }
+
+    /**
+     * Method getFirst.
+     *
+     * @return double the newest value.
+     */
+    public double getFirst() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return values[head];
+    }
+
+    /**
+     * Method getLast.
+     *
+     * @return double the oldest value.
+     */
+    public double getLast() {
+        if (size == 0) {
+            throw new NoSuchElementException();
+        }
+        return values[physicalIndex(size - 1)];
+    }
+
+    /**
+     * Method get.
+     *
+     * @param index int 0 is the newest value.
+     * @return double
+     */
+    public double get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return values[physicalIndex(index)];
+    }
+
+    /**
+     * Method getSum.
+     *
+     * @return double the sum of all the values in the window.
+     */
+    public double getSum() {
+        return sum;
+    }
+
+    /**
+     * Method getWeightedSum. Returns the sum of value(i) * (length - i) where i
+     * is 0 for the newest value i.e. the numerator of a linear weighted moving
+     * average of the given length.
+     *
+     * @param length int the look-back length.
+     * @return double
+     */
+    public double getWeightedSum(int length) {
+        return (length * sum) - indexSum;
+    }
+
+    /**
+     * Method size.
+     *
+     * @return int
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Method isEmpty.
+     *
+     * @return boolean
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Method clear. Removes all the values from the window.
+     */
+    public void clear() {
+        head = 0;
+        size = 0;
+        sum = 0;
+        indexSum = 0;
+        updates = 0;
+    }
+
+    /**
+     * Method physicalIndex.
+     *
+     * @param index int the logical index 0 is the newest.
+     * @return int
+     */
+    private int physicalIndex(int index) {
+        int i = head + index;
+        return i < values.length ? i : i - values.length;
+    }
+
+    /**
+     * Method grow. Doubles the capacity, the values are copied newest first
+     * from index 0.
+     */
+    private void grow() {
+        double[] newValues = new double[values.length * 2];
+        for (int i = 0; i < size; i++) {
+            newValues[i] = values[physicalIndex(i)];
+        }
+        values = newValues;
+        head = 0;
+    }
+
+    /**
+     * Method updated. Re-sums the running totals periodically.
+     */
+    private void updated() {
+        if (++updates < RESYNC_INTERVAL) {
+            return;
+        }
+        updates = 0;
+        sum = 0;
+        indexSum = 0;
+        for (int i = 0; i < size; i++) {
+            double value = values[physicalIndex(i)];
+            sum = sum + value;
+            indexSum = indexSum + (value * i);
+        }
+    }
+}
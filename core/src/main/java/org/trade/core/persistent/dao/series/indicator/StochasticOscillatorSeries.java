@@ -47,8 +47,6 @@ import org.trade.core.util.time.RegularTimePeriod;
 
 import java.io.Serial;
 import java.math.BigDecimal;
-import java.util.Collections;
-import java.util.LinkedList;
 import java.util.Vector;
 
 /**
@@ -137,9 +135,9 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
      */
     private double sumFullKRValues = 0.0;
     private double sumFullDValues = 0.0;
-    private LinkedList<Double> yyValues = new LinkedList<>();
-    private LinkedList<Double> fullKRValues = new LinkedList<>();
-    private LinkedList<Double> fullDValues = new LinkedList<>();
+    private RollingMinMax yyValues = new RollingMinMax();
+    private RollingWindow fullKRValues = new RollingWindow();
+    private RollingWindow fullDValues = new RollingWindow();
 
     /**
      * Creates a new empty series. By default, items added to the series will be
@@ -193,9 +191,9 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
      */
     public Object clone() throws CloneNotSupportedException {
         StochasticOscillatorSeries clone = (StochasticOscillatorSeries) super.clone();
-        clone.yyValues = new LinkedList<>();
-        clone.fullKRValues = new LinkedList<>();
-        clone.fullDValues = new LinkedList<>();
+        clone.yyValues = new RollingMinMax();
+        clone.fullKRValues = new RollingWindow();
+        clone.fullDValues = new RollingWindow();
         return clone;
     }
 
@@ -412,22 +410,20 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
                         this.yyValues.removeLast();
                         this.yyValues.addFirst(candleItem.getClose());
                     } else {
-                        this.yyValues.removeFirst();
-                        this.yyValues.addFirst(candleItem.getClose());
+                        this.yyValues.setFirst(candleItem.getClose());
                     }
                 } else {
                     if (newBar) {
                         this.yyValues.addFirst(candleItem.getClose());
                     } else {
-                        this.yyValues.removeFirst();
-                        this.yyValues.addFirst(candleItem.getClose());
+                        this.yyValues.setFirst(candleItem.getClose());
                     }
                 }
 
                 if (this.yyValues.size() == getLength()) {
 
-                    double high = Collections.max(this.yyValues);
-                    double low = Collections.min(this.yyValues);
+                    double high = this.yyValues.getMax();
+                    double low = this.yyValues.getMin();
 
                     /*
                      * %K = (Current Close - Lowest Low)/(Highest High - Lowest
@@ -471,8 +467,7 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
                             this.fullKRValues.addFirst(fastKR);
                         } else {
                             sumFullKRValues = sumFullKRValues - this.fullKRValues.getFirst() + fastKR;
-                            this.fullKRValues.removeFirst();
-                            this.fullKRValues.addFirst(fastKR);
+                            this.fullKRValues.setFirst(fastKR);
                         }
                     } else {
                         if (newBar) {
@@ -480,8 +475,7 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
                             this.fullKRValues.addFirst(fastKR);
                         } else {
                             sumFullKRValues = sumFullKRValues + fastKR - this.fullKRValues.getFirst();
-                            this.fullKRValues.removeFirst();
-                            this.fullKRValues.addFirst(fastKR);
+                            this.fullKRValues.setFirst(fastKR);
                         }
                     }
                     if (this.fullKRValues.size() == this.getKSmoothing()) {
@@ -504,8 +498,7 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
                                 this.fullDValues.addFirst(fullKR);
                             } else {
                                 sumFullDValues = sumFullDValues - this.fullDValues.getFirst() + fullKR;
-                                this.fullDValues.removeFirst();
-                                this.fullDValues.addFirst(fullKR);
+                                this.fullDValues.setFirst(fullKR);
                             }
                         } else {
                             if (newBar) {
@@ -513,8 +506,7 @@ public class StochasticOscillatorSeries extends IndicatorSeries {
                                 this.fullDValues.addFirst(fullKR);
                             } else {
                                 sumFullDValues = sumFullDValues + fullKR - this.fullDValues.getFirst();
-                                this.fullDValues.removeFirst();
-                                this.fullDValues.addFirst(fullKR);
+                                this.fullDValues.setFirst(fullKR);
                             }
                         }
                         if (this.fullDValues.size() == this.getPercentD()) {
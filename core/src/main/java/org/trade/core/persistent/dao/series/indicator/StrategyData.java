@@ -45,6 +45,7 @@ import org.trade.core.persistent.dao.Tradestrategy;
 import org.trade.core.persistent.dao.Tradingday;
 import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
 import org.trade.core.persistent.dao.series.indicator.candle.CandlePeriod;
+import org.trade.core.persistent.dao.series.indicator.candle.TradeTickAggregator;
 import org.trade.core.util.Worker;
 import org.trade.core.util.time.RegularTimePeriod;
 import org.trade.core.util.time.TradingCalendar;
@@ -71,6 +72,7 @@ public class StrategyData extends Worker {
     private final Object lockStrategyWorker = new Object();
     private int currentBaseCandleCount = -1;
     private int lastBaseCandleProcessed = -1;
+    private TradeTickAggregator tickAggregator = null;
 
     /**
      * Constructor for StrategyData.
@@ -259,6 +261,9 @@ public class StrategyData extends Worker {
     public boolean buildCandle(ZonedDateTime time, double open, double high, double low, double close, long volume,
                                double vwap, int tradeCount, int rollupInterval, ZonedDateTime lastUpdateDate) throws PersistentModelException {
 
+        if (null != this.tickAggregator) {
+            this.tickAggregator.onBar(TradingCalendar.geMillisFromZonedDateTime(time), rollupInterval);
+        }
         boolean newBar = this.getBaseCandleSeries().buildCandle(time, open, high, low, close, volume, vwap, tradeCount,
                 rollupInterval, lastUpdateDate);
 
@@ -417,6 +422,20 @@ public class StrategyData extends Worker {
         return baseCandleDataset.getSeries(0);
     }
 
+    /**
+     * Method getTickAggregator. The aggregator that applies the trade prints
+     * to the forming candle of the base series.
+     *
+     * @return TradeTickAggregator
+     */
+    public synchronized TradeTickAggregator getTickAggregator() {
+
+        if (null == this.tickAggregator || this.tickAggregator.getCandleSeries() != getBaseCandleSeries()) {
+            this.tickAggregator = new TradeTickAggregator(getBaseCandleSeries());
+        }
+        return this.tickAggregator;
+    }
+
     /**
      * Method getBaseCandleSeries.
      *
@@ -48,7 +48,6 @@ import org.trade.core.valuetype.CalculationType;
 
 import java.io.Serial;
 import java.math.BigDecimal;
-import java.util.LinkedList;
 import java.util.Vector;
 
 /**
@@ -85,14 +84,15 @@ public class VostroSeries extends IndicatorSeries {
     private double sum = 0.0;
     private double vostro1 = Double.MAX_VALUE;
     private double vostro2 = Double.MAX_VALUE;
-    private LinkedList<Double> yyValues = new LinkedList<>();
-    private LinkedList<Long> volValues = new LinkedList<>();
+    private RollingWindow yyValues = new RollingWindow();
+    private RollingWindow volValues = new RollingWindow();
+    private RollingWindow yyVolValues = new RollingWindow();
     private double highPlusLowSum = 0.0;
-    private LinkedList<Double> highPlusLowValues = new LinkedList<>();
+    private RollingWindow highPlusLowValues = new RollingWindow();
     private double highLessLowSum = 0.0;
-    private LinkedList<Double> highLessLowValues = new LinkedList<>();
-    private LinkedList<Double> vostro1Values = new LinkedList<>();
-    private LinkedList<Double> vostro2Values = new LinkedList<>();
+    private RollingWindow highLessLowValues = new RollingWindow();
+    private RollingWindow vostro1Values = new RollingWindow();
+    private RollingWindow vostro2Values = new RollingWindow();
 
     /**
      * Creates a new empty series. By default, items added to the series will be
@@ -143,12 +143,13 @@ public class VostroSeries extends IndicatorSeries {
      */
     public Object clone() throws CloneNotSupportedException {
         VostroSeries clone = (VostroSeries) super.clone();
-        clone.yyValues = new LinkedList<>();
-        clone.highPlusLowValues = new LinkedList<>();
-        clone.highLessLowValues = new LinkedList<>();
-        clone.volValues = new LinkedList<>();
-        clone.vostro1Values = new LinkedList<>();
-        clone.vostro2Values = new LinkedList<>();
+        clone.yyValues = new RollingWindow();
+        clone.highPlusLowValues = new RollingWindow();
+        clone.highLessLowValues = new RollingWindow();
+        clone.volValues = new RollingWindow();
+        clone.yyVolValues = new RollingWindow();
+        clone.vostro1Values = new RollingWindow();
+        clone.vostro2Values = new RollingWindow();
         return clone;
     }
 
@@ -165,6 +166,7 @@ public class VostroSeries extends IndicatorSeries {
         vostro2 = Double.MAX_VALUE;
         yyValues.clear();
         volValues.clear();
+        yyVolValues.clear();
         highPlusLowSum = 0.0;
         highPlusLowValues.clear();
         highLessLowSum = 0.0;
@@ -450,8 +452,7 @@ public class VostroSeries extends IndicatorSeries {
                         this.volValues.addFirst(candleItem.getVolume());
                     } else {
                         sum = sum - this.yyValues.getFirst() + price;
-                        this.yyValues.removeFirst();
-                        this.yyValues.addFirst(price);
+                        this.yyValues.setFirst(price);
                     }
                 } else {
                     if (newBar) {
@@ -460,11 +461,23 @@ public class VostroSeries extends IndicatorSeries {
                         this.volValues.addFirst(candleItem.getVolume());
                     } else {
                         sum = sum + price - this.yyValues.getFirst();
-                        this.yyValues.removeFirst();
-                        this.yyValues.addFirst(price);
-                        this.volValues.removeFirst();
-                        this.volValues.addFirst(candleItem.getVolume());
+                        this.yyValues.setFirst(price);
+                        this.volValues.setFirst(candleItem.getVolume());
+                    }
+                }
+
+                /*
+                 * Price * volume for each period used by the volume weighted
+                 * MA.
+                 */
+                double yyVol = this.yyValues.getFirst() * this.volValues.getFirst();
+                if (newBar) {
+                    if (this.yyVolValues.size() == getLength()) {
+                        this.yyVolValues.removeLast();
                     }
+                    this.yyVolValues.addFirst(yyVol);
+                } else {
+                    this.yyVolValues.setFirst(yyVol);
                 }
 
                 if (this.highPlusLowValues.size() == getVostroPeriod()) {
@@ -490,13 +503,11 @@ public class VostroSeries extends IndicatorSeries {
                     } else {
                         this.highPlusLowSum = this.highPlusLowSum - this.highPlusLowValues.getFirst()
                                 + (candleItem.getHigh() + candleItem.getLow());
-                        this.highPlusLowValues.removeFirst();
-                        this.highPlusLowValues.addFirst((candleItem.getHigh() + candleItem.getLow()));
+                        this.highPlusLowValues.setFirst((candleItem.getHigh() + candleItem.getLow()));
 
                         this.highLessLowSum = this.highLessLowSum - this.highLessLowValues.getFirst()
                                 + (candleItem.getHigh() - candleItem.getLow());
-                        this.highLessLowValues.removeFirst();
-                        this.highLessLowValues.addFirst((candleItem.getHigh() - candleItem.getLow()));
+                        this.highLessLowValues.setFirst((candleItem.getHigh() - candleItem.getLow()));
                     }
                 } else {
                     if (newBar) {
@@ -508,19 +519,17 @@ public class VostroSeries extends IndicatorSeries {
                     } else {
                         this.highPlusLowSum = this.highPlusLowSum + (candleItem.getHigh() + candleItem.getLow())
                                 - this.highPlusLowValues.getFirst();
-                        this.highPlusLowValues.removeFirst();
-                        this.highPlusLowValues.addFirst((candleItem.getHigh() + candleItem.getLow()));
+                        this.highPlusLowValues.setFirst((candleItem.getHigh() + candleItem.getLow()));
 
                         this.highLessLowSum = this.highLessLowSum + (candleItem.getHigh() - candleItem.getLow())
                                 - this.highLessLowValues.getFirst();
-                        this.highLessLowValues.removeFirst();
-                        this.highLessLowValues.addFirst((candleItem.getHigh() - candleItem.getLow()));
+                        this.highLessLowValues.setFirst((candleItem.getHigh() - candleItem.getLow()));
                     }
                 }
 
                 if (this.yyValues.size() == getLength()) {
 
-                    double ma = calculateMA(this.getMAType(), this.yyValues, this.volValues, sum);
+                    double ma = calculateMA(this.getMAType(), this.yyValues, this.volValues, this.yyVolValues, sum);
 
                     double gd_128 = this.highPlusLowSum / 2.0d / this.getVostroPeriod();
 
@@ -617,13 +626,15 @@ public class VostroSeries extends IndicatorSeries {
     /**
      * Method calculateMA.
      *
-     * @param calcType  String
-     * @param yyValues  LinkedList<Double>
-     * @param volValues LinkedList<Long>
-     * @param sum       Double
+     * @param calcType    String
+     * @param yyValues    RollingWindow
+     * @param volValues   RollingWindow
+     * @param yyVolValues RollingWindow
+     * @param sum         Double
      * @return double
      */
-    private double calculateMA(String calcType, LinkedList<Double> yyValues, LinkedList<Long> volValues, Double sum) {
+    private double calculateMA(String calcType, RollingWindow yyValues, RollingWindow volValues,
+                               RollingWindow yyVolValues, Double sum) {
 
         double ma = 0;
         if (CalculationType.LINEAR.equals(calcType)) {
@@ -644,28 +655,21 @@ public class VostroSeries extends IndicatorSeries {
              * Use the EMA in the stored values as we need the previous one for
              * the calc.
              */
-            yyValues.removeFirst();
-            yyValues.addFirst(ma);
+            yyValues.setFirst(ma);
 
         } else if (CalculationType.WEIGHTED.equals(calcType)) {
 
-            double sumYY = 0;
-            int count = 0;
-            for (int i = yyValues.size(); i > 0; i--) {
-                count = count + (getLength() + 1 - i);
-                sumYY = sumYY + (yyValues.get(i - 1) * (getLength() + 1 - i));
-            }
-            ma = sumYY / count;
+            /*
+             * Weights are length for the newest value down to 1 for the
+             * oldest, the window keeps the weighted sum as values roll.
+             */
+            int count = (getLength() * (getLength() + 1)) / 2;
+            ma = yyValues.getWeightedSum(getLength()) / count;
 
         } else if (CalculationType.WEIGHTED_VOLUME.equals(calcType)) {
 
-            double sumYY = 0;
-            double count = 0;
-            for (int i = yyValues.size(); i > 0; i--) {
-                count = count + ((getLength() + 1 - i) * volValues.get(i - 1));
-                sumYY = sumYY + (yyValues.get(i - 1) * volValues.get(i - 1) * (getLength() + 1 - i));
-            }
-            ma = sumYY / count;
+            double count = volValues.getWeightedSum(getLength());
+            ma = yyVolValues.getWeightedSum(getLength()) / count;
         }
         return ma;
     }
@@ -46,9 +46,14 @@ import org.trade.core.valuetype.Side;
 import java.io.Serial;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.Objects;
 
 /**
  * An item representing data in the form (period, open, high, low, close).
+ * <p>
+ * The values are held as primitives, the Candle entity is only created when it
+ * is asked for i.e. when the series is persisted. Once created the entity is
+ * kept and any changes to the item are applied to both.
  *
  * @author Simon Allen
  * @version $Revision: 1.0 $
@@ -62,6 +67,19 @@ public class CandleItem extends ComparableObjectItem {
     @Serial
     private static final long serialVersionUID = -3888996139640449109L;
 
+    private final Contract contract;
+    private final Tradingday tradingday;
+    private double open;
+    private double high;
+    private double low;
+    private double close;
+    private double vwap;
+    private long volume;
+    private int count;
+    private ZonedDateTime lastUpdateDate;
+    private Integer version;
+    private Candle candle;
+
     /**
      * Creates a new instance of <code>CandleItem</code>.
      *
@@ -78,8 +96,17 @@ public class CandleItem extends ComparableObjectItem {
      */
     public CandleItem(Contract contract, Tradingday tradingday, RegularTimePeriod period, double open, double high,
                       double low, double close, long volume, double vwap, int count, ZonedDateTime lastUpdateDate) {
-        super(period,
-                new Candle(contract, tradingday, period, open, high, low, close, volume, vwap, count, lastUpdateDate));
+        super(period, null);
+        this.contract = contract;
+        this.tradingday = tradingday;
+        this.open = open;
+        this.high = high;
+        this.low = low;
+        this.close = close;
+        this.volume = volume;
+        this.vwap = vwap;
+        this.count = count;
+        this.lastUpdateDate = lastUpdateDate;
     }
 
     /**
@@ -92,12 +119,57 @@ public class CandleItem extends ComparableObjectItem {
     }
 
     /**
-     * Returns the period.
+     * Returns the Candle entity for this item. This is created on first call.
      *
-     * @return The period (never <code>null</code>).
+     * @return The Candle.
+     */
+    public synchronized Candle getCandle() {
+        if (null == this.candle) {
+            this.candle = new Candle(this.contract, this.tradingday, getPeriod(), this.open, this.high, this.low,
+                    this.close, this.volume, this.vwap, this.count, this.lastUpdateDate);
+            if (null != this.version) {
+                this.candle.setVersion(this.version);
+            }
+        }
+        return this.candle;
+    }
+
+    /**
+     * Method hasCandle.
+     *
+     * @return boolean true if the Candle entity has been created.
      */
-    public Candle getCandle() {
-        return (Candle) getObject();
+    public synchronized boolean hasCandle() {
+        return null != this.candle;
+    }
+
+    /**
+     * Method getObject.
+     *
+     * @return Object the Candle.
+     */
+    protected Object getObject() {
+        return getCandle();
+    }
+
+    /**
+     * Method setObject. Take the values and entity from the Candle.
+     *
+     * @param y Object the Candle.
+     */
+    protected synchronized void setObject(Object y) {
+        if (y instanceof Candle value && value != this.candle) {
+            this.open = value.getOpen().doubleValue();
+            this.high = value.getHigh().doubleValue();
+            this.low = value.getLow().doubleValue();
+            this.close = value.getClose().doubleValue();
+            this.volume = value.getVolume();
+            this.vwap = value.getVwap().doubleValue();
+            this.count = value.getTradeCount();
+            this.lastUpdateDate = value.getLastUpdateDate();
+            this.version = value.getVersion();
+            this.candle = value;
+        }
     }
 
     /**
@@ -115,9 +187,7 @@ public class CandleItem extends ComparableObjectItem {
      * @return The open value.
      */
     public double getOpen() {
-        if (null != getCandle())
-            return getCandle().getOpen().doubleValue();
-        return Double.NaN;
+        return this.open;
     }
 
     /**
@@ -126,9 +196,7 @@ public class CandleItem extends ComparableObjectItem {
      * @return The high value.
      */
     public double getHigh() {
-        if (null != getCandle())
-            return getCandle().getHigh().doubleValue();
-        return Double.NaN;
+        return this.high;
     }
 
     /**
@@ -137,9 +205,7 @@ public class CandleItem extends ComparableObjectItem {
      * @return The low value.
      */
     public double getLow() {
-        if (null != getCandle())
-            return getCandle().getLow().doubleValue();
-        return Double.NaN;
+        return this.low;
 
     }
 
@@ -149,9 +215,7 @@ public class CandleItem extends ComparableObjectItem {
      * @return The close value.
      */
     public double getClose() {
-        if (null != getCandle())
-            return getCandle().getClose().doubleValue();
-        return Double.NaN;
+        return this.close;
 
     }
 
@@ -161,9 +225,7 @@ public class CandleItem extends ComparableObjectItem {
      * @return The volume value.
      */
     public long getVolume() {
-        if (null != getCandle())
-            return getCandle().getVolume();
-        return 0;
+        return this.volume;
     }
 
     /**
@@ -172,9 +234,7 @@ public class CandleItem extends ComparableObjectItem {
      * @return The trade count value.
      */
     public int getCount() {
-        if (null != getCandle())
-            return getCandle().getTradeCount();
-        return 0;
+        return this.count;
     }
 
     /**
@@ -183,9 +243,7 @@ public class CandleItem extends ComparableObjectItem {
      * @return The Vwap value.
      */
     public double getVwap() {
-        if (null != getCandle())
-            return getCandle().getVwap().doubleValue();
-        return 0;
+        return this.vwap;
     }
 
     /**
@@ -193,9 +251,10 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @param vwap double
      */
-    public void setVwap(double vwap) {
-        if (null != getCandle())
-            getCandle().setVwap(new BigDecimal(vwap));
+    public synchronized void setVwap(double vwap) {
+        this.vwap = vwap;
+        if (null != this.candle)
+            this.candle.setVwap(new BigDecimal(vwap));
     }
 
     /**
@@ -203,9 +262,10 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @param open double
      */
-    public void setOpen(double open) {
-        if (null != getCandle())
-            getCandle().setOpen(new BigDecimal(open));
+    public synchronized void setOpen(double open) {
+        this.open = open;
+        if (null != this.candle)
+            this.candle.setOpen(new BigDecimal(open));
     }
 
     /**
@@ -213,9 +273,10 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @param close double
      */
-    public void setClose(double close) {
-        if (null != getCandle())
-            getCandle().setClose(new BigDecimal(close));
+    public synchronized void setClose(double close) {
+        this.close = close;
+        if (null != this.candle)
+            this.candle.setClose(new BigDecimal(close));
     }
 
     /**
@@ -223,9 +284,10 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @param high double
      */
-    public void setHigh(double high) {
-        if (null != getCandle())
-            getCandle().setHigh(new BigDecimal(high));
+    public synchronized void setHigh(double high) {
+        this.high = high;
+        if (null != this.candle)
+            this.candle.setHigh(new BigDecimal(high));
     }
 
     /**
@@ -233,9 +295,10 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @param count int
      */
-    public void setCount(int count) {
-        if (null != getCandle())
-            getCandle().setTradeCount(count);
+    public synchronized void setCount(int count) {
+        this.count = count;
+        if (null != this.candle)
+            this.candle.setTradeCount(count);
     }
 
     /**
@@ -243,9 +306,10 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @param low double
      */
-    public void setLow(double low) {
-        if (null != getCandle())
-            getCandle().setLow(new BigDecimal(low));
+    public synchronized void setLow(double low) {
+        this.low = low;
+        if (null != this.candle)
+            this.candle.setLow(new BigDecimal(low));
     }
 
     /**
@@ -253,9 +317,10 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @param volume long
      */
-    public void setVolume(long volume) {
-        if (null != getCandle())
-            getCandle().setVolume(volume);
+    public synchronized void setVolume(long volume) {
+        this.volume = volume;
+        if (null != this.candle)
+            this.candle.setVolume(volume);
     }
 
     /**
@@ -284,9 +349,10 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @param lastUpdateDate ZonedDateTime
      */
-    public void setLastUpdateDate(ZonedDateTime lastUpdateDate) {
-        if (null != getCandle())
-            getCandle().setLastUpdateDate(lastUpdateDate);
+    public synchronized void setLastUpdateDate(ZonedDateTime lastUpdateDate) {
+        this.lastUpdateDate = lastUpdateDate;
+        if (null != this.candle)
+            this.candle.setLastUpdateDate(lastUpdateDate);
     }
 
     /**
@@ -295,9 +361,7 @@ public class CandleItem extends ComparableObjectItem {
      * @return The lastUpdateDate value.
      */
     public ZonedDateTime getLastUpdateDate() {
-        if (null != getCandle())
-            return getCandle().getLastUpdateDate();
-        return null;
+        return this.lastUpdateDate;
 
     }
 
@@ -306,9 +370,10 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @param version Integer
      */
-    public void setVersion(Integer version) {
-        if (null != getCandle())
-            getCandle().setVersion(version);
+    public synchronized void setVersion(Integer version) {
+        this.version = version;
+        if (null != this.candle)
+            this.candle.setVersion(version);
     }
 
     /**
@@ -316,10 +381,44 @@ public class CandleItem extends ComparableObjectItem {
      *
      * @return The version value.
      */
-    public Integer getVersion() {
-        if (null != getCandle())
-            return getCandle().getVersion();
-        return null;
+    public synchronized Integer getVersion() {
+        if (null != this.candle)
+            return this.candle.getVersion();
+        return this.version;
+
+    }
+
+    /**
+     * Method equals. Items are equal if they have the same period and values,
+     * once both entities have been created they must also be the same Candle.
+     *
+     * @param obj Object
+     * @return boolean
+     */
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        if (!(obj instanceof CandleItem that)) {
+            return false;
+        }
+        if (!getPeriod().equals(that.getPeriod())) {
+            return false;
+        }
+        if (this.hasCandle() && that.hasCandle()) {
+            return Objects.equals(this.getCandle(), that.getCandle());
+        }
+        return this.open == that.open && this.high == that.high && this.low == that.low && this.close == that.close
+                && this.volume == that.volume && this.vwap == that.vwap && this.count == that.count
+                && Objects.equals(this.contract, that.contract);
+    }
 
+    /**
+     * Method hashCode.
+     *
+     * @return int
+     */
+    public int hashCode() {
+        return getPeriod().hashCode();
     }
 }
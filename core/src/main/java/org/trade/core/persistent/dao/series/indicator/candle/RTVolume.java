@@ -0,0 +1,242 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent.dao.series.indicator.candle;
+
+/**
+ * A reusable holder for the fields of a RT_VOLUME (tick type 48) value i.e.
+ * last trade price;last trade size;last trade time;total volume;vwap;single
+ * trade flag. The value is parsed in place so no substrings or BigDecimals
+ * are created per print.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class RTVolume {
+
+    // Powers of ten that are exact as a double.
+    private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12,
+            1e13, 1e14, 1e15};
+    private static final int MAX_EXACT_DIGITS = 15;
+
+    private double price;
+    private long size;
+    private long time;
+    private long totalVolume;
+    private double vwap;
+    private boolean singleTrade;
+
+    private CharSequence value;
+    private int pos;
+
+    /**
+     * Method parse.
+     *
+     * @param value CharSequence the RT_VOLUME string.
+     * @return boolean false if the value has no price or is malformed.
+     */
+    public boolean parse(CharSequence value) {
+
+        this.value = value;
+        this.pos = 0;
+        try {
+            this.price = nextDouble();
+            this.size = nextLong();
+            this.time = nextLong();
+            this.totalVolume = nextLong();
+            this.vwap = nextDouble();
+            this.singleTrade = nextBoolean();
+            return !Double.isNaN(this.price) && this.price > 0;
+        } catch (NumberFormatException ex) {
+            return false;
+        } finally {
+            this.value = null;
+        }
+    }
+
+    /**
+     * Method getPrice.
+     *
+     * @return double the last trade price.
+     */
+    public double getPrice() {
+        return this.price;
+    }
+
+    /**
+     * Method getSize.
+     *
+     * @return long the last trade size.
+     */
+    public long getSize() {
+        return this.size;
+    }
+
+    /**
+     * Method getTime.
+     *
+     * @return long the last trade time in ms.
+     */
+    public long getTime() {
+        return this.time;
+    }
+
+    /**
+     * Method getTotalVolume.
+     *
+     * @return long the volume for the day.
+     */
+    public long getTotalVolume() {
+        return this.totalVolume;
+    }
+
+    /**
+     * Method getVwap.
+     *
+     * @return double the vwap for the day.
+     */
+    public double getVwap() {
+        return this.vwap;
+    }
+
+    /**
+     * Method isSingleTrade.
+     *
+     * @return boolean true if the print is a single trade.
+     */
+    public boolean isSingleTrade() {
+        return this.singleTrade;
+    }
+
+    /**
+     * Method fieldEnd.
+     *
+     * @return int the index of the next ';' or the end of the value.
+     */
+    private int fieldEnd() {
+
+        int end = this.pos;
+        while (end < this.value.length() && this.value.charAt(end) != ';') {
+            end++;
+        }
+        return end;
+    }
+
+    /**
+     * Method nextLong. An empty field is 0.
+     *
+     * @return long
+     */
+    private long nextLong() {
+
+        int start = this.pos;
+        int end = fieldEnd();
+        this.pos = end + 1;
+
+        if (start >= end) {
+            return 0;
+        }
+        long result = 0;
+        for (int i = start; i < end; i++) {
+            char c = this.value.charAt(i);
+            if (c < '0' || c > '9' || i - start > 17) {
+                // i.e. sizes sent as decimals 100.0
+                return (long) Double.parseDouble(this.value.subSequence(start, end).toString());
+            }
+            result = result * 10 + (c - '0');
+        }
+        return result;
+    }
+
+    /**
+     * Method nextDouble. An empty field is NaN.
+     *
+     * @return double
+     */
+    private double nextDouble() {
+
+        int start = this.pos;
+        int end = fieldEnd();
+        this.pos = end + 1;
+
+        if (start >= end) {
+            return Double.NaN;
+        }
+        int i = start;
+        boolean negative = this.value.charAt(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = -1;
+
+        for (; i < end; i++) {
+            char c = this.value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fraction >= 0) {
+                    fraction++;
+                }
+            } else if (c == '.' && fraction < 0) {
+                fraction = 0;
+            } else {
+                digits = Integer.MAX_VALUE;
+                break;
+            }
+        }
+
+        if (digits == 0 || digits > MAX_EXACT_DIGITS) {
+            return Double.parseDouble(this.value.subSequence(start, end).toString());
+        }
+        // Both are exact so the division is correctly rounded.
+        double result = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+        return negative ? -result : result;
+    }
+
+    /**
+     * Method nextBoolean.
+     *
+     * @return boolean
+     */
+    private boolean nextBoolean() {
+
+        int start = this.pos;
+        int end = fieldEnd();
+        this.pos = end + 1;
+        return end - start == 4 && this.value.charAt(start) == 't';
+    }
+}
@@ -0,0 +1,293 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent.dao.series.indicator.candle;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.persistent.dao.Contract;
+import org.trade.core.persistent.dao.series.indicator.CandleSeries;
+import org.trade.core.properties.ConfigProperties;
+import org.trade.core.util.time.TradingCalendar;
+
+/**
+ * Applies the trade prints (RT_VOLUME) for a contract to the forming candle
+ * of a base CandleSeries between the 5sec realtime bars. The close, high, low,
+ * volume and vwap of the last CandleItem are updated in place as each print
+ * arrives so a strategy sees a breakout of the bars H/L straight away.
+ * <p>
+ * Prints outside the current bid/ask, before the end of the last realtime bar
+ * or outside the forming candle are ignored. The volume added by the prints
+ * is backed out when the next realtime bar arrives as the bar carries the
+ * volume for the same trades.
+ * <p>
+ * The vwap of the candle is the volume weighted price of its bars (see
+ * CandleSeries.buildCandle()), each print adds its price * size to that. The
+ * vwap for the day sent with RT_VOLUME is not used.
+ * <p>
+ * The series is fired when a print makes a new high/low (or changes the close
+ * if trade.marketdata.realtime.updateClose is set) but at most once every
+ * trade.marketdata.tick.notifyMillis. A change that is held back is fired by
+ * the next print or bid/ask update via flush().
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class TradeTickAggregator {
+
+    private final static Logger _log = LoggerFactory.getLogger(TradeTickAggregator.class);
+
+    /*
+     * The prints sizes are in lots the same as the realtime bars.
+     */
+    private static final int VOLUME_MULTIPLIER = 100;
+    private static final int REALTIME_BAR_SECONDS = 5;
+
+    private static final long notifyMillis;
+    private static final boolean marketUpdateOnClose;
+
+    private final CandleSeries candleSeries;
+
+    private CandleItem candleItem = null;
+    private long candleStartMillis = 0;
+    private long candleEndMillis = 0;
+    private long lastBarEndMillis = 0;
+    private long pendingVolume = 0;
+    private double pendingVwapVolume = 0;
+    private double barVwap = 0;
+    private long lastPrintMillis = 0;
+    private long lastNotifyNanos = 0;
+    private boolean changed = false;
+
+    private long accepted = 0;
+    private long rejected = 0;
+
+    static {
+        long millis = 250;
+        boolean updateClose = false;
+        try {
+            millis = ConfigProperties.getPropAsInt("trade.marketdata.tick.notifyMillis");
+        } catch (Exception ex) {
+            _log.debug("trade.marketdata.tick.notifyMillis not set using: {} Msg: {}", millis, ex.getMessage());
+        }
+        try {
+            updateClose = ConfigProperties.getPropAsBoolean("trade.marketdata.realtime.updateClose");
+        } catch (Exception ex) {
+            _log.debug("trade.marketdata.realtime.updateClose not set Msg: {}", ex.getMessage());
+        }
+        notifyMillis = Math.max(0, millis);
+        marketUpdateOnClose = updateClose;
+    }
+
+    /**
+     * Constructor for TradeTickAggregator.
+     *
+     * @param candleSeries CandleSeries the base series to update.
+     */
+    public TradeTickAggregator(CandleSeries candleSeries) {
+        this.candleSeries = candleSeries;
+    }
+
+    /**
+     * Method onTrade. Apply a trade print to the forming candle.
+     *
+     * @param price double
+     * @param size  long
+     * @param time  long the trade time in ms.
+     * @return boolean true if the print was applied.
+     */
+    public synchronized boolean onTrade(double price, long size, long time) {
+
+        if (this.candleSeries.isEmpty()) {
+            return false;
+        }
+
+        Contract contract = this.candleSeries.getContract();
+        double bid = null == contract.getLastBidPrice() ? 0 : contract.getLastBidPrice().doubleValue();
+        double ask = null == contract.getLastAskPrice() ? 0 : contract.getLastAskPrice().doubleValue();
+
+        /*
+         * Prints can come in late in T/S i.e. bad ticks that are outside the
+         * current Bid/Ask.
+         */
+        if (bid <= 0 || ask <= 0 || price < bid || price > ask) {
+            this.rejected++;
+            return false;
+        }
+
+        CandleItem item = (CandleItem) this.candleSeries.getDataItem(this.candleSeries.getItemCount() - 1);
+        if (item != this.candleItem) {
+            setCandleItem(item);
+        }
+
+        /*
+         * Prints for a new bar wait for the realtime bar that creates it,
+         * prints already in the last realtime bar are ignored.
+         */
+        if (time < this.candleStartMillis || time > this.candleEndMillis || time < this.lastBarEndMillis) {
+            this.rejected++;
+            return false;
+        }
+
+        boolean newHighLow = false;
+        if (price > item.getHigh()) {
+            item.setHigh(price);
+            newHighLow = true;
+        }
+        if (price < item.getLow()) {
+            item.setLow(price);
+            newHighLow = true;
+        }
+        boolean closeChanged = price != item.getClose();
+        if (closeChanged) {
+            item.setClose(price);
+        }
+        if (size > 0) {
+            if (this.pendingVolume == 0) {
+                this.barVwap = item.getVwap();
+            }
+            long volume = size * VOLUME_MULTIPLIER;
+            long barVolume = item.getVolume() - this.pendingVolume;
+            item.setVolume(item.getVolume() + volume);
+            this.pendingVolume = this.pendingVolume + volume;
+            this.pendingVwapVolume = this.pendingVwapVolume + (price * volume);
+            item.setVwap(((this.barVwap * barVolume) + this.pendingVwapVolume) / (barVolume + this.pendingVolume));
+        }
+        this.lastPrintMillis = Math.max(this.lastPrintMillis, time);
+        this.accepted++;
+
+        if (newHighLow || (marketUpdateOnClose && closeChanged)) {
+            this.changed = true;
+        }
+        flush();
+        return true;
+    }
+
+    /**
+     * Method flush. Fire the series if a change is waiting and
+     * trade.marketdata.tick.notifyMillis has passed since the last fire.
+     *
+     * @return boolean true if the series was fired.
+     */
+    public synchronized boolean flush() {
+
+        if (!this.changed) {
+            return false;
+        }
+        long now = System.nanoTime();
+        if (now - this.lastNotifyNanos < notifyMillis * 1000000L) {
+            return false;
+        }
+        this.changed = false;
+        this.lastNotifyNanos = now;
+        this.candleItem.setLastUpdateDate(TradingCalendar.getZonedDateTimeFromMilli(this.lastPrintMillis));
+        /*
+         * Note this will fire runStrategy.
+         */
+        this.candleSeries.fireSeriesChanged();
+        return true;
+    }
+
+    /**
+     * Method onBar. Called before a bar is added to the series, backs out
+     * the volume the prints added to the forming candle as the bar includes
+     * the same trades.
+     *
+     * @param time           long the bar start time in ms.
+     * @param rollupInterval int the number of bars per candle.
+     */
+    public synchronized void onBar(long time, int rollupInterval) {
+
+        backOutPrints();
+        this.changed = false;
+        int barSeconds = rollupInterval > 0 ? this.candleSeries.getBarSize() / rollupInterval
+                : REALTIME_BAR_SECONDS;
+        this.lastBarEndMillis = Math.max(this.lastBarEndMillis, time + barSeconds * 1000L);
+    }
+
+    /**
+     * Method getCandleSeries.
+     *
+     * @return CandleSeries
+     */
+    public CandleSeries getCandleSeries() {
+        return this.candleSeries;
+    }
+
+    /**
+     * Method getAccepted.
+     *
+     * @return long the prints applied to a candle.
+     */
+    public synchronized long getAccepted() {
+        return this.accepted;
+    }
+
+    /**
+     * Method getRejected.
+     *
+     * @return long the prints ignored.
+     */
+    public synchronized long getRejected() {
+        return this.rejected;
+    }
+
+    /**
+     * Method backOutPrints. Remove the volume and vwap the prints added to
+     * the forming candle.
+     */
+    private void backOutPrints() {
+
+        if (this.pendingVolume > 0 && null != this.candleItem) {
+            this.candleItem.setVolume(this.candleItem.getVolume() - this.pendingVolume);
+            this.candleItem.setVwap(this.barVwap);
+        }
+        this.pendingVolume = 0;
+        this.pendingVwapVolume = 0;
+    }
+
+    /**
+     * Method setCandleItem. Cache the period of the forming candle.
+     *
+     * @param item CandleItem
+     */
+    private void setCandleItem(CandleItem item) {
+
+        backOutPrints();
+        this.candleItem = item;
+        this.candleStartMillis = item.getPeriod().getFirstMillisecond();
+        this.candleEndMillis = item.getPeriod().getLastMillisecond();
+    }
+}
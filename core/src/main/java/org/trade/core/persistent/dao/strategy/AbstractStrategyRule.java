@@ -68,6 +68,7 @@ import org.trade.core.valuetype.Side;
 import org.trade.core.valuetype.TimeInForce;
 import org.trade.core.valuetype.TriggerMethod;
 
+import javax.swing.*;
 import javax.swing.event.EventListenerList;
 import java.io.Serial;
 import java.io.Serializable;
@@ -104,6 +105,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
     private boolean seriesChanged = false;
     private final Object lockStrategyWorker = new Object();
     private boolean listeningCandles = false;
+    private boolean inline = false;
     private int currentCandleCount = -1;
     private ZonedDateTime strategyLastFired = TradingCalendar.getDateTimeNowMarketTimeZone();
 
@@ -246,24 +248,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
          */
         try {
 
-            this.tradePersistentModel = (IPersistentModel) ClassFactory
-                    .getServiceForInterface(IPersistentModel._persistentModel, this);
-            // Get an instances for this thread.
-            this.tradestrategy = this.tradePersistentModel.findTradestrategyById(this.idTradestrategy);
-            this.tradestrategy.setStrategyData(this.strategyData);
-            this.symbol = this.tradestrategy.getContract().getSymbol();
-
-            _log.info("Starting strategyClass: {} engine doInBackground Symbol: {} idTradestrategy: {} Tradingday Date: {}", this.getClass().getName(), this.symbol, this.idTradestrategy, this.tradestrategy.getTradingday().getOpen());
-
-            /*
-             * Process the current candle if there is one on startup.
-             */
-
-            currentCandleCount = this.strategyData.getBaseCandleSeries().getItemCount() - 1;
-
-            seriesChanged = true;
-
-            reFreshPositionOrders();
+            initialize();
 
             do {
                 /*
@@ -279,86 +264,8 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 
                 if (!this.isCancelled()) {
 
-                    /*
-                     * If candle count > than current we have a new candle
-                     *
-                     * If equal then we have an updated candle.
-                     *
-                     * The currentCandleCount is greater than the candle series.
-                     * Then another thread must have cleared the candle series
-                     * so shut down the strategy.
-                     */
-                    CandleSeries candleSeries = this.tradestrategy.getStrategyData().getBaseCandleSeries();
-
-                    boolean newCandle = false;
-                    if ((candleSeries.getItemCount() - 1) > currentCandleCount) {
-                        /*
-                         * Add one to the currentCandleCount until we catch up
-                         * to the candleSeries candle count. As it is possible
-                         * the candle count in another thread gets ahead of this
-                         * thread and so this thread is playing catch up.
-                         */
-                        currentCandleCount++;
-                        newCandle = true;
-
-                    } else if (currentCandleCount > (candleSeries.getItemCount() - 1)) {
-
-                        _log.info("Cancelled as candleSeries have been cleared Symbol: {} class: {}", getSymbol(), this.getClass().getName());
-                        this.cancel();
+                    if (!processSeriesChanged()) {
                         break;
-                    } else if (currentCandleCount == (candleSeries.getItemCount() - 1)) {
-                        /*
-                         * We have an updated candle. If we are listening for
-                         * candles and none are arriving then close the
-                         * strategy.
-                         */
-                        if (currentCandleCount == -1 && listeningCandles) {
-                            this.cancel();
-                            break;
-                        }
-                    }
-
-                    if (currentCandleCount > -1) {
-                        /*
-                         * Check the candle is during the trading range and fire
-                         * the rules.
-                         */
-                        if (!getCurrentCandle().getPeriod().getStart()
-                                .isBefore(this.tradestrategy.getTradingday().getOpen())) {
-                            /*
-                             * Refresh the orders in the positionOrders as these
-                             * may have been filled via another thread. This
-                             * gets the Orders/OpenPosition and Contract
-                             */
-                            reFreshPositionOrders();
-                            this.tradestrategy.getContract()
-                                    .setLastAskPrice(candleSeries.getContract().getLastAskPrice());
-                            this.tradestrategy.getContract()
-                                    .setLastBidPrice(candleSeries.getContract().getLastBidPrice());
-                            this.tradestrategy.getContract().setLastPrice(candleSeries.getContract().getLastPrice());
-                            runStrategy(candleSeries, newCandle);
-                            strategyLastFired = TradingCalendar.getDateTimeNowMarketTimeZone();
-                        }
-                    }
-                    /*
-                     * First time in add a listener for new candle.
-                     */
-                    if (!listeningCandles) {
-
-                        /*
-                         * Start listening for new candles and candle changes.
-                         */
-                        this.strategyData.getBaseCandleSeries().addChangeListener(this);
-                        /*
-                         * Tell the worker if listening. Note only for back
-                         * testing that the strategy is running.
-                         */
-                        this.fireStrategyStarted(this.getClass().getSimpleName(), this.tradestrategy);
-                        listeningCandles = true;
-
-                        _log.info("Started strategyClass: {} engine doInBackground Symbol: {} idTradestrategy: {}", this.getClass().getName(), this.symbol, this.idTradestrategy);
-                    } else {
-                        this.fireRuleComplete(this.tradestrategy);
                     }
                 }
 
@@ -376,6 +283,193 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
         return null;
     }
 
+    /**
+     * Method executeInline. Start the strategy on the calling thread rather
+     * than its own worker thread. Used by the back test broker to run the
+     * candle delivery, indicator updates and rules as one pipeline. The rules
+     * are then fired by calling fireInline after each candle.
+     *
+     * @see IStrategyRule#executeInline()
+     */
+    public void executeInline() {
+
+        this.inline = true;
+        this.isDone = false;
+        this.isCancelled = false;
+
+        try {
+
+            initialize();
+            fireInline();
+        } catch (Exception ex) {
+            _log.error("Error StrategyWorker exception: {} class: {} Msg: {}", getSymbol(), this.getClass().getName(), ex.getMessage(), ex);
+            error(1, 100, "Error StrategyWorker exception: " + ex.getMessage());
+            finishInline();
+        }
+    }
+
+    /**
+     * Method fireInline. Process the latest change to the candle series on the
+     * calling thread. If the strategy has been cancelled it is completed.
+     *
+     * @return boolean true if the strategy is still running.
+     * @see IStrategyRule#fireInline()
+     */
+    public boolean fireInline() {
+
+        if (this.isDone()) {
+            return false;
+        }
+
+        try {
+
+            if (this.isCancelled() || !processSeriesChanged() || this.isCancelled()) {
+
+                finishInline();
+                return false;
+            }
+        } catch (Exception ex) {
+            _log.error("Error StrategyWorker exception: {} class: {} Msg: {}", getSymbol(), this.getClass().getName(), ex.getMessage(), ex);
+            error(1, 100, "Error StrategyWorker exception: " + ex.getMessage());
+            finishInline();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Method finishInline. Mark the strategy as done and call done() on the
+     * event dispatching thread as the Worker would.
+     */
+    private void finishInline() {
+
+        this.isDone = true;
+        SwingUtilities.invokeLater(this::done);
+    }
+
+    /**
+     * Method initialize. Get the instances used by this strategy and process
+     * the current candle if there is one on startup.
+     */
+    private void initialize() throws Exception {
+
+        this.tradePersistentModel = (IPersistentModel) ClassFactory
+                .getServiceForInterface(IPersistentModel._persistentModel, this);
+        // Get an instances for this thread.
+        this.tradestrategy = this.tradePersistentModel.findTradestrategyById(this.idTradestrategy);
+        this.tradestrategy.setStrategyData(this.strategyData);
+        this.symbol = this.tradestrategy.getContract().getSymbol();
+
+        _log.info("Starting strategyClass: {} engine doInBackground Symbol: {} idTradestrategy: {} Tradingday Date: {}", this.getClass().getName(), this.symbol, this.idTradestrategy, this.tradestrategy.getTradingday().getOpen());
+
+        /*
+         * Process the current candle if there is one on startup.
+         */
+
+        currentCandleCount = this.strategyData.getBaseCandleSeries().getItemCount() - 1;
+
+        seriesChanged = true;
+
+        reFreshPositionOrders();
+    }
+
+    /**
+     * Method processSeriesChanged. Fire the rules for the new or updated
+     * candle.
+     *
+     * @return boolean false if the strategy was cancelled as the candle series
+     * has been cleared or no candles are arriving.
+     */
+    private boolean processSeriesChanged() throws StrategyRuleException {
+
+        /*
+         * If candle count > than current we have a new candle
+         *
+         * If equal then we have an updated candle.
+         *
+         * The currentCandleCount is greater than the candle series.
+         * Then another thread must have cleared the candle series
+         * so shut down the strategy.
+         */
+        CandleSeries candleSeries = this.tradestrategy.getStrategyData().getBaseCandleSeries();
+
+        boolean newCandle = false;
+        if ((candleSeries.getItemCount() - 1) > currentCandleCount) {
+            /*
+             * Add one to the currentCandleCount until we catch up
+             * to the candleSeries candle count. As it is possible
+             * the candle count in another thread gets ahead of this
+             * thread and so this thread is playing catch up.
+             */
+            currentCandleCount++;
+            newCandle = true;
+
+        } else if (currentCandleCount > (candleSeries.getItemCount() - 1)) {
+
+            _log.info("Cancelled as candleSeries have been cleared Symbol: {} class: {}", getSymbol(), this.getClass().getName());
+            this.cancel();
+            return false;
+        } else if (currentCandleCount == (candleSeries.getItemCount() - 1)) {
+            /*
+             * We have an updated candle. If we are listening for
+             * candles and none are arriving then close the
+             * strategy.
+             */
+            if (currentCandleCount == -1 && listeningCandles) {
+                this.cancel();
+                return false;
+            }
+        }
+
+        if (currentCandleCount > -1) {
+            /*
+             * Check the candle is during the trading range and fire
+             * the rules.
+             */
+            if (!getCurrentCandle().getPeriod().getStart()
+                    .isBefore(this.tradestrategy.getTradingday().getOpen())) {
+                /*
+                 * Refresh the orders in the positionOrders as these
+                 * may have been filled via another thread. This
+                 * gets the Orders/OpenPosition and Contract
+                 */
+                reFreshPositionOrders();
+                this.tradestrategy.getContract()
+                        .setLastAskPrice(candleSeries.getContract().getLastAskPrice());
+                this.tradestrategy.getContract()
+                        .setLastBidPrice(candleSeries.getContract().getLastBidPrice());
+                this.tradestrategy.getContract().setLastPrice(candleSeries.getContract().getLastPrice());
+                runStrategy(candleSeries, newCandle);
+                strategyLastFired = TradingCalendar.getDateTimeNowMarketTimeZone();
+            }
+        }
+        /*
+         * First time in add a listener for new candle.
+         */
+        if (!listeningCandles) {
+
+            /*
+             * Start listening for new candles and candle changes. When
+             * running inline the caller fires the rules so no listener
+             * is needed.
+             */
+            if (!this.inline) {
+                this.strategyData.getBaseCandleSeries().addChangeListener(this);
+            }
+            /*
+             * Tell the worker if listening. Note only for back
+             * testing that the strategy is running.
+             */
+            this.fireStrategyStarted(this.getClass().getSimpleName(), this.tradestrategy);
+            listeningCandles = true;
+
+            _log.info("Started strategyClass: {} engine doInBackground Symbol: {} idTradestrategy: {}", this.getClass().getName(), this.symbol, this.idTradestrategy);
+        } else if (!this.inline) {
+            this.fireRuleComplete(this.tradestrategy);
+        }
+        return true;
+    }
+
     /**
      * Method cancel.
      *
@@ -472,7 +566,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
         try {
             tradeOrder.validate();
             TradeOrder instance = getBrokerManager().onPlaceOrder(contract, tradeOrder);
-            this.getTradestrategyOrders().addTradeOrder(instance);
+            this.addTradeOrder(instance);
             return instance;
         } catch (BrokerModelException ex) {
             throw new StrategyRuleException(1, 500, "Error submitting new tradeOrder to broker : " + ex.getMessage());
@@ -553,7 +647,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
             }
             tradeOrder.validate();
             tradeOrder = getBrokerManager().onPlaceOrder(contract, tradeOrder);
-            this.getTradestrategyOrders().addTradeOrder(tradeOrder);
+            this.addTradeOrder(tradeOrder);
             return tradeOrder;
 
         } catch (BrokerModelException ex) {
@@ -576,7 +670,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
             if (null == orderKey)
                 throw new StrategyRuleException(1, 200, "Order Key cannot be null");
 
-            TradeOrder tradeOrder = tradePersistentModel.findTradeOrderByKey(orderKey);
+            TradeOrder tradeOrder = findTradeOrderByKey(orderKey);
 
             if (null == action)
                 throw new StrategyRuleException(1, 201, "Action cannot be null");
@@ -697,7 +791,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
                 }
             }
             tradeOrder = getBrokerManager().onPlaceOrder(getTradestrategy().getContract(), tradeOrder);
-            this.getTradestrategyOrders().addTradeOrder(tradeOrder);
+            this.addTradeOrder(tradeOrder);
             return tradeOrder;
         } catch (BrokerModelException ex) {
             throw new StrategyRuleException(1, 520, "Error submitting new tradeOrder to broker: " + ex.getMessage());
@@ -796,7 +890,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
             orderTarget.setOcaGroupName(ocaID);
 
             orderTarget = getBrokerManager().onPlaceOrder(getTradestrategy().getContract(), orderTarget);
-            this.getTradestrategyOrders().addTradeOrder(orderTarget);
+            this.addTradeOrder(orderTarget);
             /*
              * Note the last order submitted in TWS on OCA order is the only one
              * that can be updated
@@ -812,7 +906,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 
             }
             orderStop = getBrokerManager().onPlaceOrder(getTradestrategy().getContract(), orderStop);
-            this.getTradestrategyOrders().addTradeOrder(orderStop);
+            this.addTradeOrder(orderStop);
             return orderTarget;
 
         } catch (BrokerModelException ex) {
@@ -895,7 +989,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
             orderTarget.setFAMethod(openPosition.getFAMethod());
             orderTarget.setFAPercent(openPosition.getFAPercent());
             orderTarget = getBrokerManager().onPlaceOrder(getTradestrategy().getContract(), orderTarget);
-            this.getTradestrategyOrders().addTradeOrder(orderTarget);
+            this.addTradeOrder(orderTarget);
             /*
              * Note the last order submitted in TWS on OCA order is the only one
              * that can be updated
@@ -912,7 +1006,7 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
             orderStop.setFAMethod(openPosition.getFAMethod());
             orderStop.setFAPercent(openPosition.getFAPercent());
             orderStop = getBrokerManager().onPlaceOrder(getTradestrategy().getContract(), orderStop);
-            this.getTradestrategyOrders().addTradeOrder(orderStop);
+            this.addTradeOrder(orderStop);
             return orderTarget;
         } catch (BrokerModelException ex) {
             throw new StrategyRuleException(1, 550, "Error submitting new tradeOrder to broker: " + ex.getMessage());
@@ -1085,6 +1179,10 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
      */
     public void updateTradestrategyStatus(String status) throws StrategyRuleException {
         try {
+            if (isOrderBook()) {
+                getBrokerManager().getOrderBook().updateTradestrategyStatus(this.idTradestrategy, status);
+                return;
+            }
             this.getTradestrategyOrders().setStatus(status);
             this.getTradestrategyOrders().setLastUpdateDate(TradingCalendar.getDateTimeNowMarketTimeZone());
             this.tradestrategyOrders = this.tradePersistentModel.persistAspect(this.getTradestrategyOrders());
@@ -1144,13 +1242,54 @@ public abstract class AbstractStrategyRule extends Worker implements SeriesChang
 
     public void reFreshPositionOrders() throws StrategyRuleException {
         try {
-            this.tradestrategyOrders = this.tradePersistentModel
-                    .findPositionOrdersByTradestrategyId(this.idTradestrategy);
+            if (isOrderBook()) {
+                this.tradestrategyOrders = getBrokerManager().getOrderBook()
+                        .findPositionOrdersByTradestrategyId(this.idTradestrategy);
+            } else {
+                this.tradestrategyOrders = this.tradePersistentModel
+                        .findPositionOrdersByTradestrategyId(this.idTradestrategy);
+            }
         } catch (Exception ex) {
             throw new StrategyRuleException(1, 410, "Error position orders: " + ex.getMessage());
         }
     }
 
+    /**
+     * Method isOrderBook. True when back testing with the orders held in the
+     * brokers order book rather than the database.
+     *
+     * @return boolean
+     */
+    private boolean isOrderBook() {
+        return null != getBrokerManager().getOrderBook()
+                && getBrokerManager().getOrderBook().isOpen(this.idTradestrategy);
+    }
+
+    /**
+     * Method findTradeOrderByKey.
+     *
+     * @param orderKey Integer
+     * @return TradeOrder
+     */
+    private TradeOrder findTradeOrderByKey(Integer orderKey) {
+        if (isOrderBook() && getBrokerManager().getOrderBook().containsTradeOrder(orderKey)) {
+            return getBrokerManager().getOrderBook().findTradeOrderByKey(orderKey);
+        }
+        return this.tradePersistentModel.findTradeOrderByKey(orderKey);
+    }
+
+    /**
+     * Method addTradeOrder. Note the TradestrategyOrders is shared with the
+     * broker when an order book is used, so the order may already be present.
+     *
+     * @param tradeOrder TradeOrder
+     */
+    private void addTradeOrder(TradeOrder tradeOrder) {
+        if (!this.getTradestrategyOrders().getTradeOrders().contains(tradeOrder)) {
+            this.getTradestrategyOrders().addTradeOrder(tradeOrder);
+        }
+    }
+
     /**
      * Method getIndividualAccount. Return a refreshed trade account note this
      * is updated when connected to TWS every time the account values change.
@@ -64,6 +64,19 @@ public interface IStrategyRule {
 
     void execute();
 
+    /**
+     * Method executeInline. Start the strategy on the calling thread, the
+     * rules are fired by calling fireInline.
+     */
+    void executeInline();
+
+    /**
+     * Method fireInline.
+     *
+     * @return boolean true if the strategy is still running.
+     */
+    boolean fireInline();
+
     void cancel();
 
     /**
@@ -127,6 +127,18 @@ public final class DynamicCode {
      * @return Class<?>
      */
     public Class<?> loadClass(String className) throws Exception {
+        return loadClass(className, true);
+    }
+
+    /**
+     * Returns the dynamic class by name.
+     *
+     * @param className    String
+     * @param checkChanged boolean if true the source is checked and the class
+     *                     reloaded if it has changed.
+     * @return Class<?>
+     */
+    private Class<?> loadClass(String className, boolean checkChanged) throws Exception {
 
         LoadedClass loadedClass;
         synchronized (loadedClasses) {
@@ -156,7 +168,7 @@ public final class DynamicCode {
         }
 
         // subsequent access
-        if (loadedClass.isChanged()) {
+        if (checkChanged && loadedClass.isChanged()) {
             // unload and load again
             unload(loadedClass.srcDir);
             return loadClass(className);
@@ -165,6 +177,30 @@ public final class DynamicCode {
         return loadedClass.clazz;
     }
 
+    /**
+     * Unloads any loaded classes whose source has changed so they are compiled
+     * and loaded again on next access. Instances from newInstance() are not
+     * checked for changes on each call so this must be called to pick up
+     * changes to the source.
+     *
+     * @return boolean true if any classes were unloaded.
+     */
+    public boolean reload() {
+
+        List<SourceDir> changed = new ArrayList<>();
+        synchronized (loadedClasses) {
+            for (LoadedClass loadedClass : loadedClasses.values()) {
+                if (loadedClass.isChanged() && !changed.contains(loadedClass.srcDir)) {
+                    changed.add(loadedClass.srcDir);
+                }
+            }
+        }
+        for (SourceDir src : changed) {
+            unload(src);
+        }
+        return !changed.isEmpty();
+    }
+
     /**
      * Method locateResource.
      *
@@ -243,6 +279,31 @@ public final class DynamicCode {
         return Proxy.newProxyInstance(interfaceClass.getClassLoader(), new Class[]{interfaceClass}, handler);
     }
 
+    /**
+     * Create an instance of the specified dynamic implementation. Unlike
+     * newProxyInstance() calls go directly to the implementation, the class is
+     * compiled and loaded once and is only replaced after a call to reload().
+     *
+     * @param interfaceClass the access interface
+     * @param implClassName  the backend dynamic implementation
+     * @param parm           the constructor parameters
+     * @return T
+     * @throws Exception if an instance cannot be created, because of class not found
+     *                   for example
+     */
+    public <T> T newInstance(Class<T> interfaceClass, String implClassName, Vector<Object> parm) throws Exception {
+
+        Class<?> clz = loadClass(implClassName, false);
+        if (!interfaceClass.isAssignableFrom(clz)) {
+            throw new Exception("DynaCode class " + clz.getName() + " does not implement " + interfaceClass.getName());
+        }
+        try {
+            return interfaceClass.cast(getCreateClass(clz, parm));
+        } catch (Exception e) {
+            throw new Exception("Failed to new instance of DynaCode class " + clz.getName(), e);
+        }
+    }
+
     /**
      *
      */
@@ -35,6 +35,8 @@
  */
 package org.trade.core.util;
 
+import org.trade.core.dao.EntityManagerHelper;
+
 import javax.swing.*;
 
 /**
@@ -282,7 +284,7 @@ public abstract class Worker {
 
         Runnable doConstruct = new Runnable() {
             public void run() {
-                try {
+                try (EntityManagerHelper.Scope ignored = EntityManagerHelper.openScope()) {
                     setValue(doInBackground());
                 } finally {
                     threadVar.clear();
@@ -0,0 +1,305 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.util.time;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * An immutable index of the trading sessions between two dates for one set of
+ * market hours. The session open and close times are held in sorted arrays
+ * with the cumulative trading time at each open, so mapping between a
+ * millisecond and its position on a timeline that skips nights, weekends and
+ * holidays is a binary search rather than a walk over excluded segments.
+ * <p>
+ * Indexes are shared by market hours, getInstance() returns the cached index
+ * when it covers the requested dates and otherwise builds one covering both.
+ * An index is never changed once built so holders keep consistent values.
+ * Outside the sessions it covers the timeline runs at clock time.
+ */
+public final class TradingSessionIndex implements Serializable {
+
+    @Serial
+    private static final long serialVersionUID = -2231964790215476638L;
+
+    private final static Logger _log = LoggerFactory.getLogger(TradingSessionIndex.class);
+
+    /*
+     * Days added either side of a requested range so a chart that is
+     * scrolled or receives the next days candles does not rebuild the index.
+     */
+    static final int PADDING_DAYS = 31;
+
+    private static final ConcurrentHashMap<String, TradingSessionIndex> m_instances = new ConcurrentHashMap<>();
+
+    private final LocalTime openTime;
+    private final LocalTime closeTime;
+    private final LocalDate firstDay;
+    private final LocalDate lastDay;
+    private final long[] opens;
+    private final long[] closes;
+    private final long[] offsets;
+
+    /**
+     * Constructor for TradingSessionIndex.
+     *
+     * @param openTime  LocalTime the session open in the market time zone.
+     * @param closeTime LocalTime the session close, when not after the open
+     *                  the session closes the next day.
+     * @param firstDay  LocalDate
+     * @param lastDay   LocalDate
+     */
+    private TradingSessionIndex(LocalTime openTime, LocalTime closeTime, LocalDate firstDay, LocalDate lastDay) {
+
+        this.openTime = openTime;
+        this.closeTime = closeTime;
+        this.firstDay = firstDay;
+        this.lastDay = lastDay;
+
+        int capacity = (int) (lastDay.toEpochDay() - firstDay.toEpochDay()) + 1;
+        long[] sessionOpens = new long[capacity];
+        long[] sessionCloses = new long[capacity];
+        long[] sessionOffsets = new long[capacity];
+        int count = 0;
+        long offset = 0;
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            ZonedDateTime open = ZonedDateTime.of(day, openTime, TradingCalendar.MKT_TIMEZONE);
+            if (!TradingCalendar.isTradingDay(open)) {
+                continue;
+            }
+            ZonedDateTime close = ZonedDateTime.of(closeTime.isAfter(openTime) ? day : day.plusDays(1), closeTime,
+                    TradingCalendar.MKT_TIMEZONE);
+            sessionOpens[count] = TradingCalendar.geMillisFromZonedDateTime(open);
+            sessionCloses[count] = TradingCalendar.geMillisFromZonedDateTime(close);
+            /*
+             * Start the timeline at the first open so values read as
+             * milliseconds near the start of the index.
+             */
+            if (count == 0) {
+                offset = sessionOpens[0];
+            }
+            sessionOffsets[count] = offset;
+            offset += sessionCloses[count] - sessionOpens[count];
+            count++;
+        }
+        this.opens = Arrays.copyOf(sessionOpens, count);
+        this.closes = Arrays.copyOf(sessionCloses, count);
+        this.offsets = Arrays.copyOf(sessionOffsets, count);
+    }
+
+    /**
+     * Method getInstance. Return the shared index for the market hours of the
+     * open and close that covers the start and end dates.
+     *
+     * @param open      ZonedDateTime the session open time.
+     * @param close     ZonedDateTime the session close time.
+     * @param startDate ZonedDateTime
+     * @param endDate   ZonedDateTime
+     * @return TradingSessionIndex
+     */
+    public static TradingSessionIndex getInstance(ZonedDateTime open, ZonedDateTime close, ZonedDateTime startDate,
+                                                  ZonedDateTime endDate) {
+
+        final LocalTime openTime = open.withZoneSameInstant(TradingCalendar.MKT_TIMEZONE).toLocalTime();
+        final LocalTime closeTime = close.withZoneSameInstant(TradingCalendar.MKT_TIMEZONE).toLocalTime();
+        final LocalDate fromDay = startDate.withZoneSameInstant(TradingCalendar.MKT_TIMEZONE).toLocalDate();
+        final LocalDate toDay = endDate.withZoneSameInstant(TradingCalendar.MKT_TIMEZONE).toLocalDate();
+
+        TradingSessionIndex index = m_instances.get(openTime + "-" + closeTime);
+        if (null != index && index.covers(fromDay, toDay)) {
+            return index;
+        }
+        return m_instances.compute(openTime + "-" + closeTime, (_, current) -> {
+            if (null != current && current.covers(fromDay, toDay)) {
+                return current;
+            }
+            LocalDate first = fromDay.minusDays(PADDING_DAYS);
+            LocalDate last = toDay.plusDays(PADDING_DAYS);
+            if (null != current) {
+                first = first.isBefore(current.firstDay) ? first : current.firstDay;
+                last = last.isAfter(current.lastDay) ? last : current.lastDay;
+            }
+            TradingSessionIndex newIndex = new TradingSessionIndex(openTime, closeTime, first, last);
+            _log.debug("Built trading session index open: {} close: {} from: {} to: {} sessions: {}", openTime,
+                    closeTime, first, last, newIndex.getSessionCount());
+            return newIndex;
+        });
+    }
+
+    /**
+     * Method covers.
+     *
+     * @param fromDay LocalDate
+     * @param toDay   LocalDate
+     * @return boolean true if every session between the days is indexed.
+     */
+    public boolean covers(LocalDate fromDay, LocalDate toDay) {
+        return !fromDay.isBefore(this.firstDay) && !toDay.isAfter(this.lastDay);
+    }
+
+    /**
+     * Method getSessionCount.
+     *
+     * @return int
+     */
+    public int getSessionCount() {
+        return this.opens.length;
+    }
+
+    /**
+     * Method getOpenTime.
+     *
+     * @return LocalTime
+     */
+    public LocalTime getOpenTime() {
+        return this.openTime;
+    }
+
+    /**
+     * Method getCloseTime.
+     *
+     * @return LocalTime
+     */
+    public LocalTime getCloseTime() {
+        return this.closeTime;
+    }
+
+    /**
+     * Method toTimelineValue. A time between sessions maps to the close of
+     * the session before it which is also the open of the session after.
+     *
+     * @param millisecond long
+     * @return long
+     */
+    public long toTimelineValue(long millisecond) {
+
+        if (this.opens.length == 0) {
+            return millisecond;
+        }
+        int i = floor(this.opens, millisecond);
+        if (i < 0) {
+            return this.offsets[0] - (this.opens[0] - millisecond);
+        }
+        if (i == this.opens.length - 1) {
+            return this.offsets[i] + (millisecond - this.opens[i]);
+        }
+        return this.offsets[i] + Math.min(millisecond - this.opens[i], this.closes[i] - this.opens[i]);
+    }
+
+    /**
+     * Method toMillisecond.
+     *
+     * @param timelineValue long
+     * @return long
+     */
+    public long toMillisecond(long timelineValue) {
+
+        if (this.opens.length == 0) {
+            return timelineValue;
+        }
+        int i = floor(this.offsets, timelineValue);
+        if (i < 0) {
+            return this.opens[0] - (this.offsets[0] - timelineValue);
+        }
+        /*
+         * Every session has a length so the offsets increase strictly and the
+         * floor is the session holding the value.
+         */
+        return this.opens[i] + (timelineValue - this.offsets[i]);
+    }
+
+    /**
+     * Method contains.
+     *
+     * @param millisecond long
+     * @return boolean true if the time is in a session or outside the days
+     * indexed.
+     */
+    public boolean contains(long millisecond) {
+
+        if (this.opens.length == 0) {
+            return true;
+        }
+        int i = floor(this.opens, millisecond);
+        if (i < 0) {
+            return true;
+        }
+        return millisecond < this.closes[i] || i == this.opens.length - 1;
+    }
+
+    /**
+     * Method contains.
+     *
+     * @param fromMillisecond long
+     * @param toMillisecond   long
+     * @return boolean true if the range lies within one session.
+     */
+    public boolean contains(long fromMillisecond, long toMillisecond) {
+
+        if (this.opens.length == 0) {
+            return true;
+        }
+        int from = floor(this.opens, fromMillisecond);
+        int to = floor(this.opens, toMillisecond);
+        if (from != to) {
+            return false;
+        }
+        if (from < 0 || from == this.opens.length - 1) {
+            return contains(fromMillisecond);
+        }
+        return toMillisecond <= this.closes[from];
+    }
+
+    /**
+     * Method floor.
+     *
+     * @param values sorted long[]
+     * @param key    long
+     * @return int the index of the last value not after the key or -1.
+     */
+    private static int floor(long[] values, long key) {
+        int i = Arrays.binarySearch(values, key);
+        return i >= 0 ? i : -(i + 1) - 1;
+    }
+}
@@ -282,12 +282,19 @@ total_net_value DECIMAL(10,2) NULL ,
 last_update_date DATETIME(3) NOT NULL ,
 version INT NULL,
 id_contract INT NOT NULL ,
+id_portfolio INT NULL ,
 PRIMARY KEY (id) ,
 INDEX tradeposition_contract_idx (id_contract ASC) ,
+INDEX tradeposition_portfolio_idx (id_portfolio ASC, position_close_date ASC) ,
 CONSTRAINT tradeposition_contract_fk
 FOREIGN KEY (id_contract )
 REFERENCES contract (id )
   ON DELETE CASCADE
+  ON UPDATE NO ACTION,
+CONSTRAINT tradeposition_portfolio_fk
+FOREIGN KEY (id_portfolio )
+REFERENCES portfolio (id )
+  ON DELETE NO ACTION
   ON UPDATE NO ACTION)
 ENGINE = InnoDB//
 
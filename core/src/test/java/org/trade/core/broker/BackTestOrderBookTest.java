@@ -0,0 +1,256 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.broker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.trade.core.factory.ClassFactory;
+import org.trade.core.persistent.IPersistentModel;
+import org.trade.core.persistent.PersistentModelException;
+import org.trade.core.persistent.dao.TradeOrder;
+import org.trade.core.persistent.dao.TradeOrderfill;
+import org.trade.core.persistent.dao.TradelogDetail;
+import org.trade.core.persistent.dao.TradelogReport;
+import org.trade.core.persistent.dao.TradelogSummary;
+import org.trade.core.persistent.dao.Tradestrategy;
+import org.trade.core.persistent.dao.TradestrategyBase;
+import org.trade.core.properties.TradeAppLoadConfig;
+import org.trade.core.util.time.TradingCalendar;
+import org.trade.core.valuetype.Action;
+import org.trade.core.valuetype.OrderStatus;
+import org.trade.core.valuetype.OrderType;
+import org.trade.core.valuetype.Side;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Some tests for the {@link BackTestOrderBook} class. The same orders and
+ * fills are saved as they change and via the order book, the TradelogReport
+ * must be the same.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class BackTestOrderBookTest {
+
+    private IPersistentModel tradePersistentModel = null;
+    private BackTestOrderBook orderBook = null;
+    private Tradestrategy tradestrategy = null;
+    private int orderKey = 0;
+
+    /**
+     * Method setUp.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+
+        TradeAppLoadConfig.loadAppProperties();
+        this.tradePersistentModel = (IPersistentModel) ClassFactory
+                .getServiceForInterface(IPersistentModel._persistentModel, this);
+        Integer maxKey = this.tradePersistentModel.findTradeOrderByMaxKey();
+        this.orderKey = (null == maxKey ? 1 : maxKey + 1);
+    }
+
+    /**
+     * Method tearDown.
+     */
+    @AfterEach
+    public void tearDown() throws Exception {
+
+        TradestrategyBase.clearDBData();
+    }
+
+    @Test
+    public void testTradelogReportWithOrderBook() throws Exception {
+
+        this.tradestrategy = TradestrategyBase.getTestTradestrategy("NVDA");
+        assertNotNull(this.tradestrategy);
+        this.orderBook = null;
+        placeOrders();
+        List<String> expected = getTradelogReport();
+        assertFalse(expected.isEmpty());
+
+        // Same tradestrategy with its orders removed.
+        this.tradestrategy = TradestrategyBase.getTestTradestrategy("NVDA");
+        this.orderBook = new BackTestOrderBook(this.tradePersistentModel);
+        this.orderBook.open(this.tradestrategy.getId());
+        placeOrders();
+        this.orderBook.flush(this.tradestrategy.getId());
+        assertFalse(this.orderBook.isOpen(this.tradestrategy.getId()));
+
+        assertEquals(expected, getTradelogReport());
+    }
+
+    /**
+     * Method placeOrders. An entry filled in two parts then an OCA target and
+     * stop, the target fills and the stop is cancelled.
+     */
+    private void placeOrders() throws Exception {
+
+        ZonedDateTime open = this.tradestrategy.getTradingday().getOpen();
+        BigDecimal price = new BigDecimal("100.00");
+
+        TradeOrder buy = newTradeOrder(Action.BUY, OrderType.STPLMT, 1000, price, price.add(new BigDecimal(2)),
+                open.plusMinutes(5), null);
+        buy = fill(buy, 500, price, open.plusMinutes(10), "1a");
+        buy = fill(buy, 500, price.add(new BigDecimal(2)), open.plusMinutes(15), "1b");
+
+        String ocaGroupName = Integer.toString(this.orderKey);
+        TradeOrder target = newTradeOrder(Action.SELL, OrderType.LMT, 1000, null, new BigDecimal("105.00"),
+                open.plusMinutes(20), ocaGroupName);
+        TradeOrder stop = newTradeOrder(Action.SELL, OrderType.STP, 1000, new BigDecimal("98.00"), null,
+                open.plusMinutes(20), ocaGroupName);
+
+        fill(target, 1000, new BigDecimal("105.00"), open.plusMinutes(45), "2a");
+        stop.setStatus(OrderStatus.CANCELLED);
+        persistTradeOrder(stop);
+    }
+
+    /**
+     * Method newTradeOrder. Save a new order then submit it.
+     *
+     * @param action       String
+     * @param orderType    String
+     * @param quantity     int
+     * @param auxPrice     BigDecimal
+     * @param limitPrice   BigDecimal
+     * @param createDate   ZonedDateTime
+     * @param ocaGroupName String
+     * @return TradeOrder
+     */
+    private TradeOrder newTradeOrder(String action, String orderType, int quantity, BigDecimal auxPrice,
+                                     BigDecimal limitPrice, ZonedDateTime createDate, String ocaGroupName) throws Exception {
+
+        TradeOrder tradeOrder = new TradeOrder(this.tradestrategy, action, orderType, quantity, auxPrice, limitPrice,
+                createDate);
+        tradeOrder.setOrderKey(this.orderKey++);
+        if (null != ocaGroupName) {
+            tradeOrder.setOcaType(2);
+            tradeOrder.setOcaGroupName(ocaGroupName);
+        }
+        tradeOrder.setTransmit(true);
+        tradeOrder.validate();
+        tradeOrder = persistTradeOrder(tradeOrder);
+        tradeOrder.setStatus(OrderStatus.SUBMITTED);
+        return persistTradeOrder(tradeOrder);
+    }
+
+    /**
+     * Method fill.
+     *
+     * @param tradeOrder TradeOrder
+     * @param quantity   int
+     * @param price      BigDecimal
+     * @param time       ZonedDateTime
+     * @param execId     String
+     * @return TradeOrder
+     */
+    private TradeOrder fill(TradeOrder tradeOrder, int quantity, BigDecimal price, ZonedDateTime time,
+                            String execId) throws Exception {
+
+        int cumulativeQuantity = quantity;
+        for (TradeOrderfill item : tradeOrder.getTradeOrderfills()) {
+            cumulativeQuantity = cumulativeQuantity + item.getQuantity();
+        }
+        TradeOrderfill tradeOrderfill = new TradeOrderfill(tradeOrder, "Paper", price, cumulativeQuantity, "BATS",
+                execId, price, quantity, (Action.BUY.equals(tradeOrder.getAction()) ? Side.BOT : Side.SLD), time);
+        tradeOrderfill.setCommission(new BigDecimal("2.50"));
+        tradeOrder.addTradeOrderfill(tradeOrderfill);
+        return persistTradeOrderfill(tradeOrder);
+    }
+
+    /**
+     * Method persistTradeOrder. Save via the order book when it is open.
+     *
+     * @param tradeOrder TradeOrder
+     * @return TradeOrder
+     */
+    private TradeOrder persistTradeOrder(TradeOrder tradeOrder) throws PersistentModelException {
+        if (null != this.orderBook) {
+            return this.orderBook.persistTradeOrder(tradeOrder);
+        }
+        return this.tradePersistentModel.persistTradeOrder(tradeOrder);
+    }
+
+    /**
+     * Method persistTradeOrderfill. Save via the order book when it is open.
+     *
+     * @param tradeOrder TradeOrder
+     * @return TradeOrder
+     */
+    private TradeOrder persistTradeOrderfill(TradeOrder tradeOrder) throws PersistentModelException {
+        if (null != this.orderBook) {
+            return this.orderBook.persistTradeOrderfill(tradeOrder);
+        }
+        return this.tradePersistentModel.persistTradeOrderfill(tradeOrder);
+    }
+
+    /**
+     * Method getTradelogReport. The details and summary of the tradelog for
+     * the tradingday without the ids.
+     *
+     * @return List<String>
+     */
+    private List<String> getTradelogReport() throws PersistentModelException {
+
+        ZonedDateTime open = this.tradestrategy.getTradingday().getOpen();
+        TradelogReport tradelogReport = this.tradePersistentModel.findTradelogReport(
+                this.tradestrategy.getPortfolio(), TradingCalendar.getTradingDayStart(open),
+                TradingCalendar.getTradingDayEnd(open), false, this.tradestrategy.getContract().getSymbol(),
+                BigDecimal.ZERO);
+
+        List<String> rows = new ArrayList<>();
+        for (TradelogDetail item : tradelogReport.getTradelogDetail()) {
+            rows.add(item.getOpen() + "|" + item.getStatus() + "|" + item.getSide() + "|" + item.getAction() + "|"
+                    + item.getOrderStatus() + "|" + item.getFilledDate() + "|" + item.getQuantity() + "|"
+                    + item.getAverageFilledPrice() + "|" + item.getCommission() + "|" + item.getProfitLoss());
+        }
+        for (TradelogSummary item : tradelogReport.getTradelogSummary()) {
+            rows.add(item.getPeriod() + "|" + item.getQuantity() + "|" + item.getGrossProfitLoss() + "|"
+                    + item.getCommission() + "|" + item.getNetProfitLoss() + "|" + item.getWinCount() + "|"
+                    + item.getLossCount() + "|" + item.getPositionCount());
+        }
+        return rows;
+    }
+}
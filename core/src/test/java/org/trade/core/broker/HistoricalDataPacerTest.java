@@ -0,0 +1,185 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.broker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link HistoricalDataPacer} class driven by a clock the test
+ * moves on so no test sleeps.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class HistoricalDataPacerTest {
+
+    private final AtomicLong now = new AtomicLong();
+
+    /**
+     * Method setUp.
+     */
+    @BeforeEach
+    public void setUp() {
+        this.now.set(1_000_000L);
+    }
+
+    @Test
+    public void testNeverMoreThanLimitInAnyWindow() {
+
+        // The TWS limits 60 in 601 seconds and 5 in 4 seconds.
+        HistoricalDataPacer pacer = new HistoricalDataPacer(this.now::get, "", 60, 601, 5, 4);
+        List<Long> times = acquireAll(pacer, 1_800_000L, 250);
+
+        assertWindow(times, 60, 601_000L);
+        assertWindow(times, 5, 4_000L);
+        // The long limit is reached three times in 30 minutes.
+        assertEquals(180, times.size());
+        assertEquals(times.size(), pacer.getAcquired());
+    }
+
+    @Test
+    public void testTokenReturnedOnePeriodAfterTaken() {
+
+        HistoricalDataPacer pacer = new HistoricalDataPacer(this.now::get, "", 2, 1);
+
+        assertEquals(0, pacer.getWaitMillis());
+        assertTrue(pacer.tryAcquire());
+        this.now.addAndGet(300);
+        assertTrue(pacer.tryAcquire());
+        assertFalse(pacer.tryAcquire());
+        assertEquals(700, pacer.getWaitMillis());
+
+        this.now.addAndGet(699);
+        assertEquals(1, pacer.getWaitMillis());
+        assertFalse(pacer.tryAcquire());
+
+        // Unlike a fixed window the first token is back on its own.
+        this.now.addAndGet(1);
+        assertTrue(pacer.tryAcquire());
+        assertEquals(300, pacer.getWaitMillis());
+        assertEquals(3, pacer.getAcquired());
+    }
+
+    @Test
+    public void testEstimatedMillis() {
+
+        HistoricalDataPacer pacer = new HistoricalDataPacer(this.now::get, "", 5, 6);
+
+        assertEquals(0, pacer.getEstimatedMillis(0));
+        assertEquals(0, pacer.getEstimatedMillis(5));
+        // The sixth waits for the first token taken now.
+        assertEquals(6_000, pacer.getEstimatedMillis(6));
+        assertEquals(6_000, pacer.getEstimatedMillis(10));
+        assertEquals(12_000, pacer.getEstimatedMillis(12));
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(pacer.tryAcquire());
+        }
+        this.now.addAndGet(1_000);
+        assertEquals(5_000, pacer.getEstimatedMillis(1));
+        assertEquals(11_000, pacer.getEstimatedMillis(7));
+    }
+
+    @Test
+    public void testEstimatedMillisMatchesPacing() {
+
+        for (int remaining : new int[]{1, 5, 6, 13, 60, 61, 200}) {
+
+            this.now.set(1_000_000L);
+            HistoricalDataPacer pacer = new HistoricalDataPacer(this.now::get, "", 60, 601, 5, 4);
+            long start = this.now.get();
+            long estimate = pacer.getEstimatedMillis(remaining);
+            List<Long> times = acquireAll(pacer, 10_000_000L, 1, remaining);
+
+            assertEquals(remaining, times.size());
+            assertEquals(times.getLast() - start, estimate, "remaining: " + remaining);
+        }
+    }
+
+    @Test
+    public void testLimitsArePairs() {
+        assertThrows(IllegalArgumentException.class, () -> new HistoricalDataPacer("", 60));
+        assertThrows(IllegalArgumentException.class, () -> new HistoricalDataPacer(""));
+    }
+
+    private List<Long> acquireAll(HistoricalDataPacer pacer, long duration, long step) {
+        return acquireAll(pacer, duration, step, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Method acquireAll. Move the clock on by step taking every token that is
+     * free.
+     *
+     * @param pacer    HistoricalDataPacer
+     * @param duration long
+     * @param step     long
+     * @param requests int the most requests to make.
+     * @return List<Long> the time of each request.
+     */
+    private List<Long> acquireAll(HistoricalDataPacer pacer, long duration, long step, int requests) {
+
+        List<Long> times = new ArrayList<>();
+        long end = this.now.get() + duration;
+        while (this.now.get() < end && times.size() < requests) {
+            while (times.size() < requests && pacer.tryAcquire()) {
+                times.add(this.now.get());
+            }
+            this.now.addAndGet(step);
+        }
+        return times;
+    }
+
+    private static void assertWindow(List<Long> times, int limit, long periodMillis) {
+
+        for (int i = 0; i < times.size(); i++) {
+            int count = 0;
+            for (int j = i; j < times.size() && times.get(j) - times.get(i) < periodMillis; j++) {
+                count++;
+            }
+            assertTrue(count <= limit, count + " requests in " + periodMillis + "ms from: " + times.get(i));
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.broker.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link PolygonClient} against a local http stub that pages
+ * the results and rate limits the first request.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class PolygonClientTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private PolygonClient client;
+    private final AtomicInteger served = new AtomicInteger(0);
+
+    @BeforeEach
+    public void setUp() throws IOException {
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort() + "/";
+
+        server.createContext("/v2/aggs/", exchange -> {
+
+            String body;
+            int status = 200;
+
+            if (served.getAndIncrement() == 0) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                status = 429;
+                body = "{}";
+            } else if (exchange.getRequestURI().getQuery().contains("cursor=2")) {
+                body = "{\"results\":[{\"v\":1.5e3,\"vw\":10.5,\"o\":10,\"c\":11,\"h\":12,\"l\":9,\"t\":1704206460000,"
+                        + "\"n\":7}],\"status\":\"OK\",\"resultsCount\":1}";
+            } else {
+                body = "{\"ticker\":\"AAPL\",\"extra\":{\"a\":[1,{\"b\":null}],\"s\":\"x\\\"y\\u0041\"},\n"
+                        + " \"results\" : [ {\"v\":100,\"vw\":1.25,\"o\":1,\"c\":2,\"h\":3,\"l\":0.5,"
+                        + "\"t\":1704206400000,\"n\":3,\"otc\":false} ],\"status\":\"OK\","
+                        + "\"next_url\":\"" + baseUrl + "v2/aggs/next?cursor=2\"}";
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(status, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        client = new PolygonClient(baseUrl, "test", cacheDir, 2, 600);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        client.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testPagedAggregatesAreCached() throws Exception {
+
+        ZonedDateTime from = ZonedDateTime.of(2024, 1, 2, 9, 30, 0, 0, ZoneId.of("America/New_York"));
+        ZonedDateTime to = from.withHour(16).withMinute(0);
+
+        List<PolygonClient.Bar> bars = client.getAggregatesAsync("AAPL", PolygonClient.MINUTE, from, to, true).get();
+
+        assertEquals(2, bars.size());
+        assertEquals(new PolygonClient.Bar(1704206400000L, 1, 3, 0.5, 2, 100, 1.25, 3), bars.get(0));
+        assertEquals(new PolygonClient.Bar(1704206460000L, 10, 12, 9, 11, 1500, 10.5, 7), bars.get(1));
+        assertEquals(3, client.getRequests());
+        assertTrue(Files.exists(
+                cacheDir.resolve("AAPL").resolve(PolygonClient.MINUTE).resolve("20240102_093000-160000.csv")));
+
+        assertEquals(bars, client.getAggregates("AAPL", PolygonClient.MINUTE, from, to, true));
+        assertEquals(3, client.getRequests());
+        assertEquals(1, client.getCacheHits());
+
+        // Part of the same day is not answered from the full day.
+        client.getAggregates("AAPL", PolygonClient.MINUTE, from, from.withHour(12), true);
+        assertEquals(5, client.getRequests());
+        assertEquals(1, client.getCacheHits());
+        assertTrue(Files.exists(
+                cacheDir.resolve("AAPL").resolve(PolygonClient.MINUTE).resolve("20240102_093000-120000.csv")));
+    }
+
+    @Test
+    public void testErrorResponse() {
+
+        assertThrows(IOException.class, () -> PolygonClient.parseAggregates(
+                new StringReader("{\"status\":\"ERROR\",\"error\":\"Unknown API Key\"}"), new ArrayList<>()));
+        assertThrows(IOException.class, () -> PolygonClient.parseAggregates(
+                new StringReader("{\"results\":[{\"t\":1"), new ArrayList<>()));
+    }
+}
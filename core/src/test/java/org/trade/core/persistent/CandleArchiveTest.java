@@ -0,0 +1,185 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.trade.core.persistent.dao.Candle;
+import org.trade.core.persistent.dao.Contract;
+import org.trade.core.persistent.dao.series.indicator.candle.CandlePeriod;
+import org.trade.core.properties.TradeAppLoadConfig;
+import org.trade.core.util.time.TradingCalendar;
+import org.trade.core.valuetype.Currency;
+import org.trade.core.valuetype.Exchange;
+import org.trade.core.valuetype.SECType;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Round trip tests for the {@link CandleArchive} file format. Every read is
+ * checked again from a new archive that maps the file from disk.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class CandleArchiveTest {
+
+    private static final int BAR_SIZE = 300;
+
+    @TempDir
+    Path archiveDir;
+
+    private Contract contract = null;
+    private ZonedDateTime open = null;
+
+    /**
+     * Method setUp.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+
+        TradeAppLoadConfig.loadAppProperties();
+        this.contract = new Contract(SECType.STOCK, "TEST", Exchange.SMART, Currency.USD, null, null);
+        this.contract.setId(1);
+        this.open = TradingCalendar.getTradingDayStart(TradingCalendar.getPrevTradingDay(
+                TradingCalendar.getPrevTradingDay(TradingCalendar.getDateTimeNowMarketTimeZone())));
+    }
+
+    @Test
+    public void testWriteReopenReadOverwrite() throws Exception {
+
+        List<Candle> candles = getCandles(this.open, new double[]{10.25, 10.5, 10.375});
+
+        CandleArchive archive = new CandleArchive(archiveDir);
+        assertEquals(3, archive.append(contract.getId(), BAR_SIZE, candles));
+        assertTrue(Files.size(archiveDir.resolve("1").resolve(BAR_SIZE + ".candles")) > 0);
+        assertCandles(candles, archive.findCandles(contract, BAR_SIZE, this.open, this.open));
+
+        // The same candles are not written again.
+        assertEquals(0, archive.append(contract.getId(), BAR_SIZE, candles));
+        long size = Files.size(archiveDir.resolve("1").resolve(BAR_SIZE + ".candles"));
+
+        CandleArchive reopened = new CandleArchive(archiveDir);
+        assertCandles(candles, reopened.findCandles(contract, BAR_SIZE, this.open, this.open));
+        assertEquals(0, reopened.append(contract.getId(), BAR_SIZE, candles));
+
+        // A corrected candle replaces the day even with the same count.
+        List<Candle> corrected = getCandles(this.open, new double[]{10.25, 10.75, 10.375});
+        assertEquals(3, reopened.append(contract.getId(), BAR_SIZE, corrected));
+        assertTrue(Files.size(archiveDir.resolve("1").resolve(BAR_SIZE + ".candles")) > size);
+        assertCandles(corrected, reopened.findCandles(contract, BAR_SIZE, this.open, this.open));
+        assertCandles(corrected, new CandleArchive(archiveDir).findCandles(contract, BAR_SIZE, this.open,
+                this.open));
+    }
+
+    @Test
+    public void testInvalidate() throws Exception {
+
+        List<Candle> candles = getCandles(this.open, new double[]{10.25, 10.5});
+
+        CandleArchive archive = new CandleArchive(archiveDir);
+        assertEquals(2, archive.append(contract.getId(), BAR_SIZE, candles));
+        assertEquals(1, archive.invalidate(contract.getId(), BAR_SIZE, candles.subList(0, 1)));
+        assertNull(archive.findCandles(contract, BAR_SIZE, this.open, this.open));
+        assertNull(new CandleArchive(archiveDir).findCandles(contract, BAR_SIZE, this.open, this.open));
+
+        // Nothing held so nothing to drop.
+        assertEquals(0, archive.invalidate(contract.getId(), BAR_SIZE, candles));
+
+        assertEquals(2, archive.append(contract.getId(), BAR_SIZE, candles));
+        assertCandles(candles, new CandleArchive(archiveDir).findCandles(contract, BAR_SIZE, this.open,
+                this.open));
+    }
+
+    @Test
+    public void testEmptyAndOpenDaysNotArchived() throws Exception {
+
+        CandleArchive archive = new CandleArchive(archiveDir);
+        assertEquals(0, archive.append(contract.getId(), BAR_SIZE, new ArrayList<>()));
+        assertNull(archive.findCandles(contract, BAR_SIZE, this.open, this.open));
+
+        ZonedDateTime today = TradingCalendar.getTradingDayStart(TradingCalendar.getDateTimeNowMarketTimeZone());
+        assertEquals(0, archive.append(contract.getId(), BAR_SIZE, getCandles(today, new double[]{10.25})));
+        assertNull(archive.findCandles(contract, BAR_SIZE, today, today));
+    }
+
+    private List<Candle> getCandles(ZonedDateTime startPeriod, double[] closes) {
+
+        List<Candle> candles = new ArrayList<>();
+        double open = 10;
+        for (double close : closes) {
+            CandlePeriod period = new CandlePeriod(startPeriod, BAR_SIZE);
+            Candle candle = new Candle(contract, period, open, Math.max(open, close) + 0.125,
+                    Math.min(open, close) - 0.0625, close, 1000 + candles.size(), (open + close) / 2,
+                    10 + candles.size(), startPeriod.plusSeconds(BAR_SIZE));
+            candles.add(candle);
+            startPeriod = startPeriod.plusSeconds(BAR_SIZE);
+            open = close;
+        }
+        return candles;
+    }
+
+    private static void assertCandles(List<Candle> expected, List<Candle> actual) {
+
+        assertNotNull(actual);
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            Candle candle = expected.get(i);
+            Candle read = actual.get(i);
+            assertEquals(candle.getStartPeriod().toInstant(), read.getStartPeriod().toInstant());
+            assertEquals(candle.getLastUpdateDate().toInstant(), read.getLastUpdateDate().toInstant());
+            assertEquals(0, candle.getOpen().compareTo(read.getOpen()));
+            assertEquals(0, candle.getHigh().compareTo(read.getHigh()));
+            assertEquals(0, candle.getLow().compareTo(read.getLow()));
+            assertEquals(0, candle.getClose().compareTo(read.getClose()));
+            assertEquals(0, candle.getVwap().compareTo(read.getVwap()));
+            assertEquals(candle.getVolume(), read.getVolume());
+            assertEquals(candle.getTradeCount(), read.getTradeCount());
+            assertEquals(BAR_SIZE, read.getBarSize().intValue());
+        }
+    }
+}
@@ -0,0 +1,275 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.trade.core.persistent.dao.TradeOrder;
+import org.trade.core.persistent.dao.TradePosition;
+import org.trade.core.valuetype.Action;
+import org.trade.core.valuetype.OrderStatus;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the running totals of {@link TradePositionLedger}. The orders are
+ * not persisted, each update replaces the order's previous contribution.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class TradePositionLedgerTest {
+
+    private static final Integer ID_POSITION = 1;
+
+    private TradePositionLedger ledger = null;
+    private TradePosition tradePosition = null;
+
+    /**
+     * Method setUp.
+     */
+    @BeforeEach
+    public void setUp() {
+
+        ledger = new TradePositionLedger();
+        tradePosition = new TradePosition();
+        tradePosition.setId(ID_POSITION);
+    }
+
+    @Test
+    public void testReplaceFill() {
+
+        TradeOrder buy = createOrder(1, Action.BUY, 100, "10.00", "1.00", OrderStatus.FILLED);
+        tradePosition.addTradeOrder(buy);
+        ledger.seed(tradePosition);
+        assertTrue(ledger.contains(ID_POSITION));
+
+        /*
+         * The same order reported again with a corrected price and commission
+         * replaces the first fill, it is not added twice.
+         */
+        buy.setAverageFilledPrice(new BigDecimal("10.50"));
+        buy.setCommission(new BigDecimal("1.50"));
+        TradePositionLedger.Totals totals = ledger.apply(ID_POSITION, buy);
+        assertTotals(totals, 100, 0, "1050.00", "0", "1.50");
+
+        TradeOrder sell = createOrder(2, Action.SELL, 100, "11.00", "1.00", OrderStatus.FILLED);
+        totals = ledger.apply(ID_POSITION, sell);
+        assertTotals(totals, 100, 100, "1050.00", "1100.00", "2.50");
+        assertFalse(totals.allOrdersCancelled());
+    }
+
+    @Test
+    public void testCancel() {
+
+        TradeOrder buy = createOrder(1, Action.BUY, 100, "10.00", "1.00", OrderStatus.FILLED);
+        TradeOrder stop = createOrder(2, Action.SELL, null, null, null, OrderStatus.SUBMITTED);
+        tradePosition.addTradeOrder(buy);
+        tradePosition.addTradeOrder(stop);
+        ledger.seed(tradePosition);
+
+        stop.setStatus(OrderStatus.CANCELLED);
+        TradePositionLedger.Totals totals = ledger.apply(ID_POSITION, stop);
+        assertTotals(totals, 100, 0, "1000.00", "0", "1.00");
+        assertFalse(totals.allOrdersCancelled());
+
+        buy.setStatus(OrderStatus.CANCELLED);
+        totals = ledger.apply(ID_POSITION, buy);
+        assertTrue(totals.allOrdersCancelled());
+    }
+
+    @Test
+    public void testPartialFill() {
+
+        TradeOrder buy = createOrder(1, Action.BUY, 40, "10.00", "0.40", OrderStatus.PARTIALFILLED);
+        tradePosition.addTradeOrder(buy);
+        ledger.seed(tradePosition);
+
+        /*
+         * Each partial fill reports the cumulative quantity and average price
+         * of the order.
+         */
+        buy.setFilledQuantity(100);
+        buy.setAverageFilledPrice(new BigDecimal("10.06"));
+        buy.setCommission(new BigDecimal("1.00"));
+        buy.setStatus(OrderStatus.FILLED);
+        TradePositionLedger.Totals totals = ledger.apply(ID_POSITION, buy);
+        assertTotals(totals, 100, 0, "1006.00", "0", "1.00");
+
+        TradeOrder sell = createOrder(2, Action.SELL, 30, "10.50", "0.30", OrderStatus.PARTIALFILLED);
+        totals = ledger.apply(ID_POSITION, sell);
+        assertTotals(totals, 100, 30, "1006.00", "315.00", "1.30");
+    }
+
+    @Test
+    public void testReseed() {
+
+        TradeOrder buy = createOrder(1, Action.BUY, 100, "10.00", "1.00", OrderStatus.FILLED);
+        tradePosition.addTradeOrder(buy);
+        ledger.seed(tradePosition);
+
+        ledger.remove(ID_POSITION);
+        assertFalse(ledger.contains(ID_POSITION));
+        assertThrows(IllegalStateException.class, () -> ledger.apply(ID_POSITION, buy));
+
+        /*
+         * The database now has a second order, seeding again starts from all
+         * the orders and not the totals that were forgotten.
+         */
+        TradeOrder sell = createOrder(2, Action.SELL, 50, "12.00", "0.50", OrderStatus.FILLED);
+        tradePosition.addTradeOrder(sell);
+        ledger.seed(tradePosition);
+        assertTrue(ledger.contains(ID_POSITION));
+
+        TradePositionLedger.Totals totals = ledger.apply(ID_POSITION, sell);
+        assertTotals(totals, 100, 50, "1000.00", "600.00", "1.50");
+    }
+
+    @Test
+    public void testGetLock() {
+
+        assertSame(ledger.getLock(1), ledger.getLock(1));
+        assertNotSame(ledger.getLock(1), ledger.getLock(2));
+        assertNotSame(ledger.getLock(1), ledger.getLock(null));
+    }
+
+    @Test
+    public void testConcurrentFills() throws Exception {
+
+        int contracts = 4;
+        int threadsPerContract = 4;
+        int fills = 250;
+        for (int i = 0; i < contracts; i++) {
+            TradePosition position = new TradePosition();
+            position.setId(i);
+            ledger.seed(position);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(contracts * threadsPerContract);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < contracts; i++) {
+                for (int j = 0; j < threadsPerContract; j++) {
+                    final int idContract = i;
+                    final int orderKey = i * threadsPerContract + j;
+                    futures.add(executor.submit(() -> {
+                        TradeOrder order = createOrder(orderKey, Action.BUY, 0, "10.00", "0", OrderStatus.PARTIALFILLED);
+                        start.await();
+                        for (int k = 1; k <= fills; k++) {
+                            order.setFilledQuantity(k);
+                            order.setCommission(BigDecimal.valueOf(k, 2));
+                            synchronized (ledger.getLock(idContract)) {
+                                ledger.apply(idContract, order);
+                            }
+                        }
+                        return null;
+                    }));
+                }
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        /*
+         * Each order ends at its last cumulative fill whatever the order the
+         * updates ran in.
+         */
+        String value = BigDecimal.valueOf(10L * fills * threadsPerContract).toPlainString();
+        String commission = BigDecimal.valueOf((long) fills * threadsPerContract, 2).toPlainString();
+        for (int i = 0; i < contracts; i++) {
+            TradeOrder none = createOrder(-1 - i, Action.SELL, null, null, null, OrderStatus.SUBMITTED);
+            synchronized (ledger.getLock(i)) {
+                assertTotals(ledger.apply(i, none), fills * threadsPerContract, 0, value, "0", commission);
+            }
+        }
+    }
+
+    /**
+     * Method createOrder.
+     *
+     * @param orderKey           int
+     * @param action             String
+     * @param filledQuantity     Integer
+     * @param averageFilledPrice String
+     * @param commission         String
+     * @param status             String
+     * @return TradeOrder
+     */
+    private static TradeOrder createOrder(int orderKey, String action, Integer filledQuantity,
+                                          String averageFilledPrice, String commission, String status) {
+
+        TradeOrder tradeOrder = new TradeOrder();
+        tradeOrder.setOrderKey(orderKey);
+        tradeOrder.setAction(action);
+        tradeOrder.setFilledQuantity(filledQuantity);
+        tradeOrder.setAverageFilledPrice(null == averageFilledPrice ? null : new BigDecimal(averageFilledPrice));
+        tradeOrder.setCommission(null == commission ? null : new BigDecimal(commission));
+        tradeOrder.setStatus(status);
+        return tradeOrder;
+    }
+
+    /**
+     * Method assertTotals.
+     */
+    private static void assertTotals(TradePositionLedger.Totals totals, int buyQuantity, int sellQuantity,
+                                     String buyValue, String sellValue, String commission) {
+
+        assertEquals(buyQuantity, totals.buyQuantity());
+        assertEquals(sellQuantity, totals.sellQuantity());
+        assertEquals(0, new BigDecimal(buyValue).compareTo(totals.buyValue()), "buyValue " + totals.buyValue());
+        assertEquals(0, new BigDecimal(sellValue).compareTo(totals.sellValue()), "sellValue " + totals.sellValue());
+        assertEquals(0, new BigDecimal(commission).compareTo(totals.commission()), "commission " + totals.commission());
+    }
+}
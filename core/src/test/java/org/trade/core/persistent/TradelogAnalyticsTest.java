@@ -0,0 +1,194 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.trade.core.persistent.dao.TradePosition;
+import org.trade.core.persistent.dao.TradelogReport;
+import org.trade.core.persistent.dao.TradelogSummary;
+import org.trade.core.properties.TradeAppLoadConfig;
+import org.trade.core.util.time.TradingCalendar;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests for the {@link TradelogAnalytics} class against a fixture worked by
+ * hand. Four positions close on consecutive trading days with a commission
+ * of 1 each, the net P&L by day is 99, -51, -31 and 199.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class TradelogAnalyticsTest {
+
+    private static final double DELTA = 1e-9;
+
+    private TradelogAnalytics analytics = null;
+
+    /**
+     * Method setUp.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+
+        TradeAppLoadConfig.loadAppProperties();
+        this.analytics = new TradelogAnalytics();
+        addPosition(29, 1, 10, 100, "AAA");
+        addPosition(30, 1, 11, -50, "BBB");
+        addPosition(31, 1, 10, -30, "AAA");
+        addPosition(1, 2, 10, 200, "AAA");
+
+        // Still open so not counted.
+        TradePosition open = newPosition(1, 2, 11, 500);
+        open.setOpenQuantity(100);
+        this.analytics.add(open, "AAA", "Test");
+    }
+
+    @Test
+    public void testDrawdown() {
+
+        TradelogAnalytics.Results results = this.analytics.compute(BigDecimal.ZERO);
+
+        // Equity 99, 48, 17, 216 the fall is from 99 to 17.
+        assertEquals(4, results.equityCurve().length);
+        assertEquals(99, results.equityCurve()[0], DELTA);
+        assertEquals(17, results.equityCurve()[2], DELTA);
+        assertEquals(216, results.equityCurve()[3], DELTA);
+        assertEquals(82, results.maxDrawdown(), DELTA);
+        assertEquals(getCloseDate(29, 1, 10).toInstant(), results.maxDrawdownStart().toInstant());
+        assertEquals(getCloseDate(31, 1, 10).toInstant(), results.maxDrawdownEnd().toInstant());
+    }
+
+    @Test
+    public void testSharpeSortino() {
+
+        TradelogAnalytics.Results results = this.analytics.compute(BigDecimal.ZERO);
+
+        /*
+         * Mean 54, squared deviations 2025 + 11025 + 7225 + 21025 = 41300
+         * over n - 1. Downside squares 2601 + 961 = 3562 over n.
+         */
+        assertEquals(4, results.tradingDays());
+        assertEquals((54 / Math.sqrt(41300d / 3)) * Math.sqrt(252), results.sharpeRatio(), DELTA);
+        assertEquals((54 / Math.sqrt(3562d / 4)) * Math.sqrt(252), results.sortinoRatio(), DELTA);
+        assertEquals(7.306, results.sharpeRatio(), 0.001);
+        assertEquals(28.726, results.sortinoRatio(), 0.001);
+    }
+
+    @Test
+    public void testMonthlyBuckets() {
+
+        TradelogAnalytics.Results results = this.analytics.compute(new BigDecimal("10"));
+
+        assertEquals(2, results.byMonth().size());
+        TradelogAnalytics.Row february = results.byMonth().get(0);
+        assertEquals("2024/02", february.name());
+        assertEquals(1, february.positions());
+        assertEquals(1, february.wins());
+        assertEquals(0, february.losses());
+        assertEquals(199, february.netProfitLoss(), DELTA);
+
+        TradelogAnalytics.Row january = results.byMonth().get(1);
+        assertEquals("2024/01", january.name());
+        assertEquals(3, january.positions());
+        assertEquals(1, january.wins());
+        assertEquals(2, january.losses());
+        assertEquals(600, january.quantity());
+        assertEquals(100, january.profitAmount(), DELTA);
+        assertEquals(-80, january.lossAmount(), DELTA);
+        assertEquals(3, january.commission(), DELTA);
+        assertEquals(17, january.netProfitLoss(), DELTA);
+
+        TradelogAnalytics.Row total = results.total();
+        assertEquals(4, total.positions());
+        assertEquals(216, total.netProfitLoss(), DELTA);
+        assertEquals(0.5, total.battingAverage(), DELTA);
+
+        // The -30 is no longer a loss once the amount is 40.
+        january = this.analytics.compute(new BigDecimal("40")).byMonth().get(1);
+        assertEquals(1, january.wins());
+        assertEquals(1, january.losses());
+    }
+
+    @Test
+    public void testTradelogReport() {
+
+        TradelogAnalytics.Results results = this.analytics.compute(new BigDecimal("10"));
+        TradelogReport tradelogReport = TradelogAnalytics.toTradelogReport(results);
+
+        List<TradelogSummary> rows = tradelogReport.getTradelogSummary();
+        assertEquals(3, rows.size());
+        assertEquals("Total", rows.get(0).getPeriod());
+        assertEquals(new BigDecimal("216.00"), rows.get(0).getNetProfitLoss());
+        assertEquals("2024/02", rows.get(1).getPeriod());
+        assertEquals("2024/01", rows.get(2).getPeriod());
+        assertEquals(new BigDecimal("17.00"), rows.get(2).getNetProfitLoss());
+        assertEquals(1, rows.get(2).getWinCount().intValue());
+        assertEquals(2, rows.get(2).getLossCount().intValue());
+        // Average win 100 over average loss 80 / 2.
+        assertEquals(new BigDecimal("2.5000"), rows.get(2).getSimpleSharpeRatio());
+        assertNull(rows.get(1).getSimpleSharpeRatio());
+        assertEquals(results, tradelogReport.getAnalytics());
+    }
+
+    private void addPosition(int day, int month, int hour, double gross, String symbol) {
+        this.analytics.add(newPosition(day, month, hour, gross), symbol, "Test");
+    }
+
+    private static TradePosition newPosition(int day, int month, int hour, double gross) {
+
+        ZonedDateTime close = getCloseDate(day, month, hour);
+        TradePosition position = new TradePosition();
+        position.setPositionOpenDate(close.minusMinutes(30));
+        position.setPositionCloseDate(close);
+        position.setOpenQuantity(0);
+        position.setTotalBuyQuantity(100);
+        position.setTotalSellQuantity(100);
+        position.setTotalNetValue(BigDecimal.valueOf(gross));
+        position.setTotalCommission(BigDecimal.ONE);
+        return position;
+    }
+
+    private static ZonedDateTime getCloseDate(int day, int month, int hour) {
+        return ZonedDateTime.of(2024, month, day, hour, 0, 0, 0, TradingCalendar.MKT_TIMEZONE);
+    }
+}
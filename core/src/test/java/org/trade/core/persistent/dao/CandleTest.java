@@ -43,6 +43,7 @@ import org.junit.jupiter.api.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.trade.core.dao.AspectHome;
+import org.trade.core.persistent.dao.series.indicator.CandleSeries;
 import org.trade.core.persistent.dao.series.indicator.StrategyData;
 import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
 import org.trade.core.persistent.dao.series.indicator.candle.CandlePeriod;
@@ -53,7 +54,15 @@ import org.trade.core.valuetype.BarSize;
 
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 
@@ -149,4 +158,53 @@ public class CandleTest {
                     .getCandle().getId());
         }
     }
+
+    @Test
+    public void testAddCandleSeriesSameNewTradingday() throws Exception {
+
+        /*
+         * Two contracts saved at the same time for a tradingday that is not in
+         * the database, each with its own Tradingday instance.
+         */
+        Tradestrategy tradestrategy1 = TradestrategyBase.getTestTradestrategy("TEST1");
+        ZonedDateTime open = TradingCalendar.addTradingDays(this.tradestrategy.getTradingday().getOpen(), -20);
+        final List<CandleSeries> candleSeries = new ArrayList<>();
+        for (Tradestrategy item : List.of(this.tradestrategy, tradestrategy1)) {
+            StrategyData.doDummyData(item.getStrategyData().getBaseCandleSeries(), Tradingday.newInstance(open), 1,
+                    BarSize.FIVE_MIN, true, 0);
+            candleSeries.add(item.getStrategyData().getBaseCandleSeries());
+        }
+
+        CandleHome candleHome = new CandleHome();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(candleSeries.size());
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (CandleSeries item : candleSeries) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    candleHome.persistCandleSeries(item);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<Void> result : results) {
+                // Fails with a TimeoutException if the saves deadlock.
+                result.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Tradingday tradingday = Tradingday.newInstance(open);
+        tradingday = new TradingdayHome().findByOpenCloseDate(tradingday.getOpen(), tradingday.getClose());
+        assertNotNull(tradingday);
+        for (CandleSeries item : candleSeries) {
+            for (int i = 0; i < item.getItemCount(); i++) {
+                Candle candle = ((CandleItem) item.getDataItem(i)).getCandle();
+                assertNotNull(candle.getId());
+                assertEquals(tradingday.getId(), candle.getTradingday().getId());
+            }
+        }
+    }
 }
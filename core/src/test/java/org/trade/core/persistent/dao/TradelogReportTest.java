@@ -47,8 +47,10 @@ import org.trade.core.util.time.TradingCalendar;
 import org.trade.core.valuetype.DAOPortfolio;
 
 import java.math.BigDecimal;
+import java.time.ZonedDateTime;
 import java.util.Objects;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -122,4 +124,47 @@ public class TradelogReportTest {
             _log.info("testTradelogSummary tradelogDetail: getPeriod:{}getBattingAverage:{}getSimpleSharpeRatio:{}getQuantity:{}getGrossProfitLoss:{}getQuantity:{}getNetProfitLoss:{}", tradelogSummary.getPeriod(), tradelogSummary.getBattingAverage(), tradelogSummary.getSimpleSharpeRatio(), tradelogSummary.getQuantity(), tradelogSummary.getGrossProfitLoss(), tradelogSummary.getQuantity(), tradelogSummary.getNetProfitLoss());
         }
     }
+
+    @Test
+    public void testTradelogSummaryMatchesDetail() {
+
+        TradelogHome tradelogHome = new TradelogHome();
+        Portfolio portfolio = (Portfolio) Objects.requireNonNull(DAOPortfolio.newInstance()).getObject();
+        ZonedDateTime start = TradingCalendar.getYearStart();
+        ZonedDateTime end = TradingCalendar.getTradingDayEnd(TradingCalendar.getDateTimeNowMarketTimeZone());
+        TradelogReport summaryReport = tradelogHome.findByTradelogSummary(portfolio, start, end, null,
+                new BigDecimal(0));
+        TradelogReport detailReport = tradelogHome.findByTradelogDetail(portfolio, start, end, false, null);
+
+        /*
+         * The detail has a total row per position, it has no action.
+         */
+        int positionCount = 0;
+        BigDecimal commission = BigDecimal.ZERO;
+        BigDecimal netProfitLoss = BigDecimal.ZERO;
+        for (TradelogDetail tradelogDetail : detailReport.getTradelogDetail()) {
+            if (null == tradelogDetail.getAction() || tradelogDetail.getAction().isEmpty()) {
+                positionCount++;
+                commission = commission.add(tradelogDetail.getCommission());
+                netProfitLoss = netProfitLoss.add(tradelogDetail.getProfitLoss());
+            }
+        }
+
+        TradelogSummary total = null;
+        for (TradelogSummary tradelogSummary : summaryReport.getTradelogSummary()) {
+            if ("Total".equals(tradelogSummary.getPeriod())) {
+                total = tradelogSummary;
+            }
+        }
+        if (null == total) {
+            assertEquals(0, positionCount);
+            return;
+        }
+        assertEquals(positionCount, total.getPositionCount().intValue());
+        BigDecimal tolerance = new BigDecimal("0.01");
+        assertTrue(commission.subtract(total.getCommission()).abs().compareTo(tolerance) < 0,
+                "commission summary: " + total.getCommission() + " detail: " + commission);
+        assertTrue(netProfitLoss.subtract(total.getNetProfitLoss()).abs().compareTo(tolerance) < 0,
+                "net profit loss summary: " + total.getNetProfitLoss() + " detail: " + netProfitLoss);
+    }
 }
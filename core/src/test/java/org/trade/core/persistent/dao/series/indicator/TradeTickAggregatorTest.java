@@ -0,0 +1,168 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.persistent.dao.series.indicator;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.trade.core.persistent.dao.Contract;
+import org.trade.core.persistent.dao.series.indicator.candle.CandleItem;
+import org.trade.core.persistent.dao.series.indicator.candle.TradeTickAggregator;
+import org.trade.core.properties.TradeAppLoadConfig;
+import org.trade.core.util.time.TradingCalendar;
+import org.trade.core.valuetype.Currency;
+import org.trade.core.valuetype.Exchange;
+import org.trade.core.valuetype.SECType;
+
+import java.math.BigDecimal;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Some tests for the {@link TradeTickAggregator} class. The realtime bars are
+ * added the same way StrategyData.buildCandle() does.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class TradeTickAggregatorTest {
+
+    private static final int BAR_SIZE = 300;
+    private static final int ROLLUP_INTERVAL = BAR_SIZE / 5;
+
+    private CandleSeries candleSeries = null;
+    private TradeTickAggregator aggregator = null;
+    private ZonedDateTime open = null;
+
+    /**
+     * Method setUp.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+
+        TradeAppLoadConfig.loadAppProperties();
+        this.open = TradingCalendar.getTradingDayStart(TradingCalendar.getDateTimeNowMarketTimeZone());
+        Contract contract = new Contract(SECType.STOCK, "TEST", Exchange.SMART, Currency.USD, null, null);
+        contract.setLastBidPrice(new BigDecimal("9.90"));
+        contract.setLastAskPrice(new BigDecimal("10.20"));
+        this.candleSeries = new CandleSeries("TEST", contract, BAR_SIZE, this.open,
+                TradingCalendar.getTradingDayEnd(this.open));
+        this.aggregator = new TradeTickAggregator(this.candleSeries);
+    }
+
+    @Test
+    public void testPrintsMergedWithRealtimeBar() throws Exception {
+
+        addBar(this.open, 10.00, 10.10, 9.95, 10.05, 1000, 10.02);
+        CandleItem candleItem = (CandleItem) this.candleSeries.getDataItem(0);
+
+        // 2 lots at a new high.
+        assertTrue(this.aggregator.onTrade(10.15, 2, getMillis(this.open.plusSeconds(6))));
+        assertEquals(10.15, candleItem.getHigh(), 0);
+        assertEquals(10.15, candleItem.getClose(), 0);
+        assertEquals(1200, candleItem.getVolume());
+        assertEquals(((10.02 * 1000) + (10.15 * 200)) / 1200, candleItem.getVwap(), 1e-9);
+
+        assertTrue(this.aggregator.onTrade(9.96, 1, getMillis(this.open.plusSeconds(7))));
+        assertEquals(9.95, candleItem.getLow(), 0);
+        assertEquals(9.96, candleItem.getClose(), 0);
+        assertEquals(1300, candleItem.getVolume());
+        assertEquals(((10.02 * 1000) + (10.15 * 200) + (9.96 * 100)) / 1300, candleItem.getVwap(), 1e-9);
+
+        /*
+         * The next realtime bar carries the same trades, the volume and vwap
+         * are those of the bars only.
+         */
+        addBar(this.open.plusSeconds(5), 10.05, 10.15, 9.96, 10.12, 300, 10.10);
+        assertEquals(1, this.candleSeries.getItemCount());
+        assertEquals(10.15, candleItem.getHigh(), 0);
+        assertEquals(10.12, candleItem.getClose(), 0);
+        assertEquals(1300, candleItem.getVolume());
+        assertEquals(((10.02 * 1000) + (10.10 * 300)) / 1300, candleItem.getVwap(), 1e-9);
+        assertEquals(2, this.aggregator.getAccepted());
+    }
+
+    @Test
+    public void testPrintsRejected() throws Exception {
+
+        addBar(this.open, 10.00, 10.10, 9.95, 10.05, 1000, 10.02);
+        CandleItem candleItem = (CandleItem) this.candleSeries.getDataItem(0);
+
+        // Outside the bid/ask.
+        assertFalse(this.aggregator.onTrade(10.50, 1, getMillis(this.open.plusSeconds(6))));
+        // Already in the last realtime bar.
+        assertFalse(this.aggregator.onTrade(10.00, 1, getMillis(this.open.plusSeconds(3))));
+        // A new candle waits for its realtime bar.
+        assertFalse(this.aggregator.onTrade(10.00, 1, getMillis(this.open.plusSeconds(BAR_SIZE + 1))));
+
+        assertEquals(10.10, candleItem.getHigh(), 0);
+        assertEquals(1000, candleItem.getVolume());
+        assertEquals(10.02, candleItem.getVwap(), 0);
+        assertEquals(3, this.aggregator.getRejected());
+    }
+
+    /**
+     * Method addBar. Add a 5sec realtime bar as StrategyData.buildCandle()
+     * does.
+     *
+     * @param time   ZonedDateTime
+     * @param open   double
+     * @param high   double
+     * @param low    double
+     * @param close  double
+     * @param volume long
+     * @param vwap   double
+     */
+    private void addBar(ZonedDateTime time, double open, double high, double low, double close, long volume,
+                        double vwap) throws Exception {
+
+        this.aggregator.onBar(getMillis(time), ROLLUP_INTERVAL);
+        this.candleSeries.buildCandle(time, open, high, low, close, volume, vwap, 1, ROLLUP_INTERVAL,
+                time.plusSeconds(5));
+    }
+
+    /**
+     * Method getMillis.
+     *
+     * @param time ZonedDateTime
+     * @return long
+     */
+    private static long getMillis(ZonedDateTime time) {
+        return TradingCalendar.geMillisFromZonedDateTime(time);
+    }
+}
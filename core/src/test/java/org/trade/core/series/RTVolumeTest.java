@@ -0,0 +1,119 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.series;
+
+import org.junit.jupiter.api.Test;
+import org.trade.core.persistent.dao.series.indicator.candle.RTVolume;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Some tests for the {@link RTVolume} class.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class RTVolumeTest {
+
+    @Test
+    public void testParse() {
+
+        RTVolume rtVolume = new RTVolume();
+        assertTrue(rtVolume.parse("701.28;1;1348075471534;67854;701.46918464;true"));
+        assertEquals(701.28, rtVolume.getPrice(), 0);
+        assertEquals(1, rtVolume.getSize());
+        assertEquals(1348075471534L, rtVolume.getTime());
+        assertEquals(67854, rtVolume.getTotalVolume());
+        assertEquals(701.46918464, rtVolume.getVwap(), 0);
+        assertTrue(rtVolume.isSingleTrade());
+
+        // The holder is reused for the next print.
+        assertTrue(rtVolume.parse(".5;200.0;1348075471535;67855;9.;false"));
+        assertEquals(0.5, rtVolume.getPrice(), 0);
+        assertEquals(200, rtVolume.getSize());
+        assertEquals(1348075471535L, rtVolume.getTime());
+        assertEquals(9, rtVolume.getVwap(), 0);
+        assertFalse(rtVolume.isSingleTrade());
+    }
+
+    @Test
+    public void testParseEmptyFields() {
+
+        RTVolume rtVolume = new RTVolume();
+        assertTrue(rtVolume.parse("10.25;;1348075471534;;;"));
+        assertEquals(10.25, rtVolume.getPrice(), 0);
+        assertEquals(0, rtVolume.getSize());
+        assertEquals(0, rtVolume.getTotalVolume());
+        assertTrue(Double.isNaN(rtVolume.getVwap()));
+        assertFalse(rtVolume.isSingleTrade());
+
+        // Fields missing from the end.
+        assertTrue(rtVolume.parse("10.25;3"));
+        assertEquals(3, rtVolume.getSize());
+        assertEquals(0, rtVolume.getTime());
+        assertFalse(rtVolume.isSingleTrade());
+
+        assertFalse(rtVolume.parse(""));
+        assertFalse(rtVolume.parse(";;;;;"));
+    }
+
+    @Test
+    public void testParseUnreportable() {
+
+        /*
+         * Unreportable trades have no price and size only the volume for the
+         * day and vwap.
+         */
+        RTVolume rtVolume = new RTVolume();
+        assertFalse(rtVolume.parse(";;1348075471534;67900;701.46918464;false"));
+        assertFalse(rtVolume.parse("0;;1348075471534;67900;701.46918464;false"));
+    }
+
+    @Test
+    public void testParseMalformed() {
+
+        RTVolume rtVolume = new RTVolume();
+        assertFalse(rtVolume.parse("abc;1;1348075471534;67854;701.46;true"));
+        assertFalse(rtVolume.parse("10.2.5;1;1348075471534;67854;701.46;true"));
+        assertFalse(rtVolume.parse("10.25;x;1348075471534;67854;701.46;true"));
+
+        // More digits than a double holds exactly.
+        assertTrue(rtVolume.parse("1234567890.12345678;1;1348075471534;67854;701.46;true"));
+        assertEquals(1234567890.12345678, rtVolume.getPrice(), 0);
+    }
+}
@@ -0,0 +1,139 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.series;
+
+import org.junit.jupiter.api.Test;
+import org.trade.core.persistent.dao.series.indicator.RollingMinMax;
+import org.trade.core.persistent.dao.series.indicator.RollingWindow;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Some tests for the {@link RollingWindow} and {@link RollingMinMax} classes.
+ * The windows are checked against a LinkedList rolled the same way.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class RollingWindowTest {
+
+    @Test
+    public void testRollingWindow() {
+
+        int length = 5;
+        RollingWindow window = new RollingWindow(2);
+        LinkedList<Double> values = new LinkedList<>();
+        Random random = new Random(20);
+
+        for (int n = 0; n < 10000; n++) {
+            double value = random.nextInt(1000) / 10d;
+            roll(window, values, length, value, random.nextBoolean());
+
+            double weightedSum = 0;
+            double sum = 0;
+            for (int i = 0; i < values.size(); i++) {
+                assertEquals(values.get(i), window.get(i), 0);
+                sum = sum + values.get(i);
+                weightedSum = weightedSum + (values.get(i) * (length - i));
+            }
+            assertEquals(values.size(), window.size());
+            assertEquals(values.getFirst(), window.getFirst(), 0);
+            assertEquals(values.getLast(), window.getLast(), 0);
+            assertEquals(sum, window.getSum(), 0.000001);
+            assertEquals(weightedSum, window.getWeightedSum(length), 0.000001);
+        }
+        window.clear();
+        assertEquals(0, window.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> window.get(0));
+    }
+
+    @Test
+    public void testRollingMinMax() {
+
+        int length = 14;
+        RollingMinMax window = new RollingMinMax();
+        LinkedList<Double> values = new LinkedList<>();
+        Random random = new Random(14);
+
+        for (int n = 0; n < 10000; n++) {
+            double value = random.nextInt(1000) / 10d;
+            roll(window, values, length, value, random.nextInt(3) > 0);
+            if (values.size() > 1 && random.nextInt(10) == 0) {
+                assertEquals(values.removeFirst(), window.removeFirst(), 0);
+            }
+            assertEquals(Collections.max(values), window.getMax(), 0);
+            assertEquals(Collections.min(values), window.getMin(), 0);
+        }
+        while (!values.isEmpty()) {
+            assertEquals(Collections.max(values), window.getMax(), 0);
+            assertEquals(Collections.min(values), window.getMin(), 0);
+            assertEquals(values.removeFirst(), window.removeFirst(), 0);
+        }
+        assertTrue(window.isEmpty());
+    }
+
+    /**
+     * Method roll. Adds a new value or updates the newest value in both the
+     * window and the list in the same way the indicator series do.
+     *
+     * @param window RollingWindow
+     * @param values LinkedList<Double>
+     * @param length int
+     * @param value  double
+     * @param newBar boolean
+     */
+    private void roll(RollingWindow window, LinkedList<Double> values, int length, double value, boolean newBar) {
+
+        if (newBar || values.isEmpty()) {
+            if (values.size() == length) {
+                values.removeLast();
+                window.removeLast();
+            }
+            values.addFirst(value);
+            window.addFirst(value);
+        } else {
+            values.removeFirst();
+            values.addFirst(value);
+            window.setFirst(value);
+        }
+    }
+}
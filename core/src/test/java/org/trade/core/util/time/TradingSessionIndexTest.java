@@ -0,0 +1,208 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.core.util.time;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.trade.core.properties.TradeAppLoadConfig;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the {@link TradingSessionIndex} mapping between milliseconds and
+ * the timeline that skips the time between sessions. The extended hours
+ * session 04:00 to 20:00 is used so the shared index is not one other tests
+ * build.
+ *
+ * @author Simon Allen
+ * @version $Revision: 1.0 $
+ */
+public class TradingSessionIndexTest {
+
+    private static final long SESSION_MILLIS = 16 * 60 * 60 * 1000L;
+
+    private ZonedDateTime open = null;
+    private ZonedDateTime close = null;
+
+    /**
+     * Method setUp.
+     */
+    @BeforeEach
+    public void setUp() throws Exception {
+
+        TradeAppLoadConfig.loadAppProperties();
+        open = getDateTime(2024, 1, 2, 4, 0);
+        close = getDateTime(2024, 1, 2, 20, 0);
+    }
+
+    @Test
+    public void testSessionGap() {
+
+        TradingSessionIndex index = getIndex(getDateTime(2024, 1, 9, 0, 0), getDateTime(2024, 1, 10, 0, 0));
+
+        long midday = getMillis(2024, 1, 9, 12, 0);
+        assertEquals(midday, index.toMillisecond(index.toTimelineValue(midday)));
+        assertTrue(index.contains(midday));
+
+        /*
+         * Overnight times are all at the close of the session before which is
+         * the open of the next session.
+         */
+        long overnight = getMillis(2024, 1, 9, 22, 0);
+        long nextOpen = getMillis(2024, 1, 10, 4, 0);
+        assertFalse(index.contains(overnight));
+        assertEquals(index.toTimelineValue(getMillis(2024, 1, 9, 20, 0)), index.toTimelineValue(overnight));
+        assertEquals(index.toTimelineValue(nextOpen), index.toTimelineValue(overnight));
+        assertEquals(nextOpen, index.toMillisecond(index.toTimelineValue(overnight)));
+        assertEquals(SESSION_MILLIS,
+                index.toTimelineValue(nextOpen) - index.toTimelineValue(getMillis(2024, 1, 9, 4, 0)));
+
+        assertTrue(index.contains(getMillis(2024, 1, 9, 19, 0), getMillis(2024, 1, 9, 20, 0)));
+        assertFalse(index.contains(getMillis(2024, 1, 9, 19, 0), getMillis(2024, 1, 10, 5, 0)));
+    }
+
+    @Test
+    public void testWeekend() {
+
+        TradingSessionIndex index = getIndex(getDateTime(2024, 1, 19, 0, 0), getDateTime(2024, 1, 22, 0, 0));
+
+        long friday = getMillis(2024, 1, 19, 4, 0);
+        long saturday = getMillis(2024, 1, 20, 12, 0);
+        long monday = getMillis(2024, 1, 22, 4, 0);
+        assertFalse(index.contains(saturday));
+        assertEquals(SESSION_MILLIS, index.toTimelineValue(monday) - index.toTimelineValue(friday));
+        assertEquals(index.toTimelineValue(monday), index.toTimelineValue(saturday));
+        assertEquals(monday, index.toMillisecond(index.toTimelineValue(saturday)));
+
+        for (long millis = friday; millis < monday + SESSION_MILLIS; millis = millis + 15 * 60 * 1000L) {
+            if (index.contains(millis)) {
+                assertEquals(millis, index.toMillisecond(index.toTimelineValue(millis)));
+            }
+        }
+    }
+
+    @Test
+    public void testDaylightSaving() {
+
+        /*
+         * Clocks go forward on Sunday 10 March and back on Sunday 3 November
+         * 2024, the sessions either side are still one session apart.
+         */
+        TradingSessionIndex index = getIndex(getDateTime(2024, 3, 8, 0, 0), getDateTime(2024, 3, 11, 0, 0));
+        assertEquals(SESSION_MILLIS, index.toTimelineValue(getMillis(2024, 3, 11, 4, 0))
+                - index.toTimelineValue(getMillis(2024, 3, 8, 4, 0)));
+        long millis = getMillis(2024, 3, 11, 12, 0);
+        assertEquals(millis, index.toMillisecond(index.toTimelineValue(millis)));
+
+        index = getIndex(getDateTime(2024, 11, 1, 0, 0), getDateTime(2024, 11, 4, 0, 0));
+        assertEquals(SESSION_MILLIS, index.toTimelineValue(getMillis(2024, 11, 4, 4, 0))
+                - index.toTimelineValue(getMillis(2024, 11, 1, 4, 0)));
+        millis = getMillis(2024, 11, 4, 12, 0);
+        assertEquals(millis, index.toMillisecond(index.toTimelineValue(millis)));
+    }
+
+    @Test
+    public void testPaddingDays() {
+
+        ZonedDateTime startDate = getDateTime(2024, 6, 3, 0, 0);
+        ZonedDateTime endDate = getDateTime(2024, 6, 7, 0, 0);
+        TradingSessionIndex index = getIndex(startDate, endDate);
+        LocalDate fromDay = startDate.toLocalDate().minusDays(TradingSessionIndex.PADDING_DAYS);
+        LocalDate toDay = endDate.toLocalDate().plusDays(TradingSessionIndex.PADDING_DAYS);
+        assertTrue(index.covers(fromDay, toDay));
+        assertEquals(index, getIndex(startDate.minusDays(TradingSessionIndex.PADDING_DAYS), endDate));
+
+        /*
+         * Outside the days indexed the timeline runs at clock time.
+         */
+        for (long millis : new long[]{getMillis(2023, 1, 3, 12, 0), getMillis(2025, 12, 31, 22, 0)}) {
+            assertEquals(millis, index.toMillisecond(index.toTimelineValue(millis)));
+            assertTrue(index.contains(millis));
+        }
+
+        /*
+         * A range past the padding builds a larger index, the times in the
+         * first index keep their values.
+         */
+        ZonedDateTime later = getDateTime(2024, 6, 7, 0, 0).plusDays(TradingSessionIndex.PADDING_DAYS + 10);
+        TradingSessionIndex larger = getIndex(later, later);
+        assertTrue(larger.covers(fromDay, later.toLocalDate()));
+        for (LocalDate day = fromDay; !day.isAfter(toDay); day = day.plusDays(1)) {
+            long millis = getMillis(day.getYear(), day.getMonthValue(), day.getDayOfMonth(), 10, 0);
+            assertEquals(index.toTimelineValue(millis), larger.toTimelineValue(millis));
+            if (larger.contains(millis)) {
+                assertEquals(millis, larger.toMillisecond(larger.toTimelineValue(millis)));
+            }
+        }
+        long millis = getMillis(later.getYear(), later.getMonthValue(), later.getDayOfMonth(), 10, 0);
+        assertEquals(millis, larger.toMillisecond(larger.toTimelineValue(millis)));
+    }
+
+    /**
+     * Method getIndex.
+     *
+     * @param startDate ZonedDateTime
+     * @param endDate   ZonedDateTime
+     * @return TradingSessionIndex
+     */
+    private TradingSessionIndex getIndex(ZonedDateTime startDate, ZonedDateTime endDate) {
+        return TradingSessionIndex.getInstance(open, close, startDate, endDate);
+    }
+
+    /**
+     * Method getDateTime.
+     *
+     * @return ZonedDateTime in the market time zone.
+     */
+    private static ZonedDateTime getDateTime(int year, int month, int day, int hour, int minute) {
+        return ZonedDateTime.of(LocalDateTime.of(year, month, day, hour, minute), TradingCalendar.MKT_TIMEZONE);
+    }
+
+    /**
+     * Method getMillis.
+     *
+     * @return long
+     */
+    private static long getMillis(int year, int month, int day, int hour, int minute) {
+        return getDateTime(year, month, day, hour, minute).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,21 @@
+-- Add the portfolio to the tradeposition so the tradelog summary can be
+-- answered from the position totals without reading the tradeorders.
+-- Run once against an existing database, new databases get the column
+-- from schema-ddl.sql
+
+USE tradeprod;
+
+ALTER TABLE tradeposition ADD COLUMN id_portfolio INT NULL AFTER id_contract;
+ALTER TABLE tradeposition ADD INDEX tradeposition_portfolio_idx (id_portfolio ASC, position_close_date ASC);
+ALTER TABLE tradeposition ADD CONSTRAINT tradeposition_portfolio_fk FOREIGN KEY (id_portfolio)
+REFERENCES portfolio (id) ON DELETE NO ACTION ON UPDATE NO ACTION;
+COMMIT;
+UPDATE tradeposition
+INNER JOIN (SELECT tradeorder.id_trade_position, MIN(tradestrategy.id_portfolio) AS id_portfolio
+FROM tradeorder
+INNER JOIN tradestrategy ON tradestrategy.id = tradeorder.id_tradestrategy
+WHERE tradeorder.id_trade_position IS NOT NULL
+GROUP BY tradeorder.id_trade_position) positions ON positions.id_trade_position = tradeposition.id
+SET tradeposition.id_portfolio = positions.id_portfolio
+WHERE tradeposition.id > 0;
+COMMIT;
@@ -5,7 +5,7 @@ package com.ib.client;
 
 import java.util.Set;
 
-class DefaultEWrapper implements EWrapper {
+public class DefaultEWrapper implements EWrapper {
 
     @Override
     public void tickPrice(int tickerId, int field, double price,
@@ -5,6 +5,7 @@ import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInput;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
@@ -72,6 +73,7 @@ class EDecoder implements ObjectInput {
     EWrapper m_EWrapper;
     int m_serverVersion;
     private IMessageReader m_messageReader;
+    private final BufferMessageReader m_bufferReader = new BufferMessageReader();
 
     public EDecoder(int serverVersion, EWrapper callback) {
         this(serverVersion, callback, null);
@@ -120,8 +122,14 @@ class EDecoder implements ObjectInput {
         return m_messageReader != null;
     }
 
+    protected boolean readMessageToInternalBuf(EMessage msg) {
+        m_messageReader = m_bufferReader.reset(msg.buffer(), msg.length());
+
+        return true;
+    }
+
     public int processMsg(EMessage msg) throws IOException {
-        if (!readMessageToInternalBuf(msg.getStream())) {
+        if (!readMessageToInternalBuf(msg)) {
             return 0;
         }
 
@@ -1603,35 +1611,27 @@ class EDecoder implements ObjectInput {
     }
 
     boolean readBoolFromInt() throws IOException {
-        String str = readStr();
-        return str == null ? false : (Integer.parseInt(str) != 0);
+        return m_messageReader.readInt(0) != 0;
     }
 
     public int readInt() throws IOException {
-        String str = readStr();
-        return str == null ? 0 : Integer.parseInt(str);
+        return m_messageReader.readInt(0);
     }
 
     protected int readIntMax() throws IOException {
-        String str = readStr();
-        return (str == null || str.length() == 0) ? Integer.MAX_VALUE
-                : Integer.parseInt(str);
+        return m_messageReader.readInt(Integer.MAX_VALUE);
     }
 
     public long readLong() throws IOException {
-        String str = readStr();
-        return str == null ? 0l : Long.parseLong(str);
+        return m_messageReader.readLong(0l);
     }
 
     public double readDouble() throws IOException {
-        String str = readStr();
-        return str == null ? 0 : Double.parseDouble(str);
+        return m_messageReader.readDouble(0);
     }
 
     protected double readDoubleMax() throws IOException {
-        String str = readStr();
-        return (str == null || str.length() == 0) ? Double.MAX_VALUE
-                : Double.parseDouble(str);
+        return m_messageReader.readDouble(Double.MAX_VALUE);
     }
 
     /**
@@ -1641,6 +1641,190 @@ class EDecoder implements ObjectInput {
         public abstract String readStr() throws IOException;
 
         public abstract int msgLength();
+
+        /**
+         * @param emptyValue returned for an empty field.
+         */
+        public default int readInt(int emptyValue) throws IOException {
+            String str = readStr();
+            return str == null ? emptyValue : Integer.parseInt(str);
+        }
+
+        public default long readLong(long emptyValue) throws IOException {
+            String str = readStr();
+            return str == null ? emptyValue : Long.parseLong(str);
+        }
+
+        public default double readDouble(double emptyValue) throws IOException {
+            String str = readStr();
+            return str == null ? emptyValue : Double.parseDouble(str);
+        }
+    }
+
+    /**
+     * Reads the fields straight from the message buffer. Numeric fields are
+     * parsed from the bytes, a String is only created for fields read with
+     * readStr or numbers the fast paths do not cover.
+     */
+    private static final class BufferMessageReader implements IMessageReader {
+        // Powers of ten that are exact as a double.
+        private static final double[] POW10 = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+        // Digits that always fit in the 53 bit mantissa of a double.
+        private static final int MAX_EXACT_DIGITS = 15;
+        private static final int MAX_LONG_DIGITS = 18;
+
+        private byte[] m_buf;
+        private int m_len;
+        private int m_pos;
+
+        BufferMessageReader reset(byte[] buf, int len) {
+            m_buf = buf;
+            m_len = len;
+            m_pos = 0;
+            return this;
+        }
+
+        @Override
+        public int msgLength() {
+            return m_pos;
+        }
+
+        /**
+         * Move past the next field and its terminator.
+         *
+         * @return the index of the terminator, the field starts at m_pos.
+         */
+        private int fieldEnd() throws EOFException {
+            for (int i = m_pos; i < m_len; i++) {
+                if (m_buf[i] == 0) {
+                    return i;
+                }
+            }
+            m_pos = m_len;
+            throw new EOFException();
+        }
+
+        @Override
+        public String readStr() throws IOException {
+            int start = m_pos;
+            int end = fieldEnd();
+            m_pos = end + 1;
+            return end == start ? null : new String(m_buf, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public int readInt(int emptyValue) throws IOException {
+            int start = m_pos;
+            int end = fieldEnd();
+            m_pos = end + 1;
+
+            if (end == start) {
+                return emptyValue;
+            }
+            long value = parseLong(start, end);
+
+            if (value == Long.MIN_VALUE || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                return Integer.parseInt(new String(m_buf, start, end - start, StandardCharsets.ISO_8859_1));
+            }
+            return (int) value;
+        }
+
+        @Override
+        public long readLong(long emptyValue) throws IOException {
+            int start = m_pos;
+            int end = fieldEnd();
+            m_pos = end + 1;
+
+            if (end == start) {
+                return emptyValue;
+            }
+            long value = parseLong(start, end);
+
+            if (value == Long.MIN_VALUE) {
+                return Long.parseLong(new String(m_buf, start, end - start, StandardCharsets.ISO_8859_1));
+            }
+            return value;
+        }
+
+        @Override
+        public double readDouble(double emptyValue) throws IOException {
+            int start = m_pos;
+            int end = fieldEnd();
+            m_pos = end + 1;
+
+            if (end == start) {
+                return emptyValue;
+            }
+            int i = start;
+            boolean negative = m_buf[i] == '-';
+
+            if (negative || m_buf[i] == '+') {
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int fraction = -1;
+
+            for (; i < end; i++) {
+                int c = m_buf[i];
+
+                if (c >= '0' && c <= '9') {
+                    mantissa = mantissa * 10 + (c - '0');
+                    digits++;
+
+                    if (fraction >= 0) {
+                        fraction++;
+                    }
+                } else if (c == '.' && fraction < 0) {
+                    fraction = 0;
+                } else {
+                    digits = Integer.MAX_VALUE;
+                    break;
+                }
+            }
+
+            if (digits == 0 || digits > MAX_EXACT_DIGITS) {
+                return Double.parseDouble(new String(m_buf, start, end - start, StandardCharsets.ISO_8859_1));
+            }
+            // Both are exact so the division is correctly rounded.
+            double value = fraction > 0 ? mantissa / POW10[fraction] : mantissa;
+            return negative ? -value : value;
+        }
+
+        /**
+         * @return the value or Long.MIN_VALUE if the field is not a plain
+         * number that fits, the caller then parses the String to get the
+         * same result or exception as before.
+         */
+        private long parseLong(int start, int end) {
+            int i = start;
+            boolean negative = m_buf[i] == '-';
+
+            if (negative || m_buf[i] == '+') {
+                i++;
+            }
+
+            if (i == end || end - i > MAX_LONG_DIGITS) {
+                return Long.MIN_VALUE;
+            }
+            long value = 0;
+
+            for (; i < end; i++) {
+                int c = m_buf[i];
+
+                if (c < '0' || c > '9') {
+                    return Long.MIN_VALUE;
+                }
+                value = value * 10 + (c - '0');
+            }
+            return negative ? -value : value;
+        }
+
+        @Override
+        public void close() {
+            /** noop */
+        }
     }
 
     private static class PreV100MessageReader implements IMessageReader {
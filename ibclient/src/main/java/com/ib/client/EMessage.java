@@ -5,27 +5,66 @@ import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 
 public class EMessage {
-    ByteArrayOutputStream m_buf;
+    private byte[] m_buf;
+    private int m_len;
 
     public EMessage(byte[] buf, int len) throws IOException {
-        m_buf = new ByteArrayOutputStream();
-
-        m_buf.write(buf, 0, len);
+        m_buf = Arrays.copyOf(buf, len);
+        m_len = len;
     }
 
     public EMessage(Builder buf) throws IOException {
-        m_buf = new ByteArrayOutputStream();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        buf.writeTo(new DataOutputStream(out));
+        m_buf = out.toByteArray();
+        m_len = m_buf.length;
+    }
 
-        buf.writeTo(new DataOutputStream(m_buf));
+    /**
+     * Empty message used by the EReader buffer pool.
+     *
+     * @param capacity initial buffer size.
+     */
+    EMessage(int capacity) {
+        m_buf = new byte[capacity];
+        m_len = 0;
     }
 
     public InputStream getStream() {
-        return new ByteArrayInputStream(m_buf.toByteArray());
+        return new ByteArrayInputStream(m_buf, 0, m_len);
     }
 
     public byte[] getRawData() {
-        return m_buf.toByteArray();
+        return Arrays.copyOf(m_buf, m_len);
+    }
+
+    /**
+     * The backing buffer, only the first length() bytes are valid.
+     */
+    byte[] buffer() {
+        return m_buf;
+    }
+
+    int length() {
+        return m_len;
+    }
+
+    int capacity() {
+        return m_buf.length;
+    }
+
+    /**
+     * Set the length of the message growing the buffer if needed. The
+     * contents are undefined until the caller fills the buffer.
+     */
+    void reset(int len) {
+        if (len > m_buf.length) {
+            m_buf = new byte[Math.max(len, m_buf.length * 2)];
+        }
+        m_len = len;
     }
 }
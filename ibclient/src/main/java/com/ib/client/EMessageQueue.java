@@ -0,0 +1,82 @@
+package com.ib.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded lock free queue of messages for one producer thread and one
+ * consumer thread. The EReader thread offers the messages read from the
+ * socket and the thread that calls processMsgs polls them, the same class is
+ * used the other way round to hand the processed buffers back to the reader.
+ */
+final class EMessageQueue {
+    private final EMessage[] m_ring;
+    private final int m_mask;
+    // Next slot to read, only written by the consumer.
+    private final AtomicLong m_head = new AtomicLong();
+    // Next slot to write, only written by the producer.
+    private final AtomicLong m_tail = new AtomicLong();
+    // Last head seen by the producer.
+    private long m_headCache;
+    // Last tail seen by the consumer.
+    private long m_tailCache;
+
+    /**
+     * @param capacity rounded up to a power of two.
+     */
+    EMessageQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        m_ring = new EMessage[size];
+        m_mask = size - 1;
+    }
+
+    /**
+     * Producer side.
+     *
+     * @return false if the queue is full.
+     */
+    boolean offer(EMessage msg) {
+        long tail = m_tail.get();
+
+        if (tail - m_headCache >= m_ring.length) {
+            m_headCache = m_head.get();
+
+            if (tail - m_headCache >= m_ring.length) {
+                return false;
+            }
+        }
+        m_ring[(int) tail & m_mask] = msg;
+        m_tail.lazySet(tail + 1);
+        return true;
+    }
+
+    /**
+     * Consumer side.
+     *
+     * @return the oldest message or null if the queue is empty.
+     */
+    EMessage poll() {
+        long head = m_head.get();
+
+        if (head >= m_tailCache) {
+            m_tailCache = m_tail.get();
+
+            if (head >= m_tailCache) {
+                return null;
+            }
+        }
+        int index = (int) head & m_mask;
+        EMessage msg = m_ring[index];
+        m_ring[index] = null;
+        m_head.lazySet(head + 1);
+        return msg;
+    }
+
+    int size() {
+        long head = m_head.get();
+        return (int) (m_tail.get() - head);
+    }
+
+    boolean isEmpty() {
+        return m_tail.get() == m_head.get();
+    }
+}
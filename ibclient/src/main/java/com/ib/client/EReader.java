@@ -5,9 +5,7 @@ package com.ib.client;
 
 import java.io.EOFException;
 import java.io.IOException;
-import java.util.Arrays;
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.concurrent.locks.LockSupport;
 
 
 /**
@@ -23,9 +21,17 @@ public class EReader extends Thread {
     private EDecoder m_processMsgsDecoder;
     private static final EWrapper defaultWrapper = new DefaultEWrapper();
     private static final int IN_BUF_SIZE_DEFAULT = 8192;
+    // Messages waiting for processMsgs, the reader waits when this is full.
+    private static final int MSG_QUEUE_SIZE = 1 << 14;
+    // Processed message buffers handed back to the reader for reuse.
+    private static final int MSG_POOL_SIZE = 1 << 10;
+    private static final int MSG_POOL_MAX_BUF_SIZE = 1 << 16;
+    private static final int MSG_BUF_SIZE_DEFAULT = 256;
+    private static final long QUEUE_FULL_PARK_NANOS = 50_000;
     private byte[] m_iBuf = new byte[IN_BUF_SIZE_DEFAULT];
     private int m_iBufLen = 0;
-    private Deque<EMessage> m_msgQueue = new LinkedList<EMessage>();
+    private final EMessageQueue m_msgQueue = new EMessageQueue(MSG_QUEUE_SIZE);
+    private final EMessageQueue m_msgPool = new EMessageQueue(MSG_POOL_SIZE);
 
     protected boolean isUseV100Plus() {
         return m_clientSocket.isUseV100Plus();
@@ -82,8 +88,14 @@ public class EReader extends Thread {
         if (msg == null)
             return false;
 
-        synchronized (m_msgQueue) {
-            m_msgQueue.addFirst(msg);
+        while (!m_msgQueue.offer(msg)) {
+            // processMsgs has fallen behind, wake it and wait for space.
+            m_signal.issueSignal();
+
+            if (Thread.currentThread().isInterrupted())
+                return false;
+
+            LockSupport.parkNanos(QUEUE_FULL_PARK_NANOS);
         }
 
         m_signal.issueSignal();
@@ -91,10 +103,28 @@ public class EReader extends Thread {
         return true;
     }
 
+    /**
+     * Messages are queued by one reader thread and must be taken by one
+     * processing thread at a time.
+     */
     protected EMessage getMsg() {
-        synchronized (m_msgQueue) {
-            return m_msgQueue.isEmpty() ? null : m_msgQueue.removeLast();
-        }
+        return m_msgQueue.poll();
+    }
+
+    private EMessage obtainMsg(int len) {
+        EMessage msg = m_msgPool.poll();
+
+        if (msg == null)
+            msg = new EMessage(Math.max(len, MSG_BUF_SIZE_DEFAULT));
+
+        msg.reset(len);
+
+        return msg;
+    }
+
+    private void releaseMsg(EMessage msg) {
+        if (msg.capacity() <= MSG_POOL_MAX_BUF_SIZE)
+            m_msgPool.offer(msg);
     }
 
     static final int MAX_MSG_LENGTH = 0xffffff;
@@ -109,7 +139,14 @@ public class EReader extends Thread {
     public void processMsgs() throws IOException {
         EMessage msg = getMsg();
 
-        while (msg != null && m_processMsgsDecoder.processMsg(msg) > 0) {
+        while (msg != null) {
+            int msgLength = m_processMsgsDecoder.processMsg(msg);
+
+            releaseMsg(msg);
+
+            if (msgLength <= 0)
+                break;
+
             msg = getMsg();
         }
     }
@@ -123,15 +160,21 @@ public class EReader extends Thread {
                         + msgSize);
             }
 
-            byte[] buf = new byte[msgSize];
+            EMessage msg = obtainMsg(msgSize);
+            byte[] buf = msg.buffer();
 
             int offset = 0;
 
             while (offset < msgSize) {
-                offset += m_clientSocket.read(buf, offset, msgSize - offset);
+                int read = m_clientSocket.read(buf, offset, msgSize - offset);
+
+                if (read < 0)
+                    throw new EOFException();
+
+                offset += read;
             }
 
-            return new EMessage(buf, buf.length);
+            return msg;
         }
 
         if (m_iBufLen == 0) {
@@ -161,9 +204,10 @@ public class EReader extends Thread {
             return null;
 
 
-        EMessage msg = new EMessage(m_iBuf, msgSize);
+        EMessage msg = obtainMsg(msgSize);
 
-        System.arraycopy(Arrays.copyOfRange(m_iBuf, msgSize, m_iBuf.length), 0, m_iBuf, 0, m_iBuf.length - msgSize);
+        System.arraycopy(m_iBuf, 0, msg.buffer(), 0, msgSize);
+        System.arraycopy(m_iBuf, msgSize, m_iBuf, 0, m_iBufLen - msgSize);
 
         m_iBufLen -= msgSize;
 
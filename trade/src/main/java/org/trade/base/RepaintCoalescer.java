@@ -0,0 +1,216 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.base;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.trade.core.properties.ConfigProperties;
+
+import javax.swing.*;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Coalesces the UI updates raised by market data and strategy threads. Each
+ * component schedules its update under a key, an update scheduled while an
+ * earlier one for the same key is still pending replaces it. The pending
+ * updates are run on the EDT at a bounded frame rate so a burst of ticks
+ * across many charts costs at most one repaint per chart per frame.
+ * <p>
+ * A frame that runs over its budget leaves the remaining updates for the next
+ * frame. Frames the timer could not start on time are counted as dropped.
+ * <p>
+ * The frame rate is set by trade.ui.repaint.fps in config.properties, 0
+ * disables coalescing and getInstance() returns null.
+ */
+public class RepaintCoalescer {
+
+    private final static Logger _log = LoggerFactory.getLogger(RepaintCoalescer.class);
+
+    private static final int DEFAULT_FPS = 10;
+    private static final long LOG_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+    private static RepaintCoalescer m_instance = null;
+    private static final int framesPerSecond;
+
+    private final Map<Object, Runnable> pending = new ConcurrentHashMap<>();
+    private final Timer timer;
+    private final long frameNanos;
+    private final long budgetNanos;
+    private long lastFrameNanos = 0;
+    private long lastLogNanos = System.nanoTime();
+
+    private final LongAdder scheduled = new LongAdder();
+    private final LongAdder merged = new LongAdder();
+    private final LongAdder painted = new LongAdder();
+    private final LongAdder deferred = new LongAdder();
+    private final LongAdder frames = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    static {
+        int value = DEFAULT_FPS;
+        try {
+            value = ConfigProperties.getPropAsInt("trade.ui.repaint.fps");
+        } catch (Exception ex) {
+            _log.debug("trade.ui.repaint.fps not set using default: {} Msg: {}", DEFAULT_FPS, ex.getMessage());
+        }
+        framesPerSecond = value;
+    }
+
+    /**
+     * Constructor for RepaintCoalescer.
+     *
+     * @param framesPerSecond int
+     */
+    private RepaintCoalescer(int framesPerSecond) {
+        int delay = Math.max(1, 1000 / framesPerSecond);
+        this.frameNanos = TimeUnit.MILLISECONDS.toNanos(delay);
+        this.budgetNanos = this.frameNanos / 2;
+        this.timer = new Timer(delay, _ -> paintFrame());
+        this.timer.setCoalesce(true);
+    }
+
+    /**
+     * Method getInstance.
+     *
+     * @return RepaintCoalescer the shared coalescer or null if
+     * trade.ui.repaint.fps is 0.
+     */
+    public static synchronized RepaintCoalescer getInstance() {
+
+        if (null == m_instance && framesPerSecond > 0) {
+            m_instance = new RepaintCoalescer(framesPerSecond);
+        }
+        return m_instance;
+    }
+
+    /**
+     * Method schedule. Queue an update to run on the next frame. Safe to call
+     * from any thread.
+     *
+     * @param key    Object the component the update is for.
+     * @param update Runnable run on the EDT.
+     */
+    public void schedule(Object key, Runnable update) {
+
+        this.scheduled.increment();
+        if (null != this.pending.put(key, update)) {
+            this.merged.increment();
+        }
+        if (!this.timer.isRunning()) {
+            this.timer.start();
+        }
+    }
+
+    /**
+     * Method cancel. Discard any pending update for the component.
+     *
+     * @param key Object
+     */
+    public void cancel(Object key) {
+        this.pending.remove(key);
+    }
+
+    /**
+     * Method getStatistics.
+     *
+     * @return String
+     */
+    public String getStatistics() {
+        return "scheduled: " + this.scheduled.sum() + " merged: " + this.merged.sum() + " painted: "
+                + this.painted.sum() + " deferred: " + this.deferred.sum() + " frames: " + this.frames.sum()
+                + " dropped frames: " + this.dropped.sum() + " pending: " + this.pending.size();
+    }
+
+    /**
+     * Method paintFrame. Run the pending updates on the EDT until the frame
+     * budget is used.
+     */
+    private void paintFrame() {
+
+        long start = System.nanoTime();
+        if (this.lastFrameNanos > 0) {
+            long late = (start - this.lastFrameNanos) / this.frameNanos - 1;
+            if (late > 0) {
+                this.dropped.add(late);
+            }
+        }
+        this.lastFrameNanos = start;
+        this.frames.increment();
+
+        Iterator<Map.Entry<Object, Runnable>> iter = this.pending.entrySet().iterator();
+        while (iter.hasNext()) {
+            if (System.nanoTime() - start > this.budgetNanos) {
+                this.deferred.add(this.pending.size());
+                break;
+            }
+            Map.Entry<Object, Runnable> entry = iter.next();
+            Runnable update = entry.getValue();
+            /*
+             * Only remove the update we are about to run, a newer one
+             * scheduled since the iterator read it waits for the next frame.
+             */
+            if (this.pending.remove(entry.getKey(), update)) {
+                try {
+                    update.run();
+                    this.painted.increment();
+                } catch (Exception ex) {
+                    _log.error("Error running UI update Msg: {}", ex.getMessage(), ex);
+                }
+            }
+        }
+
+        if (this.pending.isEmpty()) {
+            this.timer.stop();
+            this.lastFrameNanos = 0;
+            /*
+             * An update may have been scheduled while the timer was still
+             * seen as running.
+             */
+            if (!this.pending.isEmpty()) {
+                this.timer.start();
+            }
+        }
+
+        if (start - this.lastLogNanos > LOG_INTERVAL_NANOS) {
+            this.lastLogNanos = start;
+            _log.debug("Repaint {}", getStatistics());
+        }
+    }
+}
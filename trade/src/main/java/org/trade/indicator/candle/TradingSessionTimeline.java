@@ -0,0 +1,153 @@
+/* ===========================================================
+ * TradeManager : a application to trade strategies for the Java(tm) platform
+ * ===========================================================
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Project Info:  org.trade
+ *
+ * This library is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as published by
+ * the Free Software Foundation; either version 2.1 of the License, or
+ * (at your option) any later version.
+ *
+ * This library is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ * or FITNESS FOR A PARTICULAR PURPOSE. See the GNU Lesser General Public
+ * License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this library; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301,
+ * USA.
+ *
+ * [Java is a trademark or registered trademark of Oracle, Inc.
+ * in the United States and other countries.]
+ *
+ * (C) Copyright 2011-2011, by Simon Allen and Contributors.
+ *
+ * Original Author:  Simon Allen;
+ * Contributor(s):   -;
+ *
+ * Changes
+ * -------
+ *
+ */
+package org.trade.indicator.candle;
+
+import org.jfree.chart.axis.Timeline;
+import org.trade.core.util.time.TradingSessionIndex;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * A Timeline for a DateAxis that shows only the trading sessions. The mapping
+ * is delegated to a shared TradingSessionIndex so charts over the same market
+ * hours do not each build their own list of excluded periods.
+ */
+public class TradingSessionTimeline implements Timeline, Serializable {
+
+    @Serial
+    private static final long serialVersionUID = 6093360457127741962L;
+
+    private final TradingSessionIndex sessionIndex;
+
+    /**
+     * Constructor for TradingSessionTimeline.
+     *
+     * @param sessionIndex TradingSessionIndex
+     */
+    public TradingSessionTimeline(TradingSessionIndex sessionIndex) {
+        this.sessionIndex = sessionIndex;
+    }
+
+    /**
+     * Method getSessionIndex.
+     *
+     * @return TradingSessionIndex
+     */
+    public TradingSessionIndex getSessionIndex() {
+        return this.sessionIndex;
+    }
+
+    /**
+     * Method toTimelineValue.
+     *
+     * @param millisecond long
+     * @return long
+     * @see Timeline#toTimelineValue(long)
+     */
+    public long toTimelineValue(long millisecond) {
+        return this.sessionIndex.toTimelineValue(millisecond);
+    }
+
+    /**
+     * Method toTimelineValue.
+     *
+     * @param date Date
+     * @return long
+     * @see Timeline#toTimelineValue(Date)
+     */
+    public long toTimelineValue(Date date) {
+        return this.sessionIndex.toTimelineValue(date.getTime());
+    }
+
+    /**
+     * Method toMillisecond.
+     *
+     * @param timelineValue long
+     * @return long
+     * @see Timeline#toMillisecond(long)
+     */
+    public long toMillisecond(long timelineValue) {
+        return this.sessionIndex.toMillisecond(timelineValue);
+    }
+
+    /**
+     * Method containsDomainValue.
+     *
+     * @param millisecond long
+     * @return boolean
+     * @see Timeline#containsDomainValue(long)
+     */
+    public boolean containsDomainValue(long millisecond) {
+        return this.sessionIndex.contains(millisecond);
+    }
+
+    /**
+     * Method containsDomainValue.
+     *
+     * @param date Date
+     * @return boolean
+     * @see Timeline#containsDomainValue(Date)
+     */
+    public boolean containsDomainValue(Date date) {
+        return this.sessionIndex.contains(date.getTime());
+    }
+
+    /**
+     * Method containsDomainRange.
+     *
+     * @param fromMillisecond long
+     * @param toMillisecond   long
+     * @return boolean
+     * @see Timeline#containsDomainRange(long, long)
+     */
+    public boolean containsDomainRange(long fromMillisecond, long toMillisecond) {
+        return this.sessionIndex.contains(fromMillisecond, toMillisecond);
+    }
+
+    /**
+     * Method containsDomainRange.
+     *
+     * @param fromDate Date
+     * @param toDate   Date
+     * @return boolean
+     * @see Timeline#containsDomainRange(Date, Date)
+     */
+    public boolean containsDomainRange(Date fromDate, Date toDate) {
+        return this.sessionIndex.contains(fromDate.getTime(), toDate.getTime());
+    }
+}
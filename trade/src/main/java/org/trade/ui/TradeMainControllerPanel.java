@@ -45,6 +45,7 @@ import org.trade.core.broker.BrokerDataRequestMonitor;
 import org.trade.core.broker.BrokerModelException;
 import org.trade.core.broker.IBrokerChangeListener;
 import org.trade.core.broker.IBrokerModel;
+import org.trade.core.broker.client.Broker;
 import org.trade.core.factory.ClassFactory;
 import org.trade.core.lookup.DBTableLookupServiceProvider;
 import org.trade.core.persistent.IPersistentModel;
@@ -146,6 +147,7 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements IBrokerC
     private ContractPanel contractPanel = null;
     private StrategyPanel strategyPanel = null;
     private DynamicCode dynacode = null;
+    private boolean directStrategies = false;
 
     /**
      * The main application controller which interacts between the view and the
@@ -186,6 +188,7 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements IBrokerC
             String strategyDir = ConfigProperties.getPropAsString("trade.strategy.default.dir");
             dynacode = new DynamicCode();
             dynacode.addSourceDir(new File(strategyDir));
+            directStrategies = ConfigProperties.getPropAsBoolean("trade.strategy.direct");
 
             /*
              * Constructs a new Trading tab that contains all information
@@ -294,12 +297,18 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements IBrokerC
 
     public void doData() {
 
-        if (m_tradingdays.isDirty()) {
+        try {
 
-            this.setStatusBarMessage("Please save before running strategy ...\n", BasePanel.WARNING);
-        } else {
+            if (m_tradingdays.isDirty()) {
+
+                this.setStatusBarMessage("Please save before running strategy ...\n", BasePanel.WARNING);
+            } else {
 
-            runStrategy(m_tradingdays, true);
+                tradingdayPanel.loadTradingdays();
+                runStrategy(m_tradingdays, true);
+            }
+        } catch (Exception ex) {
+            this.setErrorMessage("Error running Trade Strategies.", ex.getMessage(), ex);
         }
     }
 
@@ -379,6 +388,7 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements IBrokerC
                 this.setStatusBarMessage("Please save or refresh before running strategy ...\n", BasePanel.WARNING);
             } else {
 
+                tradingdayPanel.loadTradingdays();
                 runStrategy(m_tradingdays, false);
             }
         } catch (Exception ex) {
@@ -424,6 +434,7 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements IBrokerC
                 this.setStatusBarMessage("Please save before running strategy ...\n", BasePanel.WARNING);
             } else {
                 contractPanel.doCloseAll();
+                tradingdayPanel.loadTradingdays();
                 /*
                  * If multiple Strategy/BarSize/ChartDays combination exist in
                  * the selected date range force the user to select one to
@@ -1566,6 +1577,18 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements IBrokerC
         getMenu().setEnabledTestStrategy(false);
         getMenu().setEnabledConnect(!m_brokerModel.isConnected());
 
+        /*
+         * The contract tree and charts read the orders of every tradestrategy,
+         * the tradingdays found lite by the search are loaded first.
+         */
+        if (contractPanel == newBasePanel) {
+            try {
+                tradingdayPanel.loadTradingdays();
+            } catch (PersistentModelException ex) {
+                this.setErrorMessage("Error loading Tradingdays.", ex.getMessage(), ex);
+            }
+        }
+
         if (tradingdayPanel == newBasePanel) {
 
             if (null == brokerDataRequestProgressMonitor || brokerDataRequestProgressMonitor.isDone()) {
@@ -1729,6 +1752,9 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements IBrokerC
             getMenu().setEnabledSearchDeleteRefreshSave(false);
             tradingdayPanel.cleanStrategyWorker();
             contractPanel.doCloseAll();
+            if (directStrategies && dynacode.reload()) {
+                _log.info("Strategy source changed, strategies will be recompiled.");
+            }
             /*
              * Now run a thread that gets and saves historical data from IB TWS.
              */
@@ -1788,8 +1814,17 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements IBrokerC
         parm.add(tradestrategy.getStrategyData());
         parm.add(tradestrategy.getId());
 
-        IStrategyRule strategy = (IStrategyRule) dynacode.newProxyInstance(IStrategyRule.class,
-                IStrategyRule.PACKAGE + strategyClassName, parm);
+        IStrategyRule strategy;
+        if (directStrategies) {
+            /*
+             * No proxy, the strategy is called directly. Source changes are
+             * picked up via the dynacode.reload() at the start of each run.
+             */
+            strategy = dynacode.newInstance(IStrategyRule.class, IStrategyRule.PACKAGE + strategyClassName, parm);
+        } else {
+            strategy = (IStrategyRule) dynacode.newProxyInstance(IStrategyRule.class,
+                    IStrategyRule.PACKAGE + strategyClassName, parm);
+        }
 
         strategy.addMessageListener(this);
 
@@ -1798,7 +1833,17 @@ public class TradeMainControllerPanel extends TabbedAppPanel implements IBrokerC
              * For back test the back tester listens to the strategy for orders
              * being created/completed.
              */
-            strategy.addMessageListener(m_brokerModel.getBackTestBroker(tradestrategy.getId()));
+            Broker backTestBroker = m_brokerModel.getBackTestBroker(tradestrategy.getId());
+            strategy.addMessageListener(backTestBroker);
+
+            if (null != backTestBroker && backTestBroker.isSynchronous()) {
+                /*
+                 * The back tester runs the strategy on its own thread.
+                 */
+                backTestBroker.addStrategy(strategy);
+                tradingdayPanel.addStrategyWorker(key, strategy);
+                return;
+            }
         }
         strategy.execute();
         tradingdayPanel.addStrategyWorker(key, strategy);
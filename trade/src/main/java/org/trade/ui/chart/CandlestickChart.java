@@ -49,6 +49,7 @@ import org.jfree.chart.block.BlockContainer;
 import org.jfree.chart.block.BorderArrangement;
 import org.jfree.chart.block.EmptyBlock;
 import org.jfree.chart.entity.PlotEntity;
+import org.jfree.chart.event.ChartChangeEvent;
 import org.jfree.chart.entity.XYItemEntity;
 import org.jfree.chart.plot.CombinedDomainXYPlot;
 import org.jfree.chart.plot.PlotOrientation;
@@ -64,8 +65,10 @@ import org.jfree.data.Range;
 import org.jfree.data.general.SeriesChangeEvent;
 import org.jfree.data.general.SeriesChangeListener;
 import org.jfree.data.xy.XYDataset;
+import org.trade.base.RepaintCoalescer;
 import org.trade.core.persistent.dao.Tradingday;
 import org.trade.core.util.time.TradingCalendar;
+import org.trade.core.util.time.TradingSessionIndex;
 import org.trade.core.valuetype.Action;
 import org.trade.core.valuetype.Money;
 import org.trade.indicator.CandleSeries;
@@ -73,8 +76,7 @@ import org.trade.indicator.IIndicatorDataset;
 import org.trade.indicator.IndicatorSeries;
 import org.trade.indicator.StrategyDataUI;
 import org.trade.indicator.candle.CandleItem;
-import org.trade.indicator.candle.SegmentedTimeline;
-import org.trade.indicator.candle.SegmentedTimeline.Segment;
+import org.trade.indicator.candle.TradingSessionTimeline;
 
 import javax.swing.*;
 import java.awt.*;
@@ -128,7 +130,7 @@ public class CandlestickChart extends JPanel implements SeriesChangeListener {
         legends.setPosition(RectangleEdge.BOTTOM);
         this.chart.addSubtitle(legends);
 
-        final ChartPanel chartPanel = new ChartPanel(this.chart);
+        final ChartPanel chartPanel = new CoalescedChartPanel(this.chart);
         chartPanel.setFillZoomRectangle(true);
         chartPanel.setMouseZoomable(true, true);
         chartPanel.setRefreshBuffer(true);
@@ -231,6 +233,10 @@ public class CandlestickChart extends JPanel implements SeriesChangeListener {
 
     public void removeChart() {
         this.strategyData.getCandleDataset().getSeries(0).removeChangeListener(this);
+        RepaintCoalescer coalescer = RepaintCoalescer.getInstance();
+        if (null != coalescer) {
+            coalescer.cancel(this);
+        }
         this.chart.getXYPlot().clearAnnotations();
         this.chart.getXYPlot().clearDomainAxes();
         this.chart.getXYPlot().clearDomainMarkers();
@@ -276,16 +282,6 @@ public class CandlestickChart extends JPanel implements SeriesChangeListener {
         pricePlot.setDomainGridlinePaint(new Color(204, 204, 204));
         pricePlot.setBackgroundPaint(Color.white);
 
-        /*
-         * Calculate the number of 15min segments in this trading day. i.e.
-         * 6.5hrs/15min = 26 and there are a total of 96 = one day
-         */
-        int segments15min = (int) (TradingCalendar.getDurationInSeconds(tradingday.getOpen(), tradingday.getClose())
-                / (60 * 15));
-
-        SegmentedTimeline segmentedTimeline = new SegmentedTimeline(SegmentedTimeline.FIFTEEN_MINUTE_SEGMENT_SIZE,
-                segments15min, (96 - segments15min));
-
         ZonedDateTime startDate = tradingday.getOpen();
         ZonedDateTime endDate = tradingday.getClose();
 
@@ -299,10 +295,12 @@ public class CandlestickChart extends JPanel implements SeriesChangeListener {
             endDate = TradingCalendar.getDateAtTime(endDate, tradingday.getClose());
         }
 
-        segmentedTimeline.setStartTime(TradingCalendar.geMillisFromZonedDateTime(startDate));
-        segmentedTimeline.addExceptions(getNonTradingPeriods(startDate, endDate, tradingday.getOpen(),
-                tradingday.getClose(), segmentedTimeline));
-        dateAxis.setTimeline(segmentedTimeline);
+        /*
+         * Only show the trading sessions, the session index is shared by all
+         * charts with the same market hours.
+         */
+        dateAxis.setTimeline(new TradingSessionTimeline(
+                TradingSessionIndex.getInstance(tradingday.getOpen(), tradingday.getClose(), startDate, endDate)));
 
         // Build Combined Plot
         CombinedDomainXYPlot mainPlot = new CombinedDomainXYPlot(dateAxis);
@@ -419,37 +417,57 @@ public class CandlestickChart extends JPanel implements SeriesChangeListener {
         Object series = event.getSource();
         if (series instanceof CandleSeries candleSeries) {
 
-            if (!candleSeries.isEmpty()) {
-                CombinedDomainXYPlot combinedXYplot = (CombinedDomainXYPlot) this.chart.getPlot();
-                List<XYPlot> subplots = combinedXYplot.getSubplots();
-                XYPlot xyplot = subplots.getFirst();
-
-                CandleItem candleItem = (CandleItem) candleSeries.getDataItem(candleSeries.getItemCount() - 1);
-                String msg = "Time: " + TradingCalendar.getFormattedDate(candleItem.getLastUpdateDate(), TIME_FORMAT)
-                        + " Open: " + new Money(candleItem.getOpen()) + " High: " + new Money(candleItem.getHigh())
-                        + " Low: " + new Money(candleItem.getLow()) + " Close: " + new Money(candleItem.getClose())
-                        + " Vwap: " + new Money(candleItem.getVwap());
-                titleLegend2.setText(msg);
-                valueMarker.setValue(candleItem.getClose());
-
-                double x = TradingCalendar.geMillisFromZonedDateTime(
-                        TradingCalendar.getDateAtTime(candleItem.getPeriod().getStart(), candleSeries.getStartTime()));
-                String annotationText = "("
-                        + TradingCalendar.getFormattedDate(candleItem.getLastUpdateDate(), TIME_FORMAT) + ", "
-                        + new Money(candleItem.getClose()) + ")";
-                if (null == closePriceLine) {
-                    closePriceLine = new XYTextAnnotation(annotationText, x, candleItem.getY());
-                    closePriceLine.setTextAnchor(TextAnchor.BOTTOM_RIGHT);
-                    xyplot.addAnnotation(closePriceLine);
-                    xyplot.addRangeMarker(valueMarker);
-                } else {
-                    closePriceLine.setText(annotationText);
-                    closePriceLine.setX(x);
-                    closePriceLine.setY(candleItem.getY());
-                }
+            /*
+             * Ticks arrive far faster than they can be drawn so only the last
+             * candle pending at each frame is shown.
+             */
+            RepaintCoalescer coalescer = RepaintCoalescer.getInstance();
+            if (null != coalescer) {
+                coalescer.schedule(this, () -> updateLastCandle(candleSeries));
+            } else {
+                updateLastCandle(candleSeries);
+            }
+        }
+    }
 
-                this.chart.fireChartChanged();
+    /**
+     * Method updateLastCandle. Show the last candle in the legend and move the
+     * close price marker to it.
+     *
+     * @param candleSeries CandleSeries
+     */
+    private void updateLastCandle(CandleSeries candleSeries) {
+
+        if (!candleSeries.isEmpty()) {
+            CombinedDomainXYPlot combinedXYplot = (CombinedDomainXYPlot) this.chart.getPlot();
+            List<XYPlot> subplots = combinedXYplot.getSubplots();
+            XYPlot xyplot = subplots.getFirst();
+
+            CandleItem candleItem = (CandleItem) candleSeries.getDataItem(candleSeries.getItemCount() - 1);
+            String msg = "Time: " + TradingCalendar.getFormattedDate(candleItem.getLastUpdateDate(), TIME_FORMAT)
+                    + " Open: " + new Money(candleItem.getOpen()) + " High: " + new Money(candleItem.getHigh())
+                    + " Low: " + new Money(candleItem.getLow()) + " Close: " + new Money(candleItem.getClose())
+                    + " Vwap: " + new Money(candleItem.getVwap());
+            titleLegend2.setText(msg);
+            valueMarker.setValue(candleItem.getClose());
+
+            double x = TradingCalendar.geMillisFromZonedDateTime(
+                    TradingCalendar.getDateAtTime(candleItem.getPeriod().getStart(), candleSeries.getStartTime()));
+            String annotationText = "("
+                    + TradingCalendar.getFormattedDate(candleItem.getLastUpdateDate(), TIME_FORMAT) + ", "
+                    + new Money(candleItem.getClose()) + ")";
+            if (null == closePriceLine) {
+                closePriceLine = new XYTextAnnotation(annotationText, x, candleItem.getY());
+                closePriceLine.setTextAnchor(TextAnchor.BOTTOM_RIGHT);
+                xyplot.addAnnotation(closePriceLine);
+                xyplot.addRangeMarker(valueMarker);
+            } else {
+                closePriceLine.setText(annotationText);
+                closePriceLine.setX(x);
+                closePriceLine.setY(candleItem.getY());
             }
+
+            this.chart.fireChartChanged();
         }
     }
 
@@ -479,43 +497,38 @@ public class CandlestickChart extends JPanel implements SeriesChangeListener {
     }
 
     /**
-     * Method setNonTradingPeriods.
-     *
-     * @param startDate         ZonedDateTime
-     * @param endDate           ZonedDateTime
-     * @param openDate          ZonedDateTime
-     * @param closeDate         ZonedDateTime
-     * @param segmentedTimeline SegmentedTimeline
-     * @return List<Date>
+     * Chart panel that redraws at most once a frame for chart changes raised
+     * by the market data threads. Changes made on the EDT such as a zoom or a
+     * mouse click are drawn straight away.
      */
-    private List<java.util.Date> getNonTradingPeriods(ZonedDateTime startDate, ZonedDateTime endDate,
-                                                      ZonedDateTime openDate, ZonedDateTime closeDate, SegmentedTimeline segmentedTimeline) {
-        /*
-         * Add all 15min periods that are not trading times.
+    private static class CoalescedChartPanel extends ChartPanel {
+
+        @Serial
+        private static final long serialVersionUID = -4571982217503366825L;
+
+        /**
+         * Constructor for CoalescedChartPanel.
+         *
+         * @param chart JFreeChart
+         */
+        private CoalescedChartPanel(JFreeChart chart) {
+            super(chart);
+        }
+
+        /**
+         * Method chartChanged.
+         *
+         * @param event ChartChangeEvent
+         * @see ChartPanel#chartChanged(ChartChangeEvent)
          */
+        public void chartChanged(ChartChangeEvent event) {
 
-        List<java.util.Date> noneTradingSegments = new ArrayList<>();
-        do {
-            /*
-             * 96 15min periods per day
-             */
-            for (int j = 0; j < 96; j++) {
-                ZonedDateTime segmentStartDate = TradingCalendar.getDateAtTime(startDate, openDate);
-                segmentStartDate = segmentStartDate.plusMinutes(j * 15);
-
-                if (!TradingCalendar.isTradingDay(segmentStartDate)
-                        || !TradingCalendar.isMarketHours(openDate, closeDate, segmentStartDate)) {
-                    Segment segment = segmentedTimeline
-                            .getSegment(TradingCalendar.geMillisFromZonedDateTime(segmentStartDate));
-                    if (segment.inIncludeSegments()) {
-                        noneTradingSegments
-                                .add(new java.util.Date(TradingCalendar.geMillisFromZonedDateTime(segmentStartDate)));
-                    }
-                }
+            RepaintCoalescer coalescer = RepaintCoalescer.getInstance();
+            if (null == coalescer || SwingUtilities.isEventDispatchThread()) {
+                super.chartChanged(event);
+            } else {
+                coalescer.schedule(this, () -> super.chartChanged(event));
             }
-            startDate = startDate.plusDays(1);
-        } while (endDate.isAfter(startDate));
-
-        return noneTradingSegments;
+        }
     }
 }
@@ -35,6 +35,8 @@
  */
 package org.trade.ui.configuration;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.trade.base.BaseButton;
 import org.trade.base.BasePanel;
 import org.trade.base.BaseUIPropertyCodes;
@@ -45,11 +47,13 @@ import org.trade.core.dao.Aspects;
 import org.trade.core.factory.ClassFactory;
 import org.trade.core.lookup.DBTableLookupServiceProvider;
 import org.trade.core.persistent.IPersistentModel;
+import org.trade.core.persistent.PersistentModelException;
 import org.trade.core.persistent.dao.CodeType;
 import org.trade.core.persistent.dao.CodeValue;
 import org.trade.core.persistent.dao.Portfolio;
 import org.trade.core.persistent.dao.Strategy;
 import org.trade.core.persistent.dao.series.indicator.IndicatorSeries;
+import org.trade.core.properties.ConfigProperties;
 import org.trade.core.valuetype.DAOEntryLimit;
 import org.trade.core.valuetype.ReferenceTable;
 import org.trade.ui.models.AccountTableModel;
@@ -69,8 +73,10 @@ import javax.swing.event.ListSelectionListener;
 import java.awt.*;
 import java.awt.event.ItemEvent;
 import java.io.Serial;
+import java.util.HashSet;
 import java.util.ListIterator;
 import java.util.Objects;
+import java.util.Set;
 import java.util.Vector;
 
 /**
@@ -81,18 +87,38 @@ public class ConfigurationPanel extends BasePanel {
     @Serial
     private static final long serialVersionUID = 8543984162821384818L;
 
+    private final static Logger _log = LoggerFactory.getLogger(ConfigurationPanel.class);
+
+    private static final int DEFAULT_PAGE_SIZE = 500;
+    private static final int pageSize;
+
     private JScrollPane m_jScrollPane = null;
     private final JScrollPane m_jScrollPane1 = new JScrollPane();
     private IPersistentModel m_tradePersistentModel = null;
     private ConfigurationTable m_table = null;
     private AspectTableModel m_tableModel = null;
     private Aspects m_aspects = null;
+    private String m_className = null;
+    private long m_rowCount = 0;
+    private Integer m_lastLoadedId = null;
+    private boolean m_allLoaded = true;
 
     private ConfigurationTable m_tableChild = null;
     private TableModel m_tableModelChild = null;
     private BaseButton propertiesButton = null;
     private DecodeComboBoxEditor refTableEditorComboBox = null;
 
+    static {
+        int value = DEFAULT_PAGE_SIZE;
+        try {
+            value = ConfigProperties.getPropAsInt("trade.ui.configuration.pageSize");
+        } catch (Exception ex) {
+            _log.debug("trade.ui.configuration.pageSize not set using default: {} Msg: {}", DEFAULT_PAGE_SIZE,
+                    ex.getMessage());
+        }
+        pageSize = (value > 0 ? value : DEFAULT_PAGE_SIZE);
+    }
+
     /**
      * Constructor
      *
@@ -115,6 +141,20 @@ public class ConfigurationPanel extends BasePanel {
             DAOEntryLimit.newInstance();
             m_tradePersistentModel = tradePersistentModel;
             m_jScrollPane = new JScrollPane();
+            /*
+             * Read the next page of rows as the table is scrolled near to the
+             * bottom.
+             */
+            m_jScrollPane.getVerticalScrollBar().addAdjustmentListener(e -> {
+
+                if (!e.getValueIsAdjusting()) {
+
+                    BoundedRangeModel model = m_jScrollPane.getVerticalScrollBar().getModel();
+                    if ((model.getValue() + (2 * model.getExtent())) >= model.getMaximum()) {
+                        loadNextPage();
+                    }
+                }
+            });
             propertiesButton = new BaseButton(this, BaseUIPropertyCodes.PROPERTIES, 0);
             propertiesButton.setEnabled(false);
             JLabel refTable = new JLabel("Configuration:");
@@ -203,8 +243,6 @@ public class ConfigurationPanel extends BasePanel {
         try {
             this.setStatusBarMessage("Save in progress ...", BasePanel.INFORMATION);
             int selectedRow = m_table.getSelectedRow();
-            String className = "org.trade.persistent.dao."
-                    + ((ReferenceTable) Objects.requireNonNull(refTableEditorComboBox.getSelectedItem())).getCode();
 
             for (ListIterator<Aspect> itemIter = m_aspects.getAspect().listIterator(); itemIter.hasNext(); ) {
                 Aspect item = itemIter.next();
@@ -219,18 +257,7 @@ public class ConfigurationPanel extends BasePanel {
                 itemIter.set(item);
             }
             m_aspects.setDirty(false);
-            Aspects aspects = m_tradePersistentModel.findAspectsByClassName(className);
-            for (Aspect currAspect : aspects.getAspect()) {
-                boolean exists = false;
-                for (Aspect aspect : m_aspects.getAspect()) {
-                    if (currAspect.getId().equals(aspect.getId())) {
-                        exists = true;
-                        break;
-                    }
-                }
-                if (!exists)
-                    m_tradePersistentModel.removeAspect(currAspect);
-            }
+            removeDeletedAspects();
             DBTableLookupServiceProvider.clearLookup();
             doRefresh();
             if (selectedRow > -1)
@@ -345,7 +372,11 @@ public class ConfigurationPanel extends BasePanel {
     private void addReferenceTablePanel(String refTableClass) {
 
         try {
-            m_aspects = m_tradePersistentModel.findAspectsByClassName("org.trade.persistent.dao." + refTableClass);
+            m_className = "org.trade.persistent.dao." + refTableClass;
+            m_rowCount = m_tradePersistentModel.findAspectCountByClassName(m_className);
+            m_lastLoadedId = null;
+            m_aspects = m_tradePersistentModel.findAspectsByClassName(m_className, null, pageSize);
+            setPageLoaded(m_aspects);
             Vector<Object> parm = new Vector<>();
             m_tableModel = (AspectTableModel) ClassFactory
                     .getCreateClass("org.trade.ui.models." + refTableClass + "TableModel", parm, this);
@@ -363,12 +394,93 @@ public class ConfigurationPanel extends BasePanel {
             if (!m_aspects.getAspect().isEmpty()) {
                 m_table.setRowSelectionInterval(0, 0);
             }
+            setRowCountMessage();
 
         } catch (Exception ex) {
             this.setErrorMessage("Error deleting Strategy.", ex.getMessage(), ex);
         }
     }
 
+    /**
+     * Method loadNextPage. Read the page of rows after the last one loaded
+     * and append them to the table.
+     */
+    private void loadNextPage() {
+
+        if (m_allLoaded || null == m_tableModel || null == m_lastLoadedId) {
+            return;
+        }
+
+        try {
+            Aspects page = m_tradePersistentModel.findAspectsByClassName(m_className, m_lastLoadedId, pageSize);
+            setPageLoaded(page);
+            m_tableModel.addData(page);
+            setRowCountMessage();
+        } catch (Exception ex) {
+            this.setErrorMessage("Error finding item.", ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Method setPageLoaded. Remember where the page ended so the next page
+     * can start from it.
+     *
+     * @param page Aspects
+     */
+    private void setPageLoaded(Aspects page) {
+
+        m_allLoaded = page.getAspect().size() < pageSize;
+        if (!page.getAspect().isEmpty()) {
+            m_lastLoadedId = page.getAspect().getLast().getId();
+        }
+    }
+
+    /**
+     * Method setRowCountMessage.
+     */
+    private void setRowCountMessage() {
+
+        if (!m_allLoaded) {
+            this.setStatusBarMessage("Showing " + m_aspects.getAspect().size() + " of " + m_rowCount
+                    + " rows, scroll down for more.", BasePanel.INFORMATION);
+        }
+    }
+
+    /**
+     * Method removeDeletedAspects. Remove the rows that were deleted from the
+     * table. Only the range of rows that has been loaded is checked, rows
+     * that were not loaded are not touched.
+     */
+    private void removeDeletedAspects() throws PersistentModelException {
+
+        Set<Integer> ids = new HashSet<>();
+        for (Aspect aspect : m_aspects.getAspect()) {
+            if (null != aspect.getId()) {
+                ids.add(aspect.getId());
+            }
+        }
+
+        Integer afterId = null;
+        boolean more = true;
+
+        while (more) {
+
+            Aspects page = m_tradePersistentModel.findAspectsByClassName(m_className, afterId, pageSize);
+            more = page.getAspect().size() == pageSize;
+
+            for (Aspect currAspect : page.getAspect()) {
+
+                if (!m_allLoaded && null != m_lastLoadedId && currAspect.getId() > m_lastLoadedId) {
+                    return;
+                }
+                if (!ids.contains(currAspect.getId())) {
+                    m_tradePersistentModel.removeAspect(currAspect);
+                }
+                afterId = currAspect.getId();
+            }
+        }
+    }
+
     /**
      *
      */
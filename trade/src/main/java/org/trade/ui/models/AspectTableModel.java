@@ -36,9 +36,11 @@
 package org.trade.ui.models;
 
 import org.trade.base.TableModel;
+import org.trade.core.dao.Aspect;
 import org.trade.core.dao.Aspects;
 
 import java.io.Serial;
+import java.util.Vector;
 
 /**
  *
@@ -71,4 +73,31 @@ public abstract class AspectTableModel extends TableModel {
      */
     public abstract void setData(Aspects data) throws Exception;
 
+    /**
+     * Method getNewRow.
+     *
+     * @param element Aspect
+     * @return Vector<Object> the table row for the aspect.
+     */
+    protected abstract Vector<Object> getNewRow(Aspect element);
+
+    /**
+     * Method addData. Append a page of aspects to the data and the table
+     * without rebuilding the rows already loaded.
+     *
+     * @param page Aspects
+     */
+    public void addData(Aspects page) {
+
+        if (null == getData() || page.getAspect().isEmpty()) {
+            return;
+        }
+        int firstRow = rows.size();
+        for (final Aspect element : page.getAspect()) {
+            getData().add(element);
+            rows.add(getNewRow(element));
+        }
+        fireTableRowsInserted(firstRow, rows.size() - 1);
+    }
+
 }
@@ -115,6 +115,18 @@ public class EntrylimitTableModel extends AspectTableModel {
 
     }
 
+    /**
+     * Method getNewRow.
+     *
+     * @param element Aspect
+     * @return Vector<Object>
+     */
+    protected Vector<Object> getNewRow(Aspect element) {
+        final Vector<Object> newRow = new Vector<>();
+        getNewRow(newRow, (Entrylimit) element);
+        return newRow;
+    }
+
     /**
      * Method populateDAO.
      *
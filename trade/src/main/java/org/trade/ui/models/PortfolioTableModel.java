@@ -110,6 +110,18 @@ public class PortfolioTableModel extends AspectTableModel {
         }
     }
 
+    /**
+     * Method getNewRow.
+     *
+     * @param element Aspect
+     * @return Vector<Object>
+     */
+    protected Vector<Object> getNewRow(Aspect element) {
+        final Vector<Object> newRow = new Vector<>();
+        getNewRow(newRow, (Portfolio) element);
+        return newRow;
+    }
+
     /**
      * Method populateDAO.
      *
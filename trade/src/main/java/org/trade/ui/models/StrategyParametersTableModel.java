@@ -94,6 +94,18 @@ public class StrategyParametersTableModel extends AspectTableModel {
         }
     }
 
+    /**
+     * Method getNewRow.
+     *
+     * @param element Aspect
+     * @return Vector<Object>
+     */
+    protected Vector<Object> getNewRow(Aspect element) {
+        final Vector<Object> newRow = new Vector<>();
+        getNewRow(newRow, (CodeType) element);
+        return newRow;
+    }
+
     /**
      * Method populateDAO.
      *
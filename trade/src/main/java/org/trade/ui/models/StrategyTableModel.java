@@ -111,6 +111,18 @@ public class StrategyTableModel extends AspectTableModel {
         }
     }
 
+    /**
+     * Method getNewRow.
+     *
+     * @param element Aspect
+     * @return Vector<Object>
+     */
+    protected Vector<Object> getNewRow(Aspect element) {
+        final Vector<Object> newRow = new Vector<>();
+        getNewRow(newRow, (Strategy) element);
+        return newRow;
+    }
+
     /**
      * Method populateDAO.
      *
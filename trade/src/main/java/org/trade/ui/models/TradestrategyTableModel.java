@@ -66,6 +66,8 @@ import javax.swing.*;
 import java.io.Serial;
 import java.math.BigDecimal;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 import java.util.Vector;
 
@@ -125,6 +127,7 @@ public class TradestrategyTableModel extends TableModel {
 
     private Tradingday m_data = null;
     private final Timer timer;
+    private final List<String> liveValues = new ArrayList<>();
 
     public TradestrategyTableModel() {
         super(columnHeaderToolTip);
@@ -150,18 +153,54 @@ public class TradestrategyTableModel extends TableModel {
         columnNames[18] = EXPIRY;
 
         /*
-         * Create a 5sec timer to refresh the data this is used for the % chg,
-         * strategy and status fields.
+         * Create a 5sec timer to refresh the data this is used for the % chg
+         * and status fields.
          */
-        timer = new Timer(5000, _ -> {
-            for (int i = 0; i < getRowCount(); i++) {
-                fireTableCellUpdated(i, 5);
-                fireTableCellUpdated(i, 6);
-                fireTableCellUpdated(i, 11);
-                fireTableCellUpdated(i, 12);
-                fireTableCellUpdated(i, 13);
+        timer = new Timer(5000, _ -> refreshLiveColumns());
+    }
+
+    /**
+     * Method refreshLiveColumns. Copy the % chg and status fields from the
+     * tradestrategies and fire one rows updated event for each run of rows
+     * whose values changed since the last refresh.
+     */
+    private void refreshLiveColumns() {
+
+        if (null == getData()) {
+            return;
+        }
+        List<Tradestrategy> tradestrategies = getData().getTradestrategies();
+        int count = Math.min(getRowCount(), tradestrategies.size());
+        int firstRow = -1;
+        for (int i = 0; i < count; i++) {
+            Tradestrategy element = tradestrategies.get(i);
+            Vector<Object> row = rows.get(i);
+            if (null != element.getStrategyData()) {
+                row.setElementAt(element.getStrategyData().getBaseCandleSeries().getPercentChangeFromClose(), 11);
+                row.setElementAt(element.getStrategyData().getBaseCandleSeries().getPercentChangeFromOpen(), 12);
             }
-        });
+            row.setElementAt(element.getTradestrategyStatus(), 13);
+
+            String value = row.get(11) + "|" + row.get(12) + "|" + row.get(13);
+            boolean changed = true;
+            if (i < liveValues.size()) {
+                changed = !value.equals(liveValues.get(i));
+                liveValues.set(i, value);
+            } else {
+                liveValues.add(value);
+            }
+            if (changed) {
+                if (firstRow < 0) {
+                    firstRow = i;
+                }
+            } else if (firstRow > -1) {
+                fireTableRowsUpdated(firstRow, i - 1);
+                firstRow = -1;
+            }
+        }
+        if (firstRow > -1) {
+            fireTableRowsUpdated(firstRow, count - 1);
+        }
     }
 
     /**
@@ -222,13 +261,14 @@ public class TradestrategyTableModel extends TableModel {
             timer.stop();
         this.m_data = data;
         this.clearAll();
+        this.liveValues.clear();
         if (null != getData() && null != getData().getTradestrategies() && !getData().getTradestrategies().isEmpty()) {
             for (final Tradestrategy element : getData().getTradestrategies()) {
                 final Vector<Object> newRow = new Vector<>();
                 getNewRow(newRow, element);
                 rows.add(newRow);
             }
-            fireTableDataChanged();
+            fireTableRowsInserted(0, rows.size() - 1);
         }
         timer.start();
     }
@@ -139,7 +139,7 @@ public class TradingdayTableModel extends TableModel {
                 getNewRow(newRow, element);
                 rows.add(newRow);
             }
-            fireTableDataChanged();
+            fireTableRowsInserted(0, rows.size() - 1);
         }
     }
 
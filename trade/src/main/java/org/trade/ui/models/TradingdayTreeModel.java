@@ -83,12 +83,20 @@ public class TradingdayTreeModel extends DefaultTreeModel implements Serializabl
     }
 
     /**
-     * Method buildTree.
+     * Method buildTree. The tree renderer reads the orders of each
+     * tradestrategy so every tradingday must be loaded in full, a tradingday
+     * read lite by the Tradingday Tab search is rejected.
      *
      * @param tradingdays Tradingdays
      */
     private void buildTree(Tradingdays tradingdays) {
 
+        for (Tradingday tradingday : tradingdays.getTradingdays()) {
+            if (!tradingday.isLoaded()) {
+                throw new IllegalStateException(
+                        "Tradingday: " + tradingday.getOpen() + " must be loaded before it is shown.");
+            }
+        }
         m_nodeMap.put(m_root, m_root.getRoot());
 
         tradingdays.getTradingdays().sort(Tradingday.DATE_ORDER_DESC);
@@ -43,6 +43,7 @@ import org.trade.base.ExampleFileFilter;
 import org.trade.base.FilePreviewer;
 import org.trade.base.Table;
 import org.trade.core.persistent.IPersistentModel;
+import org.trade.core.persistent.TradelogAnalytics;
 import org.trade.core.persistent.dao.Portfolio;
 import org.trade.core.persistent.dao.TradelogDetail;
 import org.trade.core.persistent.dao.TradelogReport;
@@ -78,6 +79,7 @@ import java.awt.event.MouseEvent;
 import java.io.FileWriter;
 import java.io.PrintWriter;
 import java.io.Serial;
+import java.math.BigDecimal;
 import java.time.ZonedDateTime;
 import java.util.Objects;
 import java.util.Vector;
@@ -241,11 +243,32 @@ public class PortfolioPanel extends BasePanel implements ChangeListener, ItemLis
             if (symbol.isEmpty())
                 symbol = null;
 
+            BigDecimal winLossAmount = m_lossGainAmt.getMoney().getBigDecimalValue();
             m_tradelogReport = m_tradePersistentModel.findTradelogReport(this.portfolio, startDate, endDate,
-                    filterButton.isSelected(), symbol, m_lossGainAmt.getMoney().getBigDecimalValue());
+                    filterButton.isSelected(), symbol, winLossAmount);
+
             this.clearStatusBarMessage();
+            String message = null;
             if (m_tradelogReport.getTradelogDetail().isEmpty()) {
-                this.setStatusBarMessage("No data found for selected criteria", INFORMATION);
+                message = "No data found for selected criteria";
+            }
+
+            /*
+             * The last back test run is held in memory for every portfolio and
+             * date it ran, so it is logged and shown under its own label. The
+             * summary table is only what the search found in the database.
+             */
+            TradelogAnalytics analytics = TradelogAnalytics.getInstance();
+            if (null != analytics && analytics.getPositionCount() > 0) {
+                TradelogAnalytics.Results results = analytics.compute(winLossAmount);
+                TradelogAnalytics.logResults(results);
+                String backTest = String.format("Last back test, not filtered by this search, positions: %d "
+                                + "net P&L: %.2f max drawdown: %.2f", results.total().positions(),
+                        results.total().netProfitLoss(), results.maxDrawdown());
+                message = (null == message ? backTest : message + ". " + backTest);
+            }
+            if (null != message) {
+                this.setStatusBarMessage(message, INFORMATION);
             }
 
             m_tradelogDetailModel.setData(m_tradelogReport);
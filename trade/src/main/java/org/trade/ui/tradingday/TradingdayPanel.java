@@ -82,6 +82,7 @@ import java.io.Serial;
 import java.math.BigDecimal;
 import java.text.NumberFormat;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Vector;
@@ -443,7 +444,8 @@ public class TradingdayPanel extends BasePanel {
      * this panel is opened. Note this call to the persistent layer clears the
      * entity Manager session. this is the only place in the application this
      * happens. m_tradingdays variable is common across all tabs and carries the
-     * references to all data used by the application.
+     * references to all data used by the application. The tradingdays are
+     * read lite, each one is loaded in full when it is selected or run.
      */
 
     public void doSearch() {
@@ -470,7 +472,7 @@ public class TradingdayPanel extends BasePanel {
              * search hand over the DatasetContainers. We do this as these
              * Datasets may have live data running into them.
              */
-            Tradingdays tradingdays = m_tradePersistentModel.findTradingdaysByDateRange(startDate, endDate);
+            Tradingdays tradingdays = m_tradePersistentModel.findTradingdaysLiteByDateRange(startDate, endDate);
             Tradingday todayTradingday = tradingdays.getTradingday(
                     TradingCalendar.getTradingDayStart(TradingCalendar.getDateTimeNowMarketTimeZone()),
                     TradingCalendar.getTradingDayEnd(TradingCalendar.getDateTimeNowMarketTimeZone()));
@@ -537,6 +539,7 @@ public class TradingdayPanel extends BasePanel {
                 this.setStatusBarMessage("Please save or refresh before running strategy ...\n", BasePanel.WARNING);
                 return;
             }
+            loadTradingdays();
             /*
              * Check to see if any of the selected trading days has open
              * positions. If they do kill the strategy worker before deleting
@@ -579,6 +582,36 @@ public class TradingdayPanel extends BasePanel {
         }
     }
 
+    /**
+     * Method loadTradingday. Replace a tradingday read lite by doSearch() with
+     * one that has the orders, portfolio accounts and indicator series of its
+     * tradestrategies. A tradingday with changes to save is left as it is.
+     *
+     * @param tradingday Tradingday
+     * @return Tradingday the loaded tradingday.
+     */
+    public Tradingday loadTradingday(final Tradingday tradingday) throws PersistentModelException {
+
+        if (null == tradingday || null == tradingday.getId() || tradingday.isDirty() || tradingday.isLoaded()) {
+            return tradingday;
+        }
+        Tradingday instance = m_tradePersistentModel.findTradingdayById(tradingday.getId());
+        instance.populateStrategyData(tradingday);
+        m_tradingdays.replaceTradingday(instance);
+        return instance;
+    }
+
+    /**
+     * Method loadTradingdays. Load every tradingday of the search before they
+     * are all run.
+     */
+    public void loadTradingdays() throws PersistentModelException {
+
+        for (Tradingday tradingday : new ArrayList<>(m_tradingdays.getTradingdays())) {
+            loadTradingday(tradingday);
+        }
+    }
+
     /**
      * Method doRefresh. Refresh the tradingday from the database.
      *
@@ -1149,8 +1182,8 @@ public class TradingdayPanel extends BasePanel {
                                 .getValueAt(m_tradingdayTable.convertRowIndexToModel(model.getLeadSelectionIndex()), 0);
                         Date closeDate = (Date) m_tradingdayModel
                                 .getValueAt(m_tradingdayTable.convertRowIndexToModel(model.getLeadSelectionIndex()), 1);
-                        Tradingday transferObject = m_tradingdayModel.getData()
-                                .getTradingday(openDate.getZonedDateTime(), closeDate.getZonedDateTime());
+                        Tradingday transferObject = loadTradingday(m_tradingdayModel.getData()
+                                .getTradingday(openDate.getZonedDateTime(), closeDate.getZonedDateTime()));
 
                         m_tradestrategyModel.setData(transferObject);
                         m_tradestrategyTable.enablePopupMenu(true);
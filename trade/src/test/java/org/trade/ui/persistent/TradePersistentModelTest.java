@@ -85,6 +85,7 @@ import org.trade.core.valuetype.Side;
 import org.trade.indicator.IndicatorSeries;
 import org.trade.indicator.candle.CandleItem;
 import org.trade.ui.models.TradingdayTableModel;
+import org.trade.ui.models.TradingdayTreeModel;
 import org.trade.ui.tables.TradingdayTable;
 
 import java.math.BigDecimal;
@@ -833,6 +834,20 @@ public class TradePersistentModelTest {
         assertNotNull(result);
     }
 
+    @Test
+    public void testTradingdayTreeModelRejectsLiteTradingdays() throws Exception {
+
+        ZonedDateTime open = this.tradestrategy.getTradingday().getOpen();
+        Tradingdays lite = this.tradePersistentModel.findTradingdaysLiteByDateRange(open, open);
+        assertFalse(lite.getTradingdays().isEmpty());
+        assertFalse(lite.getTradingdays().getFirst().isLoaded());
+        assertThrows(IllegalStateException.class, () -> new TradingdayTreeModel(lite));
+
+        Tradingdays result = this.tradePersistentModel.findTradingdaysByDateRange(open, open);
+        assertTrue(result.getTradingdays().getFirst().isLoaded());
+        assertNotNull(new TradingdayTreeModel(result));
+    }
+
     @Test
     public void testFindTradestrategyDistinctByDateRange() {
 